@@ -42,6 +42,7 @@ import sleeper.configuration.jars.ObjectFactory;
 import sleeper.configuration.jars.ObjectFactoryException;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.RecordBatches;
 import sleeper.core.iterator.SortedRecordIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Field;
@@ -70,6 +71,7 @@ import static sleeper.athena.metadata.SleeperMetadataHandler.RELEVANT_FILES_FIEL
 import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.CONFIG_BUCKET;
 import static sleeper.configuration.properties.table.TableProperty.ITERATOR_CLASS_NAME;
 import static sleeper.configuration.properties.table.TableProperty.ITERATOR_CONFIG;
+import static sleeper.configuration.properties.table.TableProperty.READ_AHEAD_RECORDS;
 
 /**
  * Retrieves data using Parquet's predicate pushdown, applying compaction time iterators. Searches within a single
@@ -192,7 +194,7 @@ public class IteratorApplyingRecordHandler extends SleeperRecordHandler {
         FilterPredicate filterPredicate = FilterTranslator.and(filterTranslator.toPredicate(valueSets), createFilter(schema, minRowKeys, maxRowKeys));
         Configuration conf = getConfigurationForTable(tableProperties);
 
-        LeafPartitionRecordRetrieverImpl recordRetriever = new LeafPartitionRecordRetrieverImpl(executorService, conf);
+        LeafPartitionRecordRetrieverImpl recordRetriever = new LeafPartitionRecordRetrieverImpl(executorService, conf, tableProperties.getInt(READ_AHEAD_RECORDS));
 
         CloseableIterator<Record> iterator = recordRetriever.getRecords(new ArrayList<>(relevantFiles), schema, filterPredicate);
 
@@ -261,7 +263,7 @@ public class IteratorApplyingRecordHandler extends SleeperRecordHandler {
         SortedRecordIterator sortedRecordIterator = objectFactory.getObject(iteratorClass, SortedRecordIterator.class);
         sortedRecordIterator.init(iteratorConfig, schema);
         LOGGER.debug("Initialised iterator with config " + iteratorConfig);
-        return sortedRecordIterator.apply(mergingIterator);
+        return RecordBatches.applyIterator(sortedRecordIterator, mergingIterator);
 
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.benchmarks;
+
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordComparator;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates schemas and records for benchmarks. Records are generated from a fixed seed, so that results are
+ * comparable between runs and between commits.
+ */
+public class BenchmarkData {
+
+    public static final long SEED = 42L;
+    public static final int DISTINCT_SORT_VALUES = 1000;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates the schema used by most benchmarks. This has a long row key, a string sort key, and a long and a string
+     * value field.
+     *
+     * @return the schema
+     */
+    public static Schema schema() {
+        return Schema.builder()
+                .rowKeyFields(new Field("key", new LongType()))
+                .sortKeyFields(new Field("sort", new StringType()))
+                .valueFields(
+                        new Field("count", new LongType()),
+                        new Field("value", new StringType()))
+                .build();
+    }
+
+    /**
+     * Generates random records for the schema.
+     *
+     * @param  numRecords the number of records
+     * @param  seed       the seed for the random values
+     * @return            the records, in no particular order
+     */
+    public static List<Record> records(int numRecords, long seed) {
+        Random random = new Random(seed);
+        List<Record> records = new ArrayList<>(numRecords);
+        for (int i = 0; i < numRecords; i++) {
+            Record record = new Record();
+            record.put("key", random.nextLong());
+            record.put("sort", "sort-" + random.nextInt(DISTINCT_SORT_VALUES));
+            record.put("count", (long) i);
+            record.put("value", "value-" + random.nextInt());
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Generates random records for the schema, sorted by row key and sort key.
+     *
+     * @param  numRecords the number of records
+     * @param  seed       the seed for the random values
+     * @return            the records, in sorted order
+     */
+    public static List<Record> sortedRecords(int numRecords, long seed) {
+        List<Record> records = records(numRecords, seed);
+        records.sort(new RecordComparator(schema()));
+        return records;
+    }
+}
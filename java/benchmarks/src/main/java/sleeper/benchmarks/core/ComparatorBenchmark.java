@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sleeper.benchmarks.BenchmarkData;
+import sleeper.core.key.Key;
+import sleeper.core.key.KeyEncoder;
+import sleeper.core.record.KeyComparator;
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordComparator;
+import sleeper.core.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures comparisons of keys and records by row key and sort key. Comparisons are made between consecutive
+ * elements of a list of random values, and sorting measures the comparator as used when sorting a batch in ingest.
+ * Encoded keys hold the row key and sort key, so they are compared in the same way as records.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ComparatorBenchmark {
+    private static final int NUM_RECORDS = 10_000;
+
+    private List<Record> records;
+    private List<Key> keys;
+    private List<byte[]> encodedKeys;
+    private RecordComparator recordComparator;
+    private KeyComparator keyComparator;
+
+    @Setup
+    public void setUp() {
+        Schema schema = BenchmarkData.schema();
+        records = BenchmarkData.records(NUM_RECORDS, BenchmarkData.SEED);
+        keys = new ArrayList<>(NUM_RECORDS);
+        for (Record record : records) {
+            keys.add(record.getRowKeys(schema));
+        }
+        KeyEncoder encoder = KeyEncoder.forRowAndSortKeys(schema);
+        encodedKeys = new ArrayList<>(NUM_RECORDS);
+        for (Record record : records) {
+            encodedKeys.add(encoder.encode(record));
+        }
+        recordComparator = new RecordComparator(schema);
+        keyComparator = new KeyComparator(schema.getRowKeyTypes());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS - 1)
+    public int compareKeys() {
+        int result = 0;
+        for (int i = 1; i < NUM_RECORDS; i++) {
+            result += keyComparator.compare(keys.get(i - 1), keys.get(i));
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS - 1)
+    public int compareRecords() {
+        int result = 0;
+        for (int i = 1; i < NUM_RECORDS; i++) {
+            result += recordComparator.compare(records.get(i - 1), records.get(i));
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS - 1)
+    public int compareEncodedKeys() {
+        int result = 0;
+        for (int i = 1; i < NUM_RECORDS; i++) {
+            result += KeyEncoder.compare(encodedKeys.get(i - 1), encodedKeys.get(i));
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS)
+    public List<Record> sortRecords() {
+        List<Record> sorted = new ArrayList<>(records);
+        sorted.sort(recordComparator);
+        return sorted;
+    }
+}
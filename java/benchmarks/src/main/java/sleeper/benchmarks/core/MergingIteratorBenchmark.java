@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sleeper.benchmarks.BenchmarkData;
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.MergingIterator;
+import sleeper.core.iterator.WrappedIterator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to merge sorted inputs, as in a compaction or when reading a partition in a query. The total
+ * number of records is fixed, so results show the cost of merging more inputs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class MergingIteratorBenchmark {
+    private static final int TOTAL_RECORDS = 100_000;
+
+    @Param({"2", "10", "100"})
+    public int numInputs;
+
+    private Schema schema;
+    private List<List<Record>> inputs;
+
+    @Setup
+    public void setUp() {
+        schema = BenchmarkData.schema();
+        inputs = new ArrayList<>(numInputs);
+        for (int i = 0; i < numInputs; i++) {
+            inputs.add(BenchmarkData.sortedRecords(TOTAL_RECORDS / numInputs, BenchmarkData.SEED + i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TOTAL_RECORDS)
+    public void mergeRecords(Blackhole blackhole) throws IOException {
+        List<CloseableIterator<Record>> iterators = new ArrayList<>(numInputs);
+        for (List<Record> input : inputs) {
+            iterators.add(new WrappedIterator<>(input.iterator()));
+        }
+        try (MergingIterator iterator = new MergingIterator(schema, iterators)) {
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+            }
+        }
+    }
+}
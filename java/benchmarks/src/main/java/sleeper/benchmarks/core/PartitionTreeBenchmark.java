@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sleeper.benchmarks.BenchmarkData;
+import sleeper.core.key.Key;
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.partition.PartitionsFromSplitPoints;
+import sleeper.core.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures finding the leaf partition for a row key, as done for every record during ingest. The partition tree is
+ * built from evenly spaced split points, and looked up with random keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class PartitionTreeBenchmark {
+    private static final int NUM_KEYS = 10_000;
+    private static final long SPLIT_POINT_SPACING = 1000L;
+
+    @Param({"10", "1000", "100000"})
+    public int numLeafPartitions;
+
+    private Schema schema;
+    private PartitionTree tree;
+    private List<Key> keys;
+
+    @Setup
+    public void setUp() {
+        schema = BenchmarkData.schema();
+        List<Object> splitPoints = new ArrayList<>(numLeafPartitions - 1);
+        for (int i = 1; i < numLeafPartitions; i++) {
+            splitPoints.add(i * SPLIT_POINT_SPACING);
+        }
+        tree = PartitionsFromSplitPoints.treeFrom(schema, splitPoints);
+        Random random = new Random(BenchmarkData.SEED);
+        long maxKey = numLeafPartitions * SPLIT_POINT_SPACING;
+        keys = new ArrayList<>(NUM_KEYS);
+        for (int i = 0; i < NUM_KEYS; i++) {
+            keys.add(Key.create(Math.floorMod(random.nextLong(), maxKey)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_KEYS)
+    public void getLeafPartition(Blackhole blackhole) {
+        for (Key key : keys) {
+            blackhole.consume(tree.getLeafPartition(schema, key));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sleeper.benchmarks.BenchmarkData;
+import sleeper.core.record.Record;
+import sleeper.core.record.serialiser.ByteBufferRecordSerialiser;
+import sleeper.core.record.serialiser.RecordSerialiser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialising and deserialising individual records to and from byte arrays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class RecordSerialiserBenchmark {
+    private static final int NUM_RECORDS = 10_000;
+
+    private RecordSerialiser serialiser;
+    private ByteBufferRecordSerialiser bufferSerialiser;
+    private ByteBuffer buffer;
+    private List<Record> records;
+    private List<byte[]> serialised;
+
+    @Setup
+    public void setUp() throws IOException {
+        serialiser = new RecordSerialiser(BenchmarkData.schema());
+        records = BenchmarkData.records(NUM_RECORDS, BenchmarkData.SEED);
+        bufferSerialiser = new ByteBufferRecordSerialiser(BenchmarkData.schema());
+        buffer = ByteBuffer.allocateDirect(64 * 1024);
+        serialised = new ArrayList<>(NUM_RECORDS);
+        for (Record record : records) {
+            serialised.add(serialiser.serialise(record));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS)
+    public void serialise(Blackhole blackhole) throws IOException {
+        for (Record record : records) {
+            blackhole.consume(serialiser.serialise(record));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS)
+    public void deserialise(Blackhole blackhole) throws IOException {
+        for (byte[] bytes : serialised) {
+            blackhole.consume(serialiser.deserialise(bytes));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS)
+    public void serialiseToReusedBuffer(Blackhole blackhole) throws IOException {
+        for (Record record : records) {
+            buffer.clear();
+            bufferSerialiser.write(record, buffer);
+            blackhole.consume(buffer.position());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS)
+    public void readKeyLazily(Blackhole blackhole) {
+        for (byte[] bytes : serialised) {
+            blackhole.consume(bufferSerialiser.readLazily(ByteBuffer.wrap(bytes)).get(0));
+        }
+    }
+}
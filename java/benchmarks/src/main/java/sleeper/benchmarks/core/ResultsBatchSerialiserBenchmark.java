@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.benchmarks.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sleeper.benchmarks.BenchmarkData;
+import sleeper.core.record.ResultsBatch;
+import sleeper.core.record.serialiser.JSONResultsBatchSerialiser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialising and deserialising batches of query results as JSON, as sent to clients over a websocket.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ResultsBatchSerialiserBenchmark {
+
+    @Param({"100", "10000"})
+    public int batchSize;
+
+    private JSONResultsBatchSerialiser serialiser;
+    private ResultsBatch batch;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        serialiser = new JSONResultsBatchSerialiser();
+        batch = new ResultsBatch("query-id", BenchmarkData.schema(),
+                BenchmarkData.records(batchSize, BenchmarkData.SEED));
+        json = serialiser.serialise(batch);
+    }
+
+    @Benchmark
+    public String serialise() {
+        return serialiser.serialise(batch);
+    }
+
+    @Benchmark
+    public ResultsBatch deserialise() {
+        return serialiser.deserialise(json);
+    }
+}
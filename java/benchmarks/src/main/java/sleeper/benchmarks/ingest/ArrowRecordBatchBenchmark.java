@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.benchmarks.ingest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sleeper.benchmarks.BenchmarkData;
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.record.Record;
+import sleeper.ingest.impl.recordbatch.RecordBatch;
+import sleeper.ingest.impl.recordbatch.arrow.ArrowRecordBatchFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ingesting records into an Arrow record batch, then reading them back in sorted order. The batch buffer size
+ * controls how many times the batch is sorted and spilled to a local file, and so how many files are merged when
+ * reading back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ArrowRecordBatchBenchmark {
+    private static final int NUM_RECORDS = 100_000;
+
+    @Param({"1048576", "67108864"})
+    public long batchBufferBytes;
+
+    private List<Record> records;
+    private Path localDir;
+    private ArrowRecordBatchFactory<Record> factory;
+
+    @Setup
+    public void setUp() throws IOException {
+        records = BenchmarkData.records(NUM_RECORDS, BenchmarkData.SEED);
+        localDir = Files.createTempDirectory("arrow-benchmark");
+        factory = ArrowRecordBatchFactory.builder()
+                .schema(BenchmarkData.schema())
+                .localWorkingDirectory(localDir.toString())
+                .workingBufferAllocatorBytes(64 * 1024 * 1024L)
+                .batchBufferAllocatorBytes(batchBufferBytes)
+                .maxNoOfBytesToWriteLocally(Long.MAX_VALUE)
+                .maxNoOfRecordsToWriteToArrowFileAtOnce(1024)
+                .buildAcceptingRecords();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        factory.close();
+        Files.deleteIfExists(localDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS)
+    public void sortAndSpill(Blackhole blackhole) throws IOException {
+        try (RecordBatch<Record> batch = factory.createRecordBatch()) {
+            for (Record record : records) {
+                batch.append(record);
+            }
+            // The iterator is closed when the batch is closed
+            CloseableIterator<Record> iterator = batch.createOrderedRecordIterator();
+            while (iterator.hasNext()) {
+                blackhole.consume(iterator.next());
+            }
+        }
+    }
+}
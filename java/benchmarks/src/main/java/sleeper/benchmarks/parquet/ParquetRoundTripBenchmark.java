@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.benchmarks.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import sleeper.benchmarks.BenchmarkData;
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Schema;
+import sleeper.io.parquet.record.ParquetRecordReader;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading a Parquet file of sorted records on the local file system, with the default table
+ * properties. This covers conversion between Sleeper records and Parquet, as well as encoding and compression.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ParquetRoundTripBenchmark {
+    private static final int NUM_RECORDS = 100_000;
+
+    private Schema schema;
+    private TableProperties tableProperties;
+    private Configuration conf;
+    private List<Record> records;
+    private java.nio.file.Path tempDir;
+    private Path writePath;
+    private Path readPath;
+
+    @Setup
+    public void setUp() throws IOException {
+        schema = BenchmarkData.schema();
+        tableProperties = new TableProperties(new InstanceProperties());
+        tableProperties.setSchema(schema);
+        conf = new Configuration();
+        records = BenchmarkData.sortedRecords(NUM_RECORDS, BenchmarkData.SEED);
+        tempDir = Files.createTempDirectory("parquet-benchmark");
+        writePath = new Path(tempDir.resolve("write.parquet").toString());
+        readPath = new Path(tempDir.resolve("read.parquet").toString());
+        writeRecords(readPath);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystem.getLocal(conf).delete(new Path(tempDir.toString()), true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS)
+    public void writeFile() throws IOException {
+        writeRecords(writePath);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS)
+    public void readFile(Blackhole blackhole) throws IOException {
+        try (ParquetReader<Record> reader = new ParquetRecordReader(readPath, schema)) {
+            for (Record record = reader.read(); record != null; record = reader.read()) {
+                blackhole.consume(record);
+            }
+        }
+    }
+
+    private void writeRecords(Path path) throws IOException {
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(
+                path, tableProperties, conf, ParquetFileWriter.Mode.OVERWRITE)) {
+            for (Record record : records) {
+                writer.write(record);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.benchmarks.sketches;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sleeper.benchmarks.BenchmarkData;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Schema;
+import sleeper.sketches.Sketches;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures updating the quantiles sketches for the row keys of records, as done for every record written to a file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class SketchesBenchmark {
+    private static final int NUM_RECORDS = 100_000;
+
+    private Schema schema;
+    private List<Record> records;
+
+    @Setup
+    public void setUp() {
+        schema = BenchmarkData.schema();
+        records = BenchmarkData.records(NUM_RECORDS, BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_RECORDS)
+    public Sketches update() {
+        Sketches sketches = Sketches.from(schema);
+        for (Record record : records) {
+            sketches.update(schema, record);
+        }
+        return sketches;
+    }
+}
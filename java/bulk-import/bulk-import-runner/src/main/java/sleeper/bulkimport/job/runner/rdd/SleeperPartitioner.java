@@ -24,7 +24,6 @@ import sleeper.core.partition.PartitionTree;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.SchemaSerDe;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,7 +40,6 @@ public class SleeperPartitioner extends Partitioner {
     private final Broadcast<List<Partition>> broadcastPartitions;
     private transient Schema schema;
     private final String schemaAsString;
-    private transient int numRowKeyFields;
     private transient PartitionTree partitionTree;
     private transient int numLeafPartitions;
     private transient Map<String, Integer> partitionIdToInt;
@@ -53,7 +51,6 @@ public class SleeperPartitioner extends Partitioner {
 
     private void init() {
         schema = new SchemaSerDe().fromJson(schemaAsString);
-        numRowKeyFields = schema.getRowKeyFields().size();
         List<Partition> partitions = broadcastPartitions.getValue();
         partitionTree = new PartitionTree(partitions);
         numLeafPartitions = (int) partitions.stream().filter(Partition::isLeafPartition).count();
@@ -84,12 +81,7 @@ public class SleeperPartitioner extends Partitioner {
             init();
         }
         Key key = (Key) obj;
-        List<Object> rowKeys = new ArrayList<>(numRowKeyFields);
-        for (int i = 0; i < numRowKeyFields; i++) {
-            rowKeys.add(key.get(i));
-        }
-        Key rowKey = Key.create(rowKeys);
-        String partitionId = partitionTree.getLeafPartition(schema, rowKey).getId();
+        String partitionId = partitionTree.getLeafPartitionForKeyPrefix(schema, key).getId();
         int partitionAsInt = partitionIdToInt.get(partitionId);
         return partitionAsInt;
     }
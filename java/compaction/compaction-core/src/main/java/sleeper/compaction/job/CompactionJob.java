@@ -17,14 +17,21 @@ package sleeper.compaction.job;
 
 import sleeper.core.statestore.FileReference;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
  * Contains the definition of a compaction job. This includes the ID of the job,
  * a list of the input files, the output file, and the ID of the partition.
  * <p>
+ * A job may instead split its output between the leaf partitions beneath its partition, with one output file for each
+ * leaf partition. This is used to compact files in a partition which has been split, so that the records are read
+ * once rather than once for each child partition.
+ * <p>
  * This should fully define the job to be performed, so that no further queries of
  * the state store should be required in order to start it.
  */
@@ -36,6 +43,7 @@ public class CompactionJob {
     private final String partitionId;
     private final String iteratorClassName;
     private final String iteratorConfig;
+    private final Map<String, String> leafPartitionOutputFiles;
 
     private CompactionJob(Builder builder) {
         tableId = Objects.requireNonNull(builder.tableId, "tableId must not be null");
@@ -45,7 +53,9 @@ public class CompactionJob {
         partitionId = Objects.requireNonNull(builder.partitionId, "partitionId must not be null");
         iteratorClassName = builder.iteratorClassName;
         iteratorConfig = builder.iteratorConfig;
+        leafPartitionOutputFiles = Collections.unmodifiableMap(new TreeMap<>(builder.leafPartitionOutputFiles));
         checkDuplicates(inputFiles);
+        checkDuplicates(List.copyOf(leafPartitionOutputFiles.values()));
     }
 
     public static Builder builder() {
@@ -95,6 +105,20 @@ public class CompactionJob {
         return iteratorConfig;
     }
 
+    /**
+     * Retrieves the output file for each leaf partition, if this job splits its output between the leaf partitions
+     * beneath its partition. If this is empty, the job writes to the single output file.
+     *
+     * @return a map from the leaf partition ID to the output file
+     */
+    public Map<String, String> getLeafPartitionOutputFiles() {
+        return leafPartitionOutputFiles;
+    }
+
+    public boolean isSplittingOutput() {
+        return !leafPartitionOutputFiles.isEmpty();
+    }
+
     @Override
     public boolean equals(Object object) {
         if (this == object) {
@@ -107,13 +131,14 @@ public class CompactionJob {
         return Objects.equals(tableId, that.tableId) && Objects.equals(jobId, that.jobId)
                 && Objects.equals(inputFiles, that.inputFiles) && Objects.equals(outputFile, that.outputFile)
                 && Objects.equals(partitionId, that.partitionId) && Objects.equals(iteratorClassName, that.iteratorClassName)
-                && Objects.equals(iteratorConfig, that.iteratorConfig);
+                && Objects.equals(iteratorConfig, that.iteratorConfig)
+                && Objects.equals(leafPartitionOutputFiles, that.leafPartitionOutputFiles);
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(tableId, jobId, inputFiles, outputFile, partitionId,
-                iteratorClassName, iteratorConfig);
+                iteratorClassName, iteratorConfig, leafPartitionOutputFiles);
     }
 
     @Override
@@ -126,6 +151,7 @@ public class CompactionJob {
                 ", partitionId='" + partitionId + '\'' +
                 ", iteratorClassName='" + iteratorClassName + '\'' +
                 ", iteratorConfig='" + iteratorConfig + '\'' +
+                ", leafPartitionOutputFiles=" + leafPartitionOutputFiles +
                 '}';
     }
 
@@ -137,6 +163,7 @@ public class CompactionJob {
         private String partitionId;
         private String iteratorClassName;
         private String iteratorConfig;
+        private Map<String, String> leafPartitionOutputFiles = Map.of();
 
         private Builder() {
         }
@@ -182,6 +209,11 @@ public class CompactionJob {
             return this;
         }
 
+        public Builder leafPartitionOutputFiles(Map<String, String> leafPartitionOutputFiles) {
+            this.leafPartitionOutputFiles = leafPartitionOutputFiles;
+            return this;
+        }
+
         public CompactionJob build() {
             return new CompactionJob(this);
         }
@@ -22,7 +22,9 @@ import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.core.statestore.FileReference;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.function.Supplier;
 
@@ -55,7 +57,7 @@ public class CompactionJobFactory {
 
     public CompactionJob createCompactionJob(
             List<FileReference> files, String partition) {
-        CompactionJob job = createCompactionJobBuilder(files, partition).build();
+        CompactionJob job = createCompactionJobBuilder(files, partition, jobIdSupplier.get()).build();
 
         LOGGER.info("Created compaction job of id {} to compact {} files in partition {} to output file {}",
                 job.getId(), files.size(), partition, job.getOutputFile());
@@ -63,7 +65,33 @@ public class CompactionJobFactory {
         return job;
     }
 
-    private CompactionJob.Builder createCompactionJobBuilder(List<FileReference> files, String partition) {
+    /**
+     * Creates a compaction job which splits its output between the leaf partitions beneath a partition. This writes
+     * one output file for each leaf partition, so that files in a partition which has been split are only read once.
+     *
+     * @param  files            the input files, referenced in the partition
+     * @param  partition        the ID of the partition
+     * @param  leafPartitionIds the IDs of the leaf partitions beneath the partition
+     * @return                  the compaction job
+     */
+    public CompactionJob createSplittingCompactionJob(
+            List<FileReference> files, String partition, List<String> leafPartitionIds) {
+        String jobId = jobIdSupplier.get();
+        Map<String, String> leafPartitionOutputFiles = new LinkedHashMap<>();
+        for (String leafPartitionId : leafPartitionIds) {
+            leafPartitionOutputFiles.put(leafPartitionId, fileNameFactory.jobPartitionFile(jobId, leafPartitionId));
+        }
+        CompactionJob job = createCompactionJobBuilder(files, partition, jobId)
+                .leafPartitionOutputFiles(leafPartitionOutputFiles)
+                .build();
+
+        LOGGER.info("Created compaction job of id {} to compact {} files in partition {} to output files in leaf partitions {}",
+                job.getId(), files.size(), partition, leafPartitionIds);
+
+        return job;
+    }
+
+    private CompactionJob.Builder createCompactionJobBuilder(List<FileReference> files, String partition, String jobId) {
         for (FileReference fileReference : files) {
             if (!partition.equals(fileReference.getPartitionId())) {
                 throw new IllegalArgumentException("Found file with partition which is different to the provided partition (partition = "
@@ -71,7 +99,6 @@ public class CompactionJobFactory {
             }
         }
 
-        String jobId = jobIdSupplier.get();
         String outputFile = fileNameFactory.jobPartitionFile(jobId, partition);
         return CompactionJob.builder()
                 .tableId(tableId)
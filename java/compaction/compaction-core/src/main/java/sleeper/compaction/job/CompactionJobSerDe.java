@@ -23,7 +23,9 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Serialises and deserialises a compaction job to and from a JSON string.
@@ -56,6 +58,11 @@ public class CompactionJobSerDe {
             dos.writeUTF(compactionJob.getIteratorConfig());
         }
         dos.writeUTF(compactionJob.getOutputFile());
+        dos.writeInt(compactionJob.getLeafPartitionOutputFiles().size());
+        for (Map.Entry<String, String> entry : compactionJob.getLeafPartitionOutputFiles().entrySet()) {
+            dos.writeUTF(entry.getKey());
+            dos.writeUTF(entry.getValue());
+        }
         dos.close();
 
         return Base64.encodeBase64String(baos.toByteArray());
@@ -79,6 +86,15 @@ public class CompactionJobSerDe {
                 .iteratorClassName(!dis.readBoolean() ? dis.readUTF() : null)
                 .iteratorConfig(!dis.readBoolean() ? dis.readUTF() : null);
         compactionJobBuilder.outputFile(dis.readUTF());
+        // Jobs serialised before output could be split between leaf partitions end here
+        if (dis.available() > 0) {
+            int numLeafPartitions = dis.readInt();
+            Map<String, String> leafPartitionOutputFiles = new LinkedHashMap<>(numLeafPartitions);
+            for (int i = 0; i < numLeafPartitions; i++) {
+                leafPartitionOutputFiles.put(dis.readUTF(), dis.readUTF());
+            }
+            compactionJobBuilder.leafPartitionOutputFiles(leafPartitionOutputFiles);
+        }
         dis.close();
         return compactionJobBuilder.build();
     }
@@ -26,6 +26,7 @@ import sleeper.core.schema.type.StringType;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static sleeper.configuration.properties.InstancePropertiesTestHelper.createTestInstanceProperties;
@@ -88,4 +89,24 @@ public class CompactionJobSerDeTest {
         // Then
         assertThat(deserialisedCompactionJob).isEqualTo(compactionJob);
     }
+
+    @Test
+    public void shouldSerDeCorrectlyForJobSplittingOutputBetweenLeafPartitions() throws IOException {
+        // Given
+        CompactionJob compactionJob = jobForTable()
+                .jobId("compactionJob-1")
+                .inputFiles(Arrays.asList("file1", "file2"))
+                .outputFile("outputfile")
+                .partitionId("root")
+                .leafPartitionOutputFiles(Map.of("L", "outputfile-L", "R", "outputfile-R"))
+                .build();
+        tableProperties.setSchema(schemaWithStringKey());
+
+        // When
+        CompactionJob deserialisedCompactionJob = CompactionJobSerDe.deserialiseFromString(CompactionJobSerDe.serialiseToString(compactionJob));
+
+        // Then
+        assertThat(deserialisedCompactionJob).isEqualTo(compactionJob);
+        assertThat(deserialisedCompactionJob.isSplittingOutput()).isTrue();
+    }
 }
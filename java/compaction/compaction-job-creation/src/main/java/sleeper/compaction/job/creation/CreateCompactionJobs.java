@@ -29,6 +29,7 @@ import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.core.partition.Partition;
+import sleeper.core.partition.PartitionTree;
 import sleeper.core.statestore.FileReference;
 import sleeper.core.statestore.SplitFileReferences;
 import sleeper.core.statestore.StateStore;
@@ -47,6 +48,8 @@ import java.util.stream.Collectors;
 
 import static sleeper.configuration.properties.table.TableProperty.COMPACTION_FILES_BATCH_SIZE;
 import static sleeper.configuration.properties.table.TableProperty.COMPACTION_JOB_SEND_BATCH_SIZE;
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_SPLIT_ON_WRITE;
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_SPLIT_ON_WRITE_MAX_LEAF_PARTITIONS;
 import static sleeper.configuration.properties.table.TableProperty.COMPACTION_STRATEGY_CLASS;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
 import static sleeper.core.statestore.AssignJobIdRequest.assignJobOnPartitionToFiles;
@@ -57,6 +60,9 @@ import static sleeper.core.util.SplitIntoBatches.splitListIntoBatchesOf;
  * <p>- Queries the {@link StateStore} for active files which do not have a job id.
  * <p>- Groups these by partition.
  * <p>- For each partition, uses the configurable {@link CompactionStrategy} to decide what compaction jobs to create.
+ * <p>- If the table is set to split on write, files in partitions which have been split are compacted into one file for
+ * each leaf partition beneath them, up to a maximum number of leaf partitions. Otherwise, references to those files are
+ * first created in the child partitions.
  * <p>- These compaction jobs are then sent to SQS.
  */
 public class CreateCompactionJobs {
@@ -118,12 +124,46 @@ public class CreateCompactionJobs {
     }
 
     private void createJobs(TableProperties table) throws StateStoreException, IOException, ObjectFactoryException {
-        LOGGER.info("Performing pre-splits on files in {}", table.getStatus());
         StateStore stateStore = stateStoreProvider.getStateStore(table);
+        if (table.getBoolean(COMPACTION_SPLIT_ON_WRITE)) {
+            createSplittingJobs(table, stateStore);
+        }
+        LOGGER.info("Performing pre-splits on files in {}", table.getStatus());
         SplitFileReferences.from(stateStore).split();
         createJobsForTable(table, stateStore);
     }
 
+    private void createSplittingJobs(TableProperties tableProperties, StateStore stateStore) throws StateStoreException, IOException {
+        PartitionTree partitionTree = new PartitionTree(stateStore.getAllPartitions());
+        Map<String, List<FileReference>> filesByPartitionId = stateStore.getFileReferencesWithNoJobId().stream()
+                .filter(file -> !partitionTree.getPartition(file.getPartitionId()).isLeafPartition())
+                .collect(Collectors.groupingBy(FileReference::getPartitionId));
+        int batchSize = tableProperties.getInt(COMPACTION_FILES_BATCH_SIZE);
+        int maxLeafPartitions = tableProperties.getInt(COMPACTION_SPLIT_ON_WRITE_MAX_LEAF_PARTITIONS);
+        CompactionJobFactory factory = new CompactionJobFactory(instanceProperties, tableProperties);
+        List<CompactionJob> compactionJobs = new ArrayList<>();
+        for (Map.Entry<String, List<FileReference>> entry : filesByPartitionId.entrySet()) {
+            List<String> leafPartitionIds = partitionTree.getLeafPartitionsUnder(entry.getKey()).stream()
+                    .map(Partition::getId)
+                    .collect(Collectors.toList());
+            if (leafPartitionIds.size() > maxLeafPartitions) {
+                // These files will be pre-split instead
+                LOGGER.info("Not splitting on write for partition {} in table {}, as it has {} leaf partitions beneath it, more than the maximum of {}",
+                        entry.getKey(), tableProperties.getStatus(), leafPartitionIds.size(), maxLeafPartitions);
+                continue;
+            }
+            for (List<FileReference> files : splitListIntoBatchesOf(batchSize, entry.getValue())) {
+                compactionJobs.add(factory.createSplittingCompactionJob(files, entry.getKey(), leafPartitionIds));
+            }
+        }
+        LOGGER.info("Created {} compaction jobs to split files in non-leaf partitions for table {}",
+                compactionJobs.size(), tableProperties.getStatus());
+        int sendBatchSize = tableProperties.getInt(COMPACTION_JOB_SEND_BATCH_SIZE);
+        for (List<CompactionJob> batch : splitListIntoBatchesOf(sendBatchSize, compactionJobs)) {
+            batchCreateJobs(stateStore, batch);
+        }
+    }
+
     private void createJobsForTable(TableProperties tableProperties, StateStore stateStore) throws StateStoreException, IOException, ObjectFactoryException {
         TableStatus table = tableProperties.getStatus();
         LOGGER.debug("Creating jobs for table {}", table);
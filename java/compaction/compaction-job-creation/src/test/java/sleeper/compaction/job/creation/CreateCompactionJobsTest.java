@@ -50,6 +50,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static sleeper.compaction.job.CompactionJobStatusTestData.jobCreated;
 import static sleeper.configuration.properties.table.TableProperty.COMPACTION_FILES_BATCH_SIZE;
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_SPLIT_ON_WRITE;
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_SPLIT_ON_WRITE_MAX_LEAF_PARTITIONS;
 import static sleeper.configuration.properties.table.TableProperty.COMPACTION_STRATEGY_CLASS;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_ID;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
@@ -195,6 +197,76 @@ public class CreateCompactionJobsTest {
             });
         }
 
+        @Test
+        public void shouldCreateCompactionJobSplittingOutputWhenSplittingOnWrite() throws Exception {
+            // Given
+            tableProperties.set(COMPACTION_SPLIT_ON_WRITE, "true");
+            stateStore.initialise(new PartitionsBuilder(schema)
+                    .rootFirst("A")
+                    .splitToNewChildren("A", "B", "C", "ddd")
+                    .buildList());
+            FileReferenceFactory factory = FileReferenceFactory.fromUpdatedAt(stateStore, DEFAULT_UPDATE_TIME);
+            FileReference fileReference1 = factory.partitionFile("A", "file1", 200L);
+            FileReference fileReference2 = factory.partitionFile("A", "file2", 200L);
+            stateStore.addFiles(List.of(fileReference1, fileReference2));
+
+            // When
+            createJobs(Mode.STRATEGY);
+
+            // Then
+            assertThat(jobs).singleElement().satisfies(job -> {
+                assertThat(job).isEqualTo(CompactionJob.builder()
+                        .jobId(job.getId())
+                        .tableId(tableProperties.get(TABLE_ID))
+                        .inputFiles(List.of("file1", "file2"))
+                        .outputFile(job.getOutputFile())
+                        .partitionId("A")
+                        .leafPartitionOutputFiles(job.getLeafPartitionOutputFiles())
+                        .build());
+                assertThat(job.getLeafPartitionOutputFiles()).containsOnlyKeys("B", "C");
+                assertThat(stateStore.getFileReferences())
+                        .containsExactlyInAnyOrder(
+                                withJobId(fileReference1, job.getId()),
+                                withJobId(fileReference2, job.getId()));
+                verifyJobCreationReported(job);
+            });
+        }
+
+        @Test
+        public void shouldPreSplitFilesWhenSplittingOnWriteWithTooManyLeafPartitions() throws Exception {
+            // Given
+            tableProperties.set(COMPACTION_SPLIT_ON_WRITE, "true");
+            tableProperties.setNumber(COMPACTION_SPLIT_ON_WRITE_MAX_LEAF_PARTITIONS, 1);
+            stateStore.initialise(new PartitionsBuilder(schema)
+                    .rootFirst("A")
+                    .splitToNewChildren("A", "B", "C", "ddd")
+                    .buildList());
+            FileReferenceFactory factory = FileReferenceFactory.fromUpdatedAt(stateStore, DEFAULT_UPDATE_TIME);
+            FileReference fileReference1 = factory.partitionFile("A", "file1", 200L);
+            FileReference fileReference2 = factory.partitionFile("A", "file2", 200L);
+            stateStore.addFiles(List.of(fileReference1, fileReference2));
+
+            // When
+            createJobs(Mode.STRATEGY);
+
+            // Then
+            assertThat(jobs).satisfiesExactlyInAnyOrder(job -> {
+                assertThat(job.getPartitionId()).isEqualTo("B");
+                assertThat(job.getLeafPartitionOutputFiles()).isNullOrEmpty();
+                assertThat(stateStore.getFileReferences())
+                        .contains(
+                                withJobId(referenceForChildPartition(fileReference1, "B"), job.getId()),
+                                withJobId(referenceForChildPartition(fileReference2, "B"), job.getId()));
+            }, job -> {
+                assertThat(job.getPartitionId()).isEqualTo("C");
+                assertThat(job.getLeafPartitionOutputFiles()).isNullOrEmpty();
+                assertThat(stateStore.getFileReferences())
+                        .contains(
+                                withJobId(referenceForChildPartition(fileReference1, "C"), job.getId()),
+                                withJobId(referenceForChildPartition(fileReference2, "C"), job.getId()));
+            });
+        }
+
         @Test
         public void shouldCreateCompactionJobsToConvertSplitFilesToWholeFiles() throws Exception {
             // Given
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.compaction.job.CompactionJob;
+import sleeper.compaction.job.execution.arrow.ArrowBatch;
+import sleeper.compaction.job.execution.arrow.ArrowBatchReader;
+import sleeper.compaction.job.execution.arrow.ArrowBatchWriter;
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.configuration.properties.table.TablePropertiesProvider;
+import sleeper.core.partition.Partition;
+import sleeper.core.record.IndexedRecord;
+import sleeper.core.record.IndexedRecordComparator;
+import sleeper.core.record.RecordLayout;
+import sleeper.core.record.process.RecordsProcessed;
+import sleeper.core.schema.Schema;
+import sleeper.core.statestore.StateStore;
+import sleeper.core.statestore.StateStoreException;
+import sleeper.io.parquet.utils.HadoopConfigurationProvider;
+import sleeper.io.parquet.utils.RangeQueryUtils;
+import sleeper.sketches.Sketches;
+import sleeper.sketches.s3.SketchesSerDeToS3;
+import sleeper.statestore.StateStoreProvider;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+import static sleeper.sketches.s3.SketchesSerDeToS3.sketchesPathForDataFile;
+
+/**
+ * Executes a compaction job by reading the input files into Arrow column batches. Rows are merged by comparing only
+ * the row and sort keys, and each row is written by copying its values from the batch it was read into. This avoids
+ * creating a Sleeper record for every row.
+ * <p>
+ * This produces the same output file, sketches and state store update as {@link CompactSortedFiles}. Rows with equal
+ * keys are written in the order of the input files, as in {@link sleeper.core.iterator.MergingIterator}. This does not
+ * support iterators, jobs which split their output between leaf partitions, or list or map fields. Use
+ * {@link #isSupported} to check whether a job can be run this way.
+ */
+public class ArrowCompactSortedFiles implements CompactionTask.CompactionRunner {
+    public static final int MAX_ROWS_PER_BATCH = 8192;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArrowCompactSortedFiles.class);
+
+    private final InstanceProperties instanceProperties;
+    private final TablePropertiesProvider tablePropertiesProvider;
+    private final StateStoreProvider stateStoreProvider;
+
+    public ArrowCompactSortedFiles(
+            InstanceProperties instanceProperties, TablePropertiesProvider tablePropertiesProvider,
+            StateStoreProvider stateStoreProvider) {
+        this.instanceProperties = instanceProperties;
+        this.tablePropertiesProvider = tablePropertiesProvider;
+        this.stateStoreProvider = stateStoreProvider;
+    }
+
+    /**
+     * Checks whether a compaction job can be run by reading into Arrow batches.
+     *
+     * @param  job    the compaction job
+     * @param  schema the schema of the Sleeper table
+     * @return        true if the job has no iterator, does not split its output, and the schema has no list or map
+     *                fields
+     */
+    public static boolean isSupported(CompactionJob job, Schema schema) {
+        return null == job.getIteratorClassName() && !job.isSplittingOutput()
+                && ArrowBatch.isSupported(new RecordLayout(schema));
+    }
+
+    @Override
+    public RecordsProcessed compact(CompactionJob compactionJob) throws IOException, StateStoreException {
+        TableProperties tableProperties = tablePropertiesProvider.getById(compactionJob.getTableId());
+        Schema schema = tableProperties.getSchema();
+        if (!isSupported(compactionJob, schema)) {
+            throw new IllegalArgumentException("Compaction job " + compactionJob.getId() +
+                    " has an iterator, a split output or a schema which is not supported by Arrow compaction");
+        }
+        StateStore stateStore = stateStoreProvider.getStateStore(tableProperties);
+        Partition partition = stateStore.getAllPartitions().stream()
+                .filter(p -> Objects.equals(compactionJob.getPartitionId(), p.getId()))
+                .findFirst().orElseThrow(() -> new NoSuchElementException("Partition not found for compaction job"));
+        Configuration conf = HadoopConfigurationProvider.getConfigurationForECS(instanceProperties);
+        RecordLayout layout = new RecordLayout(schema);
+
+        List<ArrowBatch> batches = new ArrayList<>();
+        List<ArrowBatchReader> readers = new ArrayList<>();
+        try (BufferAllocator allocator = new RootAllocator()) {
+            try {
+                return compact(compactionJob, tableProperties, stateStore, partition, conf, layout, allocator, batches, readers);
+            } finally {
+                for (ArrowBatchReader reader : readers) {
+                    reader.close();
+                }
+                for (ArrowBatch batch : batches) {
+                    batch.close();
+                }
+            }
+        }
+    }
+
+    private RecordsProcessed compact(
+            CompactionJob compactionJob, TableProperties tableProperties, StateStore stateStore, Partition partition,
+            Configuration conf, RecordLayout layout, BufferAllocator allocator,
+            List<ArrowBatch> batches, List<ArrowBatchReader> readers) throws IOException, StateStoreException {
+        Schema schema = tableProperties.getSchema();
+
+        // Create a reader for each file
+        FilterCompat.Filter partitionFilter = FilterCompat.get(RangeQueryUtils.getFilterPredicate(partition));
+        for (String file : compactionJob.getInputFiles()) {
+            ArrowBatch batch = new ArrowBatch(layout, allocator);
+            batches.add(batch);
+            readers.add(ArrowBatchReader.builder(new Path(file), batch, MAX_ROWS_PER_BATCH)
+                    .withConf(conf)
+                    .withFilter(partitionFilter)
+                    .buildBatchReader());
+            LOGGER.debug("Compaction job {}: Created reader for file {}", compactionJob.getId(), file);
+        }
+
+        // Read the first batch of each file, and order the files by the keys of their first rows. Rows with equal
+        // keys are ordered by the index of their file, as in MergingIterator.
+        int numInputs = readers.size();
+        IndexedRecord[] currentKeys = new IndexedRecord[numInputs];
+        int[] currentRows = new int[numInputs];
+        IndexedRecordComparator keyComparator = new IndexedRecordComparator(layout);
+        PriorityQueue<Integer> queue = new PriorityQueue<>(Math.max(1, numInputs),
+                Comparator.<Integer, IndexedRecord>comparing(input -> currentKeys[input], keyComparator)
+                        .thenComparing(Comparator.naturalOrder()));
+        for (int input = 0; input < numInputs; input++) {
+            currentKeys[input] = new IndexedRecord(layout);
+            if (readers.get(input).readBatch()) {
+                batches.get(input).loadKeys(0, currentKeys[input]);
+                queue.add(input);
+            }
+        }
+
+        // Create writer
+        LOGGER.debug("Creating writer for file {}", compactionJob.getOutputFile());
+        Sketches sketches = Sketches.from(schema);
+        long recordsWritten = 0L;
+        // Setting file writer mode to OVERWRITE so if the same job runs again after failing to
+        // update the state store, it will overwrite the existing output file written by the previous run
+        try (ArrowBatchWriter writer = ArrowBatchWriter.create(
+                new Path(compactionJob.getOutputFile()), tableProperties, conf, ParquetFileWriter.Mode.OVERWRITE)) {
+            LOGGER.info("Compaction job {}: Created writer for file {}", compactionJob.getId(), compactionJob.getOutputFile());
+            while (!queue.isEmpty()) {
+                int input = queue.poll();
+                ArrowBatch batch = batches.get(input);
+                sketches.update(currentKeys[input]);
+                writer.write(batch, currentRows[input]);
+                recordsWritten++;
+                if (0 == recordsWritten % 1_000_000) {
+                    LOGGER.info("Compaction job {}: Written {} records", compactionJob.getId(), recordsWritten);
+                }
+
+                // Move to the next row of the file, reading the next batch if this one is finished
+                currentRows[input]++;
+                if (currentRows[input] >= batch.getRowCount()) {
+                    if (!readers.get(input).readBatch()) {
+                        continue;
+                    }
+                    currentRows[input] = 0;
+                }
+                batch.loadKeys(currentRows[input], currentKeys[input]);
+                queue.add(input);
+            }
+        }
+        LOGGER.debug("Compaction job {}: Closed writer", compactionJob.getId());
+
+        Path sketchesPath = sketchesPathForDataFile(compactionJob.getOutputFile());
+        new SketchesSerDeToS3(schema).saveToHadoopFS(sketchesPath, sketches, conf);
+        LOGGER.info("Compaction job {}: Wrote sketches file to {}", compactionJob.getId(), sketchesPath);
+
+        long totalNumberOfRecordsRead = 0L;
+        for (ArrowBatchReader reader : readers) {
+            totalNumberOfRecordsRead += reader.getRowsRead();
+        }
+        LOGGER.info("Compaction job {}: Read {} records and wrote {} records", compactionJob.getId(), totalNumberOfRecordsRead, recordsWritten);
+
+        CompactSortedFiles.updateStateStoreSuccess(compactionJob, recordsWritten, stateStore);
+        LOGGER.info("Compaction job {}: compaction committed to state store at {}", compactionJob.getId(), LocalDateTime.now());
+
+        return new RecordsProcessed(totalNumberOfRecordsRead, recordsWritten);
+    }
+}
@@ -21,6 +21,10 @@ import org.apache.parquet.filter2.compat.FilterCompat;
 import org.apache.parquet.hadoop.ParquetFileWriter;
 import org.apache.parquet.hadoop.ParquetReader;
 import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.hadoop.util.HadoopOutputFile;
+import org.apache.parquet.io.SeekableInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,8 +37,12 @@ import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.iterator.IteratorException;
 import sleeper.core.iterator.MergingIterator;
+import sleeper.core.iterator.PrefetchingIterator;
+import sleeper.core.iterator.RecordBatches;
 import sleeper.core.iterator.SortedRecordIterator;
 import sleeper.core.partition.Partition;
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.range.Region;
 import sleeper.core.record.Record;
 import sleeper.core.record.process.RecordsProcessed;
 import sleeper.core.schema.Schema;
@@ -44,6 +52,7 @@ import sleeper.core.statestore.StateStoreException;
 import sleeper.io.parquet.record.ParquetReaderIterator;
 import sleeper.io.parquet.record.ParquetRecordReader;
 import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+import sleeper.io.parquet.record.SchemaConverter;
 import sleeper.io.parquet.utils.HadoopConfigurationProvider;
 import sleeper.io.parquet.utils.RangeQueryUtils;
 import sleeper.sketches.Sketches;
@@ -51,16 +60,35 @@ import sleeper.sketches.s3.SketchesSerDeToS3;
 import sleeper.statestore.StateStoreProvider;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_ROW_GROUP_PASSTHROUGH;
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_ROW_GROUP_PASSTHROUGH_MIN_SIZE_PERCENTAGE;
+import static sleeper.configuration.properties.table.TableProperty.COMPRESSION_CODEC;
+import static sleeper.configuration.properties.table.TableProperty.PAGE_SIZE;
+import static sleeper.configuration.properties.table.TableProperty.READ_AHEAD_RECORDS;
+import static sleeper.configuration.properties.table.TableProperty.ROW_GROUP_SIZE;
 import static sleeper.sketches.s3.SketchesSerDeToS3.sketchesPathForDataFile;
 
 /**
- * Executes a compaction job. Compacts N input files into a single output file.
+ * Executes a compaction job. Compacts N input files into a single output file, or into one output file for each leaf
+ * partition if the job splits its output.
  */
 public class CompactSortedFiles implements CompactionTask.CompactionRunner {
     private final InstanceProperties instanceProperties;
@@ -79,6 +107,25 @@ public class CompactSortedFiles implements CompactionTask.CompactionRunner {
         this.stateStoreProvider = stateStoreProvider;
     }
 
+    /**
+     * Estimates the memory needed to compact a job. Each input file is read one row group at a time, and the output
+     * file buffers a row group before it is written. Each column in a row group is also buffered in pages. We do not
+     * know the size of the input files, so the row group size is used as an upper bound for each one. A job which
+     * splits its output may have an output file open for each leaf partition.
+     *
+     * @param  compactionJob the compaction job
+     * @return               the estimated number of bytes
+     */
+    @Override
+    public long estimateMemoryBytes(CompactionJob compactionJob) {
+        TableProperties tableProperties = tablePropertiesProvider.getById(compactionJob.getTableId());
+        long rowGroupBytes = tableProperties.getLong(ROW_GROUP_SIZE);
+        long pageBytes = tableProperties.getInt(PAGE_SIZE);
+        int numFields = tableProperties.getSchema().getAllFields().size();
+        int numFiles = compactionJob.getInputFiles().size() + Math.max(1, compactionJob.getLeafPartitionOutputFiles().size());
+        return numFiles * (rowGroupBytes + numFields * pageBytes);
+    }
+
     public RecordsProcessed compact(CompactionJob compactionJob) throws IOException, IteratorException, StateStoreException {
         TableProperties tableProperties = tablePropertiesProvider.getById(compactionJob.getTableId());
         Schema schema = tableProperties.getSchema();
@@ -88,11 +135,53 @@ public class CompactSortedFiles implements CompactionTask.CompactionRunner {
                 .findFirst().orElseThrow(() -> new NoSuchElementException("Partition not found for compaction job"));
         Configuration conf = getConfiguration();
 
+        // Copy large row groups which do not overlap with other input files, without decoding them
+        if (tableProperties.getBoolean(COMPACTION_ROW_GROUP_PASSTHROUGH)) {
+            long minCopyBytes = tableProperties.getLong(ROW_GROUP_SIZE)
+                    * tableProperties.getInt(COMPACTION_ROW_GROUP_PASSTHROUGH_MIN_SIZE_PERCENTAGE) / 100;
+            Optional<RowGroupPassthroughPlan> passthroughPlan = RowGroupPassthroughPlan.plan(
+                    compactionJob, schema, partition, compressionCodec(tableProperties), minCopyBytes, conf);
+            if (passthroughPlan.isPresent()) {
+                return compactWithPassthrough(compactionJob, tableProperties, stateStore, partition, conf, passthroughPlan.get());
+            }
+        }
+
+        int readAheadRecords = tableProperties.getInt(READ_AHEAD_RECORDS);
+        if (readAheadRecords < 1 || compactionJob.getInputFiles().isEmpty()) {
+            return compact(compactionJob, tableProperties, stateStore, partition, conf, null, null, 0);
+        }
+        // Read ahead from each file on its own thread, so that a slow read from one file does not stall the merge
+        ExecutorService readAheadExecutor = Executors.newFixedThreadPool(compactionJob.getInputFiles().size());
+        // Merge and update sketches on other threads, so that they overlap with encoding and compressing the output
+        ExecutorService stageExecutor = Executors.newFixedThreadPool(2);
+        try {
+            return compact(compactionJob, tableProperties, stateStore, partition, conf, readAheadExecutor, stageExecutor, readAheadRecords);
+        } finally {
+            readAheadExecutor.shutdownNow();
+            stageExecutor.shutdownNow();
+        }
+    }
+
+    private RecordsProcessed compact(
+            CompactionJob compactionJob, TableProperties tableProperties, StateStore stateStore, Partition partition,
+            Configuration conf, ExecutorService readAheadExecutor, ExecutorService stageExecutor, int readAheadRecords) throws IOException, IteratorException, StateStoreException {
+        Schema schema = tableProperties.getSchema();
+
         // Create a reader for each file
-        List<CloseableIterator<Record>> inputIterators = createInputIterators(compactionJob, partition, schema, conf);
+        List<ParquetReaderIterator> readers = Collections.synchronizedList(new ArrayList<>());
+        FilterCompat.Filter partitionFilter = FilterCompat.get(RangeQueryUtils.getFilterPredicate(partition));
+        List<CloseableIterator<Record>> inputIterators = createInputIterators(compactionJob, compactionJob.getInputFiles(),
+                schema, conf, partitionFilter, readers, readAheadExecutor, readAheadRecords);
 
-        CloseableIterator<Record> mergingIterator = getMergingIterator(objectFactory, schema, compactionJob, inputIterators);
         // Merge these iterator into one sorted iterator
+        CloseableIterator<Record> mergingIterator = getMergingIterator(objectFactory, schema, compactionJob, inputIterators);
+        if (null != stageExecutor) {
+            CloseableIterator<Record> merged = mergingIterator;
+            mergingIterator = PrefetchingIterator.readAhead(() -> merged, stageExecutor, readAheadRecords);
+        }
+        if (compactionJob.isSplittingOutput()) {
+            return compactSplittingOutput(compactionJob, tableProperties, stateStore, conf, mergingIterator, inputIterators, readers);
+        }
 
         // Create writer
         LOGGER.debug("Creating writer for file {}", compactionJob.getOutputFile());
@@ -105,10 +194,18 @@ public class CompactSortedFiles implements CompactionTask.CompactionRunner {
         LOGGER.info("Compaction job {}: Created writer for file {}", compactionJob.getId(), compactionJob.getOutputFile());
         Sketches sketches = Sketches.from(schema);
 
+        BackgroundSketchesUpdater backgroundSketches = null;
+        Consumer<Record> updateSketches = record -> sketches.update(schema, record);
+        if (null != stageExecutor) {
+            backgroundSketches = new BackgroundSketchesUpdater(sketches, schema, stageExecutor,
+                    Math.min(RecordBatches.DEFAULT_BATCH_SIZE, readAheadRecords));
+            updateSketches = backgroundSketches::add;
+        }
+
         long recordsWritten = 0L;
         while (mergingIterator.hasNext()) {
             Record record = mergingIterator.next();
-            sketches.update(schema, record);
+            updateSketches.accept(record);
             // Write out
             writer.write(record);
             recordsWritten++;
@@ -117,44 +214,279 @@ public class CompactSortedFiles implements CompactionTask.CompactionRunner {
             }
         }
         writer.close();
+        if (null != backgroundSketches) {
+            backgroundSketches.finish();
+        }
         LOGGER.debug("Compaction job {}: Closed writer", compactionJob.getId());
 
-        // Remove the extension (if present), then add one
-        Path sketchesPath = sketchesPathForDataFile(compactionJob.getOutputFile());
-        new SketchesSerDeToS3(schema).saveToHadoopFS(sketchesPath, sketches, conf);
-        LOGGER.info("Compaction job {}: Wrote sketches file to {}", compactionJob.getId(), sketchesPath);
+        long totalNumberOfRecordsRead = closeInputs(compactionJob, inputIterators, readers);
+        return finishCompaction(compactionJob, schema, stateStore, conf, sketches, totalNumberOfRecordsRead, recordsWritten);
+    }
 
+    /**
+     * Writes the merged records of a job which splits its output between the leaf partitions beneath its partition.
+     * Each record is written to the output file for the leaf partition containing its row key, with separate sketches
+     * for each output file. The records for each leaf partition are taken in order from the merge, so each output file
+     * is sorted. No file is written for a leaf partition with no records.
+     *
+     * @param  compactionJob       the compaction job
+     * @param  tableProperties     the table properties
+     * @param  stateStore          the state store
+     * @param  conf                the Hadoop configuration
+     * @param  mergingIterator     the merged records from the input files
+     * @param  inputIterators      the iterators over the input files, to be closed
+     * @param  readers             the readers of the input files, to count the records read
+     * @return                     the number of records read and written
+     * @throws IOException         if a file could not be written
+     * @throws StateStoreException if the state store could not be updated
+     */
+    private RecordsProcessed compactSplittingOutput(
+            CompactionJob compactionJob, TableProperties tableProperties, StateStore stateStore, Configuration conf,
+            CloseableIterator<Record> mergingIterator, List<CloseableIterator<Record>> inputIterators,
+            List<ParquetReaderIterator> readers) throws IOException, StateStoreException {
+        Schema schema = tableProperties.getSchema();
+        PartitionTree partitionTree = new PartitionTree(stateStore.getAllPartitions());
+        Map<String, LeafPartitionOutput> outputByPartitionId = new HashMap<>();
+        long recordsWritten = 0L;
+        while (mergingIterator.hasNext()) {
+            Record record = mergingIterator.next();
+            String partitionId = outputPartitionId(compactionJob, schema, partitionTree, record);
+            LeafPartitionOutput output = outputByPartitionId.get(partitionId);
+            if (null == output) {
+                String outputFile = compactionJob.getLeafPartitionOutputFiles().get(partitionId);
+                // Setting file writer mode to OVERWRITE so if the same job runs again after failing to
+                // update the state store, it will overwrite the existing output file written by the previous run
+                output = new LeafPartitionOutput(outputFile, Sketches.from(schema),
+                        ParquetRecordWriterFactory.createParquetRecordWriter(
+                                new Path(outputFile), tableProperties, conf, ParquetFileWriter.Mode.OVERWRITE));
+                outputByPartitionId.put(partitionId, output);
+                LOGGER.info("Compaction job {}: Created writer for file {} in partition {}", compactionJob.getId(), outputFile, partitionId);
+            }
+            output.sketches.update(schema, record);
+            output.writer.write(record);
+            output.recordsWritten++;
+            recordsWritten++;
+            if (0 == recordsWritten % 1_000_000) {
+                LOGGER.info("Compaction job {}: Written {} records", compactionJob.getId(), recordsWritten);
+            }
+        }
+        for (LeafPartitionOutput output : outputByPartitionId.values()) {
+            output.writer.close();
+        }
+        LOGGER.debug("Compaction job {}: Closed writers", compactionJob.getId());
+
+        long recordsRead = closeInputs(compactionJob, inputIterators, readers);
+
+        List<FileReference> newReferences = new ArrayList<>();
+        for (String partitionId : compactionJob.getLeafPartitionOutputFiles().keySet()) {
+            LeafPartitionOutput output = outputByPartitionId.get(partitionId);
+            if (null == output) {
+                continue;
+            }
+            Path sketchesPath = sketchesPathForDataFile(output.outputFile);
+            new SketchesSerDeToS3(schema).saveToHadoopFS(sketchesPath, output.sketches, conf);
+            LOGGER.info("Compaction job {}: Wrote sketches file to {}", compactionJob.getId(), sketchesPath);
+            newReferences.add(FileReference.builder()
+                    .filename(output.outputFile)
+                    .partitionId(partitionId)
+                    .numberOfRecords(output.recordsWritten)
+                    .countApproximate(false)
+                    .onlyContainsDataForThisPartition(true)
+                    .build());
+        }
+
+        LOGGER.info("Compaction job {}: Read {} records and wrote {} records to {} files",
+                compactionJob.getId(), recordsRead, recordsWritten, newReferences.size());
+
+        try {
+            stateStore.atomicallyReplaceFileReferencesWithNewOnes(
+                    compactionJob.getId(), compactionJob.getPartitionId(), compactionJob.getInputFiles(), newReferences);
+            LOGGER.debug("Updated file references in state store");
+        } catch (StateStoreException e) {
+            LOGGER.error("Exception updating StateStore (moving input files to ready for GC and creating new active files): {}", e.getMessage());
+            throw e;
+        }
+        LOGGER.info("Compaction job {}: compaction committed to state store at {}", compactionJob.getId(), LocalDateTime.now());
+
+        return new RecordsProcessed(recordsRead, recordsWritten);
+    }
+
+    /**
+     * Finds which of the leaf partitions of a job a record should be written to. If a leaf partition has been split
+     * since the job was created, the record is found in a descendent of that partition, so we look up the tree from
+     * the current leaf partition.
+     *
+     * @param  compactionJob the compaction job
+     * @param  schema        the schema of the Sleeper table
+     * @param  partitionTree the current partition tree
+     * @param  record        the record
+     * @return               the ID of the leaf partition of the job containing the record
+     */
+    private static String outputPartitionId(CompactionJob compactionJob, Schema schema, PartitionTree partitionTree, Record record) {
+        Map<String, String> outputFiles = compactionJob.getLeafPartitionOutputFiles();
+        Partition partition = partitionTree.getLeafPartition(schema, record.getRowKeys(schema));
+        while (!outputFiles.containsKey(partition.getId())) {
+            if (null == partition.getParentPartitionId()) {
+                throw new IllegalStateException("Compaction job " + compactionJob.getId() +
+                        " has no output file for a partition containing record: " + record);
+            }
+            partition = partitionTree.getPartition(partition.getParentPartitionId());
+        }
+        return partition.getId();
+    }
+
+    private static long closeInputs(
+            CompactionJob compactionJob, List<CloseableIterator<Record>> inputIterators,
+            List<ParquetReaderIterator> readers) throws IOException {
         for (CloseableIterator<Record> iterator : inputIterators) {
             iterator.close();
         }
         LOGGER.debug("Compaction job {}: Closed readers", compactionJob.getId());
 
         long totalNumberOfRecordsRead = 0L;
-        for (CloseableIterator<Record> iterator : inputIterators) {
-            totalNumberOfRecordsRead += ((ParquetReaderIterator) iterator).getNumberOfRecordsRead();
+        for (ParquetReaderIterator reader : readers) {
+            totalNumberOfRecordsRead += reader.getNumberOfRecordsRead();
         }
+        return totalNumberOfRecordsRead;
+    }
+
+    /**
+     * Compacts a job by copying row groups from the input files where they do not overlap, and merging the rest. The
+     * merged segments are written to temporary local files, and their row groups are copied into the output file in
+     * order with the row groups from the input files. The row keys of copied row groups are still read, so that the
+     * sketches are the same as if every record had been merged.
+     *
+     * @param  compactionJob       the compaction job
+     * @param  tableProperties     the table properties
+     * @param  stateStore          the state store
+     * @param  partition           the partition the job is compacting into
+     * @param  conf                the Hadoop configuration
+     * @param  plan                the plan of which row groups to copy
+     * @return                     the number of records read and written
+     * @throws IOException         if a file could not be read or written
+     * @throws IteratorException   if the records could not be merged
+     * @throws StateStoreException if the state store could not be updated
+     */
+    private RecordsProcessed compactWithPassthrough(
+            CompactionJob compactionJob, TableProperties tableProperties, StateStore stateStore, Partition partition,
+            Configuration conf, RowGroupPassthroughPlan plan) throws IOException, IteratorException, StateStoreException {
+        Schema schema = tableProperties.getSchema();
+        Schema rowKeySchema = Schema.builder().rowKeyFields(schema.getRowKeyFields()).build();
+        Sketches sketches = Sketches.from(schema);
+        long recordsRead = 0L;
+        long recordsWritten = 0L;
+
+        // Setting file writer mode to OVERWRITE so if the same job runs again after failing to
+        // update the state store, it will overwrite the existing output file written by the previous run
+        ParquetFileWriter fileWriter = new ParquetFileWriter(
+                HadoopOutputFile.fromPath(new Path(compactionJob.getOutputFile()), conf),
+                SchemaConverter.getSchema(schema), ParquetFileWriter.Mode.OVERWRITE,
+                tableProperties.getLong(ROW_GROUP_SIZE), ParquetWriter.MAX_PADDING_SIZE_DEFAULT);
+        fileWriter.start();
+        LOGGER.info("Compaction job {}: Created writer for file {}", compactionJob.getId(), compactionJob.getOutputFile());
+
+        List<RowGroupPassthroughPlan.Segment> segments = plan.getSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            RowGroupPassthroughPlan.Segment segment = segments.get(i);
+            FilterCompat.Filter segmentFilter = FilterCompat.get(RangeQueryUtils.getFilterPredicateMultidimensionalKey(
+                    List.of(new Region(plan.getSegmentRange(schema, i))), partition.getRegion()));
+            if (segment.isCopy()) {
+                Path inputPath = new Path(segment.getFile());
+                try (ParquetReaderIterator keys = new ParquetReaderIterator(new ParquetRecordReader.Builder(inputPath, rowKeySchema)
+                        .withConf(conf)
+                        .withFilter(segmentFilter)
+                        .build())) {
+                    while (keys.hasNext()) {
+                        sketches.update(schema, keys.next());
+                    }
+                    recordsRead += keys.getNumberOfRecordsRead();
+                }
+                try (SeekableInputStream input = HadoopInputFile.fromPath(inputPath, conf).newStream()) {
+                    fileWriter.appendRowGroups(input, segment.getBlocks(), false);
+                }
+                recordsWritten += segment.getRowCount();
+                LOGGER.info("Compaction job {}: Copied {} row groups with {} records from file {}",
+                        compactionJob.getId(), segment.getBlocks().size(), segment.getRowCount(), segment.getFile());
+            } else {
+                // Merge into a local file, then copy its row groups into the output file
+                java.nio.file.Path localFile = Files.createTempFile("compaction-segment-", ".parquet");
+                Path segmentPath = new Path(localFile.toUri());
+                try {
+                    List<ParquetReaderIterator> readers = new ArrayList<>();
+                    List<CloseableIterator<Record>> inputIterators = createInputIterators(compactionJob, segment.getFiles(compactionJob),
+                            schema, conf, segmentFilter, readers, null, 0);
+                    CloseableIterator<Record> mergingIterator = getMergingIterator(objectFactory, schema, compactionJob, inputIterators);
+                    long segmentRecordsWritten = 0L;
+                    try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(
+                            segmentPath, tableProperties, conf, ParquetFileWriter.Mode.OVERWRITE)) {
+                        while (mergingIterator.hasNext()) {
+                            Record record = mergingIterator.next();
+                            sketches.update(schema, record);
+                            writer.write(record);
+                            segmentRecordsWritten++;
+                        }
+                    }
+                    for (CloseableIterator<Record> iterator : inputIterators) {
+                        iterator.close();
+                    }
+                    for (ParquetReaderIterator reader : readers) {
+                        recordsRead += reader.getNumberOfRecordsRead();
+                    }
+                    fileWriter.appendFile(HadoopInputFile.fromPath(segmentPath, conf));
+                    recordsWritten += segmentRecordsWritten;
+                    LOGGER.info("Compaction job {}: Merged {} records from {} files",
+                            compactionJob.getId(), segmentRecordsWritten, inputIterators.size());
+                } finally {
+                    segmentPath.getFileSystem(conf).delete(segmentPath, false);
+                }
+            }
+        }
+        fileWriter.end(new HashMap<>());
+        LOGGER.debug("Compaction job {}: Closed writer", compactionJob.getId());
+
+        return finishCompaction(compactionJob, schema, stateStore, conf, sketches, recordsRead, recordsWritten);
+    }
+
+    private RecordsProcessed finishCompaction(
+            CompactionJob compactionJob, Schema schema, StateStore stateStore, Configuration conf, Sketches sketches,
+            long recordsRead, long recordsWritten) throws IOException, StateStoreException {
+        // Remove the extension (if present), then add one
+        Path sketchesPath = sketchesPathForDataFile(compactionJob.getOutputFile());
+        new SketchesSerDeToS3(schema).saveToHadoopFS(sketchesPath, sketches, conf);
+        LOGGER.info("Compaction job {}: Wrote sketches file to {}", compactionJob.getId(), sketchesPath);
 
-        LOGGER.info("Compaction job {}: Read {} records and wrote {} records", compactionJob.getId(), totalNumberOfRecordsRead, recordsWritten);
+        LOGGER.info("Compaction job {}: Read {} records and wrote {} records", compactionJob.getId(), recordsRead, recordsWritten);
 
         updateStateStoreSuccess(compactionJob, recordsWritten, stateStore);
         LOGGER.info("Compaction job {}: compaction committed to state store at {}", compactionJob.getId(), LocalDateTime.now());
 
-        return new RecordsProcessed(totalNumberOfRecordsRead, recordsWritten);
+        return new RecordsProcessed(recordsRead, recordsWritten);
     }
 
-    private List<CloseableIterator<Record>> createInputIterators(CompactionJob compactionJob, Partition partition, Schema schema, Configuration conf) throws IOException {
+    private List<CloseableIterator<Record>> createInputIterators(
+            CompactionJob compactionJob, List<String> files, Schema schema, Configuration conf, FilterCompat.Filter filter,
+            List<ParquetReaderIterator> readers, ExecutorService readAheadExecutor, int readAheadRecords) throws IOException {
         List<CloseableIterator<Record>> inputIterators = new ArrayList<>();
-        FilterCompat.Filter partitionFilter = FilterCompat.get(RangeQueryUtils.getFilterPredicate(partition));
-        for (String file : compactionJob.getInputFiles()) {
+        int readAheadRecordsPerFile = readAheadRecords / Math.max(1, files.size());
+        for (String file : files) {
             ParquetReader<Record> reader = new ParquetRecordReader.Builder(new Path(file), schema)
                     .withConf(conf)
-                    .withFilter(partitionFilter)
+                    .withFilter(filter)
                     .build();
-            ParquetReaderIterator recordIterator = new ParquetReaderIterator(reader);
-            inputIterators.add(recordIterator);
+            if (null == readAheadExecutor) {
+                ParquetReaderIterator recordIterator = new ParquetReaderIterator(reader);
+                readers.add(recordIterator);
+                inputIterators.add(recordIterator);
+            } else {
+                // The file is opened by the first read in the background
+                inputIterators.add(PrefetchingIterator.readAhead(() -> {
+                    ParquetReaderIterator recordIterator = new ParquetReaderIterator(reader);
+                    readers.add(recordIterator);
+                    return recordIterator;
+                }, readAheadExecutor, readAheadRecordsPerFile));
+            }
             LOGGER.debug("Compaction job {}: Created reader for file {}", compactionJob.getId(), file);
-            LOGGER.debug("Compaction job {}: File is being filtered on ranges {}", compactionJob.getId(),
-                    partition.getRegion().getRanges().toString());
+            LOGGER.debug("Compaction job {}: File is being filtered with {}", compactionJob.getId(), filter);
         }
         return inputIterators;
     }
@@ -175,11 +507,86 @@ public class CompactSortedFiles implements CompactionTask.CompactionRunner {
             LOGGER.debug("Created iterator of class {}", compactionJob.getIteratorClassName());
             iterator.init(compactionJob.getIteratorConfig(), schema);
             LOGGER.debug("Initialised iterator with config {}", compactionJob.getIteratorConfig());
-            mergingIterator = iterator.apply(mergingIterator);
+            mergingIterator = RecordBatches.applyIterator(iterator, mergingIterator);
         }
         return mergingIterator;
     }
 
+    /**
+     * Updates sketches on another thread, so that this overlaps with writing the records. Records are passed to the
+     * sketches a batch at a time in the order they were added, so the sketches are the same as if they were updated
+     * directly. One batch is updated while the next is filled, so at most two batches are held at once.
+     */
+    private static class BackgroundSketchesUpdater {
+        private final Sketches sketches;
+        private final Schema schema;
+        private final ExecutorService executor;
+        private final int batchSize;
+        private List<Record> batch;
+        private Future<?> previousUpdate = CompletableFuture.completedFuture(null);
+
+        BackgroundSketchesUpdater(Sketches sketches, Schema schema, ExecutorService executor, int batchSize) {
+            this.sketches = sketches;
+            this.schema = schema;
+            this.executor = executor;
+            this.batchSize = batchSize;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        void add(Record record) {
+            batch.add(record);
+            if (batch.size() >= batchSize) {
+                List<Record> records = batch;
+                waitForPreviousUpdate();
+                previousUpdate = executor.submit(() -> update(records));
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        void finish() {
+            waitForPreviousUpdate();
+            update(batch);
+            batch.clear();
+        }
+
+        private void update(List<Record> records) {
+            for (Record record : records) {
+                sketches.update(schema, record);
+            }
+        }
+
+        private void waitForPreviousUpdate() {
+            try {
+                previousUpdate.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted updating sketches", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed updating sketches", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * The output file for one leaf partition of a compaction job which splits its output.
+     */
+    private static class LeafPartitionOutput {
+        private final String outputFile;
+        private final Sketches sketches;
+        private final ParquetWriter<Record> writer;
+        private long recordsWritten;
+
+        LeafPartitionOutput(String outputFile, Sketches sketches, ParquetWriter<Record> writer) {
+            this.outputFile = outputFile;
+            this.sketches = sketches;
+            this.writer = writer;
+        }
+    }
+
+    private static CompressionCodecName compressionCodec(TableProperties tableProperties) {
+        return CompressionCodecName.fromConf(tableProperties.get(COMPRESSION_CODEC).toUpperCase(Locale.ROOT));
+    }
+
     private Configuration getConfiguration() {
         return HadoopConfigurationProvider.getConfigurationForECS(instanceProperties);
     }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.compaction.job.CompactionJob;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.configuration.properties.table.TablePropertiesProvider;
+import sleeper.configuration.properties.validation.CompactionMethod;
+import sleeper.core.record.process.RecordsProcessed;
+
+import java.util.Locale;
+
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_METHOD;
+
+/**
+ * Runs each compaction job with the method set in its table properties. Falls back to {@link CompactSortedFiles} when
+ * a job cannot be run with the Arrow method, e.g. because the table has an iterator.
+ */
+public class CompactionMethodSelector implements CompactionTask.CompactionRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactionMethodSelector.class);
+
+    private final TablePropertiesProvider tablePropertiesProvider;
+    private final CompactSortedFiles javaRunner;
+    private final ArrowCompactSortedFiles arrowRunner;
+
+    public CompactionMethodSelector(
+            TablePropertiesProvider tablePropertiesProvider, CompactSortedFiles javaRunner, ArrowCompactSortedFiles arrowRunner) {
+        this.tablePropertiesProvider = tablePropertiesProvider;
+        this.javaRunner = javaRunner;
+        this.arrowRunner = arrowRunner;
+    }
+
+    @Override
+    public RecordsProcessed compact(CompactionJob job) throws Exception {
+        return selectRunner(job).compact(job);
+    }
+
+    /**
+     * Estimates the memory needed to compact a job. The Arrow method holds a small batch of rows from each input
+     * file on top of the Parquet row groups, so the estimate for the Java method is used for both.
+     *
+     * @param  job the compaction job
+     * @return     the estimated number of bytes
+     */
+    @Override
+    public long estimateMemoryBytes(CompactionJob job) {
+        return javaRunner.estimateMemoryBytes(job);
+    }
+
+    private CompactionTask.CompactionRunner selectRunner(CompactionJob job) {
+        TableProperties tableProperties = tablePropertiesProvider.getById(job.getTableId());
+        CompactionMethod method = CompactionMethod.valueOf(tableProperties.get(COMPACTION_METHOD).toUpperCase(Locale.ROOT));
+        if (method != CompactionMethod.ARROW) {
+            return javaRunner;
+        }
+        if (!ArrowCompactSortedFiles.isSupported(job, tableProperties.getSchema())) {
+            LOGGER.info("Compaction job {}: Arrow compaction does not support iterators, or list or map fields, running with Java compaction",
+                    job.getId());
+            return javaRunner;
+        }
+        return arrowRunner;
+    }
+}
@@ -34,16 +34,29 @@ import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_DELAY_BEFORE_RETRY_IN_SECONDS;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_JOB_MEMORY_PERCENTAGE;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_MAX_CONCURRENT_JOBS;
 import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_MAX_CONSECUTIVE_FAILURES;
 import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_MAX_IDLE_TIME_IN_SECONDS;
 import static sleeper.core.metrics.MetricsLogger.METRICS_LOGGER;
 
 /**
  * Runs a compaction task. Executes jobs from a queue, updating the status stores with progress of the task.
+ * <p>
+ * Several jobs may run at the same time, each on its own thread. The thread that runs the task receives messages,
+ * updates the status stores and tracks failures, so that only the merge itself runs concurrently. A job is only
+ * started once the jobs already running leave enough memory for it. Jobs share the objects used to read table
+ * properties and state stores, so these must be safe to use from multiple threads. Properties are only reloaded when no
+ * jobs are running.
  */
 public class CompactionTask {
     private static final Logger LOGGER = LoggerFactory.getLogger(CompactionTask.class);
@@ -59,8 +72,13 @@ public class CompactionTask {
     private final CompactionTaskStatusStore taskStatusStore;
     private final String taskId;
     private final PropertiesReloader propertiesReloader;
+    private final int maxConcurrentJobs;
+    private final long maxMemoryForJobsBytes;
+    private final BlockingQueue<JobRun> finishedJobs = new LinkedBlockingQueue<>();
     private int numConsecutiveFailures = 0;
     private int totalNumberOfMessagesProcessed = 0;
+    private int numJobsRunning = 0;
+    private long memoryReservedBytes = 0;
 
     public CompactionTask(InstanceProperties instanceProperties, PropertiesReloader propertiesReloader,
             MessageReceiver messageReceiver, CompactionRunner compactor,
@@ -74,6 +92,8 @@ public class CompactionTask {
         maxIdleTime = Duration.ofSeconds(instanceProperties.getInt(COMPACTION_TASK_MAX_IDLE_TIME_IN_SECONDS));
         maxConsecutiveFailures = instanceProperties.getInt(COMPACTION_TASK_MAX_CONSECUTIVE_FAILURES);
         delayBeforeRetry = Duration.ofSeconds(instanceProperties.getInt(COMPACTION_TASK_DELAY_BEFORE_RETRY_IN_SECONDS));
+        maxConcurrentJobs = instanceProperties.getInt(COMPACTION_TASK_MAX_CONCURRENT_JOBS);
+        maxMemoryForJobsBytes = Runtime.getRuntime().maxMemory() / 100 * instanceProperties.getInt(COMPACTION_TASK_JOB_MEMORY_PERCENTAGE);
         this.propertiesReloader = propertiesReloader;
         this.timeSupplier = timeSupplier;
         this.sleepForTime = sleepForTime;
@@ -103,10 +123,28 @@ public class CompactionTask {
     }
 
     public Instant handleMessages(Instant startTime, CompactionTaskFinishedStatus.Builder taskFinishedBuilder) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(maxConcurrentJobs);
+        try {
+            return handleMessages(startTime, taskFinishedBuilder, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Instant handleMessages(Instant startTime, CompactionTaskFinishedStatus.Builder taskFinishedBuilder, ExecutorService executor) throws IOException {
         Instant lastActiveTime = startTime;
         while (numConsecutiveFailures < maxConsecutiveFailures) {
+            if (!canStartJob()) {
+                lastActiveTime = latest(lastActiveTime, waitForJobToFinish(taskFinishedBuilder));
+                continue;
+            }
             Optional<MessageHandle> messageOpt = messageReceiver.receiveMessage();
             if (!messageOpt.isPresent()) {
+                if (numJobsRunning > 0) {
+                    // Jobs are still running, so the task is not idle
+                    lastActiveTime = latest(lastActiveTime, waitForJobToFinish(taskFinishedBuilder, delayBeforeRetry));
+                    continue;
+                }
                 Instant currentTime = timeSupplier.get();
                 Duration runTime = Duration.between(lastActiveTime, currentTime);
                 if (runTime.compareTo(maxIdleTime) >= 0) {
@@ -123,36 +161,132 @@ public class CompactionTask {
                     continue;
                 }
             }
-            try (MessageHandle message = messageOpt.get()) {
-                CompactionJob job = message.getJob();
-                try {
-                    RecordsProcessedSummary summary = compact(job);
-                    taskFinishedBuilder.addJobSummary(summary);
-                    message.completed();
-                    totalNumberOfMessagesProcessed++;
-                    numConsecutiveFailures = 0;
-                    lastActiveTime = summary.getFinishTime();
-                } catch (Exception e) {
-                    LOGGER.error("Failed processing compaction job, putting job back on queue", e);
-                    numConsecutiveFailures++;
+            lastActiveTime = latest(lastActiveTime, startJob(messageOpt.get(), taskFinishedBuilder, executor));
+        }
+        while (numJobsRunning > 0) {
+            waitForJobToFinish(taskFinishedBuilder);
+        }
+        return timeSupplier.get();
+    }
+
+    private Instant startJob(MessageHandle message, CompactionTaskFinishedStatus.Builder taskFinishedBuilder, ExecutorService executor) {
+        CompactionJob job = message.getJob();
+        Instant lastFinishTime = null;
+        try {
+            long memoryBytes = compactor.estimateMemoryBytes(job);
+            while (numJobsRunning > 0 && memoryReservedBytes + memoryBytes > maxMemoryForJobsBytes) {
+                LOGGER.info("Compaction job {}: waiting for memory to start, needs {} bytes, {} of {} bytes in use by {} jobs",
+                        job.getId(), memoryBytes, memoryReservedBytes, maxMemoryForJobsBytes, numJobsRunning);
+                lastFinishTime = latest(lastFinishTime, waitForJobToFinish(taskFinishedBuilder));
+            }
+            if (!canStartJob()) {
+                try (message) {
+                    LOGGER.info("Compaction job {}: not starting as too many jobs have failed, putting job back on queue", job.getId());
                     message.failed();
                 }
+                return lastFinishTime;
+            }
+            Instant jobStartTime = timeSupplier.get();
+            LOGGER.info("Compaction job {}: compaction called at {}", job.getId(), jobStartTime);
+            jobStatusStore.jobStarted(job, jobStartTime, taskId);
+            if (numJobsRunning == 0) {
+                // Properties are reloaded in place, so this must wait until no other job is reading them
+                propertiesReloader.reloadIfNeeded();
             }
+            JobRun run = new JobRun(message, jobStartTime, memoryBytes);
+            numJobsRunning++;
+            memoryReservedBytes += memoryBytes;
+            executor.execute(() -> compact(run));
+        } catch (Exception e) {
+            jobFailed(message, e);
+        }
+        return lastFinishTime;
+    }
+
+    /**
+     * Checks whether another job can be started. If every job that is currently running fails, this must not take the
+     * task past the maximum number of consecutive failures.
+     *
+     * @return true if another job can be started
+     */
+    private boolean canStartJob() {
+        return numJobsRunning < maxConcurrentJobs
+                && numConsecutiveFailures + numJobsRunning < maxConsecutiveFailures;
+    }
+
+    private void compact(JobRun run) {
+        try {
+            run.recordsProcessed = compactor.compact(run.message.getJob());
+            run.finishTime = timeSupplier.get();
+        } catch (Exception | Error e) {
+            run.failure = e;
+        } finally {
+            finishedJobs.add(run);
+        }
+    }
+
+    private Instant waitForJobToFinish(CompactionTaskFinishedStatus.Builder taskFinishedBuilder) {
+        try {
+            return jobFinished(finishedJobs.take(), taskFinishedBuilder);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Instant waitForJobToFinish(CompactionTaskFinishedStatus.Builder taskFinishedBuilder, Duration maxWait) {
+        try {
+            JobRun run = finishedJobs.poll(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            if (run == null) {
+                return null;
+            }
+            return jobFinished(run, taskFinishedBuilder);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Instant jobFinished(JobRun run, CompactionTaskFinishedStatus.Builder taskFinishedBuilder) {
+        numJobsRunning--;
+        memoryReservedBytes -= run.memoryBytes;
+        MessageHandle message = run.message;
+        if (run.failure != null) {
+            jobFailed(message, run.failure);
+            return null;
+        }
+        try (message) {
+            CompactionJob job = message.getJob();
+            RecordsProcessedSummary summary = new RecordsProcessedSummary(run.recordsProcessed, run.startTime, run.finishTime);
+            jobStatusStore.jobFinished(job, summary, taskId);
+            logMetrics(job, summary);
+            taskFinishedBuilder.addJobSummary(summary);
+            message.completed();
+            totalNumberOfMessagesProcessed++;
+            numConsecutiveFailures = 0;
+            return summary.getFinishTime();
+        } catch (Exception e) {
+            jobFailed(message, e);
+            return null;
         }
-        return timeSupplier.get();
     }
 
-    private RecordsProcessedSummary compact(CompactionJob job) throws Exception {
-        Instant jobStartTime = timeSupplier.get();
-        LOGGER.info("Compaction job {}: compaction called at {}", job.getId(), jobStartTime);
-        jobStatusStore.jobStarted(job, jobStartTime, taskId);
-        propertiesReloader.reloadIfNeeded();
-        RecordsProcessed recordsProcessed = compactor.compact(job);
-        Instant jobFinishTime = timeSupplier.get();
-        RecordsProcessedSummary summary = new RecordsProcessedSummary(recordsProcessed, jobStartTime, jobFinishTime);
-        jobStatusStore.jobFinished(job, summary, taskId);
-        logMetrics(job, summary);
-        return summary;
+    private void jobFailed(MessageHandle message, Throwable failure) {
+        try (message) {
+            LOGGER.error("Failed processing compaction job, putting job back on queue", failure);
+            numConsecutiveFailures++;
+            message.failed();
+        }
+    }
+
+    private static Instant latest(Instant time, Instant other) {
+        if (time == null) {
+            return other;
+        } else if (other == null || time.isAfter(other)) {
+            return time;
+        } else {
+            return other;
+        }
     }
 
     private void logMetrics(CompactionJob job, RecordsProcessedSummary summary) {
@@ -172,6 +306,36 @@ public class CompactionTask {
     @FunctionalInterface
     interface CompactionRunner {
         RecordsProcessed compact(CompactionJob job) throws Exception;
+
+        /**
+         * Estimates the memory that will be needed to run a compaction job. This is used to decide whether the job
+         * can be run at the same time as other jobs in the task.
+         *
+         * @param  job the compaction job
+         * @return     the estimated number of bytes
+         */
+        default long estimateMemoryBytes(CompactionJob job) {
+            return 0;
+        }
+    }
+
+    /**
+     * Tracks a compaction job while it runs on a thread in the task. The result is read by the thread that runs the
+     * task, after it is passed back through a blocking queue.
+     */
+    private static class JobRun {
+        private final MessageHandle message;
+        private final Instant startTime;
+        private final long memoryBytes;
+        private RecordsProcessed recordsProcessed;
+        private Instant finishTime;
+        private Throwable failure;
+
+        JobRun(MessageHandle message, Instant startTime, long memoryBytes) {
+            this.message = message;
+            this.startTime = startTime;
+            this.memoryBytes = memoryBytes;
+        }
     }
 
     interface MessageHandle extends AutoCloseable {
@@ -47,8 +47,9 @@ import static sleeper.configuration.properties.instance.CompactionProperty.COMPA
 import static sleeper.configuration.utils.AwsV1ClientHelper.buildAwsV1Client;
 
 /**
- * Runs a compaction task in ECS. Delegates the running of compaction jobs to {@link CompactSortedFiles},
- * and the processing of SQS messages to {@link SqsCompactionQueueHandler}.
+ * Runs a compaction task in ECS. Delegates the running of compaction jobs to {@link CompactSortedFiles} or
+ * {@link ArrowCompactSortedFiles} depending on the table, and the processing of SQS messages to
+ * {@link SqsCompactionQueueHandler}.
  */
 public class ECSCompactionTaskRunner {
     private static final Logger LOGGER = LoggerFactory.getLogger(ECSCompactionTaskRunner.class);
@@ -87,9 +88,12 @@ public class ECSCompactionTaskRunner {
         ObjectFactory objectFactory = new ObjectFactory(instanceProperties, s3Client, "/tmp");
         CompactSortedFiles compactSortedFiles = new CompactSortedFiles(instanceProperties,
                 tablePropertiesProvider, stateStoreProvider, objectFactory);
+        ArrowCompactSortedFiles arrowCompactSortedFiles = new ArrowCompactSortedFiles(instanceProperties,
+                tablePropertiesProvider, stateStoreProvider);
         CompactionTask task = new CompactionTask(instanceProperties, propertiesReloader,
                 new SqsCompactionQueueHandler(sqsClient, instanceProperties),
-                compactSortedFiles, jobStatusStore, taskStatusStore, taskId);
+                new CompactionMethodSelector(tablePropertiesProvider, compactSortedFiles, arrowCompactSortedFiles),
+                jobStatusStore, taskStatusStore, taskId);
         task.run();
 
         sqsClient.shutdown();
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.io.api.Binary;
+
+import sleeper.compaction.job.CompactionJob;
+import sleeper.core.partition.Partition;
+import sleeper.core.range.Range;
+import sleeper.core.record.KeyFieldComparator;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plans a compaction which copies whole row groups from the input files into the output file, where they do not
+ * overlap with data in other input files. This uses the statistics in the Parquet footers of the input files, so that
+ * no data needs to be read to decide which row groups can be copied.
+ * <p>
+ * The row groups of all input files are ordered by the minimum value of the first row key, and grouped into clusters
+ * which overlap on that key. The clusters are split into segments of the output file, which are written in order. A
+ * cluster can be copied if all its row groups come from one file, they are entirely inside the partition, they are
+ * compressed with the codec set for the table, and they are at least a minimum size. Consecutive clusters which cannot
+ * be copied are merged together. Small row groups are merged so that the output file is not made of many small row
+ * groups, which would make it slower to read.
+ * <p>
+ * This is only used for row keys whose order in Sleeper matches the order of the statistics in Parquet, i.e. int,
+ * long and byte array keys. String keys are compared differently in Sleeper and in Parquet statistics.
+ */
+public class RowGroupPassthroughPlan {
+    private final List<Segment> segments;
+
+    private RowGroupPassthroughPlan(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Plans a compaction job from the footers of its input files. An empty optional is returned if no row groups can
+     * be copied, in which case all the data must be merged. Row groups are never copied for a job which splits its
+     * output between leaf partitions.
+     *
+     * @param  job          the compaction job
+     * @param  schema       the schema of the Sleeper table
+     * @param  partition    the partition the job is compacting into
+     * @param  codec        the compression codec set for the table
+     * @param  minCopyBytes the minimum uncompressed size of a row group that can be copied
+     * @param  conf         the Hadoop configuration to read the footers
+     * @return              the plan, if any row groups can be copied
+     * @throws IOException  if a footer could not be read
+     */
+    public static Optional<RowGroupPassthroughPlan> plan(
+            CompactionJob job, Schema schema, Partition partition, CompressionCodecName codec, long minCopyBytes,
+            Configuration conf) throws IOException {
+        if (null != job.getIteratorClassName() || job.isSplittingOutput()
+                || job.getInputFiles().isEmpty() || !isSupported(schema)) {
+            return Optional.empty();
+        }
+        List<RowGroup> rowGroups = new ArrayList<>();
+        for (String file : job.getInputFiles()) {
+            List<BlockMetaData> blocks;
+            try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(file), conf))) {
+                blocks = reader.getFooter().getBlocks();
+            }
+            for (BlockMetaData block : blocks) {
+                Optional<RowGroup> rowGroup = RowGroup.from(file, block, schema, partition, codec, minCopyBytes);
+                if (!rowGroup.isPresent()) {
+                    return Optional.empty();
+                }
+                if (block.getRowCount() > 0 && rowGroup.get().overlapsPartition) {
+                    rowGroups.add(rowGroup.get());
+                }
+            }
+        }
+        Field firstRowKey = schema.getRowKeyFields().get(0);
+        KeyFieldComparator comparator = KeyFieldComparator.forType(firstRowKey.getType());
+        // The sort is stable, so row groups with the same minimum stay in the order of the input files
+        rowGroups.sort(Comparator.comparing((RowGroup rowGroup) -> rowGroup.min, comparator::compare));
+
+        List<Segment> segments = new ArrayList<>();
+        List<RowGroup> cluster = new ArrayList<>();
+        Object clusterMax = null;
+        for (RowGroup rowGroup : rowGroups) {
+            if (!cluster.isEmpty() && comparator.compare(rowGroup.min, clusterMax) > 0) {
+                addCluster(segments, cluster);
+                cluster = new ArrayList<>();
+            }
+            if (cluster.isEmpty() || comparator.compare(rowGroup.max, clusterMax) > 0) {
+                clusterMax = rowGroup.max;
+            }
+            cluster.add(rowGroup);
+        }
+        if (!cluster.isEmpty()) {
+            addCluster(segments, cluster);
+        }
+        if (segments.stream().noneMatch(Segment::isCopy)) {
+            return Optional.empty();
+        }
+        return Optional.of(new RowGroupPassthroughPlan(segments));
+    }
+
+    private static boolean isSupported(Schema schema) {
+        return schema.getRowKeyFields().stream()
+                .allMatch(field -> field.getType() instanceof IntType
+                        || field.getType() instanceof LongType
+                        || field.getType() instanceof ByteArrayType);
+    }
+
+    private static void addCluster(List<Segment> segments, List<RowGroup> cluster) {
+        String file = cluster.get(0).file;
+        boolean copy = cluster.stream().allMatch(rowGroup -> rowGroup.copyable && rowGroup.file.equals(file));
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (!copy && last != null && !last.copy) {
+            last.rowGroups.addAll(cluster);
+        } else {
+            segments.add(new Segment(copy, cluster));
+        }
+    }
+
+    /**
+     * Retrieves the segments of the output file, in the order they should be written.
+     *
+     * @return the segments
+     */
+    public List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Finds the range of the first row key which contains a segment of the output file. Each segment starts at the
+     * minimum value in its first row group, and ends where the next segment starts. Data for a segment can be read
+     * by filtering on this range and the partition.
+     *
+     * @param  schema the schema of the Sleeper table
+     * @param  index  the index of the segment
+     * @return        the range
+     */
+    public Range getSegmentRange(Schema schema, int index) {
+        Field firstRowKey = schema.getRowKeyFields().get(0);
+        Object min = segments.get(index).rowGroups.get(0).min;
+        Object max = index + 1 < segments.size() ? segments.get(index + 1).rowGroups.get(0).min : null;
+        return new Range(firstRowKey, min, true, max, false);
+    }
+
+    /**
+     * A part of the output file. This is either a list of row groups from one input file which can be copied as they
+     * are, or a list of row groups from any input files which must be merged.
+     */
+    public static class Segment {
+        private final boolean copy;
+        private final List<RowGroup> rowGroups;
+
+        private Segment(boolean copy, List<RowGroup> rowGroups) {
+            this.copy = copy;
+            this.rowGroups = new ArrayList<>(rowGroups);
+        }
+
+        public boolean isCopy() {
+            return copy;
+        }
+
+        /**
+         * Retrieves the input file to copy row groups from. Only valid if this segment is copied.
+         *
+         * @return the path to the file
+         */
+        public String getFile() {
+            return rowGroups.get(0).file;
+        }
+
+        /**
+         * Retrieves the row groups to copy from the input file. Only valid if this segment is copied.
+         *
+         * @return the Parquet metadata of the row groups, in order
+         */
+        public List<BlockMetaData> getBlocks() {
+            List<BlockMetaData> blocks = new ArrayList<>();
+            for (RowGroup rowGroup : rowGroups) {
+                blocks.add(rowGroup.block);
+            }
+            return blocks;
+        }
+
+        /**
+         * Retrieves the input files with data in this segment, in the order they are listed in the compaction job.
+         *
+         * @param  job the compaction job
+         * @return     the paths to the files
+         */
+        public List<String> getFiles(CompactionJob job) {
+            List<String> files = new ArrayList<>();
+            for (String file : job.getInputFiles()) {
+                if (rowGroups.stream().anyMatch(rowGroup -> rowGroup.file.equals(file))) {
+                    files.add(file);
+                }
+            }
+            return files;
+        }
+
+        public long getRowCount() {
+            return rowGroups.stream().mapToLong(rowGroup -> rowGroup.block.getRowCount()).sum();
+        }
+    }
+
+    /**
+     * A row group in an input file, with the range of the first row key found from the Parquet statistics.
+     */
+    private static class RowGroup {
+        private final String file;
+        private final BlockMetaData block;
+        private final Object min;
+        private final Object max;
+        private final boolean overlapsPartition;
+        private final boolean copyable;
+
+        private RowGroup(String file, BlockMetaData block, Object min, Object max, boolean overlapsPartition, boolean copyable) {
+            this.file = file;
+            this.block = block;
+            this.min = min;
+            this.max = max;
+            this.overlapsPartition = overlapsPartition;
+            this.copyable = copyable;
+        }
+
+        /**
+         * Reads the statistics of the row keys in a row group. An empty optional is returned if the statistics are not
+         * present for every row key.
+         *
+         * @param  file         the path to the input file
+         * @param  block        the Parquet metadata of the row group
+         * @param  schema       the schema of the Sleeper table
+         * @param  partition    the partition the job is compacting into
+         * @param  codec        the compression codec set for the table
+         * @param  minCopyBytes the minimum uncompressed size of a row group that can be copied
+         * @return              the row group, if it has statistics
+         */
+        static Optional<RowGroup> from(
+                String file, BlockMetaData block, Schema schema, Partition partition, CompressionCodecName codec, long minCopyBytes) {
+            Object firstMin = null;
+            Object firstMax = null;
+            boolean overlapsPartition = true;
+            boolean insidePartition = true;
+            for (Field field : schema.getRowKeyFields()) {
+                Optional<ColumnChunkMetaData> column = block.getColumns().stream()
+                        .filter(c -> c.getPath().toDotString().equals(field.getName()))
+                        .findFirst();
+                if (!column.isPresent()) {
+                    return Optional.empty();
+                }
+                Statistics<?> statistics = column.get().getStatistics();
+                if (null == statistics || statistics.isEmpty() || !statistics.hasNonNullValue()) {
+                    return Optional.empty();
+                }
+                Object min = toSleeperValue(statistics.genericGetMin());
+                Object max = toSleeperValue(statistics.genericGetMax());
+                if (null == firstMin) {
+                    firstMin = min;
+                    firstMax = max;
+                }
+                Range range = partition.getRegion().getRange(field.getName());
+                KeyFieldComparator comparator = KeyFieldComparator.forType(field.getType());
+                // Partitions include their minimum and exclude their maximum, and a null maximum is unbounded
+                boolean minInside = comparator.compare(min, range.getMin()) >= 0;
+                boolean maxInside = null == range.getMax() || comparator.compare(max, range.getMax()) < 0;
+                boolean maxBelowPartition = comparator.compare(max, range.getMin()) < 0;
+                boolean minAbovePartition = null != range.getMax() && comparator.compare(min, range.getMax()) >= 0;
+                overlapsPartition = overlapsPartition && !maxBelowPartition && !minAbovePartition;
+                insidePartition = insidePartition && minInside && maxInside;
+            }
+            boolean sameCodec = block.getColumns().stream().allMatch(c -> c.getCodec() == codec);
+            boolean largeEnough = block.getTotalByteSize() >= minCopyBytes;
+            return Optional.of(new RowGroup(file, block, firstMin, firstMax, overlapsPartition,
+                    insidePartition && sameCodec && largeEnough));
+        }
+
+        private static Object toSleeperValue(Object statisticsValue) {
+            if (statisticsValue instanceof Binary) {
+                return ((Binary) statisticsValue).getBytes();
+            }
+            return statisticsValue;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+
+import sleeper.core.record.IndexedRecord;
+import sleeper.core.record.RecordLayout;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A batch of rows from a Parquet file, held in an Arrow vector for each field of a Sleeper schema. The vectors are in
+ * the order of a {@link RecordLayout}, so the row and sort keys come first. Only int, long, string and byte array
+ * fields are supported.
+ * <p>
+ * The batch is filled one value at a time by {@link ArrowBatchReadSupport}, and is reused for every batch read from a
+ * file. Rows are written out by index with {@link #writeRow}, so values are copied from the vectors without creating a
+ * Sleeper record.
+ */
+public class ArrowBatch implements AutoCloseable {
+    private final RecordLayout layout;
+    private final FieldVector[] vectors;
+    private int rowCount;
+
+    public ArrowBatch(RecordLayout layout, BufferAllocator allocator) {
+        this.layout = layout;
+        this.vectors = new FieldVector[layout.getNumberOfFields()];
+        try {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = createVector(layout, i, allocator);
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a schema can be held in Arrow batches.
+     *
+     * @param  layout the layout of the schema
+     * @return        true if every field has a supported type
+     */
+    public static boolean isSupported(RecordLayout layout) {
+        for (int i = 0; i < layout.getNumberOfFields(); i++) {
+            switch (layout.getKind(i)) {
+                case INT:
+                case LONG:
+                case STRING:
+                case BYTE_ARRAY:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static FieldVector createVector(RecordLayout layout, int index, BufferAllocator allocator) {
+        String name = layout.getFieldName(index);
+        switch (layout.getKind(index)) {
+            case INT:
+                return new IntVector(name, allocator);
+            case LONG:
+                return new BigIntVector(name, allocator);
+            case STRING:
+                return new VarCharVector(name, allocator);
+            case BYTE_ARRAY:
+                return new VarBinaryVector(name, allocator);
+            default:
+                throw new IllegalArgumentException("Field type is not supported in an Arrow batch: " + layout.getFields().get(index));
+        }
+    }
+
+    public RecordLayout getLayout() {
+        return layout;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Empties the batch so that it can be filled again. The memory held by the vectors is kept.
+     */
+    public void clear() {
+        for (FieldVector vector : vectors) {
+            vector.reset();
+        }
+        rowCount = 0;
+    }
+
+    /**
+     * Sets an int value in the row that is currently being filled.
+     *
+     * @param field the position of the field
+     * @param value the value
+     */
+    public void setInt(int field, int value) {
+        ((IntVector) vectors[field]).setSafe(rowCount, value);
+    }
+
+    /**
+     * Sets a long value in the row that is currently being filled.
+     *
+     * @param field the position of the field
+     * @param value the value
+     */
+    public void setLong(int field, long value) {
+        ((BigIntVector) vectors[field]).setSafe(rowCount, value);
+    }
+
+    /**
+     * Sets a string or byte array value in the row that is currently being filled. The bytes are copied into the
+     * vector.
+     *
+     * @param field the position of the field
+     * @param value the value
+     */
+    public void setBinary(int field, Binary value) {
+        ByteBuffer buffer = value.toByteBuffer();
+        if (vectors[field] instanceof VarCharVector) {
+            ((VarCharVector) vectors[field]).setSafe(rowCount, buffer, buffer.position(), buffer.remaining());
+        } else {
+            ((VarBinaryVector) vectors[field]).setSafe(rowCount, buffer, buffer.position(), buffer.remaining());
+        }
+    }
+
+    /**
+     * Finishes the row that is currently being filled. If this is not called, the next row will overwrite it, e.g. if
+     * the row is filtered out.
+     */
+    public void endRow() {
+        rowCount++;
+    }
+
+    /**
+     * Finishes filling the batch, so that the vectors report the number of rows that were added.
+     */
+    public void endBatch() {
+        for (FieldVector vector : vectors) {
+            vector.setValueCount(rowCount);
+        }
+    }
+
+    /**
+     * Loads the row and sort keys of a row into a record. Other fields in the record are left unchanged. This is
+     * sufficient to order the row against other rows.
+     *
+     * @param row    the index of the row in the batch
+     * @param record the record to load the keys into
+     */
+    public void loadKeys(int row, IndexedRecord record) {
+        for (int i = 0; i < layout.getNumberOfKeys(); i++) {
+            switch (layout.getKind(i)) {
+                case INT:
+                    record.setInt(i, ((IntVector) vectors[i]).get(row));
+                    break;
+                case LONG:
+                    record.setLong(i, ((BigIntVector) vectors[i]).get(row));
+                    break;
+                case STRING:
+                    record.setObject(i, new String(((VarCharVector) vectors[i]).get(row), StandardCharsets.UTF_8));
+                    break;
+                default:
+                    record.setObject(i, ((VarBinaryVector) vectors[i]).get(row));
+            }
+        }
+    }
+
+    /**
+     * Writes a row to a Parquet file via a record consumer. This writes the same values as a Sleeper record holding the
+     * row.
+     *
+     * @param row      the index of the row in the batch
+     * @param consumer the record consumer
+     */
+    public void writeRow(int row, RecordConsumer consumer) {
+        consumer.startMessage();
+        for (int i = 0; i < vectors.length; i++) {
+            String name = layout.getFieldName(i);
+            consumer.startField(name, i);
+            switch (layout.getKind(i)) {
+                case INT:
+                    consumer.addInteger(((IntVector) vectors[i]).get(row));
+                    break;
+                case LONG:
+                    consumer.addLong(((BigIntVector) vectors[i]).get(row));
+                    break;
+                case STRING:
+                    consumer.addBinary(Binary.fromConstantByteArray(((VarCharVector) vectors[i]).get(row)));
+                    break;
+                default:
+                    consumer.addBinary(Binary.fromConstantByteArray(((VarBinaryVector) vectors[i]).get(row)));
+            }
+            consumer.endField(name, i);
+        }
+        consumer.endMessage();
+    }
+
+    @Override
+    public void close() {
+        for (FieldVector vector : vectors) {
+            if (vector != null) {
+                vector.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution.arrow;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.InitContext;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.io.api.RecordMaterializer;
+import org.apache.parquet.schema.MessageType;
+
+import sleeper.io.parquet.record.SchemaConverter;
+
+import java.util.Map;
+
+/**
+ * Support for reading rows of a Parquet file into an {@link ArrowBatch}. Each value is set directly in the vector for
+ * its field, and each row that is read is added to the end of the batch. Nothing is created for each row.
+ */
+public class ArrowBatchReadSupport extends ReadSupport<ArrowBatch> {
+    private final ArrowBatch batch;
+
+    public ArrowBatchReadSupport(ArrowBatch batch) {
+        this.batch = batch;
+    }
+
+    @Override
+    public RecordMaterializer<ArrowBatch> prepareForRead(
+            Configuration configuration,
+            Map<String, String> keyValueMetaData,
+            MessageType fileSchema,
+            ReadContext readContext) {
+        return new BatchMaterializer(batch);
+    }
+
+    @Override
+    public ReadContext init(InitContext context) {
+        return new ReadContext(SchemaConverter.getSchema(batch.getLayout().getSchema()));
+    }
+
+    /**
+     * Adds rows to the batch. A row is only added when it is materialised, so that if a filter is applied, rows which
+     * do not match the filter will be overwritten.
+     */
+    private static class BatchMaterializer extends RecordMaterializer<ArrowBatch> {
+        private final ArrowBatch batch;
+        private final BatchRowConverter converter;
+
+        BatchMaterializer(ArrowBatch batch) {
+            this.batch = batch;
+            this.converter = new BatchRowConverter(batch);
+        }
+
+        @Override
+        public ArrowBatch getCurrentRecord() {
+            batch.endRow();
+            return batch;
+        }
+
+        @Override
+        public GroupConverter getRootConverter() {
+            return converter;
+        }
+    }
+
+    /**
+     * Sets the values of a row in the batch.
+     */
+    private static class BatchRowConverter extends GroupConverter {
+        private final Converter[] converters;
+
+        BatchRowConverter(ArrowBatch batch) {
+            int numFields = batch.getLayout().getNumberOfFields();
+            this.converters = new Converter[numFields];
+            for (int i = 0; i < numFields; i++) {
+                converters[i] = new FieldConverter(batch, i);
+            }
+        }
+
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            return converters[fieldIndex];
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+
+    /**
+     * Sets the value of a field in the batch.
+     */
+    private static class FieldConverter extends PrimitiveConverter {
+        private final ArrowBatch batch;
+        private final int field;
+
+        FieldConverter(ArrowBatch batch, int field) {
+            this.batch = batch;
+            this.field = field;
+        }
+
+        @Override
+        public void addInt(int value) {
+            batch.setInt(field, value);
+        }
+
+        @Override
+        public void addLong(long value) {
+            batch.setLong(field, value);
+        }
+
+        @Override
+        public void addBinary(Binary value) {
+            batch.setBinary(field, value);
+        }
+    }
+}
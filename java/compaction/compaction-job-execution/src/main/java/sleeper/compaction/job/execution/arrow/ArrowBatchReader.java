@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution.arrow;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.api.ReadSupport;
+
+import java.io.IOException;
+
+/**
+ * Reads a Parquet file into an {@link ArrowBatch}, a batch at a time. The same batch is refilled on each read, so
+ * rows from a previous batch must not be used after the next batch is read.
+ */
+public class ArrowBatchReader implements AutoCloseable {
+    private final ParquetReader<ArrowBatch> reader;
+    private final ArrowBatch batch;
+    private final int maxRowsPerBatch;
+    private long rowsRead;
+    private boolean finished;
+
+    private ArrowBatchReader(ParquetReader<ArrowBatch> reader, ArrowBatch batch, int maxRowsPerBatch) {
+        this.reader = reader;
+        this.batch = batch;
+        this.maxRowsPerBatch = maxRowsPerBatch;
+    }
+
+    /**
+     * Creates a builder for a reader of a file into a batch. Further settings may be set on the Parquet reader before
+     * calling {@link Builder#buildBatchReader()}.
+     *
+     * @param  path            the path to the file
+     * @param  batch           the batch to read into
+     * @param  maxRowsPerBatch the maximum number of rows to read into the batch at once
+     * @return                 the builder
+     */
+    public static Builder builder(Path path, ArrowBatch batch, int maxRowsPerBatch) {
+        return new Builder(path, batch, maxRowsPerBatch);
+    }
+
+    /**
+     * Reads the next rows from the file into the batch, replacing any rows already in the batch.
+     *
+     * @return             true if any rows were read, false if the end of the file was reached
+     * @throws IOException if the file could not be read
+     */
+    public boolean readBatch() throws IOException {
+        batch.clear();
+        while (!finished && batch.getRowCount() < maxRowsPerBatch) {
+            if (null == reader.read()) {
+                finished = true;
+            }
+        }
+        batch.endBatch();
+        rowsRead += batch.getRowCount();
+        return batch.getRowCount() > 0;
+    }
+
+    public ArrowBatch getBatch() {
+        return batch;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Builds a reader for a Parquet file.
+     */
+    public static class Builder extends ParquetReader.Builder<ArrowBatch> {
+        private final ArrowBatch batch;
+        private final int maxRowsPerBatch;
+
+        private Builder(Path path, ArrowBatch batch, int maxRowsPerBatch) {
+            super(path);
+            this.batch = batch;
+            this.maxRowsPerBatch = maxRowsPerBatch;
+        }
+
+        @Override
+        protected ReadSupport<ArrowBatch> getReadSupport() {
+            return new ArrowBatchReadSupport(batch);
+        }
+
+        /**
+         * Creates a reader for the file.
+         *
+         * @return             the reader
+         * @throws IOException if the file could not be opened
+         */
+        public ArrowBatchReader buildBatchReader() throws IOException {
+            return new ArrowBatchReader(build(), batch, maxRowsPerBatch);
+        }
+    }
+}
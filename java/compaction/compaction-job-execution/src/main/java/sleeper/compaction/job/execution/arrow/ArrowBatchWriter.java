@@ -0,0 +1,140 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution.arrow;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+import sleeper.io.parquet.record.SchemaConverter;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * Writes rows from Arrow batches to a Parquet file. The file is written with the same Parquet schema and settings as
+ * a file of Sleeper records written with {@link ParquetRecordWriterFactory}.
+ */
+public class ArrowBatchWriter implements AutoCloseable {
+    private final ParquetWriter<RowReference> writer;
+    private final RowReference reference = new RowReference();
+
+    private ArrowBatchWriter(ParquetWriter<RowReference> writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Creates a writer to a Parquet file with the settings of a Sleeper table.
+     *
+     * @param  path            the path to the file
+     * @param  tableProperties the table properties
+     * @param  conf            the Hadoop configuration
+     * @param  writeMode       whether to overwrite an existing file
+     * @return                 the writer
+     * @throws IOException     if the file could not be created
+     */
+    public static ArrowBatchWriter create(
+            Path path, TableProperties tableProperties, Configuration conf, ParquetFileWriter.Mode writeMode) throws IOException {
+        Builder builder = new Builder(path, SchemaConverter.getSchema(tableProperties.getSchema()));
+        return new ArrowBatchWriter(ParquetRecordWriterFactory.withTableProperties(builder, tableProperties)
+                .withConf(conf)
+                .withWriteMode(writeMode)
+                .build());
+    }
+
+    /**
+     * Writes a row from a batch.
+     *
+     * @param  batch       the batch
+     * @param  row         the index of the row in the batch
+     * @throws IOException if the row could not be written
+     */
+    public void write(ArrowBatch batch, int row) throws IOException {
+        reference.batch = batch;
+        reference.row = row;
+        writer.write(reference);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * A pointer to a row in a batch. This is reused for every row, as the Parquet writer does not hold on to it.
+     */
+    private static class RowReference {
+        private ArrowBatch batch;
+        private int row;
+    }
+
+    /**
+     * Support for writing a row from a batch via a record consumer.
+     */
+    private static class RowWriteSupport extends WriteSupport<RowReference> {
+        private final MessageType messageType;
+        private RecordConsumer recordConsumer;
+
+        RowWriteSupport(MessageType messageType) {
+            this.messageType = messageType;
+        }
+
+        @Override
+        public WriteContext init(Configuration configuration) {
+            return new WriteContext(messageType, new HashMap<>());
+        }
+
+        @Override
+        public void prepareForWrite(RecordConsumer recordConsumer) {
+            this.recordConsumer = recordConsumer;
+        }
+
+        @Override
+        @SuppressFBWarnings("UWF_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
+        public void write(RowReference reference) {
+            reference.batch.writeRow(reference.row, recordConsumer);
+        }
+    }
+
+    /**
+     * Builds a Parquet writer for rows from batches.
+     */
+    private static class Builder extends ParquetWriter.Builder<RowReference, Builder> {
+        private final MessageType messageType;
+
+        Builder(Path path, MessageType messageType) {
+            super(path);
+            this.messageType = messageType;
+        }
+
+        @Override
+        protected WriteSupport<RowReference> getWriteSupport(Configuration conf) {
+            return new RowWriteSupport(messageType);
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+    }
+}
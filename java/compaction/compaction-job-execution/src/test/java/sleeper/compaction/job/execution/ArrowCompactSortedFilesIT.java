@@ -0,0 +1,206 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.compaction.job.CompactionJob;
+import sleeper.compaction.job.execution.testutils.CompactSortedFilesTestBase;
+import sleeper.compaction.job.execution.testutils.CompactSortedFilesTestData;
+import sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils;
+import sleeper.configuration.properties.table.FixedTablePropertiesProvider;
+import sleeper.core.iterator.impl.AgeOffIterator;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.record.Record;
+import sleeper.core.record.process.RecordsProcessed;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.assignJobIdToInputFiles;
+import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.assignJobIdsToInputFiles;
+import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.createSchemaWithTypesForKeyAndTwoValues;
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_METHOD;
+import static sleeper.configuration.properties.table.TableProperty.ITERATOR_CLASS_NAME;
+import static sleeper.configuration.properties.table.TableProperty.ITERATOR_CONFIG;
+import static sleeper.sketches.s3.SketchesSerDeToS3.sketchesPathForDataFile;
+
+class ArrowCompactSortedFilesIT extends CompactSortedFilesTestBase {
+
+    @Test
+    void shouldMergeFilesCorrectlyAndUpdateStateStoreWithLongKey() throws Exception {
+        // Given
+        Schema schema = createSchemaWithTypesForKeyAndTwoValues(new LongType(), new LongType(), new LongType());
+        tableProperties.setSchema(schema);
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+
+        List<Record> data1 = CompactSortedFilesTestData.keyAndTwoValuesSortedEvenLongs();
+        List<Record> data2 = CompactSortedFilesTestData.keyAndTwoValuesSortedOddLongs();
+        FileReference file1 = ingestRecordsGetFile(data1);
+        FileReference file2 = ingestRecordsGetFile(data2);
+
+        CompactionJob compactionJob = compactionFactory().createCompactionJob(List.of(file1, file2), "root");
+        assignJobIdToInputFiles(stateStore, compactionJob);
+
+        // When
+        RecordsProcessed summary = createArrowCompactSortedFiles(schema).compact(compactionJob);
+
+        // Then
+        List<Record> expectedResults = CompactSortedFilesTestData.combineSortedBySingleKey(data1, data2);
+        assertThat(summary.getRecordsRead()).isEqualTo(expectedResults.size());
+        assertThat(summary.getRecordsWritten()).isEqualTo(expectedResults.size());
+        assertThat(CompactSortedFilesTestData.readDataFile(schema, compactionJob.getOutputFile())).isEqualTo(expectedResults);
+        assertThat(stateStore.getReadyForGCFilenamesBefore(Instant.ofEpochMilli(Long.MAX_VALUE)))
+                .containsExactlyInAnyOrder(file1.getFilename(), file2.getFilename());
+        assertThat(stateStore.getFileReferences())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("lastStateStoreUpdateTime")
+                .containsExactly(FileReferenceFactory.from(stateStore)
+                        .rootFile(compactionJob.getOutputFile(), 200L));
+    }
+
+    @Test
+    void shouldWriteSameFilesAsJavaCompactionWithLongKey() throws Exception {
+        // Given
+        Schema schema = createSchemaWithTypesForKeyAndTwoValues(new LongType(), new LongType(), new LongType());
+        tableProperties.setSchema(schema);
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+        List<Record> data1 = CompactSortedFilesTestData.keyAndTwoValuesSortedEvenLongs();
+        List<Record> data2 = CompactSortedFilesTestData.keyAndTwoValuesSortedOddLongs();
+
+        // When / Then
+        assertSameFilesAsJavaCompaction(schema, data1, data2);
+    }
+
+    @Test
+    void shouldWriteSameFilesAsJavaCompactionWithStringKey() throws Exception {
+        // Given
+        Schema schema = createSchemaWithTypesForKeyAndTwoValues(new StringType(), new StringType(), new LongType());
+        tableProperties.setSchema(schema);
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+        List<Record> data1 = CompactSortedFilesTestData.keyAndTwoValuesSortedEvenStrings();
+        List<Record> data2 = CompactSortedFilesTestData.keyAndTwoValuesSortedOddStrings();
+
+        // When / Then
+        assertSameFilesAsJavaCompaction(schema, data1, data2);
+    }
+
+    @Test
+    void shouldWriteSameFilesAsJavaCompactionWithByteArrayKey() throws Exception {
+        // Given
+        Schema schema = createSchemaWithTypesForKeyAndTwoValues(new ByteArrayType(), new ByteArrayType(), new LongType());
+        tableProperties.setSchema(schema);
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+        List<Record> data1 = CompactSortedFilesTestData.keyAndTwoValuesSortedEvenByteArrays();
+        List<Record> data2 = CompactSortedFilesTestData.keyAndTwoValuesSortedOddByteArrays();
+
+        // When / Then
+        assertSameFilesAsJavaCompaction(schema, data1, data2);
+    }
+
+    @Test
+    void shouldWriteSameFilesAsJavaCompactionWithEqualKeysInBothFiles() throws Exception {
+        // Given
+        Schema schema = createSchemaWithTypesForKeyAndTwoValues(new LongType(), new LongType(), new LongType());
+        tableProperties.setSchema(schema);
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+        List<Record> data1 = CompactSortedFilesTestData.specifiedFromEvens((even, record) -> {
+            record.put("key", (long) (even / 10));
+            record.put("value1", 1L);
+            record.put("value2", (long) even);
+        });
+        List<Record> data2 = CompactSortedFilesTestData.specifiedFromOdds((odd, record) -> {
+            record.put("key", (long) (odd / 10));
+            record.put("value1", 2L);
+            record.put("value2", (long) odd);
+        });
+
+        // When / Then
+        assertSameFilesAsJavaCompaction(schema, data1, data2);
+    }
+
+    @Test
+    void shouldFallBackToJavaCompactionWhenTableHasIterator() throws Exception {
+        // Given
+        Schema schema = CompactSortedFilesTestUtils.createSchemaWithKeyTimestampValue();
+        tableProperties.setSchema(schema);
+        tableProperties.set(COMPACTION_METHOD, "arrow");
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+
+        List<Record> data1 = CompactSortedFilesTestData.specifiedFromEvens((even, record) -> {
+            record.put("key", (long) even);
+            record.put("timestamp", System.currentTimeMillis());
+            record.put("value", 987654321L);
+        });
+        List<Record> data2 = CompactSortedFilesTestData.specifiedFromOdds((odd, record) -> {
+            record.put("key", (long) odd);
+            record.put("timestamp", 0L);
+            record.put("value", 123456789L);
+        });
+        FileReference file1 = ingestRecordsGetFile(data1);
+        FileReference file2 = ingestRecordsGetFile(data2);
+
+        tableProperties.set(ITERATOR_CLASS_NAME, AgeOffIterator.class.getName());
+        tableProperties.set(ITERATOR_CONFIG, "timestamp,1000000");
+
+        CompactionJob compactionJob = compactionFactory().createCompactionJob(List.of(file1, file2), "root");
+        assignJobIdToInputFiles(stateStore, compactionJob);
+
+        // When
+        RecordsProcessed summary = createCompactionMethodSelector(schema).compact(compactionJob);
+
+        // Then
+        assertThat(summary.getRecordsRead()).isEqualTo(200L);
+        assertThat(summary.getRecordsWritten()).isEqualTo(100L);
+        assertThat(CompactSortedFilesTestData.readDataFile(schema, compactionJob.getOutputFile())).isEqualTo(data1);
+    }
+
+    private void assertSameFilesAsJavaCompaction(Schema schema, List<Record> data1, List<Record> data2) throws Exception {
+        CompactionJob javaJob = compactionFactory().createCompactionJob(
+                List.of(ingestRecordsGetFile(data1), ingestRecordsGetFile(data2)), "root");
+        CompactionJob arrowJob = compactionFactory().createCompactionJob(
+                List.of(ingestRecordsGetFile(data1), ingestRecordsGetFile(data2)), "root");
+        assignJobIdsToInputFiles(stateStore, javaJob, arrowJob);
+
+        RecordsProcessed javaSummary = createCompactSortedFiles(schema).compact(javaJob);
+        RecordsProcessed arrowSummary = createArrowCompactSortedFiles(schema).compact(arrowJob);
+
+        assertThat(arrowSummary).isEqualTo(javaSummary);
+        assertThat(readBytes(arrowJob.getOutputFile()))
+                .isEqualTo(readBytes(javaJob.getOutputFile()));
+        assertThat(readBytes(sketchesPathForDataFile(arrowJob.getOutputFile()).toString()))
+                .isEqualTo(readBytes(sketchesPathForDataFile(javaJob.getOutputFile()).toString()));
+    }
+
+    private CompactionMethodSelector createCompactionMethodSelector(Schema schema) throws Exception {
+        return new CompactionMethodSelector(new FixedTablePropertiesProvider(tableProperties),
+                createCompactSortedFiles(schema), createArrowCompactSortedFiles(schema));
+    }
+
+    private static byte[] readBytes(String filename) throws IOException {
+        return Files.readAllBytes(Paths.get(URI.create(filename)));
+    }
+}
@@ -33,12 +33,19 @@ import sleeper.core.schema.type.StringType;
 import sleeper.core.statestore.FileReference;
 import sleeper.core.statestore.FileReferenceFactory;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.assignJobIdToInputFiles;
+import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.assignJobIdsToInputFiles;
 import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.createSchemaWithTypesForKeyAndTwoValues;
+import static sleeper.configuration.properties.table.TableProperty.READ_AHEAD_RECORDS;
+import static sleeper.sketches.s3.SketchesSerDeToS3.sketchesPathForDataFile;
 
 class CompactSortedFilesIT extends CompactSortedFilesTestBase {
 
@@ -79,6 +86,34 @@ class CompactSortedFilesIT extends CompactSortedFilesTestBase {
                         .rootFile(compactionJob.getOutputFile(), 200L));
     }
 
+    @Test
+    void shouldWriteSameFilesWhenMergingOnSeparateThreadsAsOnOneThread() throws Exception {
+        // Given
+        Schema schema = createSchemaWithTypesForKeyAndTwoValues(new LongType(), new LongType(), new LongType());
+        tableProperties.setSchema(schema);
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+
+        List<Record> data1 = CompactSortedFilesTestData.keyAndTwoValuesSortedEvenLongs();
+        List<Record> data2 = CompactSortedFilesTestData.keyAndTwoValuesSortedOddLongs();
+        CompactionJob oneThreadJob = compactionFactory().createCompactionJob(
+                List.of(ingestRecordsGetFile(data1), ingestRecordsGetFile(data2)), "root");
+        CompactionJob separateThreadsJob = compactionFactory().createCompactionJob(
+                List.of(ingestRecordsGetFile(data1), ingestRecordsGetFile(data2)), "root");
+        assignJobIdsToInputFiles(stateStore, oneThreadJob, separateThreadsJob);
+
+        // When
+        tableProperties.setNumber(READ_AHEAD_RECORDS, 0);
+        createCompactSortedFiles(schema).compact(oneThreadJob);
+        tableProperties.setNumber(READ_AHEAD_RECORDS, 10);
+        createCompactSortedFiles(schema).compact(separateThreadsJob);
+
+        // Then
+        assertThat(readBytes(separateThreadsJob.getOutputFile()))
+                .isEqualTo(readBytes(oneThreadJob.getOutputFile()));
+        assertThat(readBytes(sketchesPathForDataFile(separateThreadsJob.getOutputFile()).toString()))
+                .isEqualTo(readBytes(sketchesPathForDataFile(oneThreadJob.getOutputFile()).toString()));
+    }
+
     @Nested
     @DisplayName("Process string key")
     class ProcessStringKey {
@@ -200,4 +235,8 @@ class CompactSortedFilesIT extends CompactSortedFilesTestBase {
                             .rootFile(compactionJob.getOutputFile(), 200L));
         }
     }
+
+    private static byte[] readBytes(String filename) throws IOException {
+        return Files.readAllBytes(Paths.get(URI.create(filename)));
+    }
 }
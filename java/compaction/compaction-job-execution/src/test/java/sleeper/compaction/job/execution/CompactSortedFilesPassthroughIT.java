@@ -0,0 +1,194 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.junit.jupiter.api.Test;
+
+import sleeper.compaction.job.CompactionJob;
+import sleeper.compaction.job.execution.testutils.CompactSortedFilesTestBase;
+import sleeper.compaction.job.execution.testutils.CompactSortedFilesTestData;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.record.Record;
+import sleeper.core.record.process.RecordsProcessed;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceFactory;
+import sleeper.sketches.Sketches;
+import sleeper.sketches.s3.SketchesSerDeToS3;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.assignJobIdToInputFiles;
+import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.createSchemaWithTypesForKeyAndTwoValues;
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_ROW_GROUP_PASSTHROUGH;
+import static sleeper.configuration.properties.table.TableProperty.COMPACTION_ROW_GROUP_PASSTHROUGH_MIN_SIZE_PERCENTAGE;
+import static sleeper.sketches.s3.SketchesSerDeToS3.sketchesPathForDataFile;
+
+class CompactSortedFilesPassthroughIT extends CompactSortedFilesTestBase {
+
+    private final Schema schema = createSchemaWithTypesForKeyAndTwoValues(new LongType(), new LongType(), new LongType());
+
+    @Test
+    void shouldCopyRowGroupsFromFilesWhichDoNotOverlap() throws Exception {
+        // Given
+        tableProperties.setSchema(schema);
+        tableProperties.setNumber(COMPACTION_ROW_GROUP_PASSTHROUGH_MIN_SIZE_PERCENTAGE, 0);
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+        List<Record> data1 = recordsWithKeys(0, 100);
+        List<Record> data2 = recordsWithKeys(100, 200);
+        FileReference file1 = ingestRecordsGetFile(data1);
+        FileReference file2 = ingestRecordsGetFile(data2);
+        CompactionJob compactionJob = compactionFactory().createCompactionJob(List.of(file2, file1), "root");
+        assignJobIdToInputFiles(stateStore, compactionJob);
+
+        // When
+        RecordsProcessed summary = createCompactSortedFiles(schema).compact(compactionJob);
+
+        // Then
+        List<Record> expectedResults = concat(data1, data2);
+        assertThat(summary.getRecordsRead()).isEqualTo(200L);
+        assertThat(summary.getRecordsWritten()).isEqualTo(200L);
+        assertThat(CompactSortedFilesTestData.readDataFile(schema, compactionJob.getOutputFile())).isEqualTo(expectedResults);
+        assertThat(countRowGroups(compactionJob.getOutputFile())).isEqualTo(2);
+        assertThat(readBytes(sketchesPathForDataFile(compactionJob.getOutputFile()).toString()))
+                .isEqualTo(expectedSketchesBytes(expectedResults));
+        assertThat(stateStore.getFileReferences())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("lastStateStoreUpdateTime")
+                .containsExactly(FileReferenceFactory.from(stateStore)
+                        .rootFile(compactionJob.getOutputFile(), 200L));
+    }
+
+    @Test
+    void shouldMergeOverlappingFilesAndCopyTheRest() throws Exception {
+        // Given
+        tableProperties.setSchema(schema);
+        tableProperties.setNumber(COMPACTION_ROW_GROUP_PASSTHROUGH_MIN_SIZE_PERCENTAGE, 0);
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+        List<Record> evens = CompactSortedFilesTestData.keyAndTwoValuesSortedEvenLongs();
+        List<Record> odds = CompactSortedFilesTestData.keyAndTwoValuesSortedOddLongs();
+        List<Record> after = recordsWithKeys(1000, 1100);
+        FileReference file1 = ingestRecordsGetFile(evens);
+        FileReference file2 = ingestRecordsGetFile(odds);
+        FileReference file3 = ingestRecordsGetFile(after);
+        CompactionJob compactionJob = compactionFactory().createCompactionJob(List.of(file1, file2, file3), "root");
+        assignJobIdToInputFiles(stateStore, compactionJob);
+
+        // When
+        RecordsProcessed summary = createCompactSortedFiles(schema).compact(compactionJob);
+
+        // Then
+        List<Record> expectedResults = concat(CompactSortedFilesTestData.combineSortedBySingleKey(evens, odds), after);
+        assertThat(summary.getRecordsRead()).isEqualTo(300L);
+        assertThat(summary.getRecordsWritten()).isEqualTo(300L);
+        assertThat(CompactSortedFilesTestData.readDataFile(schema, compactionJob.getOutputFile())).isEqualTo(expectedResults);
+        assertThat(countRowGroups(compactionJob.getOutputFile())).isEqualTo(2);
+        assertThat(readBytes(sketchesPathForDataFile(compactionJob.getOutputFile()).toString()))
+                .isEqualTo(expectedSketchesBytes(expectedResults));
+    }
+
+    @Test
+    void shouldMergeRowGroupsBelowMinimumSize() throws Exception {
+        // Given
+        tableProperties.setSchema(schema);
+        tableProperties.setNumber(COMPACTION_ROW_GROUP_PASSTHROUGH_MIN_SIZE_PERCENTAGE, 50);
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+        List<Record> data1 = recordsWithKeys(0, 100);
+        List<Record> data2 = recordsWithKeys(100, 200);
+        FileReference file1 = ingestRecordsGetFile(data1);
+        FileReference file2 = ingestRecordsGetFile(data2);
+        CompactionJob compactionJob = compactionFactory().createCompactionJob(List.of(file1, file2), "root");
+        assignJobIdToInputFiles(stateStore, compactionJob);
+
+        // When
+        RecordsProcessed summary = createCompactSortedFiles(schema).compact(compactionJob);
+
+        // Then
+        assertThat(summary.getRecordsWritten()).isEqualTo(200L);
+        assertThat(CompactSortedFilesTestData.readDataFile(schema, compactionJob.getOutputFile()))
+                .isEqualTo(concat(data1, data2));
+        assertThat(countRowGroups(compactionJob.getOutputFile())).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCopyRowGroupsWhenPassthroughIsDisabled() throws Exception {
+        // Given
+        tableProperties.setSchema(schema);
+        tableProperties.setNumber(COMPACTION_ROW_GROUP_PASSTHROUGH_MIN_SIZE_PERCENTAGE, 0);
+        tableProperties.set(COMPACTION_ROW_GROUP_PASSTHROUGH, "false");
+        stateStore.initialise(new PartitionsBuilder(schema).singlePartition("root").buildList());
+        List<Record> data1 = recordsWithKeys(0, 100);
+        List<Record> data2 = recordsWithKeys(100, 200);
+        FileReference file1 = ingestRecordsGetFile(data1);
+        FileReference file2 = ingestRecordsGetFile(data2);
+        CompactionJob compactionJob = compactionFactory().createCompactionJob(List.of(file1, file2), "root");
+        assignJobIdToInputFiles(stateStore, compactionJob);
+
+        // When
+        RecordsProcessed summary = createCompactSortedFiles(schema).compact(compactionJob);
+
+        // Then
+        assertThat(summary.getRecordsWritten()).isEqualTo(200L);
+        assertThat(CompactSortedFilesTestData.readDataFile(schema, compactionJob.getOutputFile()))
+                .isEqualTo(concat(data1, data2));
+        assertThat(countRowGroups(compactionJob.getOutputFile())).isEqualTo(1);
+    }
+
+    private static List<Record> recordsWithKeys(long from, long to) {
+        return LongStream.range(from, to)
+                .mapToObj(key -> new Record(Map.of("key", key, "value1", key * 2, "value2", key * 3)))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Record> concat(List<Record> records1, List<Record> records2) {
+        List<Record> records = new ArrayList<>(records1);
+        records.addAll(records2);
+        return records;
+    }
+
+    private static int countRowGroups(String filename) throws IOException {
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(filename), new Configuration()))) {
+            return reader.getFooter().getBlocks().size();
+        }
+    }
+
+    private byte[] expectedSketchesBytes(List<Record> records) throws IOException {
+        Sketches sketches = Sketches.from(schema);
+        for (Record record : records) {
+            sketches.update(schema, record);
+        }
+        java.nio.file.Path sketchesFile = tempDir.resolve("expected.sketches");
+        new SketchesSerDeToS3(schema).saveToHadoopFS(new Path(sketchesFile.toUri()), sketches, new Configuration());
+        return Files.readAllBytes(sketchesFile);
+    }
+
+    private static byte[] readBytes(String filename) throws IOException {
+        return Files.readAllBytes(Paths.get(URI.create(filename)));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.compaction.job.execution;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.junit.jupiter.api.Test;
+
+import sleeper.compaction.job.CompactionJob;
+import sleeper.compaction.job.execution.testutils.CompactSortedFilesTestBase;
+import sleeper.compaction.job.execution.testutils.CompactSortedFilesTestData;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.record.Record;
+import sleeper.core.record.process.RecordsProcessed;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceFactory;
+import sleeper.sketches.Sketches;
+import sleeper.sketches.s3.SketchesSerDeToS3;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.assignJobIdToInputFiles;
+import static sleeper.compaction.job.execution.testutils.CompactSortedFilesTestUtils.createSchemaWithTypesForKeyAndTwoValues;
+import static sleeper.sketches.s3.SketchesSerDeToS3.sketchesPathForDataFile;
+
+class CompactSortedFilesSplittingOutputIT extends CompactSortedFilesTestBase {
+
+    private final Schema schema = createSchemaWithTypesForKeyAndTwoValues(new LongType(), new LongType(), new LongType());
+    private final PartitionsBuilder partitions = new PartitionsBuilder(schema).rootFirst("root");
+
+    @Test
+    void shouldWriteOneFileForEachLeafPartition() throws Exception {
+        // Given
+        tableProperties.setSchema(schema);
+        stateStore.initialise(partitions.buildList());
+        List<Record> data1 = CompactSortedFilesTestData.keyAndTwoValuesSortedEvenLongs();
+        List<Record> data2 = CompactSortedFilesTestData.keyAndTwoValuesSortedOddLongs();
+        FileReference file1 = ingestRecordsGetFile(data1);
+        FileReference file2 = ingestRecordsGetFile(data2);
+        partitions.splitToNewChildren("root", "L", "R", 100L).applySplit(stateStore, "root");
+        CompactionJob compactionJob = compactionFactory().createSplittingCompactionJob(
+                List.of(file1, file2), "root", List.of("L", "R"));
+        assignJobIdToInputFiles(stateStore, compactionJob);
+
+        // When
+        RecordsProcessed summary = createCompactSortedFiles(schema).compact(compactionJob);
+
+        // Then
+        List<Record> expectedResults = CompactSortedFilesTestData.combineSortedBySingleKey(data1, data2);
+        List<Record> expectedLeft = expectedResults.subList(0, 100);
+        List<Record> expectedRight = expectedResults.subList(100, 200);
+        String leftFile = compactionJob.getLeafPartitionOutputFiles().get("L");
+        String rightFile = compactionJob.getLeafPartitionOutputFiles().get("R");
+        assertThat(summary.getRecordsRead()).isEqualTo(200L);
+        assertThat(summary.getRecordsWritten()).isEqualTo(200L);
+        assertThat(CompactSortedFilesTestData.readDataFile(schema, leftFile)).isEqualTo(expectedLeft);
+        assertThat(CompactSortedFilesTestData.readDataFile(schema, rightFile)).isEqualTo(expectedRight);
+        assertThat(readBytes(sketchesPathForDataFile(leftFile).toString()))
+                .isEqualTo(expectedSketchesBytes(expectedLeft));
+        assertThat(readBytes(sketchesPathForDataFile(rightFile).toString()))
+                .isEqualTo(expectedSketchesBytes(expectedRight));
+        FileReferenceFactory fileFactory = FileReferenceFactory.from(stateStore);
+        assertThat(stateStore.getFileReferences())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("lastStateStoreUpdateTime")
+                .containsExactlyInAnyOrder(
+                        fileFactory.partitionFile("L", leftFile, 100L),
+                        fileFactory.partitionFile("R", rightFile, 100L));
+    }
+
+    @Test
+    void shouldNotWriteFileForLeafPartitionWithNoRecords() throws Exception {
+        // Given
+        tableProperties.setSchema(schema);
+        stateStore.initialise(partitions.buildList());
+        List<Record> data1 = CompactSortedFilesTestData.keyAndTwoValuesSortedEvenLongs();
+        List<Record> data2 = CompactSortedFilesTestData.keyAndTwoValuesSortedOddLongs();
+        FileReference file1 = ingestRecordsGetFile(data1);
+        FileReference file2 = ingestRecordsGetFile(data2);
+        partitions.splitToNewChildren("root", "L", "R", 1000L).applySplit(stateStore, "root");
+        CompactionJob compactionJob = compactionFactory().createSplittingCompactionJob(
+                List.of(file1, file2), "root", List.of("L", "R"));
+        assignJobIdToInputFiles(stateStore, compactionJob);
+
+        // When
+        RecordsProcessed summary = createCompactSortedFiles(schema).compact(compactionJob);
+
+        // Then
+        String leftFile = compactionJob.getLeafPartitionOutputFiles().get("L");
+        String rightFile = compactionJob.getLeafPartitionOutputFiles().get("R");
+        assertThat(summary.getRecordsRead()).isEqualTo(200L);
+        assertThat(summary.getRecordsWritten()).isEqualTo(200L);
+        assertThat(CompactSortedFilesTestData.readDataFile(schema, leftFile))
+                .isEqualTo(CompactSortedFilesTestData.combineSortedBySingleKey(data1, data2));
+        assertThat(Paths.get(URI.create(rightFile))).doesNotExist();
+        assertThat(stateStore.getFileReferences())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("lastStateStoreUpdateTime")
+                .containsExactly(FileReferenceFactory.from(stateStore)
+                        .partitionFile("L", leftFile, 200L));
+    }
+
+    private byte[] expectedSketchesBytes(List<Record> records) throws IOException {
+        Sketches sketches = Sketches.from(schema);
+        for (Record record : records) {
+            sketches.update(schema, record);
+        }
+        java.nio.file.Path sketchesFile = Files.createTempFile(tempDir, "expected", ".sketches");
+        new SketchesSerDeToS3(schema).saveToHadoopFS(new Path(sketchesFile.toUri()), sketches, new Configuration());
+        return Files.readAllBytes(sketchesFile);
+    }
+
+    private static byte[] readBytes(String filename) throws IOException {
+        return Files.readAllBytes(Paths.get(URI.create(filename)));
+    }
+}
@@ -25,6 +25,7 @@ import sleeper.compaction.job.CompactionJob;
 import sleeper.compaction.job.execution.CompactionTask.CompactionRunner;
 import sleeper.compaction.job.execution.CompactionTask.MessageHandle;
 import sleeper.compaction.job.execution.CompactionTask.MessageReceiver;
+import sleeper.compaction.job.status.CompactionJobStatus;
 import sleeper.compaction.task.CompactionTaskFinishedStatus;
 import sleeper.compaction.task.CompactionTaskStatus;
 import sleeper.compaction.task.CompactionTaskStatusStore;
@@ -32,8 +33,19 @@ import sleeper.compaction.testutils.InMemoryCompactionJobStatusStore;
 import sleeper.compaction.testutils.InMemoryCompactionTaskStatusStore;
 import sleeper.configuration.properties.PropertiesReloader;
 import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.FixedTablePropertiesProvider;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.core.record.process.RecordsProcessed;
 import sleeper.core.record.process.RecordsProcessedSummary;
+import sleeper.core.schema.Schema;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceFactory;
+import sleeper.core.statestore.StateStore;
+import sleeper.core.statestore.transactionlog.InMemoryTransactionLogStore;
+import sleeper.core.statestore.transactionlog.TransactionLogStateStore;
+import sleeper.statestore.FixedStateStoreProvider;
+import sleeper.statestore.StateStoreProvider;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -44,17 +56,27 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static sleeper.compaction.job.CompactionJobStatusTestData.finishedCompactionRun;
 import static sleeper.compaction.job.CompactionJobStatusTestData.jobCreated;
 import static sleeper.compaction.job.CompactionJobStatusTestData.startedCompactionRun;
 import static sleeper.configuration.properties.InstancePropertiesTestHelper.createTestInstanceProperties;
 import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_DELAY_BEFORE_RETRY_IN_SECONDS;
+import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_MAX_CONCURRENT_JOBS;
 import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_MAX_CONSECUTIVE_FAILURES;
 import static sleeper.configuration.properties.instance.CompactionProperty.COMPACTION_TASK_MAX_IDLE_TIME_IN_SECONDS;
+import static sleeper.configuration.properties.table.TablePropertiesTestHelper.createTestTableProperties;
+import static sleeper.configuration.properties.table.TableProperty.TABLE_ID;
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+import static sleeper.core.statestore.AssignJobIdRequest.assignJobOnPartitionToFiles;
 
 public class CompactionTaskTest {
     private static final String DEFAULT_TABLE_ID = "test-table-id";
@@ -305,6 +327,166 @@ public class CompactionTaskTest {
         }
     }
 
+    @Nested
+    @DisplayName("Run jobs concurrently")
+    class RunJobsConcurrently {
+
+        @Test
+        void shouldRunTwoJobsAtTheSameTime() throws Exception {
+            // Given
+            instanceProperties.setNumber(COMPACTION_TASK_MAX_CONCURRENT_JOBS, 2);
+            createJobOnQueue("job1");
+            createJobOnQueue("job2");
+            CyclicBarrier bothJobsRunning = new CyclicBarrier(2);
+            AtomicInteger secondsPassed = new AtomicInteger();
+            Supplier<Instant> timeSupplier = () -> Instant.parse("2024-02-22T13:50:00Z")
+                    .plusSeconds(secondsPassed.getAndIncrement());
+
+            // When
+            runTask(job -> {
+                bothJobsRunning.await(10, TimeUnit.SECONDS);
+                return new RecordsProcessed(10L, 10L);
+            }, timeSupplier);
+
+            // Then
+            assertThat(failedJobs).isEmpty();
+            assertThat(jobsOnQueue).isEmpty();
+            assertThat(taskStore.getAllTasks()).singleElement()
+                    .extracting(CompactionTaskStatus::getJobRuns).isEqualTo(2);
+            assertThat(jobStore.getAllJobs(DEFAULT_TABLE_ID))
+                    .allMatch(CompactionJobStatus::isFinished)
+                    .hasSize(2);
+        }
+
+        @Test
+        void shouldRunJobsOneAtATimeWhenNotEnoughMemoryForBoth() throws Exception {
+            // Given
+            instanceProperties.setNumber(COMPACTION_TASK_MAX_CONCURRENT_JOBS, 2);
+            createJobOnQueue("job1");
+            createJobOnQueue("job2");
+            AtomicInteger maxJobsRunning = new AtomicInteger();
+
+            // When
+            runTask(jobsNeedingAllMemory(maxJobsRunning));
+
+            // Then
+            assertThat(maxJobsRunning).hasValue(1);
+            assertThat(failedJobs).isEmpty();
+            assertThat(jobsOnQueue).isEmpty();
+            assertThat(taskStore.getAllTasks()).singleElement()
+                    .extracting(CompactionTaskStatus::getJobRuns).isEqualTo(2);
+        }
+
+        @Test
+        void shouldStopStartingJobsWhenMaxConsecutiveFailuresMet() throws Exception {
+            // Given
+            instanceProperties.setNumber(COMPACTION_TASK_MAX_CONCURRENT_JOBS, 2);
+            instanceProperties.setNumber(COMPACTION_TASK_MAX_CONSECUTIVE_FAILURES, 2);
+            CompactionJob job1 = createJobOnQueue("job1");
+            CompactionJob job2 = createJobOnQueue("job2");
+            CompactionJob job3 = createJobOnQueue("job3");
+
+            // When
+            runTask(job -> {
+                throw new Exception("Failed to process job");
+            });
+
+            // Then
+            assertThat(failedJobs).containsExactlyInAnyOrder(job1, job2);
+            assertThat(jobsOnQueue).containsExactly(job3);
+        }
+
+        @Test
+        void shouldCommitJobsRunningAtTheSameTimeToOneTable() throws Exception {
+            // Given
+            instanceProperties.setNumber(COMPACTION_TASK_MAX_CONCURRENT_JOBS, 4);
+            Schema schema = schemaWithKey("key");
+            TableProperties tableProperties = createTestTableProperties(instanceProperties, schema);
+            tableProperties.set(TABLE_ID, DEFAULT_TABLE_ID);
+            StateStore stateStore = TransactionLogStateStore.builder()
+                    .sleeperTable(tableProperties.getStatus())
+                    .schema(schema)
+                    .filesLogStore(new InMemoryTransactionLogStore())
+                    .partitionsLogStore(new InMemoryTransactionLogStore())
+                    .build();
+            stateStore.initialise();
+            TablePropertiesProvider tablePropertiesProvider = new FixedTablePropertiesProvider(tableProperties);
+            StateStoreProvider stateStoreProvider = new FixedStateStoreProvider(tableProperties, stateStore);
+            FileReferenceFactory fileFactory = FileReferenceFactory.from(stateStore);
+            List<CompactionJob> jobs = IntStream.range(0, 20)
+                    .mapToObj(i -> createJobOnQueue("job" + i))
+                    .collect(toList());
+            for (CompactionJob job : jobs) {
+                stateStore.addFile(fileFactory.rootFile(job.getInputFiles().get(0), 100));
+                stateStore.assignJobIds(List.of(assignJobOnPartitionToFiles(job.getId(), "root", job.getInputFiles())));
+            }
+            CyclicBarrier jobsRunning = new CyclicBarrier(4);
+
+            // When
+            runTask(job -> {
+                jobsRunning.await(10, TimeUnit.SECONDS);
+                StateStore store = stateStoreProvider.getStateStore(tablePropertiesProvider.getById(job.getTableId()));
+                store.atomicallyReplaceFileReferencesWithNewOne(job.getId(), "root", job.getInputFiles(),
+                        fileFactory.rootFile(job.getOutputFile(), 100));
+                return new RecordsProcessed(100L, 100L);
+            });
+
+            // Then
+            assertThat(failedJobs).isEmpty();
+            assertThat(jobsOnQueue).isEmpty();
+            assertThat(stateStore.getFileReferences())
+                    .extracting(FileReference::getFilename)
+                    .containsExactlyInAnyOrderElementsOf(jobs.stream()
+                            .map(CompactionJob::getOutputFile)
+                            .collect(toList()));
+            assertThat(stateStore.getReadyForGCFilenamesBefore(Instant.MAX))
+                    .containsExactlyInAnyOrderElementsOf(jobs.stream()
+                            .flatMap(job -> job.getInputFiles().stream())
+                            .collect(toList()));
+        }
+
+        @Test
+        void shouldNotReloadPropertiesWhileJobsAreRunning() throws Exception {
+            // Given
+            instanceProperties.setNumber(COMPACTION_TASK_MAX_CONCURRENT_JOBS, 2);
+            createJobOnQueue("job1");
+            createJobOnQueue("job2");
+            CyclicBarrier bothJobsRunning = new CyclicBarrier(2);
+            AtomicInteger jobsRunning = new AtomicInteger();
+            List<Integer> jobsRunningAtReload = new ArrayList<>();
+
+            // When
+            runTaskWithReloader(() -> jobsRunningAtReload.add(jobsRunning.get()), job -> {
+                jobsRunning.incrementAndGet();
+                bothJobsRunning.await(10, TimeUnit.SECONDS);
+                jobsRunning.decrementAndGet();
+                return new RecordsProcessed(10L, 10L);
+            });
+
+            // Then
+            assertThat(failedJobs).isEmpty();
+            assertThat(jobsRunningAtReload).containsExactly(0);
+        }
+
+        private CompactionRunner jobsNeedingAllMemory(AtomicInteger maxJobsRunning) {
+            AtomicInteger jobsRunning = new AtomicInteger();
+            return new CompactionRunner() {
+                @Override
+                public RecordsProcessed compact(CompactionJob job) throws Exception {
+                    maxJobsRunning.accumulateAndGet(jobsRunning.incrementAndGet(), Math::max);
+                    Thread.sleep(100);
+                    jobsRunning.decrementAndGet();
+                    return new RecordsProcessed(10L, 10L);
+                }
+
+                @Override
+                public long estimateMemoryBytes(CompactionJob job) {
+                    return Runtime.getRuntime().maxMemory();
+                }
+            };
+        }
+    }
+
     @Nested
     @DisplayName("Update status stores")
     class UpdateStatusStores {
@@ -437,6 +619,12 @@ public class CompactionTaskTest {
         runTask(compactor, Instant::now);
     }
 
+    private void runTaskWithReloader(PropertiesReloader propertiesReloader, CompactionRunner compactor) throws Exception {
+        new CompactionTask(instanceProperties, propertiesReloader,
+                pollQueue(), compactor, jobStore, taskStore, DEFAULT_TASK_ID, Instant::now, sleeps::add)
+                .run();
+    }
+
     private void runTask(CompactionRunner compactor, Supplier<Instant> timeSupplier) throws Exception {
         runTask(pollQueue(), compactor, timeSupplier, DEFAULT_TASK_ID);
     }
@@ -19,6 +19,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.io.TempDir;
 
 import sleeper.compaction.job.CompactionJobFactory;
+import sleeper.compaction.job.execution.ArrowCompactSortedFiles;
 import sleeper.compaction.job.execution.CompactSortedFiles;
 import sleeper.configuration.jars.ObjectFactory;
 import sleeper.configuration.properties.instance.InstanceProperties;
@@ -74,6 +75,13 @@ public class CompactSortedFilesTestBase {
                 ObjectFactory.noUserJars());
     }
 
+    protected ArrowCompactSortedFiles createArrowCompactSortedFiles(Schema schema) {
+        tableProperties.setSchema(schema);
+        return new ArrowCompactSortedFiles(instanceProperties,
+                new FixedTablePropertiesProvider(tableProperties),
+                new FixedStateStoreProvider(tableProperties, stateStore));
+    }
+
     protected FileReference ingestRecordsGetFile(List<Record> records) throws Exception {
         return ingestRecordsGetFile(records, builder -> {
         });
@@ -169,6 +169,13 @@ public class Utils {
                 .allMatch(architecture -> EnumUtils.isValidEnumIgnoreCase(EmrInstanceArchitecture.class, architecture));
     }
 
+    public static boolean isIntGtEqValue(String string, int minValue) {
+        if (!isNonNullNonEmptyString(string)) {
+            return false;
+        }
+        return parseAndCheckInteger(string, num -> num >= minValue);
+    }
+
     public static boolean isNonNegativeIntLtEqValue(String string, int maxValue) {
         if (!isNonNullNonEmptyString(string)) {
             return false;
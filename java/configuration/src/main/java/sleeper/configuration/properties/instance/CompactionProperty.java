@@ -18,9 +18,13 @@ package sleeper.configuration.properties.instance;
 
 import sleeper.configuration.Utils;
 import sleeper.configuration.properties.SleeperPropertyIndex;
+import sleeper.configuration.properties.validation.CompactionMethod;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+
+import static sleeper.configuration.Utils.describeEnumValuesInLowerCase;
 
 public interface CompactionProperty {
     UserDefinedInstanceProperty ECR_COMPACTION_REPO = Index.propertyBuilder("sleeper.compaction.repo")
@@ -88,6 +92,24 @@ public interface CompactionProperty {
             .defaultValue("3")
             .validationPredicate(Utils::isPositiveInteger)
             .propertyGroup(InstancePropertyGroup.COMPACTION).build();
+    UserDefinedInstanceProperty COMPACTION_TASK_MAX_CONCURRENT_JOBS = Index.propertyBuilder("sleeper.compaction.task.max.concurrent.jobs")
+            .description("The maximum number of compaction jobs that a compaction task will run at the same time.\n" +
+                    "Each job merges its input files on its own thread, so this can be raised to use more of the CPUs " +
+                    "available to the task. Jobs will only be started while there is enough memory for them, as set " +
+                    "in the property \"sleeper.compaction.task.job.memory.percentage\".")
+            .defaultValue("1")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
+    UserDefinedInstanceProperty COMPACTION_TASK_JOB_MEMORY_PERCENTAGE = Index.propertyBuilder("sleeper.compaction.task.job.memory.percentage")
+            .description("The percentage of the maximum heap size of a compaction task that can be used by the " +
+                    "compaction jobs it is running at the same time.\n" +
+                    "The memory for each job is estimated from the number of input files, the Parquet row group and " +
+                    "page sizes, and the number of fields in the schema. A job will wait to start until the jobs " +
+                    "already running leave enough memory for it. A job will always be started if no other jobs are " +
+                    "running.")
+            .defaultValue("80")
+            .validationPredicate(val -> Utils.isPositiveIntLtEqValue(val, 100))
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
     UserDefinedInstanceProperty COMPACTION_JOB_CREATION_LAMBDA_PERIOD_IN_MINUTES = Index.propertyBuilder("sleeper.compaction.job.creation.period.minutes")
             .description("The rate at which the compaction job creation lambda runs (in minutes, must be >=1).")
             .defaultValue("1")
@@ -244,6 +266,16 @@ public interface CompactionProperty {
             .defaultValue("" + Integer.MAX_VALUE)
             .validationPredicate(Utils::isPositiveInteger)
             .propertyGroup(InstancePropertyGroup.COMPACTION).build();
+    UserDefinedInstanceProperty DEFAULT_COMPACTION_METHOD = Index.propertyBuilder("sleeper.default.table.compaction.method")
+            .description("The method used to read, merge and write the data in a compaction job.\n" +
+                    "Valid values are: " + describeEnumValuesInLowerCase(CompactionMethod.class) + ".\n" +
+                    "The arrow method reads the input files into column batches and only compares the row and sort " +
+                    "keys, which avoids creating an object for every record. It does not support list or map fields, " +
+                    "or iterators, and compactions for tables which use them will always use the java method.\n" +
+                    "It can be overridden on a per-table basis.")
+            .defaultValue(CompactionMethod.JAVA.name().toLowerCase(Locale.ROOT))
+            .validationPredicate(CompactionMethod::isValid)
+            .propertyGroup(InstancePropertyGroup.COMPACTION).build();
 
     static List<UserDefinedInstanceProperty> getAll() {
         return Index.INSTANCE.getAll();
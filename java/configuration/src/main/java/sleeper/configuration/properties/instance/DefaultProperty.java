@@ -34,6 +34,13 @@ public interface DefaultProperty {
             .defaultValue("64K")
             .validationPredicate(Utils::isValidHadoopLongBytes)
             .propertyGroup(InstancePropertyGroup.DEFAULT).build();
+    UserDefinedInstanceProperty DEFAULT_READ_AHEAD_RECORDS = Index.propertyBuilder("sleeper.default.read.ahead.records")
+            .description("The number of records to read ahead in the background when merging files in a compaction or " +
+                    "query. This is shared between the files being merged. Set to 0 to read each file on the thread " +
+                    "that merges them.")
+            .defaultValue("100000")
+            .validationPredicate(Utils::isNonNegativeInteger)
+            .propertyGroup(InstancePropertyGroup.DEFAULT).build();
     UserDefinedInstanceProperty DEFAULT_ROW_GROUP_SIZE = Index.propertyBuilder("sleeper.default.rowgroup.size")
             .description("The size of the row group in the Parquet files (default is 8MiB).")
             .defaultValue("" + (8 * 1024 * 1024)) // 8 MiB
@@ -53,6 +53,21 @@ public interface QueryProperty {
             .defaultValue("10")
             .validationPredicate(Utils::isPositiveInteger)
             .propertyGroup(InstancePropertyGroup.QUERY).build();
+    UserDefinedInstanceProperty QUERY_PROCESSOR_STATE_CACHE_MAX_TABLES = Index.propertyBuilder("sleeper.query.processor.state.cache.max.tables")
+            .description("The maximum number of Sleeper tables that a query processing lambda holds the state of in memory, " +
+                    "for tables using the DynamoDBTransactionLogStateStore. When another table is queried, the table that " +
+                    "was least recently queried is evicted.")
+            .defaultValue("10")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.QUERY).build();
+    UserDefinedInstanceProperty QUERY_PROCESSOR_STATE_CACHE_REFRESH_PERIOD_IN_SECONDS = Index.propertyBuilder("sleeper.query.processor.state.cache.refresh.period.seconds")
+            .description("The period in seconds between refreshes of the state held in memory by a query processing lambda, " +
+                    "for tables using the DynamoDBTransactionLogStateStore. New transactions are read in the background, so " +
+                    "that queries do not need to wait for them. If the last refresh of a table was more than twice this " +
+                    "long ago, e.g. because the lambda was not running, a query waits for the table to be refreshed.")
+            .defaultValue("5")
+            .validationPredicate(Utils::isPositiveInteger)
+            .propertyGroup(InstancePropertyGroup.QUERY).build();
     UserDefinedInstanceProperty DEFAULT_QUERY_PROCESSOR_CACHE_TIMEOUT = Index.propertyBuilder("sleeper.query.processor.cache.timeout")
             .description("The default value for the amount of time in minutes the query executor cache is valid for before it times out and needs refreshing.")
             .defaultValue("60")
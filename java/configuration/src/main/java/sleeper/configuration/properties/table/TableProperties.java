@@ -29,13 +29,17 @@ import sleeper.configuration.properties.instance.InstanceProperty;
 import sleeper.configuration.properties.instance.SleeperProperty;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.SchemaSerDe;
+import sleeper.core.schema.type.ByteArrayType;
 import sleeper.core.table.TableStatus;
 
 import java.io.PrintWriter;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.stream.Stream;
 
 import static sleeper.configuration.properties.PropertiesUtils.loadProperties;
+import static sleeper.configuration.properties.table.TableProperty.BYTE_ARRAY_KEYS_UNSIGNED_ORDER;
 import static sleeper.configuration.properties.table.TableProperty.COMPACTION_FILES_BATCH_SIZE;
 import static sleeper.configuration.properties.table.TableProperty.SCHEMA;
 import static sleeper.configuration.properties.table.TableProperty.STATESTORE_CLASSNAME;
@@ -103,6 +107,20 @@ public class TableProperties extends SleeperProperties<TableProperty> {
                     "chosen statestore. Maximum value is 49.");
             reporter.invalidProperty(COMPACTION_FILES_BATCH_SIZE, get(COMPACTION_FILES_BATCH_SIZE));
         }
+
+        // Byte array keys were ordered as signed bytes before this property was added. A table created before then
+        // will have an ID but not this property. New tables only have an ID once they are saved, which sets it.
+        if (isSet(TABLE_ID) && !getBoolean(BYTE_ARRAY_KEYS_UNSIGNED_ORDER) && hasByteArrayKey()) {
+            LOGGER.warn("Table {} has a byte array key and may have been created with byte arrays ordered as signed " +
+                    "bytes. It should be recreated and its data reingested.", get(TABLE_NAME));
+            reporter.invalidProperty(BYTE_ARRAY_KEYS_UNSIGNED_ORDER, get(BYTE_ARRAY_KEYS_UNSIGNED_ORDER));
+        }
+    }
+
+    private boolean hasByteArrayKey() {
+        return schema != null && Stream.of(schema.getRowKeyTypes(), schema.getSortKeyTypes())
+                .flatMap(List::stream)
+                .anyMatch(type -> type instanceof ByteArrayType);
     }
 
     @Override
@@ -25,8 +25,8 @@ import sleeper.core.table.TableStatus;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -35,16 +35,16 @@ import static sleeper.configuration.properties.table.TableProperty.TABLE_ID;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
 
 /**
- * Caches Sleeper table properties to avoid repeated queries to the store. An instance of this class cannot be used
- * concurrently in multiple threads, as the cache is not thread-safe.
+ * Caches Sleeper table properties to avoid repeated queries to the store. An instance of this class can be used
+ * concurrently in multiple threads. If two threads miss the cache for the same table at once, both will load it.
  */
 public class TablePropertiesProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(TablePropertiesProvider.class);
     private final TablePropertiesStore propertiesStore;
     private final Duration cacheTimeout;
     private final Supplier<Instant> timeSupplier;
-    private final Map<String, CacheEntry> cacheById = new HashMap<>();
-    private final Map<String, CacheEntry> cacheByName = new HashMap<>();
+    private final Map<String, CacheEntry> cacheById = new ConcurrentHashMap<>();
+    private final Map<String, CacheEntry> cacheByName = new ConcurrentHashMap<>();
 
     public TablePropertiesProvider(InstanceProperties instanceProperties, AmazonS3 s3Client, AmazonDynamoDB dynamoDBClient) {
         this(instanceProperties, s3Client, dynamoDBClient, Instant::now);
@@ -26,6 +26,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import static sleeper.configuration.properties.table.TableProperty.BYTE_ARRAY_KEYS_UNSIGNED_ORDER;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_ID;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_ONLINE;
@@ -115,6 +116,7 @@ public class TablePropertiesStore {
         if (!tableProperties.isSet(TABLE_ID)) {
             tableProperties.set(TABLE_ID, ID_GENERATOR.generateString());
         }
+        tableProperties.set(BYTE_ARRAY_KEYS_UNSIGNED_ORDER, "true");
         client.saveProperties(tableProperties);
         tableIndex.create(tableProperties.getStatus());
     }
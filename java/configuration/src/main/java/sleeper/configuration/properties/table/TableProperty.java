@@ -21,6 +21,7 @@ import sleeper.configuration.Utils;
 import sleeper.configuration.properties.PropertyGroup;
 import sleeper.configuration.properties.SleeperPropertyIndex;
 import sleeper.configuration.properties.instance.SleeperProperty;
+import sleeper.configuration.properties.validation.CompactionMethod;
 import sleeper.configuration.properties.validation.IngestFileWritingStrategy;
 import sleeper.configuration.properties.validation.IngestQueue;
 
@@ -30,6 +31,7 @@ import java.util.Objects;
 import static sleeper.configuration.Utils.describeEnumValuesInLowerCase;
 import static sleeper.configuration.properties.instance.CompactionProperty.DEFAULT_COMPACTION_FILES_BATCH_SIZE;
 import static sleeper.configuration.properties.instance.CompactionProperty.DEFAULT_COMPACTION_JOB_SEND_BATCH_SIZE;
+import static sleeper.configuration.properties.instance.CompactionProperty.DEFAULT_COMPACTION_METHOD;
 import static sleeper.configuration.properties.instance.CompactionProperty.DEFAULT_COMPACTION_STRATEGY_CLASS;
 import static sleeper.configuration.properties.instance.CompactionProperty.DEFAULT_SIZERATIO_COMPACTION_STRATEGY_MAX_CONCURRENT_JOBS_PER_PARTITION;
 import static sleeper.configuration.properties.instance.CompactionProperty.DEFAULT_SIZERATIO_COMPACTION_STRATEGY_RATIO;
@@ -52,6 +54,7 @@ import static sleeper.configuration.properties.instance.DefaultProperty.DEFAULT_
 import static sleeper.configuration.properties.instance.DefaultProperty.DEFAULT_INGEST_RECORD_BATCH_TYPE;
 import static sleeper.configuration.properties.instance.DefaultProperty.DEFAULT_PAGE_SIZE;
 import static sleeper.configuration.properties.instance.DefaultProperty.DEFAULT_PARQUET_WRITER_VERSION;
+import static sleeper.configuration.properties.instance.DefaultProperty.DEFAULT_READ_AHEAD_RECORDS;
 import static sleeper.configuration.properties.instance.DefaultProperty.DEFAULT_ROW_GROUP_SIZE;
 import static sleeper.configuration.properties.instance.DefaultProperty.DEFAULT_S3A_READAHEAD_RANGE;
 import static sleeper.configuration.properties.instance.DefaultProperty.DEFAULT_STATISTICS_TRUNCATE_LENGTH;
@@ -100,6 +103,18 @@ public interface TableProperty extends SleeperProperty {
             .propertyGroup(TablePropertyGroup.DATA_DEFINITION)
             .editable(false)
             .includedInTemplate(false).build();
+    TableProperty BYTE_ARRAY_KEYS_UNSIGNED_ORDER = Index.propertyBuilder("sleeper.table.keys.byte.array.unsigned.order")
+            .description("Whether byte array row keys and sort keys in this table are ordered as unsigned bytes. This is " +
+                    "set when the table is created. Versions of Sleeper before this property was added ordered byte arrays " +
+                    "as signed bytes, so a table created by one of those versions may have its partitions and files in a " +
+                    "different order. If such a table has a byte array row key or sort key, its properties will fail " +
+                    "validation and Sleeper will not load it. It should be recreated and its data reingested. If every byte " +
+                    "array key value in the table only uses bytes from 0 to 127, the two orders are the same, and this can " +
+                    "be set to true instead.")
+            .defaultValue("false")
+            .validationPredicate(Utils::isTrueOrFalse)
+            .propertyGroup(TablePropertyGroup.DATA_DEFINITION)
+            .includedInTemplate(false).build();
     TableProperty ITERATOR_CLASS_NAME = Index.propertyBuilder("sleeper.table.iterator.class.name")
             .description("Fully qualified class of a custom iterator to use when iterating over the values in this table. " +
                     "Defaults to nothing.")
@@ -173,6 +188,12 @@ public interface TableProperty extends SleeperProperty {
             .description("The S3 readahead range - defaults to the value in the instance properties.")
             .propertyGroup(TablePropertyGroup.DATA_STORAGE)
             .build();
+    TableProperty READ_AHEAD_RECORDS = Index.propertyBuilder("sleeper.table.read.ahead.records")
+            .defaultProperty(DEFAULT_READ_AHEAD_RECORDS)
+            .description("The number of records to read ahead in the background when merging files in a compaction or " +
+                    "query - defaults to the value in the instance properties.")
+            .propertyGroup(TablePropertyGroup.DATA_STORAGE)
+            .build();
     TableProperty COMPRESSION_CODEC = Index.propertyBuilder("sleeper.table.compression.codec")
             .defaultProperty(DEFAULT_COMPRESSION_CODEC)
             .description("The compression codec to use for this table. Defaults to the value in the instance properties.\n" +
@@ -229,6 +250,52 @@ public interface TableProperty extends SleeperProperty {
                     "concurrently per partition.")
             .propertyGroup(TablePropertyGroup.COMPACTION)
             .build();
+    TableProperty COMPACTION_METHOD = Index.propertyBuilder("sleeper.table.compaction.method")
+            .defaultProperty(DEFAULT_COMPACTION_METHOD)
+            .description("The method used to read, merge and write the data in a compaction job.\n" +
+                    "Valid values are: " + describeEnumValuesInLowerCase(CompactionMethod.class) + ".\n" +
+                    "The arrow method does not support list or map fields, or iterators, and compactions for tables " +
+                    "which use them will always use the java method. Defaults to the value in the instance properties.")
+            .propertyGroup(TablePropertyGroup.COMPACTION)
+            .build();
+    TableProperty COMPACTION_SPLIT_ON_WRITE = Index.propertyBuilder("sleeper.table.compaction.split.on.write")
+            .defaultValue("false")
+            .validationPredicate(Utils::isTrueOrFalse)
+            .description("Whether files in a partition which has been split should be compacted by a single job " +
+                    "which writes one output file for each leaf partition beneath it. Otherwise, references to the " +
+                    "files are created in each child partition, and the files are read once by a compaction in each " +
+                    "leaf partition. These jobs always use the java compaction method.\n" +
+                    "The DynamoDBStateStore must be able to atomically apply 2 updates for each output file as well as " +
+                    "for each input file, so this should only be used where a partition has few leaf partitions " +
+                    "beneath it.")
+            .propertyGroup(TablePropertyGroup.COMPACTION)
+            .build();
+    TableProperty COMPACTION_SPLIT_ON_WRITE_MAX_LEAF_PARTITIONS = Index.propertyBuilder("sleeper.table.compaction.split.on.write.max.leaf.partitions")
+            .defaultValue("8")
+            .validationPredicate(Utils::isPositiveInteger)
+            .description("The maximum number of leaf partitions that a compaction job may split its output between, " +
+                    "when splitting on write. The job opens a writer for each of these leaf partitions at once. Files " +
+                    "in a partition with more leaf partitions beneath it will have references created in each child " +
+                    "partition instead, as if the table did not split on write.")
+            .propertyGroup(TablePropertyGroup.COMPACTION)
+            .build();
+    TableProperty COMPACTION_ROW_GROUP_PASSTHROUGH = Index.propertyBuilder("sleeper.table.compaction.rowgroup.passthrough")
+            .defaultValue("true")
+            .validationPredicate(Utils::isTrueOrFalse)
+            .description("Whether compaction jobs using the java method may copy row groups from input files into the " +
+                    "output file without decoding them, where they do not overlap with data in other input files. This " +
+                    "is only done for tables with int, long or byte array row keys, and for jobs with no iterator.")
+            .propertyGroup(TablePropertyGroup.COMPACTION)
+            .build();
+    TableProperty COMPACTION_ROW_GROUP_PASSTHROUGH_MIN_SIZE_PERCENTAGE = Index.propertyBuilder("sleeper.table.compaction.rowgroup.passthrough.min.size.percentage")
+            .defaultValue("50")
+            .validationPredicate(val -> Utils.isNonNegativeIntLtEqValue(val, 100))
+            .description("The minimum size of a row group that a compaction job may copy into its output file without " +
+                    "decoding it, as a percentage of the row group size set for the table. Smaller row groups are " +
+                    "merged with any other data around them, so that the output file is not made of many small row " +
+                    "groups.")
+            .propertyGroup(TablePropertyGroup.COMPACTION)
+            .build();
     TableProperty STATESTORE_CLASSNAME = Index.propertyBuilder("sleeper.table.statestore.classname")
             .defaultValue("sleeper.statestore.s3.S3StateStore")
             .description("The name of the class used for the metadata store. The default is S3StateStore. " +
@@ -241,6 +308,24 @@ public interface TableProperty extends SleeperProperty {
                     "are strongly consistent.")
             .propertyGroup(TablePropertyGroup.METADATA)
             .build();
+    TableProperty TRANSACTION_LOG_SNAPSHOT_MIN_TRANSACTIONS_AHEAD = Index.propertyBuilder("sleeper.table.metadata.transactionlog.snapshot.load.min.transactions.ahead")
+            .defaultValue("100")
+            .description("Used by the DynamoDBTransactionLogStateStore. The minimum number of transactions that a snapshot " +
+                    "must be ahead of the local state before it is loaded, rather than reading the transactions from the log. " +
+                    "This is only checked when the state is first loaded. After that, a snapshot is only loaded if the " +
+                    "transactions needed to catch up have been deleted from the log.")
+            .validationPredicate(Utils::isPositiveLong)
+            .propertyGroup(TablePropertyGroup.METADATA)
+            .build();
+    TableProperty TRANSACTION_LOG_SNAPSHOTS_RETAINED = Index.propertyBuilder("sleeper.table.metadata.transactionlog.snapshots.retained")
+            .defaultValue("2")
+            .description("Used by the DynamoDBTransactionLogStateStore. The number of snapshots of the state to retain " +
+                    "when creating a new snapshot. Transactions in the log at or before the oldest retained snapshot are " +
+                    "deleted. This must be at least 2, so that a state store which has not seen the latest snapshot can " +
+                    "still detect that transactions were deleted and catch up from the snapshot.")
+            .validationPredicate(value -> Utils.isIntGtEqValue(value, 2))
+            .propertyGroup(TablePropertyGroup.METADATA)
+            .build();
     TableProperty BULK_IMPORT_EMR_INSTANCE_ARCHITECTURE = Index.propertyBuilder("sleeper.table.bulk.import.emr.instance.architecture")
             .defaultProperty(DEFAULT_BULK_IMPORT_EMR_INSTANCE_ARCHITECTURE)
             .description("(Non-persistent EMR mode only) Which architecture to be used for EC2 instance types " +
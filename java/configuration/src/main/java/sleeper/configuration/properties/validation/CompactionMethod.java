@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.configuration.properties.validation;
+
+import org.apache.commons.lang3.EnumUtils;
+
+/**
+ * Determines how a compaction job reads, merges and writes its data.
+ */
+public enum CompactionMethod {
+    /**
+     * Read each row into a Sleeper record, merge the records and write them out. This supports all schemas and
+     * iterators.
+     */
+    JAVA,
+    /**
+     * Read the input files into Arrow column batches, merge on the row and sort key columns only, and write the
+     * value columns straight from the batches. This does not support list or map fields or iterators, and falls
+     * back to the Java method for tables which use them.
+     */
+    ARROW;
+
+    public static boolean isValid(String value) {
+        return EnumUtils.isValidEnumIgnoreCase(CompactionMethod.class, value);
+    }
+}
@@ -36,6 +36,17 @@ class UtilsTest {
                     .isFalse();
         }
 
+        @Test
+        void shouldCheckIntegerIsAtLeastMinimum() {
+            // When/Then
+            assertThat(Utils.isIntGtEqValue("2", 2))
+                    .isTrue();
+            assertThat(Utils.isIntGtEqValue("1", 2))
+                    .isFalse();
+            assertThat(Utils.isIntGtEqValue("ABC", 2))
+                    .isFalse();
+        }
+
         @Test
         void shouldNotThrowExceptionDuringPositiveLongCheck() {
             // When/Then
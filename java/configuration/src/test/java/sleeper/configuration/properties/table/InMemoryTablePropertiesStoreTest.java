@@ -23,6 +23,7 @@ import org.junit.jupiter.api.Test;
 import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
 import sleeper.core.schema.type.StringType;
 import sleeper.core.table.TableAlreadyExistsException;
 import sleeper.core.table.TableNotFoundException;
@@ -31,6 +32,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static sleeper.configuration.properties.InstancePropertiesTestHelper.createTestInstanceProperties;
 import static sleeper.configuration.properties.table.TablePropertiesTestHelper.createTestTableProperties;
+import static sleeper.configuration.properties.table.TableProperty.BYTE_ARRAY_KEYS_UNSIGNED_ORDER;
 import static sleeper.configuration.properties.table.TableProperty.COMPRESSION_CODEC;
 import static sleeper.configuration.properties.table.TableProperty.PAGE_SIZE;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_ID;
@@ -62,6 +64,19 @@ public class InMemoryTablePropertiesStoreTest {
                     .isEqualTo(tableProperties);
         }
 
+        @Test
+        void shouldSetByteArrayKeysUnsignedOrderWhenCreatingTable() {
+            // Given
+            tableProperties.unset(BYTE_ARRAY_KEYS_UNSIGNED_ORDER);
+
+            // When
+            store.createTable(tableProperties);
+
+            // Then
+            assertThat(store.loadByName(tableName).getBoolean(BYTE_ARRAY_KEYS_UNSIGNED_ORDER))
+                    .isTrue();
+        }
+
         @Test
         void shouldNotCreateDuplicateTable() {
             // Given
@@ -183,6 +198,33 @@ public class InMemoryTablePropertiesStoreTest {
                     .isInstanceOf(IllegalArgumentException.class);
         }
 
+        @Test
+        void shouldNotLoadTableWithByteArrayKeyCreatedBeforeUnsignedOrder() {
+            // Given
+            tableProperties.setSchema(Schema.builder()
+                    .rowKeyFields(new Field("key", new ByteArrayType()))
+                    .build());
+            store.createTable(tableProperties);
+            tableProperties.unset(BYTE_ARRAY_KEYS_UNSIGNED_ORDER);
+            store.save(tableProperties);
+
+            // When / Then
+            assertThatThrownBy(() -> store.loadById(tableId))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void shouldLoadTableWithNoByteArrayKeyCreatedBeforeUnsignedOrder() {
+            // Given
+            store.createTable(tableProperties);
+            tableProperties.unset(BYTE_ARRAY_KEYS_UNSIGNED_ORDER);
+            store.save(tableProperties);
+
+            // When / Then
+            assertThat(store.loadById(tableId))
+                    .isEqualTo(tableProperties);
+        }
+
         @Test
         void shouldLoadInvalidTablePropertiesByName() {
             // When
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+/**
+ * A sorted record iterator which can process records a batch at a time. Compactions, queries and ingest will use the
+ * batched path when an iterator implements this interface, and the record at a time path otherwise.
+ * <p>
+ * Batches passed to and returned by {@link #applyBatched} follow the rules described in {@link RecordBatch}. The input
+ * batches are never empty, and the output batches must not be empty either. An implementation may modify an input
+ * batch and return it as output, for example to filter it in place, but must not modify the records it receives.
+ */
+public interface BatchedSortedRecordIterator extends SortedRecordIterator {
+
+    /**
+     * Applies this iterator to batches of records.
+     *
+     * @param  input the input batches, in sorted order
+     * @return       the output batches
+     */
+    CloseableIterator<RecordBatch> applyBatched(CloseableIterator<RecordBatch> input);
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import sleeper.core.record.Record;
+import sleeper.core.schema.Schema;
+
+import java.util.List;
+
+/**
+ * Adapts a sorted record iterator that works one record at a time, so that it can be used in a chain of batched
+ * iterators. Records are read out of the input batches, passed through the iterator, and grouped into batches again.
+ */
+public class BatchedSortedRecordIteratorAdapter implements BatchedSortedRecordIterator {
+    private final SortedRecordIterator iterator;
+    private final int batchSize;
+
+    public BatchedSortedRecordIteratorAdapter(SortedRecordIterator iterator, int batchSize) {
+        this.iterator = iterator;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void init(String configString, Schema schema) {
+        iterator.init(configString, schema);
+    }
+
+    @Override
+    public List<String> getRequiredValueFields() {
+        return iterator.getRequiredValueFields();
+    }
+
+    @Override
+    public CloseableIterator<Record> apply(CloseableIterator<Record> input) {
+        return iterator.apply(input);
+    }
+
+    @Override
+    public CloseableIterator<RecordBatch> applyBatched(CloseableIterator<RecordBatch> input) {
+        return RecordBatches.batch(iterator.apply(RecordBatches.unbatch(input)), batchSize);
+    }
+}
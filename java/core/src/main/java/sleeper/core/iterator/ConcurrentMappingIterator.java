@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Applies a function to each element of an iterator on an executor, with a bounded number of elements in flight at
+ * once. Results are returned in the same order as the source, so this can be used where each element needs a slow
+ * call to load or convert it, but the results must be processed in order.
+ * <p>
+ * The source is only read by the thread consuming this iterator, so it does not need to be thread safe. Up to the
+ * maximum number of elements in flight are taken from the source ahead of the consumer.
+ *
+ * @param <T> the type of elements in the source
+ * @param <R> the type of elements returned by this iterator
+ */
+public class ConcurrentMappingIterator<T, R> implements CloseableIterator<R> {
+
+    private final CloseableIterator<T> source;
+    private final Function<T, R> function;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final Deque<Future<R>> inFlight = new ArrayDeque<>();
+
+    public ConcurrentMappingIterator(
+            CloseableIterator<T> source, Function<T, R> function, ExecutorService executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Maximum elements in flight must be at least 1, found " + maxInFlight);
+        }
+        this.source = source;
+        this.function = function;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public boolean hasNext() {
+        submitUntilFull();
+        return !inFlight.isEmpty();
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Future<R> future = inFlight.poll();
+        // Keep the executor busy while we wait for the next result
+        submitUntilFull();
+        return waitFor(future);
+    }
+
+    /**
+     * Cancels any elements in flight and closes the source.
+     *
+     * @throws IOException if the source failed to close
+     */
+    @Override
+    public void close() throws IOException {
+        inFlight.forEach(future -> future.cancel(true));
+        inFlight.clear();
+        source.close();
+    }
+
+    private void submitUntilFull() {
+        while (inFlight.size() < maxInFlight && source.hasNext()) {
+            T element = source.next();
+            inFlight.add(executor.submit(() -> function.apply(element)));
+        }
+    }
+
+    private static <R> R waitFor(Future<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for element", e);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Element was cancelled", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            } else {
+                throw new RuntimeException("Failed processing element", e.getCause());
+            }
+        }
+    }
+}
@@ -18,58 +18,99 @@ package sleeper.core.iterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import sleeper.core.record.IndexedRecord;
+import sleeper.core.record.IndexedRecordComparator;
 import sleeper.core.record.Record;
-import sleeper.core.record.RecordComparator;
+import sleeper.core.record.RecordLayout;
 import sleeper.core.schema.Schema;
 
 import java.io.IOException;
-import java.util.Comparator;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.NoSuchElementException;
 
 /**
- * Merges a list of sorted iterators into one fully sorted iterator. This is done by using a {@link PriorityQueue} where
- * the smallest record is returned first.
+ * Merges a list of sorted iterators into one fully sorted iterator. This is done with a tournament tree of losers,
+ * where the smallest record is returned first.
+ * <p>
+ * Each internal node of the tree holds the input that lost the comparison at that node. When a record is returned,
+ * only the input it came from has changed, so the next record is found by replaying the matches on the path from that
+ * input to the root. This takes one comparison per level of the tree, with no allocation per record.
+ * <p>
+ * When the same input wins repeatedly, this is detected and the smallest record held by any other input is tracked.
+ * The tree is then left unchanged while the head of that input stays below that record, which takes one comparison per
+ * record. This is common when inputs cover mostly separate ranges of keys.
+ * <p>
+ * The row and sort keys of the current record from each input are held in an {@link IndexedRecord}, which is reused
+ * as that input advances. This means comparisons read keys by position rather than looking them up by field name.
  * <p>
  * Note: for performance reasons this does not check that the given iterators are sorted. As this class is only used
  * internally it should never be called with non-sorted iterators.
  */
 public class MergingIterator implements CloseableIterator<Record> {
     private static final Logger LOGGER = LoggerFactory.getLogger(MergingIterator.class);
+    private static final int NO_CHALLENGER = -1;
 
     private final List<CloseableIterator<Record>> inputIterators;
-    private final PriorityQueue<RecordIteratorPair> queue;
+    private final IndexedRecordComparator keyComparator;
+    private final int numInputs;
+    private final Record[] heads;
+    private final IndexedRecord[] headKeys;
+    private final boolean[] exhausted;
+    /**
+     * The loser at each internal node, with the overall winner at index 0. Input i is the leaf at index numInputs + i.
+     */
+    private final int[] tree;
+    private boolean drainingWinner;
+    private int challenger;
     private long recordsRead;
 
     public MergingIterator(Schema schema, List<CloseableIterator<Record>> inputIterators) {
         this.inputIterators = inputIterators;
         this.recordsRead = 0L;
-        this.queue = new PriorityQueue<>(new RecordIteratorPairComparator(schema));
-        for (CloseableIterator<Record> iterator : inputIterators) {
-            if (iterator.hasNext()) {
-                queue.add(new RecordIteratorPair(iterator.next(), iterator));
-                this.recordsRead++;
-            }
+        RecordLayout layout = new RecordLayout(schema);
+        this.keyComparator = new IndexedRecordComparator(layout);
+        this.numInputs = inputIterators.size();
+        this.heads = new Record[numInputs];
+        this.headKeys = new IndexedRecord[numInputs];
+        this.exhausted = new boolean[numInputs];
+        this.tree = new int[Math.max(1, numInputs)];
+        for (int i = 0; i < numInputs; i++) {
+            headKeys[i] = new IndexedRecord(layout);
+            advance(i);
+        }
+        if (numInputs > 0) {
+            tree[0] = buildTree(1);
+        } else {
+            tree[0] = NO_CHALLENGER;
         }
     }
 
     @Override
     public boolean hasNext() {
-        return !queue.isEmpty();
+        return numInputs > 0 && !exhausted[tree[0]];
     }
 
     @Override
     public Record next() {
-        RecordIteratorPair pair = queue.poll();
-        if (pair.iterator.hasNext()) {
-            RecordIteratorPair newPair = new RecordIteratorPair(pair.iterator.next(), pair.iterator);
-            queue.add(newPair);
-            recordsRead++;
-            if (0 == recordsRead % 1_000_000) {
-                LOGGER.info("Read {} records", recordsRead);
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int winner = tree[0];
+        Record record = heads[winner];
+        advance(winner);
+        if (drainingWinner) {
+            if (!exhausted[winner] && (challenger == NO_CHALLENGER || beats(winner, challenger))) {
+                return record;
             }
+            drainingWinner = false;
+        }
+        replay(winner);
+        if (tree[0] == winner && !exhausted[winner]) {
+            // The same input won twice in a row, so it may hold a run of records below every other input
+            challenger = findChallenger(winner);
+            drainingWinner = true;
         }
-        return pair.record;
+        return record;
     }
 
     @Override
@@ -83,26 +124,93 @@ public class MergingIterator implements CloseableIterator<Record> {
         return recordsRead;
     }
 
-    private static class RecordIteratorPair {
-        private final Record record;
-        private final CloseableIterator<Record> iterator;
+    private void advance(int input) {
+        CloseableIterator<Record> iterator = inputIterators.get(input);
+        if (iterator.hasNext()) {
+            Record record = iterator.next();
+            heads[input] = record;
+            headKeys[input].loadKeysFrom(record);
+            recordsRead++;
+            if (0 == recordsRead % 1_000_000) {
+                LOGGER.info("Read {} records", recordsRead);
+            }
+        } else {
+            heads[input] = null;
+            exhausted[input] = true;
+        }
+    }
 
-        RecordIteratorPair(Record record, CloseableIterator<Record> iterator) {
-            this.record = record;
-            this.iterator = iterator;
+    /**
+     * Plays the matches in a subtree, storing the loser at each internal node.
+     *
+     * @param  node the index of the root of the subtree
+     * @return      the input that won the subtree
+     */
+    private int buildTree(int node) {
+        if (node >= numInputs) {
+            return node - numInputs;
+        }
+        int left = buildTree(2 * node);
+        int right = buildTree(2 * node + 1);
+        if (beats(right, left)) {
+            tree[node] = left;
+            return right;
+        } else {
+            tree[node] = right;
+            return left;
         }
     }
 
-    private static class RecordIteratorPairComparator implements Comparator<RecordIteratorPair> {
-        private final RecordComparator recordComparator;
+    /**
+     * Replays the matches on the path from an input to the root, after the head of that input has changed.
+     *
+     * @param input the input that has changed
+     */
+    private void replay(int input) {
+        int winner = input;
+        for (int node = (input + numInputs) >> 1; node > 0; node >>= 1) {
+            int loser = tree[node];
+            if (beats(loser, winner)) {
+                tree[node] = winner;
+                winner = loser;
+            }
+        }
+        tree[0] = winner;
+    }
 
-        RecordIteratorPairComparator(Schema schema) {
-            this.recordComparator = new RecordComparator(schema);
+    /**
+     * Finds the input with the smallest head other than the winner. This is the best of the losers on the path from
+     * the winner to the root, as each of those won the subtree on the other side of that node.
+     *
+     * @param  winner the input that is currently winning
+     * @return        the best input other than the winner, or -1 if there is only one input
+     */
+    private int findChallenger(int winner) {
+        int best = NO_CHALLENGER;
+        for (int node = (winner + numInputs) >> 1; node > 0; node >>= 1) {
+            int loser = tree[node];
+            if (best == NO_CHALLENGER || beats(loser, best)) {
+                best = loser;
+            }
         }
+        return best;
+    }
 
-        @Override
-        public int compare(RecordIteratorPair pair1, RecordIteratorPair pair2) {
-            return recordComparator.compare(pair1.record, pair2.record);
+    /**
+     * Checks whether the head of one input should be returned before the head of another. Exhausted inputs lose to
+     * any other input. Ties are broken by the order of the inputs, so that this is a strict total order.
+     *
+     * @param  input1 the first input
+     * @param  input2 the second input
+     * @return        true if the head of the first input comes first
+     */
+    private boolean beats(int input1, int input2) {
+        if (exhausted[input1]) {
+            return false;
+        } else if (exhausted[input2]) {
+            return true;
         }
+        int diff = keyComparator.compare(headKeys[input1], headKeys[input2]);
+        return diff < 0 || (diff == 0 && input1 < input2);
     }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads ahead from an iterator in the background. Batches of elements are read on an executor and held in a bounded
+ * queue, so that a slow read from one input does not stall a thread that is merging many inputs.
+ * <p>
+ * The source is opened by the first background read, so that creating many of these starts opening all their sources
+ * in parallel. A background read stops when the queue is full, and is resubmitted as batches are taken from the queue,
+ * so no thread is blocked waiting for space. This means the executor may have fewer threads than the number of
+ * inputs.
+ *
+ * @param <T> the type of elements returned by this iterator
+ */
+public class PrefetchingIterator<T> implements CloseableIterator<T> {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final Callable<? extends CloseableIterator<T>> openSource;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int maxQueuedBatches;
+    private final BlockingQueue<Fetched<T>> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean fetching = new AtomicBoolean(false);
+    private final Object sourceLock = new Object();
+    private volatile boolean closed = false;
+    private volatile boolean sourceFinished = false;
+    private CloseableIterator<T> source;
+    private List<T> batch;
+    private int index;
+    private boolean finished = false;
+
+    public PrefetchingIterator(
+            Callable<? extends CloseableIterator<T>> openSource, ExecutorService executor,
+            int batchSize, int maxQueuedBatches) {
+        if (batchSize < 1 || maxQueuedBatches < 1) {
+            throw new IllegalArgumentException("Batch size and maximum queued batches must be at least 1, found " +
+                    batchSize + " and " + maxQueuedBatches);
+        }
+        this.openSource = openSource;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxQueuedBatches = maxQueuedBatches;
+        scheduleFetch();
+    }
+
+    /**
+     * Creates an iterator which reads ahead up to a certain number of elements. Splits this into batches of a sensible
+     * size.
+     *
+     * @param  <T>              the type of elements returned by the iterator
+     * @param  openSource       opens the iterator to read from
+     * @param  executor         the executor to read on
+     * @param  maxElementsAhead the maximum number of elements to hold that have been read but not returned
+     * @return                  the iterator
+     */
+    public static <T> PrefetchingIterator<T> readAhead(
+            Callable<? extends CloseableIterator<T>> openSource, ExecutorService executor, int maxElementsAhead) {
+        int batchSize = Math.max(1, Math.min(DEFAULT_BATCH_SIZE, maxElementsAhead / 4));
+        int maxQueuedBatches = Math.max(1, maxElementsAhead / batchSize);
+        return new PrefetchingIterator<>(openSource, executor, batchSize, maxQueuedBatches);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (null == batch || index >= batch.size()) {
+            if (finished) {
+                return false;
+            }
+            Fetched<T> fetched = take();
+            scheduleFetch();
+            if (null != fetched.failure) {
+                finished = true;
+                throw propagate(fetched.failure);
+            } else if (null == fetched.batch) {
+                finished = true;
+                batch = null;
+                return false;
+            }
+            batch = fetched.batch;
+            index = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.get(index++);
+    }
+
+    /**
+     * Stops reading ahead and closes the source. If a background read is in progress, this waits for it to finish.
+     *
+     * @throws IOException if the source failed to close
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        queue.clear();
+        synchronized (sourceLock) {
+            if (null != source) {
+                source.close();
+            }
+        }
+    }
+
+    private Fetched<T> take() {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for elements to be read", e);
+        }
+    }
+
+    private void scheduleFetch() {
+        if (!closed && !sourceFinished && queue.size() < maxQueuedBatches
+                && fetching.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::fetch);
+            } catch (RejectedExecutionException e) {
+                sourceFinished = true;
+                queue.add(Fetched.failure(e));
+                fetching.set(false);
+            }
+        }
+    }
+
+    private void fetch() {
+        try {
+            synchronized (sourceLock) {
+                fetchUntilQueueFull();
+            }
+        } finally {
+            fetching.set(false);
+        }
+        // Batches may have been taken from the queue since we last checked its size
+        scheduleFetch();
+    }
+
+    private void fetchUntilQueueFull() {
+        if (closed || sourceFinished) {
+            return;
+        }
+        try {
+            if (null == source) {
+                source = openSource.call();
+            }
+            while (!closed && queue.size() < maxQueuedBatches) {
+                List<T> next = new ArrayList<>(batchSize);
+                while (next.size() < batchSize && source.hasNext()) {
+                    next.add(source.next());
+                }
+                if (!next.isEmpty()) {
+                    queue.add(Fetched.batch(next));
+                }
+                if (next.size() < batchSize) {
+                    sourceFinished = true;
+                    queue.add(Fetched.end());
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            sourceFinished = true;
+            queue.add(Fetched.failure(e));
+        }
+    }
+
+    private static RuntimeException propagate(Exception e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        } else if (e instanceof IOException) {
+            return new UncheckedIOException((IOException) e);
+        } else {
+            return new RuntimeException("Failed reading ahead", e);
+        }
+    }
+
+    /**
+     * An entry in the queue of elements read ahead. Either a batch of elements, the end of the source, or a failure.
+     *
+     * @param <T> the type of elements
+     */
+    private static class Fetched<T> {
+        private final List<T> batch;
+        private final Exception failure;
+
+        private Fetched(List<T> batch, Exception failure) {
+            this.batch = batch;
+            this.failure = failure;
+        }
+
+        static <T> Fetched<T> batch(List<T> batch) {
+            return new Fetched<>(batch, null);
+        }
+
+        static <T> Fetched<T> end() {
+            return new Fetched<>(null, null);
+        }
+
+        static <T> Fetched<T> failure(Exception failure) {
+            return new Fetched<>(null, failure);
+        }
+    }
+}
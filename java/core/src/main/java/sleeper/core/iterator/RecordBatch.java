@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import sleeper.core.record.Record;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A batch of records held in an array. This is used to pass records between iterators a batch at a time, so that
+ * per-record overhead in an iterator can be paid once per batch instead. Batches may be reused, so a batch is only
+ * valid until the next batch is requested from the iterator that produced it. The records in the batch remain valid
+ * after that point.
+ */
+public class RecordBatch {
+    private Record[] records;
+    private int size;
+
+    public RecordBatch(int capacity) {
+        this.records = new Record[capacity];
+    }
+
+    /**
+     * Creates a batch holding the given records.
+     *
+     * @param  records the records
+     * @return         the batch
+     */
+    public static RecordBatch of(Record... records) {
+        RecordBatch batch = new RecordBatch(records.length);
+        for (Record record : records) {
+            batch.add(record);
+        }
+        return batch;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return records.length;
+    }
+
+    public boolean isFull() {
+        return size >= records.length;
+    }
+
+    public Record get(int index) {
+        return records[index];
+    }
+
+    /**
+     * Replaces a record in the batch. This can be used to filter a batch in place, together with
+     * {@link #truncate(int)}.
+     *
+     * @param index  the position in the batch
+     * @param record the record to set
+     */
+    public void set(int index, Record record) {
+        records[index] = record;
+    }
+
+    /**
+     * Adds a record to the end of the batch. Grows the batch if it is full.
+     *
+     * @param record the record
+     */
+    public void add(Record record) {
+        if (size == records.length) {
+            records = Arrays.copyOf(records, Math.max(1, records.length * 2));
+        }
+        records[size++] = record;
+    }
+
+    /**
+     * Reduces the size of the batch, discarding records at the end.
+     *
+     * @param newSize the new size of the batch
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IllegalArgumentException("Cannot truncate batch of size " + size + " to " + newSize);
+        }
+        Arrays.fill(records, newSize, size, null);
+        size = newSize;
+    }
+
+    /**
+     * Removes all records from the batch, keeping its capacity.
+     */
+    public void clear() {
+        truncate(0);
+    }
+
+    /**
+     * Copies the records in the batch to a list.
+     *
+     * @return the records
+     */
+    public List<Record> toList() {
+        List<Record> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(records[i]);
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordBatch{records=" + toList() + "}";
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import sleeper.core.record.Record;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Converts between iterators of records and iterators of record batches, and applies sorted record iterators using
+ * the batched path where it is available.
+ */
+public class RecordBatches {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private RecordBatches() {
+    }
+
+    /**
+     * Applies a sorted record iterator. If the iterator supports batches, the records will be passed through it a
+     * batch at a time.
+     *
+     * @param  iterator the iterator to apply
+     * @param  input    the input records
+     * @return          the output records
+     */
+    public static CloseableIterator<Record> applyIterator(SortedRecordIterator iterator, CloseableIterator<Record> input) {
+        return applyIterators(List.of(iterator), input);
+    }
+
+    /**
+     * Applies sorted record iterators in order, with the output of each feeding into the next. If any iterator
+     * supports batches, the records will be passed through all the iterators a batch at a time, adapting any which
+     * only support one record at a time. Otherwise each iterator is applied directly.
+     *
+     * @param  iterators the iterators to apply
+     * @param  input     the input records
+     * @return           the output records
+     */
+    public static CloseableIterator<Record> applyIterators(List<SortedRecordIterator> iterators, CloseableIterator<Record> input) {
+        if (iterators.stream().noneMatch(iterator -> iterator instanceof BatchedSortedRecordIterator)) {
+            CloseableIterator<Record> output = input;
+            for (SortedRecordIterator iterator : iterators) {
+                output = iterator.apply(output);
+            }
+            return output;
+        }
+        CloseableIterator<RecordBatch> batches = batch(input, DEFAULT_BATCH_SIZE);
+        for (SortedRecordIterator iterator : iterators) {
+            batches = adapt(iterator).applyBatched(batches);
+        }
+        return unbatch(batches);
+    }
+
+    /**
+     * Adapts a sorted record iterator to process batches. If the iterator already supports batches, it is returned
+     * as is.
+     *
+     * @param  iterator the iterator
+     * @return          an iterator which supports batches
+     */
+    public static BatchedSortedRecordIterator adapt(SortedRecordIterator iterator) {
+        if (iterator instanceof BatchedSortedRecordIterator) {
+            return (BatchedSortedRecordIterator) iterator;
+        }
+        return new BatchedSortedRecordIteratorAdapter(iterator, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Groups records into batches. A single batch is reused, so each batch is only valid until the next one is
+     * requested.
+     *
+     * @param  input     the records
+     * @param  batchSize the maximum number of records in each batch
+     * @return           the batches
+     */
+    public static CloseableIterator<RecordBatch> batch(CloseableIterator<Record> input, int batchSize) {
+        return new BatchingIterator(input, batchSize);
+    }
+
+    /**
+     * Reads the records out of batches.
+     *
+     * @param  input the batches
+     * @return       the records
+     */
+    public static CloseableIterator<Record> unbatch(CloseableIterator<RecordBatch> input) {
+        return new UnbatchingIterator(input);
+    }
+
+    /**
+     * Groups records from an iterator into batches, reusing a single batch.
+     */
+    private static class BatchingIterator implements CloseableIterator<RecordBatch> {
+        private final CloseableIterator<Record> input;
+        private final RecordBatch batch;
+
+        BatchingIterator(CloseableIterator<Record> input, int batchSize) {
+            this.input = input;
+            this.batch = new RecordBatch(batchSize);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return input.hasNext();
+        }
+
+        @Override
+        public RecordBatch next() {
+            if (!input.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            batch.clear();
+            while (!batch.isFull() && input.hasNext()) {
+                batch.add(input.next());
+            }
+            return batch;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    /**
+     * Reads records out of an iterator of batches.
+     */
+    private static class UnbatchingIterator implements CloseableIterator<Record> {
+        private final CloseableIterator<RecordBatch> input;
+        private RecordBatch batch;
+        private int index;
+
+        UnbatchingIterator(CloseableIterator<RecordBatch> input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (batch == null || index >= batch.size()) {
+                if (!input.hasNext()) {
+                    return false;
+                }
+                batch = input.next();
+                index = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.get(index++);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -15,24 +15,31 @@
  */
 package sleeper.core.iterator.impl;
 
+import sleeper.core.iterator.BatchedSortedRecordIterator;
 import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.RecordBatch;
 import sleeper.core.iterator.SortedRecordIterator;
 import sleeper.core.key.Key;
+import sleeper.core.record.KeyFieldComparator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Schema;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
 
 /**
  * Combines records with identical row keys and sort keys by summing the values in each column. Assumes that all value
  * fields are longs. This is an example implementation of {@link SortedRecordIterator}.
  */
-public class AdditionIterator implements SortedRecordIterator {
+public class AdditionIterator implements BatchedSortedRecordIterator {
     private List<String> rowKeyFieldNames;
     private List<String> sortKeyFieldNames;
     private List<String> valueFieldNames;
+    private String[] keyFieldNames;
+    private KeyFieldComparator[] keyComparators;
 
     public AdditionIterator() {
     }
@@ -42,6 +49,9 @@ public class AdditionIterator implements SortedRecordIterator {
         this.rowKeyFieldNames = schema.getRowKeyFieldNames();
         this.sortKeyFieldNames = schema.getSortKeyFieldNames();
         this.valueFieldNames = schema.getValueFieldNames();
+        this.keyFieldNames = Stream.of(rowKeyFieldNames, sortKeyFieldNames)
+                .flatMap(List::stream).toArray(String[]::new);
+        this.keyComparators = KeyFieldComparator.forRowAndSortKeys(schema);
     }
 
     @Override
@@ -54,6 +64,11 @@ public class AdditionIterator implements SortedRecordIterator {
         return new AdditionIteratorInternal(input, rowKeyFieldNames, sortKeyFieldNames, valueFieldNames);
     }
 
+    @Override
+    public CloseableIterator<RecordBatch> applyBatched(CloseableIterator<RecordBatch> input) {
+        return new AdditionBatchIterator(input, keyFieldNames, keyComparators, valueFieldNames);
+    }
+
     public static class AdditionIteratorInternal implements CloseableIterator<Record> {
         private final CloseableIterator<Record> input;
         private final List<String> rowKeyFieldNames;
@@ -113,6 +128,110 @@ public class AdditionIterator implements SortedRecordIterator {
         }
     }
 
+    /**
+     * Combines records with identical row keys and sort keys a batch at a time. A record is only copied when another
+     * record is added to it, so that the input records are not modified.
+     */
+    private static class AdditionBatchIterator implements CloseableIterator<RecordBatch> {
+        private final CloseableIterator<RecordBatch> input;
+        private final String[] keyFieldNames;
+        private final KeyFieldComparator[] keyComparators;
+        private final List<String> valueFieldNames;
+        private RecordBatch output;
+        private Record current;
+        private boolean currentCopied;
+        private boolean outputReady;
+
+        AdditionBatchIterator(CloseableIterator<RecordBatch> input,
+                String[] keyFieldNames,
+                KeyFieldComparator[] keyComparators,
+                List<String> valueFieldNames) {
+            this.input = input;
+            this.keyFieldNames = keyFieldNames;
+            this.keyComparators = keyComparators;
+            this.valueFieldNames = valueFieldNames;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (outputReady) {
+                return true;
+            }
+            // Records are only output when a record with a different key is found, so the output may be empty
+            // after reading a whole input batch
+            while (input.hasNext()) {
+                RecordBatch batch = input.next();
+                if (output == null) {
+                    output = new RecordBatch(batch.capacity());
+                } else {
+                    output.clear();
+                }
+                combineBatch(batch);
+                if (!output.isEmpty()) {
+                    outputReady = true;
+                    return true;
+                }
+            }
+            if (current != null) {
+                if (output == null) {
+                    output = new RecordBatch(1);
+                } else {
+                    output.clear();
+                }
+                output.add(current);
+                current = null;
+                outputReady = true;
+            }
+            return outputReady;
+        }
+
+        @Override
+        public RecordBatch next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            outputReady = false;
+            return output;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+
+        private void combineBatch(RecordBatch batch) {
+            for (int i = 0; i < batch.size(); i++) {
+                Record record = batch.get(i);
+                if (current == null) {
+                    current = record;
+                    currentCopied = false;
+                } else if (sameKey(current, record)) {
+                    if (!currentCopied) {
+                        current = new Record(current);
+                        currentCopied = true;
+                    }
+                    for (String fieldName : valueFieldNames) {
+                        current.put(fieldName, (Long) current.get(fieldName) + (Long) record.get(fieldName));
+                    }
+                } else {
+                    output.add(current);
+                    current = record;
+                    currentCopied = false;
+                }
+            }
+        }
+
+        private boolean sameKey(Record record1, Record record2) {
+            for (int i = 0; i < keyFieldNames.length; i++) {
+                String fieldName = keyFieldNames[i];
+                if (0 != keyComparators[i].compareNullable(record1.get(fieldName), record2.get(fieldName))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     private static boolean equalRowAndSort(List<String> rowKeyFieldNames,
             List<String> sortKeyFieldNames, Record record1, Record record2) {
         List<Object> keys1 = new ArrayList<>();
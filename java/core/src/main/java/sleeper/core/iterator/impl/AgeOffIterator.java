@@ -15,7 +15,9 @@
  */
 package sleeper.core.iterator.impl;
 
+import sleeper.core.iterator.BatchedSortedRecordIterator;
 import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.RecordBatch;
 import sleeper.core.iterator.SortedRecordIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Schema;
@@ -26,9 +28,10 @@ import java.util.List;
 
 /**
  * Filters out records older than a specified age. If the specified timestamp field is more than a certain length of
- * time ago then the record is removed. This is an example implementation of {@link SortedRecordIterator}.
+ * time ago then the record is removed. This is an example implementation of {@link SortedRecordIterator}. When
+ * applied to batches, the current time is read once per batch.
  */
-public class AgeOffIterator implements SortedRecordIterator {
+public class AgeOffIterator implements BatchedSortedRecordIterator {
     private String fieldName;
     private long ageOff;
 
@@ -55,6 +58,11 @@ public class AgeOffIterator implements SortedRecordIterator {
         return new AgeOffIteratorInternal(input, fieldName, ageOff);
     }
 
+    @Override
+    public CloseableIterator<RecordBatch> applyBatched(CloseableIterator<RecordBatch> input) {
+        return new AgeOffBatchIterator(input, fieldName, ageOff);
+    }
+
     public static class AgeOffIteratorInternal implements CloseableIterator<Record> {
         private final CloseableIterator<Record> input;
         private final String fieldName;
@@ -104,4 +112,30 @@ public class AgeOffIterator implements SortedRecordIterator {
             }
         }
     }
+
+    /**
+     * Filters batches of records by age, reading the current time once per batch.
+     */
+    private static class AgeOffBatchIterator extends FilteringBatchIterator {
+        private final String fieldName;
+        private final long age;
+        private long now;
+
+        AgeOffBatchIterator(CloseableIterator<RecordBatch> input, String fieldName, long age) {
+            super(input);
+            this.fieldName = fieldName;
+            this.age = age;
+        }
+
+        @Override
+        protected void startBatch() {
+            now = System.currentTimeMillis();
+        }
+
+        @Override
+        protected boolean accept(Record record) {
+            Long value = (Long) record.get(fieldName);
+            return null != value && now - value < age;
+        }
+    }
 }
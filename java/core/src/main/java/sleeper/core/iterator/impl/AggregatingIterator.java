@@ -0,0 +1,215 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator.impl;
+
+import sleeper.core.iterator.BatchedSortedRecordIterator;
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.RecordBatch;
+import sleeper.core.iterator.RecordBatches;
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordComparator;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Combines records with identical row keys and sort keys, applying an aggregation operation to each value field. This
+ * can be set as the iterator for a table, to aggregate records during compaction, ingest and queries.
+ * <p>
+ * The configuration string gives the operation for each value field, as a comma separated list of field=operation,
+ * e.g. "count=sum,first_seen=min,last_seen=max,name=any". Every value field must be given an operation. See
+ * {@link AggregationOperation} for the operations that are available.
+ * <p>
+ * A record with a key that is not shared with any other record is passed through unchanged. Where records are
+ * combined, the keys are taken from the first record, and a new record is created for the result.
+ */
+public class AggregatingIterator implements BatchedSortedRecordIterator {
+    private List<Field> valueFields;
+    private List<String> valueFieldNames;
+    private AggregationOperation[] operations;
+    private RecordComparator keyComparator;
+
+    public AggregatingIterator() {
+    }
+
+    @Override
+    public void init(String configString, Schema schema) {
+        Map<String, AggregationOperation> operationByField = readOperations(configString);
+        valueFields = schema.getValueFields();
+        operations = new AggregationOperation[valueFields.size()];
+        for (int i = 0; i < valueFields.size(); i++) {
+            String fieldName = valueFields.get(i).getName();
+            operations[i] = operationByField.remove(fieldName);
+            if (null == operations[i]) {
+                throw new IllegalArgumentException("No aggregation operation set for value field " + fieldName);
+            }
+        }
+        if (!operationByField.isEmpty()) {
+            throw new IllegalArgumentException("Aggregation operations set for fields which are not value fields: " + operationByField.keySet());
+        }
+        // Check the operations are valid for the field types
+        createAccumulators();
+        valueFieldNames = schema.getValueFieldNames();
+        keyComparator = new RecordComparator(schema);
+    }
+
+    @Override
+    public List<String> getRequiredValueFields() {
+        return valueFieldNames;
+    }
+
+    @Override
+    public CloseableIterator<Record> apply(CloseableIterator<Record> input) {
+        return RecordBatches.unbatch(applyBatched(RecordBatches.batch(input, RecordBatches.DEFAULT_BATCH_SIZE)));
+    }
+
+    @Override
+    public CloseableIterator<RecordBatch> applyBatched(CloseableIterator<RecordBatch> input) {
+        return new AggregatingBatchIterator(input, keyComparator, createAccumulators());
+    }
+
+    private FieldAccumulator[] createAccumulators() {
+        FieldAccumulator[] accumulators = new FieldAccumulator[valueFields.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            Field field = valueFields.get(i);
+            accumulators[i] = operations[i].createAccumulator(field.getName(), field.getType());
+        }
+        return accumulators;
+    }
+
+    private static Map<String, AggregationOperation> readOperations(String configString) {
+        Map<String, AggregationOperation> operations = new HashMap<>();
+        if (null == configString || configString.isBlank()) {
+            return operations;
+        }
+        for (String entry : configString.split(",")) {
+            String[] parts = entry.split("=");
+            if (2 != parts.length) {
+                throw new IllegalArgumentException("Expected field=operation in aggregation configuration, found: " + entry);
+            }
+            String fieldName = parts[0].trim();
+            if (null != operations.put(fieldName, AggregationOperation.fromName(parts[1]))) {
+                throw new IllegalArgumentException("Aggregation operation set more than once for field " + fieldName);
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Aggregates groups of records with the same key a batch at a time. Groups may span more than one input batch.
+     */
+    private static class AggregatingBatchIterator implements CloseableIterator<RecordBatch> {
+        private final CloseableIterator<RecordBatch> input;
+        private final RecordComparator keyComparator;
+        private final FieldAccumulator[] accumulators;
+        private RecordBatch output;
+        private boolean outputReady;
+        private Record groupFirst;
+        private int groupSize;
+
+        AggregatingBatchIterator(CloseableIterator<RecordBatch> input, RecordComparator keyComparator, FieldAccumulator[] accumulators) {
+            this.input = input;
+            this.keyComparator = keyComparator;
+            this.accumulators = accumulators;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (outputReady) {
+                return true;
+            }
+            while (input.hasNext()) {
+                RecordBatch batch = input.next();
+                startOutput(batch.capacity());
+                for (int i = 0; i < batch.size(); i++) {
+                    addToGroup(batch.get(i));
+                }
+                if (!output.isEmpty()) {
+                    outputReady = true;
+                    return true;
+                }
+            }
+            if (null != groupFirst) {
+                startOutput(1);
+                finishGroup();
+                outputReady = true;
+            }
+            return outputReady;
+        }
+
+        @Override
+        public RecordBatch next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            outputReady = false;
+            return output;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+
+        private void startOutput(int capacity) {
+            if (null == output) {
+                output = new RecordBatch(capacity);
+            } else {
+                output.clear();
+            }
+        }
+
+        private void addToGroup(Record record) {
+            if (null == groupFirst) {
+                groupFirst = record;
+                groupSize = 1;
+            } else if (0 == keyComparator.compare(groupFirst, record)) {
+                if (1 == groupSize) {
+                    for (FieldAccumulator accumulator : accumulators) {
+                        accumulator.start(groupFirst);
+                    }
+                }
+                for (FieldAccumulator accumulator : accumulators) {
+                    accumulator.add(record);
+                }
+                groupSize++;
+            } else {
+                finishGroup();
+                groupFirst = record;
+                groupSize = 1;
+            }
+        }
+
+        private void finishGroup() {
+            if (1 == groupSize) {
+                output.add(groupFirst);
+            } else {
+                Record combined = new Record(groupFirst);
+                for (FieldAccumulator accumulator : accumulators) {
+                    accumulator.writeTo(combined);
+                }
+                output.add(combined);
+            }
+            groupFirst = null;
+            groupSize = 0;
+        }
+    }
+}
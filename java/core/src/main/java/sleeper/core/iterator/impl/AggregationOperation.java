@@ -0,0 +1,150 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator.impl;
+
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.PrimitiveType;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.schema.type.Type;
+
+import java.util.Locale;
+
+/**
+ * An operation to combine the values of a field when records with the same row and sort keys are aggregated by
+ * {@link AggregatingIterator}.
+ */
+public enum AggregationOperation {
+    /**
+     * Adds together the values of an int or long field. Null values are ignored. Aggregation fails with an
+     * {@link ArithmeticException} if the total overflows the type of the field, rather than wrapping around.
+     */
+    SUM {
+        @Override
+        FieldAccumulator createAccumulator(String fieldName, Type type) {
+            return new FieldAccumulator.Sum(fieldName, isInt(fieldName, type));
+        }
+    },
+    /**
+     * Takes the smallest value of an int, long, string or byte array field. Null values are ignored.
+     */
+    MIN {
+        @Override
+        FieldAccumulator createAccumulator(String fieldName, Type type) {
+            return FieldAccumulator.extreme(fieldName, primitiveType(fieldName, type), -1);
+        }
+    },
+    /**
+     * Takes the largest value of an int, long, string or byte array field. Null values are ignored.
+     */
+    MAX {
+        @Override
+        FieldAccumulator createAccumulator(String fieldName, Type type) {
+            return FieldAccumulator.extreme(fieldName, primitiveType(fieldName, type), 1);
+        }
+    },
+    /**
+     * Counts records in a long field. A record where the field is null counts as one, and a record with a value counts
+     * as that value. This means counts are carried forward correctly when records that were already aggregated by an
+     * earlier compaction are aggregated again.
+     */
+    COUNT {
+        @Override
+        FieldAccumulator createAccumulator(String fieldName, Type type) {
+            if (!(type instanceof LongType)) {
+                throw new IllegalArgumentException("Field " + fieldName + " must be a long to count records, found " + type);
+            }
+            return new FieldAccumulator.Count(fieldName);
+        }
+    },
+    /**
+     * Takes the value of a field from any one of the records with the key. This is for fields which are expected to have
+     * the same value in every record with the key, or where any of the values is acceptable.
+     * <p>
+     * No particular record is chosen. Records with the same key from different files are merged in the order the files
+     * are listed in the compaction job or query, which is not the order they were written, so this cannot be used to
+     * keep the latest value.
+     */
+    ANY {
+        @Override
+        FieldAccumulator createAccumulator(String fieldName, Type type) {
+            return new FieldAccumulator.Any(fieldName);
+        }
+    },
+    /**
+     * Merges the maps in a map field. Where the same map key is present in more than one record, int and long values
+     * are added together, and otherwise any one of the values is taken, as with {@link #ANY}. Sums fail with an
+     * {@link ArithmeticException} if they overflow the type of the map values.
+     */
+    MAP_MERGE {
+        @Override
+        FieldAccumulator createAccumulator(String fieldName, Type type) {
+            if (!(type instanceof MapType)) {
+                throw new IllegalArgumentException("Field " + fieldName + " must be a map to merge, found " + type);
+            }
+            MapType mapType = (MapType) type;
+            if (mapType.getKeyType() instanceof ByteArrayType) {
+                throw new IllegalArgumentException("Field " + fieldName + " cannot be merged as it has byte array map keys");
+            }
+            PrimitiveType valueType = mapType.getValueType();
+            boolean sumValues = valueType instanceof IntType || valueType instanceof LongType;
+            return new FieldAccumulator.MapMerge(fieldName, sumValues);
+        }
+    };
+
+    /**
+     * Creates an accumulator to apply this operation to a field.
+     *
+     * @param  fieldName the name of the field
+     * @param  type      the type of the field
+     * @return           the accumulator
+     */
+    abstract FieldAccumulator createAccumulator(String fieldName, Type type);
+
+    /**
+     * Reads an operation from its name in the iterator configuration. This is case insensitive.
+     *
+     * @param  name the name of the operation
+     * @return      the operation
+     */
+    public static AggregationOperation fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unrecognised aggregation operation: " + name);
+        }
+    }
+
+    private static boolean isInt(String fieldName, Type type) {
+        if (type instanceof IntType) {
+            return true;
+        } else if (type instanceof LongType) {
+            return false;
+        } else {
+            throw new IllegalArgumentException("Field " + fieldName + " must be an int or a long to sum, found " + type);
+        }
+    }
+
+    private static PrimitiveType primitiveType(String fieldName, Type type) {
+        if (type instanceof IntType || type instanceof LongType
+                || type instanceof StringType || type instanceof ByteArrayType) {
+            return (PrimitiveType) type;
+        }
+        throw new IllegalArgumentException("Field " + fieldName + " must be a primitive type to take a minimum or maximum, found " + type);
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator.impl;
+
+import sleeper.core.record.KeyFieldComparator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.PrimitiveType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Accumulates the values of a field over a group of records with the same row and sort keys. An accumulator is reused
+ * for every group, and holds int and long values as primitives while a group is accumulated.
+ */
+abstract class FieldAccumulator {
+    protected final String fieldName;
+
+    protected FieldAccumulator(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Starts a new group.
+     *
+     * @param record the first record in the group
+     */
+    abstract void start(Record record);
+
+    /**
+     * Adds a record to the current group.
+     *
+     * @param record the record
+     */
+    abstract void add(Record record);
+
+    /**
+     * Writes the accumulated value for the current group.
+     *
+     * @param output the record to write the value to
+     */
+    abstract void writeTo(Record output);
+
+    static FieldAccumulator extreme(String fieldName, PrimitiveType type, int sign) {
+        if (type instanceof IntType || type instanceof LongType) {
+            return new LongExtreme(fieldName, type instanceof IntType, sign);
+        } else {
+            return new ObjectExtreme(fieldName, KeyFieldComparator.forType(type), sign);
+        }
+    }
+
+    private static Object box(long value, boolean isInt) {
+        if (isInt) {
+            return (int) value;
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Adds together int or long values. Fails if the total overflows the type of the field.
+     */
+    static class Sum extends FieldAccumulator {
+        private final boolean isInt;
+        private long total;
+        private boolean anySet;
+
+        Sum(String fieldName, boolean isInt) {
+            super(fieldName);
+            this.isInt = isInt;
+        }
+
+        @Override
+        void start(Record record) {
+            total = 0;
+            anySet = false;
+            add(record);
+        }
+
+        @Override
+        void add(Record record) {
+            Number value = (Number) record.get(fieldName);
+            if (null != value) {
+                total = Math.addExact(total, value.longValue());
+                anySet = true;
+            }
+        }
+
+        @Override
+        void writeTo(Record output) {
+            if (!anySet) {
+                output.put(fieldName, null);
+            } else if (isInt) {
+                output.put(fieldName, toIntExact(total));
+            } else {
+                output.put(fieldName, total);
+            }
+        }
+
+        private int toIntExact(long value) {
+            try {
+                return Math.toIntExact(value);
+            } catch (ArithmeticException e) {
+                throw new ArithmeticException("Sum of int field " + fieldName + " overflows an int: " + value);
+            }
+        }
+    }
+
+    /**
+     * Takes the minimum or maximum of int or long values.
+     */
+    static class LongExtreme extends FieldAccumulator {
+        private final boolean isInt;
+        private final int sign;
+        private long extreme;
+        private boolean anySet;
+
+        LongExtreme(String fieldName, boolean isInt, int sign) {
+            super(fieldName);
+            this.isInt = isInt;
+            this.sign = sign;
+        }
+
+        @Override
+        void start(Record record) {
+            anySet = false;
+            add(record);
+        }
+
+        @Override
+        void add(Record record) {
+            Number value = (Number) record.get(fieldName);
+            if (null == value) {
+                return;
+            }
+            long longValue = value.longValue();
+            if (!anySet || Long.compare(longValue, extreme) * sign > 0) {
+                extreme = longValue;
+                anySet = true;
+            }
+        }
+
+        @Override
+        void writeTo(Record output) {
+            output.put(fieldName, anySet ? box(extreme, isInt) : null);
+        }
+    }
+
+    /**
+     * Takes the minimum or maximum of string or byte array values.
+     */
+    static class ObjectExtreme extends FieldAccumulator {
+        private final KeyFieldComparator comparator;
+        private final int sign;
+        private Object extreme;
+
+        ObjectExtreme(String fieldName, KeyFieldComparator comparator, int sign) {
+            super(fieldName);
+            this.comparator = comparator;
+            this.sign = sign;
+        }
+
+        @Override
+        void start(Record record) {
+            extreme = null;
+            add(record);
+        }
+
+        @Override
+        void add(Record record) {
+            Object value = record.get(fieldName);
+            if (null != value && (null == extreme || comparator.compare(value, extreme) * sign > 0)) {
+                extreme = value;
+            }
+        }
+
+        @Override
+        void writeTo(Record output) {
+            output.put(fieldName, extreme);
+        }
+    }
+
+    /**
+     * Counts records, carrying forward counts from records that were already aggregated.
+     */
+    static class Count extends FieldAccumulator {
+        private long count;
+
+        Count(String fieldName) {
+            super(fieldName);
+        }
+
+        @Override
+        void start(Record record) {
+            count = 0;
+            add(record);
+        }
+
+        @Override
+        void add(Record record) {
+            Number value = (Number) record.get(fieldName);
+            count += null == value ? 1 : value.longValue();
+        }
+
+        @Override
+        void writeTo(Record output) {
+            output.put(fieldName, count);
+        }
+    }
+
+    /**
+     * Takes the value from any one record in the group. See {@link AggregationOperation#ANY}.
+     */
+    static class Any extends FieldAccumulator {
+        private Object value;
+
+        Any(String fieldName) {
+            super(fieldName);
+        }
+
+        @Override
+        void start(Record record) {
+            add(record);
+        }
+
+        @Override
+        void add(Record record) {
+            value = record.get(fieldName);
+        }
+
+        @Override
+        void writeTo(Record output) {
+            output.put(fieldName, value);
+            value = null;
+        }
+    }
+
+    /**
+     * Merges maps, adding together numeric values or taking any one value for each map key. Fails if a sum overflows
+     * the type of the map values.
+     */
+    static class MapMerge extends FieldAccumulator {
+        private final boolean sumValues;
+        private Map<Object, Object> merged;
+
+        MapMerge(String fieldName, boolean sumValues) {
+            super(fieldName);
+            this.sumValues = sumValues;
+        }
+
+        @Override
+        void start(Record record) {
+            merged = null;
+            add(record);
+        }
+
+        @Override
+        void add(Record record) {
+            Map<?, ?> map = (Map<?, ?>) record.get(fieldName);
+            if (null == map) {
+                return;
+            }
+            if (null == merged) {
+                merged = new HashMap<>(map);
+            } else if (sumValues) {
+                map.forEach((key, value) -> merged.merge(key, value, MapMerge::addNumbers));
+            } else {
+                merged.putAll(map);
+            }
+        }
+
+        @Override
+        void writeTo(Record output) {
+            output.put(fieldName, merged);
+            merged = null;
+        }
+
+        private static Object addNumbers(Object value1, Object value2) {
+            if (value1 instanceof Integer) {
+                return Math.addExact((Integer) value1, ((Number) value2).intValue());
+            } else {
+                return Math.addExact(((Number) value1).longValue(), ((Number) value2).longValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator.impl;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.RecordBatch;
+import sleeper.core.record.Record;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Filters batches of records in place. Batches which are emptied by the filter are skipped.
+ */
+abstract class FilteringBatchIterator implements CloseableIterator<RecordBatch> {
+    private final CloseableIterator<RecordBatch> input;
+    private RecordBatch next;
+
+    FilteringBatchIterator(CloseableIterator<RecordBatch> input) {
+        this.input = input;
+    }
+
+    /**
+     * Called before each batch is filtered. This can be used to compute anything that only needs to be computed once
+     * per batch.
+     */
+    protected void startBatch() {
+    }
+
+    /**
+     * Checks whether a record should be kept.
+     *
+     * @param  record the record
+     * @return        true if the record should be kept
+     */
+    protected abstract boolean accept(Record record);
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && input.hasNext()) {
+            RecordBatch batch = input.next();
+            startBatch();
+            int kept = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                Record record = batch.get(i);
+                if (accept(record)) {
+                    batch.set(kept++, record);
+                }
+            }
+            batch.truncate(kept);
+            if (kept > 0) {
+                next = batch;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public RecordBatch next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        RecordBatch batch = next;
+        next = null;
+        return batch;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
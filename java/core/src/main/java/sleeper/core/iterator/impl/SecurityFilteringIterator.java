@@ -15,7 +15,9 @@
  */
 package sleeper.core.iterator.impl;
 
+import sleeper.core.iterator.BatchedSortedRecordIterator;
 import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.RecordBatch;
 import sleeper.core.iterator.SortedRecordIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Schema;
@@ -33,7 +35,7 @@ import java.util.Set;
  * then the user is allowed to see the record. If the visibility field is the empty or null string then the user is also
  * allowed to see the record. This is an example implementation of {@link SortedRecordIterator}.
  */
-public class SecurityFilteringIterator implements SortedRecordIterator {
+public class SecurityFilteringIterator implements BatchedSortedRecordIterator {
     private String fieldName;
     private Set<String> auths;
 
@@ -61,6 +63,18 @@ public class SecurityFilteringIterator implements SortedRecordIterator {
         return new SecurityFilteringIteratorInternal(input, fieldName, auths);
     }
 
+    @Override
+    public CloseableIterator<RecordBatch> applyBatched(CloseableIterator<RecordBatch> input) {
+        String securityFieldName = fieldName;
+        Set<String> allowedAuths = auths;
+        return new FilteringBatchIterator(input) {
+            @Override
+            protected boolean accept(Record record) {
+                return allowed(record, securityFieldName, allowedAuths);
+            }
+        };
+    }
+
     public static class SecurityFilteringIteratorInternal implements CloseableIterator<Record> {
         private final CloseableIterator<Record> iterator;
         private final String fieldName;
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.key;
+
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout.FieldKind;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.PrimitiveType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Encodes keys as byte arrays which sort in the same order as the keys. Two encoded keys can be compared as unsigned
+ * bytes, without decoding them or checking the types of the fields.
+ * <p>
+ * Each value is preceded by a marker byte, which orders null after all other values, as in
+ * {@link sleeper.core.record.KeyComparator}. Ints and longs are written big-endian with the sign bit flipped. Strings
+ * are written as UTF-8, and strings and byte arrays are terminated with the bytes 0x00 0x01, with any zero byte in the
+ * value escaped as 0x00 0xFF. This means a shorter value sorts before any longer value that it is a prefix of, and
+ * no value can be mistaken for the terminator.
+ * <p>
+ * The UTF-8 order of strings is the same as the order of {@link String#compareTo}, except between characters outside
+ * of the basic multilingual plane and characters from U+E000 to U+FFFF. This is the same order used for strings by
+ * Arrow and Parquet.
+ * <p>
+ * Fewer values than there are fields may be encoded, in the same order as the fields. An encoded key sorts before any
+ * longer key that it is a prefix of.
+ */
+public class KeyEncoder {
+    private static final byte PRESENT = 0x01;
+    private static final byte NULL = 0x02;
+    private static final byte ESCAPE = 0x00;
+    private static final byte ESCAPED_ZERO = (byte) 0xFF;
+    private static final byte TERMINATOR = 0x01;
+
+    private final FieldKind[] kinds;
+    private final List<String> fieldNames;
+
+    public KeyEncoder(List<PrimitiveType> types) {
+        this(types, null);
+    }
+
+    private KeyEncoder(List<PrimitiveType> types, List<String> fieldNames) {
+        this.kinds = types.stream().map(FieldKind::of).toArray(FieldKind[]::new);
+        this.fieldNames = fieldNames;
+    }
+
+    /**
+     * Creates an encoder for the row keys of a schema.
+     *
+     * @param  schema the schema
+     * @return        the encoder
+     */
+    public static KeyEncoder forRowKeys(Schema schema) {
+        return new KeyEncoder(schema.getRowKeyTypes(), schema.getRowKeyFieldNames());
+    }
+
+    /**
+     * Creates an encoder for the row keys followed by the sort keys of a schema. Encoded records will sort in the same
+     * order as in a Sleeper table.
+     *
+     * @param  schema the schema
+     * @return        the encoder
+     */
+    public static KeyEncoder forRowAndSortKeys(Schema schema) {
+        List<Field> fields = Stream.of(schema.getRowKeyFields(), schema.getSortKeyFields())
+                .flatMap(List::stream)
+                .collect(Collectors.toUnmodifiableList());
+        return new KeyEncoder(
+                fields.stream().map(field -> (PrimitiveType) field.getType()).collect(Collectors.toUnmodifiableList()),
+                fields.stream().map(Field::getName).collect(Collectors.toUnmodifiableList()));
+    }
+
+    /**
+     * Encodes the values of a key.
+     *
+     * @param  key the key
+     * @return     the encoded key
+     */
+    public byte[] encode(Key key) {
+        if (key.size() > kinds.length) {
+            throw new IllegalArgumentException("Key has " + key.size() + " values, expected at most " + kinds.length);
+        }
+        Output output = new Output();
+        for (int i = 0; i < key.size(); i++) {
+            writeValue(output, kinds[i], key.get(i));
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Encodes the values of the key fields of a record. This is only available when the encoder was created from a
+     * schema.
+     *
+     * @param  record the record
+     * @return        the encoded key
+     */
+    public byte[] encode(Record record) {
+        if (fieldNames == null) {
+            throw new IllegalStateException("Field names are not known, encoder was not created from a schema");
+        }
+        Output output = new Output();
+        for (int i = 0; i < kinds.length; i++) {
+            writeValue(output, kinds[i], record.get(fieldNames.get(i)));
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes an encoded key.
+     *
+     * @param  encoded the encoded key
+     * @return         the key
+     */
+    public Key decode(byte[] encoded) {
+        List<Object> values = new ArrayList<>(kinds.length);
+        int position = 0;
+        while (position < encoded.length) {
+            if (values.size() >= kinds.length) {
+                throw new IllegalArgumentException("Encoded key has more values than there are fields");
+            }
+            byte marker = encoded[position++];
+            if (marker == NULL) {
+                values.add(null);
+                continue;
+            } else if (marker != PRESENT) {
+                throw new IllegalArgumentException("Unexpected marker byte " + marker + " at position " + (position - 1));
+            }
+            switch (kinds[values.size()]) {
+                case INT:
+                    values.add((int) readLong(encoded, position, Integer.BYTES) ^ Integer.MIN_VALUE);
+                    position += Integer.BYTES;
+                    break;
+                case LONG:
+                    values.add(readLong(encoded, position, Long.BYTES) ^ Long.MIN_VALUE);
+                    position += Long.BYTES;
+                    break;
+                case STRING:
+                    position = readEscaped(encoded, position, values);
+                    int last = values.size() - 1;
+                    values.set(last, new String((byte[]) values.get(last), StandardCharsets.UTF_8));
+                    break;
+                default:
+                    position = readEscaped(encoded, position, values);
+            }
+        }
+        return Key.create(values);
+    }
+
+    /**
+     * Compares two encoded keys.
+     *
+     * @param  encoded1 the first encoded key
+     * @param  encoded2 the second encoded key
+     * @return          a negative integer, zero, or a positive integer as the first key is less than, equal to, or
+     *                  greater than the second
+     */
+    public static int compare(byte[] encoded1, byte[] encoded2) {
+        return Arrays.compareUnsigned(encoded1, encoded2);
+    }
+
+    /**
+     * Reads the first 8 bytes of an encoded key as an unsigned long, padded with zeroes if the key is shorter. Prefixes
+     * compare in the same order as the keys, with {@link Long#compareUnsigned}, except that keys with equal prefixes
+     * must be compared in full. This can be used to sort keys by radix, or to compare them with fewer memory accesses.
+     *
+     * @param  encoded the encoded key
+     * @return         the prefix
+     */
+    public static long prefix(byte[] encoded) {
+        long prefix = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            prefix <<= 8;
+            if (i < encoded.length) {
+                prefix |= encoded[i] & 0xFF;
+            }
+        }
+        return prefix;
+    }
+
+    private static void writeValue(Output output, FieldKind kind, Object value) {
+        if (value == null) {
+            output.write(NULL);
+            return;
+        }
+        output.write(PRESENT);
+        switch (kind) {
+            case INT:
+                output.writeLong((int) value ^ Integer.MIN_VALUE, Integer.BYTES);
+                break;
+            case LONG:
+                output.writeLong((long) value ^ Long.MIN_VALUE, Long.BYTES);
+                break;
+            case STRING:
+                output.writeEscaped(((String) value).getBytes(StandardCharsets.UTF_8));
+                break;
+            case BYTE_ARRAY:
+                output.writeEscaped((byte[]) value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported key type " + kind);
+        }
+    }
+
+    private static long readLong(byte[] encoded, int position, int numBytes) {
+        if (position + numBytes > encoded.length) {
+            throw new IllegalArgumentException("Encoded key ended part way through a value");
+        }
+        long value = 0;
+        for (int i = 0; i < numBytes; i++) {
+            value = (value << 8) | (encoded[position + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int readEscaped(byte[] encoded, int position, List<Object> values) {
+        Output output = new Output();
+        int i = position;
+        while (true) {
+            if (i >= encoded.length) {
+                throw new IllegalArgumentException("Encoded key ended part way through a value");
+            }
+            byte b = encoded[i++];
+            if (b != ESCAPE) {
+                output.write(b);
+            } else if (i < encoded.length && encoded[i] == ESCAPED_ZERO) {
+                output.write(ESCAPE);
+                i++;
+            } else if (i < encoded.length && encoded[i] == TERMINATOR) {
+                values.add(output.toByteArray());
+                return i + 1;
+            } else {
+                throw new IllegalArgumentException("Invalid escape sequence at position " + (i - 1));
+            }
+        }
+    }
+
+    /**
+     * A growable buffer to write an encoded key.
+     */
+    private static class Output {
+        private byte[] bytes = new byte[32];
+        private int size;
+
+        void write(byte b) {
+            ensureCapacity(1);
+            bytes[size++] = b;
+        }
+
+        void writeLong(long value, int numBytes) {
+            ensureCapacity(numBytes);
+            for (int i = numBytes - 1; i >= 0; i--) {
+                bytes[size++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        void writeEscaped(byte[] value) {
+            ensureCapacity(2 * value.length + 2);
+            for (byte b : value) {
+                if (b == ESCAPE) {
+                    bytes[size++] = ESCAPE;
+                    bytes[size++] = ESCAPED_ZERO;
+                } else {
+                    bytes[size++] = b;
+                }
+            }
+            bytes[size++] = ESCAPE;
+            bytes[size++] = TERMINATOR;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+    }
+}
@@ -35,6 +35,7 @@ import java.util.stream.Stream;
 public class PartitionTree {
     private final Map<String, Partition> idToPartition;
     private final Partition rootPartition;
+    private volatile PartitionTreeIndex index;
 
     public PartitionTree(List<Partition> partitions) {
         this.idToPartition = new HashMap<>();
@@ -91,41 +92,74 @@ public class PartitionTree {
     }
 
     public Partition getLeafPartition(Schema schema, Key key) {
+        checkKeyMatchesRowKeys(schema, key);
+        return getIndex(schema).getLeafPartition(key);
+    }
+
+    /**
+     * Finds the leaf partition containing a key which starts with the row key values. The key may have more values
+     * after the row keys, e.g. the sort keys. This avoids creating a new key holding just the row keys.
+     *
+     * @param  schema the schema of the table
+     * @param  key    the key, starting with the row key values
+     * @return        the leaf partition containing the row key values
+     */
+    public Partition getLeafPartitionForKeyPrefix(Schema schema, Key key) {
+        if (key.size() < schema.getRowKeyFields().size()) {
+            throw new IllegalArgumentException("Key must start with the row key fields from the schema (key was "
+                    + key + ", schema has row key fields " + schema.getRowKeyFields() + ")");
+        }
+        return getIndex(schema).getLeafPartition(key);
+    }
+
+    /**
+     * Finds the leaf partitions containing a batch of keys.
+     *
+     * @param  schema                   the schema of the table
+     * @param  keys                     the keys, each holding the row key values
+     * @param  leafPartitions           an array to set the leaf partition for each key in, at the same index as the key
+     * @throws IllegalArgumentException if any key does not match the row key fields from the schema
+     */
+    public void getLeafPartitions(Schema schema, List<Key> keys, Partition[] leafPartitions) {
+        PartitionTreeIndex treeIndex = getIndex(schema);
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
+            checkKeyMatchesRowKeys(schema, key);
+            leafPartitions[i] = treeIndex.getLeafPartition(key);
+        }
+    }
+
+    private static void checkKeyMatchesRowKeys(Schema schema, Key key) {
         // Sanity check key is of the correct length
         if (key.size() != schema.getRowKeyFields().size()) {
             throw new IllegalArgumentException("Key must match the row key fields from the schema (key was "
                     + key + ", schema has row key fields " + schema.getRowKeyFields() + ")");
         }
-        // If root partition is a leaf partition then key must be in it
-        if (rootPartition.isLeafPartition()) {
-            return rootPartition;
-        }
-
-        return descend(schema, rootPartition, key);
     }
 
-    private Partition descend(Schema schema, Partition currentNode, Key key) {
-        // Get child partitions
-        List<String> childPartitionIds = currentNode.getChildPartitionIds();
-        List<Partition> childPartitions = new ArrayList<>();
-        childPartitionIds.forEach(c -> childPartitions.add(idToPartition.get(c)));
-
-        // Which child is the key in?
-        Partition child = null;
-        for (Partition partition : childPartitions) {
-            if (partition.isRowKeyInPartition(schema, key)) {
-                child = partition;
-                break;
-            }
-        }
-        if (null == child) {
-            throw new IllegalArgumentException("Found key that was not in any of the child partitions: key " + key
-                    + ", child partitions " + childPartitions);
+    private PartitionTreeIndex getIndex(Schema schema) {
+        // The index is immutable, so if two threads build it at once, either result can be used
+        PartitionTreeIndex treeIndex = index;
+        if (null == treeIndex || !treeIndex.isFor(schema)) {
+            treeIndex = new PartitionTreeIndex(schema, rootPartition, idToPartition);
+            index = treeIndex;
         }
-        if (child.isLeafPartition()) {
-            return child;
+        return treeIndex;
+    }
+
+    /**
+     * Finds the leaf partitions beneath a partition, in order from the left/min side of each split to the right/max
+     * side. If the partition is a leaf partition, this just returns that partition.
+     *
+     * @param  partitionId the ID of the partition
+     * @return             the leaf partitions beneath the partition
+     */
+    public List<Partition> getLeafPartitionsUnder(String partitionId) {
+        if (!idToPartition.containsKey(partitionId)) {
+            throw new IllegalArgumentException("No partition of id " + partitionId);
         }
-        return descend(schema, child, key);
+        return leavesInTreeOrderUnder(idToPartition.get(partitionId))
+                .collect(Collectors.toList());
     }
 
     public Partition getRootPartition() {
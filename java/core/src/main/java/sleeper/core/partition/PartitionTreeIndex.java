@@ -0,0 +1,201 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.partition;
+
+import sleeper.core.key.Key;
+import sleeper.core.range.Range;
+import sleeper.core.record.KeyFieldComparator;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index to find the leaf partition containing a key, built once from a partition tree. The tree is flattened into
+ * arrays of nodes, and each split into two partitions on one dimension is held as the split point, so that finding a
+ * leaf partition compares one key value per level of the tree, and does not allocate.
+ * <p>
+ * Where a partition's children do not form a split on one dimension at a single point, the child containing the key is
+ * found by checking the range of each child.
+ */
+class PartitionTreeIndex {
+    private static final int LEAF = -1;
+    private static final int CHECK_RANGES = -2;
+
+    private final List<Field> rowKeyFields;
+    private final KeyFieldComparator[] comparators;
+    private final Partition[] partitions;
+    private final int[] splitDimension;
+    private final Object[] splitPoint;
+    private final int[] minChild;
+    private final int[] maxChild;
+    private final int[][] childrenToCheck;
+
+    PartitionTreeIndex(Schema schema, Partition root, Map<String, Partition> idToPartition) {
+        rowKeyFields = schema.getRowKeyFields();
+        comparators = KeyFieldComparator.forTypes(schema.getRowKeyTypes());
+        int maxNodes = idToPartition.size();
+        partitions = new Partition[maxNodes];
+        splitDimension = new int[maxNodes];
+        splitPoint = new Object[maxNodes];
+        minChild = new int[maxNodes];
+        maxChild = new int[maxNodes];
+        childrenToCheck = new int[maxNodes][];
+
+        // Assign node numbers breadth first. Nodes are added to the end of the array as they are found.
+        partitions[0] = root;
+        int numNodes = 1;
+        for (int node = 0; node < numNodes; node++) {
+            Partition partition = partitions[node];
+            if (partition.isLeafPartition()) {
+                splitDimension[node] = LEAF;
+                continue;
+            }
+            List<Partition> children = new ArrayList<>();
+            for (String childId : partition.getChildPartitionIds()) {
+                Partition child = idToPartition.get(childId);
+                if (null != child && numNodes + children.size() < maxNodes) {
+                    children.add(child);
+                }
+            }
+            int firstChild = numNodes;
+            for (Partition child : children) {
+                partitions[numNodes++] = child;
+            }
+            indexSplit(node, partition, children, firstChild);
+        }
+    }
+
+    boolean isFor(Schema schema) {
+        return rowKeyFields.equals(schema.getRowKeyFields());
+    }
+
+    /**
+     * Finds the leaf partition containing a key. Only reads the row key values at the start of the key, so the key may
+     * also include other values after the row keys.
+     *
+     * @param  key the key
+     * @return     the leaf partition
+     */
+    Partition getLeafPartition(Key key) {
+        int node = 0;
+        while (true) {
+            int dimension = splitDimension[node];
+            if (dimension >= 0) {
+                node = compare(dimension, key.get(dimension), splitPoint[node]) < 0 ? minChild[node] : maxChild[node];
+            } else if (dimension == LEAF) {
+                return partitions[node];
+            } else {
+                node = findChildContaining(node, key);
+            }
+        }
+    }
+
+    private void indexSplit(int node, Partition partition, List<Partition> children, int firstChild) {
+        int dimension = partition.getDimension();
+        if (2 == children.size() && dimension >= 0 && dimension < rowKeyFields.size()) {
+            Partition first = children.get(0);
+            Partition second = children.get(1);
+            if (isSplitAtPoint(partition, first, second, dimension)) {
+                setSplit(node, dimension, first, firstChild, firstChild + 1);
+                return;
+            } else if (isSplitAtPoint(partition, second, first, dimension)) {
+                setSplit(node, dimension, second, firstChild + 1, firstChild);
+                return;
+            }
+        }
+        splitDimension[node] = CHECK_RANGES;
+        int[] childNodes = new int[children.size()];
+        for (int i = 0; i < childNodes.length; i++) {
+            childNodes[i] = firstChild + i;
+        }
+        childrenToCheck[node] = childNodes;
+    }
+
+    private void setSplit(int node, int dimension, Partition minPartition, int minNode, int maxNode) {
+        splitDimension[node] = dimension;
+        splitPoint[node] = range(minPartition, dimension).getMax();
+        minChild[node] = minNode;
+        maxChild[node] = maxNode;
+    }
+
+    private boolean isSplitAtPoint(Partition parent, Partition min, Partition max, int dimension) {
+        for (int i = 0; i < rowKeyFields.size(); i++) {
+            Range parentRange = range(parent, i);
+            Range minRange = range(min, i);
+            Range maxRange = range(max, i);
+            if (null == parentRange || null == minRange || null == maxRange) {
+                return false;
+            }
+            if (i != dimension) {
+                if (!parentRange.equals(minRange) || !parentRange.equals(maxRange)) {
+                    return false;
+                }
+                continue;
+            }
+            if (!minRange.isMinInclusive() || minRange.isMaxInclusive()
+                    || !maxRange.isMinInclusive() || maxRange.isMaxInclusive()
+                    || null == minRange.getMax() || null == maxRange.getMin()
+                    || 0 != compare(i, minRange.getMax(), maxRange.getMin())
+                    || 0 != comparators[i].compareNullable(minRange.getMin(), parentRange.getMin())
+                    || 0 != comparators[i].compareNullable(maxRange.getMax(), parentRange.getMax())
+                    || parentRange.isMinInclusive() != minRange.isMinInclusive()
+                    || parentRange.isMaxInclusive() != maxRange.isMaxInclusive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int findChildContaining(int node, Key key) {
+        for (int child : childrenToCheck[node]) {
+            if (isRowKeyInPartition(partitions[child], key)) {
+                return child;
+            }
+        }
+        List<Partition> children = new ArrayList<>();
+        for (int child : childrenToCheck[node]) {
+            children.add(partitions[child]);
+        }
+        throw new IllegalArgumentException("Found key that was not in any of the child partitions: key " + key
+                + ", child partitions " + children);
+    }
+
+    private boolean isRowKeyInPartition(Partition partition, Key key) {
+        for (int i = 0; i < rowKeyFields.size(); i++) {
+            Range range = range(partition, i);
+            if (null != range && !range.doesRangeContainObject(key.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compare(int dimension, Object value1, Object value2) {
+        try {
+            return comparators[dimension].compareNullable(value1, value2);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("The key must match the schema: expected " + rowKeyFields.get(dimension)
+                    + ", got " + value1, e);
+        }
+    }
+
+    private Range range(Partition partition, int dimension) {
+        return partition.getRegion().getRange(rowKeyFields.get(dimension).getName());
+    }
+}
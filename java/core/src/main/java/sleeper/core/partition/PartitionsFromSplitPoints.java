@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import sleeper.core.range.Range;
 import sleeper.core.range.Range.RangeFactory;
 import sleeper.core.range.Region;
+import sleeper.core.record.KeyFieldComparator;
 import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.ByteArrayType;
@@ -205,19 +206,20 @@ public class PartitionsFromSplitPoints {
     }
 
     private void validateSplitPoints() {
+        KeyFieldComparator comparator = KeyFieldComparator.forType(rowKeyTypes.get(0));
         int count = 0;
-        Comparable previous = null;
+        Object previous = null;
         for (Object obj : splitPoints) {
             validateCorrectType(obj);
-            Comparable comparable = getAsComparable(obj);
             if (count > 0) {
-                if (previous.compareTo(comparable) == 0) {
-                    throw new IllegalArgumentException("Invalid split point: " + previous + " - duplicate found");
-                } else if (previous.compareTo(comparable) > 0) {
-                    throw new IllegalArgumentException("Invalid split point: " + previous + " - should be less than " + comparable);
+                int diff = comparator.compare(previous, obj);
+                if (diff == 0) {
+                    throw new IllegalArgumentException("Invalid split point: " + formatSplitPoint(previous) + " - duplicate found");
+                } else if (diff > 0) {
+                    throw new IllegalArgumentException("Invalid split point: " + formatSplitPoint(previous) + " - should be less than " + formatSplitPoint(obj));
                 }
             }
-            previous = comparable;
+            previous = obj;
             count++;
         }
     }
@@ -245,12 +247,11 @@ public class PartitionsFromSplitPoints {
         }
     }
 
-    private Comparable getAsComparable(Object obj) {
-        Type type = rowKeyTypes.get(0);
-        if (type instanceof ByteArrayType) {
+    private static Object formatSplitPoint(Object obj) {
+        if (obj instanceof byte[]) {
             return ByteArray.wrap((byte[]) obj);
         }
-        return (Comparable) obj;
+        return obj;
     }
 
     private static List<Region> leafRegionsFromSplitPoints(Schema schema, List<Object> splitPoints) {
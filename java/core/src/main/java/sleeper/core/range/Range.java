@@ -17,8 +17,7 @@ package sleeper.core.range;
 
 import com.facebook.collections.ByteArray;
 
-import sleeper.core.key.Key;
-import sleeper.core.record.KeyComparator;
+import sleeper.core.record.KeyFieldComparator;
 import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.ByteArrayType;
@@ -135,10 +134,10 @@ public class Range {
         //      Overlapping range:         |-------------)
         //      Overlapping range:                           |-------------)
 
-        KeyComparator keyComparator = new KeyComparator((PrimitiveType) field.getType());
+        KeyFieldComparator comparator = KeyFieldComparator.forType((PrimitiveType) field.getType());
 
         // Other range to the left of this one
-        boolean otherRangeMaxLessThanRangeMin = keyComparator.compare(Key.create(canonicalOtherRange.max), Key.create(canonicalRange.min)) <= 0;
+        boolean otherRangeMaxLessThanRangeMin = comparator.compareNullable(canonicalOtherRange.max, canonicalRange.min) <= 0;
         if (otherRangeMaxLessThanRangeMin) {
             return false;
         }
@@ -146,7 +145,7 @@ public class Range {
         // Other range to the right of this one
         // Region right of partition case:
         //  max of partition <= min of range
-        boolean otherRangeMinGreaterThanRangeMax = keyComparator.compare(Key.create(canonicalRange.max), Key.create(canonicalOtherRange.min)) <= 0;
+        boolean otherRangeMinGreaterThanRangeMax = comparator.compareNullable(canonicalRange.max, canonicalOtherRange.min) <= 0;
         if (otherRangeMinGreaterThanRangeMax) {
             return false;
         }
@@ -263,17 +262,16 @@ public class Range {
     }
 
     private boolean doesRangeContainByteArray(byte[] value) {
-        ByteArray valueByteArray = ByteArray.wrap(value);
-        ByteArray minByteArray = ByteArray.wrap((byte[]) min);
+        byte[] minBytes = (byte[]) min;
 
         // If min is inclusive then return false if value is less than the minimum of the range
         if (minInclusive) {
-            if (valueByteArray.compareTo(minByteArray) < 0) {
+            if (KeyFieldComparator.compareBytes(value, minBytes) < 0) {
                 return false;
             }
         } else {
             // If min is not inclusive then return false if value is less than or equal to the minimum of the range
-            if (valueByteArray.compareTo(minByteArray) <= 0) {
+            if (KeyFieldComparator.compareBytes(value, minBytes) <= 0) {
                 return false;
             }
         }
@@ -283,15 +281,15 @@ public class Range {
             return true;
         }
 
-        ByteArray maxByteArray = ByteArray.wrap((byte[]) max);
+        byte[] maxBytes = (byte[]) max;
         // If max is inclusive then return false if value is greater than the maximum of the range
         if (maxInclusive) {
-            if (valueByteArray.compareTo(maxByteArray) > 0) {
+            if (KeyFieldComparator.compareBytes(value, maxBytes) > 0) {
                 return false;
             }
         } else {
             // If max is not inclusive then return false if value is greater than or equal to the maximum of the range
-            if (valueByteArray.compareTo(maxByteArray) >= 0) {
+            if (KeyFieldComparator.compareBytes(value, maxBytes) >= 0) {
                 return false;
             }
         }
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import com.facebook.collections.ByteArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A record bound to a schema, with values held by position rather than by field name. Int and long fields are held in
+ * a primitive array, and all other fields in an object array. The positions are resolved once in a
+ * {@link RecordLayout}.
+ * <p>
+ * This is used on hot paths where a {@link Record} would require a hash lookup and boxing for every value. Instances
+ * are mutable and are intended to be reused, e.g. once per input to a merge. Use {@link #toRecord()} and
+ * {@link #loadFrom(Record)} to convert to and from the map-based {@link Record}.
+ */
+public class IndexedRecord {
+    private final RecordLayout layout;
+    private final long[] primitiveValues;
+    private final Object[] objectValues;
+    private final boolean[] isSet;
+
+    public IndexedRecord(RecordLayout layout) {
+        this.layout = layout;
+        int numFields = layout.getNumberOfFields();
+        this.primitiveValues = new long[numFields];
+        this.objectValues = new Object[numFields];
+        this.isSet = new boolean[numFields];
+    }
+
+    /**
+     * Creates an indexed record holding the values of a map-based record.
+     *
+     * @param  layout the layout of the schema
+     * @param  record the record
+     * @return        the indexed record
+     */
+    public static IndexedRecord from(RecordLayout layout, Record record) {
+        IndexedRecord indexed = new IndexedRecord(layout);
+        indexed.loadFrom(record);
+        return indexed;
+    }
+
+    public RecordLayout getLayout() {
+        return layout;
+    }
+
+    public int getInt(int index) {
+        return (int) primitiveValues[index];
+    }
+
+    public long getLong(int index) {
+        return primitiveValues[index];
+    }
+
+    /**
+     * Retrieves the value of a field that is not held as a primitive, i.e. a string, byte array, list or map field.
+     *
+     * @param  index the position of the field
+     * @return       the value, or null if it is not set
+     */
+    public Object getObject(int index) {
+        return objectValues[index];
+    }
+
+    public boolean isSet(int index) {
+        return isSet[index];
+    }
+
+    /**
+     * Retrieves the value of a field, boxing it if it is held as a primitive.
+     *
+     * @param  index the position of the field
+     * @return       the value, or null if it is not set
+     */
+    public Object get(int index) {
+        if (!isSet[index]) {
+            return null;
+        }
+        switch (layout.getKind(index)) {
+            case INT:
+                return (int) primitiveValues[index];
+            case LONG:
+                return primitiveValues[index];
+            default:
+                return objectValues[index];
+        }
+    }
+
+    /**
+     * Retrieves the value of a field by name. This requires a lookup by the field name, and should be avoided on hot
+     * paths.
+     *
+     * @param  fieldName the name of the field
+     * @return           the value, or null if it is not set or not in the schema
+     */
+    public Object get(String fieldName) {
+        int index = layout.getIndex(fieldName);
+        if (index < 0) {
+            return null;
+        }
+        return get(index);
+    }
+
+    public void setInt(int index, int value) {
+        primitiveValues[index] = value;
+        isSet[index] = true;
+    }
+
+    public void setLong(int index, long value) {
+        primitiveValues[index] = value;
+        isSet[index] = true;
+    }
+
+    /**
+     * Sets the value of a field that is not held as a primitive, i.e. a string, byte array, list or map field.
+     *
+     * @param index the position of the field
+     * @param value the value
+     */
+    public void setObject(int index, Object value) {
+        objectValues[index] = value;
+        isSet[index] = value != null;
+    }
+
+    /**
+     * Sets the value of a field, unboxing it if it is held as a primitive. Any number is accepted for an int or long
+     * field, as map-based records are not checked against the schema.
+     *
+     * @param index the position of the field
+     * @param value the value, or null to unset the field
+     */
+    public void set(int index, Object value) {
+        if (value == null) {
+            unset(index);
+            return;
+        }
+        switch (layout.getKind(index)) {
+            case INT:
+                setInt(index, ((Number) value).intValue());
+                break;
+            case LONG:
+                setLong(index, ((Number) value).longValue());
+                break;
+            default:
+                setObject(index, value);
+        }
+    }
+
+    /**
+     * Sets the value of a field by name. This requires a lookup by the field name, and should be avoided on hot paths.
+     *
+     * @param fieldName the name of the field
+     * @param value     the value
+     */
+    public void put(String fieldName, Object value) {
+        int index = layout.getIndex(fieldName);
+        if (index < 0) {
+            throw new IllegalArgumentException("Field not found in schema: " + fieldName);
+        }
+        set(index, value);
+    }
+
+    private void unset(int index) {
+        primitiveValues[index] = 0L;
+        objectValues[index] = null;
+        isSet[index] = false;
+    }
+
+    /**
+     * Unsets all fields, so that this object can be reused for another record.
+     */
+    public void clear() {
+        Arrays.fill(objectValues, null);
+        Arrays.fill(isSet, false);
+    }
+
+    /**
+     * Copies all values from another record with the same layout. Values which are not held as primitives are copied
+     * by reference.
+     *
+     * @param other the record to copy from
+     */
+    public void copyFrom(IndexedRecord other) {
+        if (other.layout != layout && !other.layout.equals(layout)) {
+            throw new IllegalArgumentException("Cannot copy from a record with a different schema");
+        }
+        int numFields = primitiveValues.length;
+        System.arraycopy(other.primitiveValues, 0, primitiveValues, 0, numFields);
+        System.arraycopy(other.objectValues, 0, objectValues, 0, numFields);
+        System.arraycopy(other.isSet, 0, isSet, 0, numFields);
+    }
+
+    /**
+     * Loads all values for the fields in the schema from a map-based record. Any fields in the record that are not in
+     * the schema are ignored.
+     *
+     * @param record the record
+     */
+    public void loadFrom(Record record) {
+        for (int i = 0; i < primitiveValues.length; i++) {
+            set(i, record.get(layout.getFieldName(i)));
+        }
+    }
+
+    /**
+     * Loads the values of the row keys and sort keys from a map-based record. Other fields are left unchanged. This is
+     * sufficient for ordering records without reading their values.
+     *
+     * @param record the record
+     */
+    public void loadKeysFrom(Record record) {
+        for (int i = 0; i < layout.getNumberOfKeys(); i++) {
+            set(i, record.get(layout.getFieldName(i)));
+        }
+    }
+
+    /**
+     * Creates a map-based record holding the values of this record. Fields which are not set are left out.
+     *
+     * @return the record
+     */
+    public Record toRecord() {
+        Record record = new Record();
+        for (int i = 0; i < primitiveValues.length; i++) {
+            if (isSet[i]) {
+                record.put(layout.getFieldName(i), get(i));
+            }
+        }
+        return record;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        IndexedRecord other = (IndexedRecord) obj;
+        if (!layout.equals(other.layout)) {
+            return false;
+        }
+        for (int i = 0; i < primitiveValues.length; i++) {
+            if (isSet[i] != other.isSet[i]) {
+                return false;
+            }
+            if (!isSet[i]) {
+                continue;
+            }
+            if (layout.getKind(i).isPrimitive()) {
+                if (primitiveValues[i] != other.primitiveValues[i]) {
+                    return false;
+                }
+            } else if (!Objects.deepEquals(objectValues[i], other.objectValues[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        for (int i = 0; i < primitiveValues.length; i++) {
+            if (!isSet[i]) {
+                hash = 31 * hash;
+            } else if (layout.getKind(i).isPrimitive()) {
+                hash = 31 * hash + Long.hashCode(primitiveValues[i]);
+            } else if (objectValues[i] instanceof byte[]) {
+                hash = 31 * hash + Arrays.hashCode((byte[]) objectValues[i]);
+            } else {
+                hash = 31 * hash + Objects.hashCode(objectValues[i]);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        List<String> terms = new ArrayList<>(primitiveValues.length);
+        for (int i = 0; i < primitiveValues.length; i++) {
+            Object value = get(i);
+            if (value instanceof byte[]) {
+                value = ByteArray.wrap((byte[]) value);
+            }
+            terms.add(layout.getFieldName(i) + "=" + value);
+        }
+        return "IndexedRecord{" + String.join(", ", terms) + "}";
+    }
+}
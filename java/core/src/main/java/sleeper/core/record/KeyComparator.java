@@ -15,69 +15,39 @@
  */
 package sleeper.core.record;
 
-import com.facebook.collections.ByteArray;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-
 import sleeper.core.key.Key;
-import sleeper.core.schema.type.ByteArrayType;
 import sleeper.core.schema.type.PrimitiveType;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
 /**
- * Compares keys.
+ * Compares keys. The comparison for each field is resolved when this is created, so that comparing keys does not need
+ * to check the types of the fields. See {@link KeyFieldComparator} for how values are ordered.
  */
-@SuppressFBWarnings("NP_NULL_ON_SOME_PATH_MIGHT_BE_INFEASIBLE")
 public class KeyComparator implements Comparator<Key> {
-    private final List<PrimitiveType> rowKeyTypes;
+    private final KeyFieldComparator[] fieldComparators;
 
     public KeyComparator() {
-        this.rowKeyTypes = new ArrayList<>();
+        this.fieldComparators = new KeyFieldComparator[0];
     }
 
     public KeyComparator(List<PrimitiveType> rowKeyTypes) {
-        this.rowKeyTypes = new ArrayList<>(rowKeyTypes);
+        this.fieldComparators = KeyFieldComparator.forTypes(rowKeyTypes);
     }
 
     public KeyComparator(PrimitiveType... rowKeyTypes) {
-        this();
-        for (PrimitiveType type : rowKeyTypes) {
-            this.rowKeyTypes.add(type);
-        }
+        this(Arrays.asList(rowKeyTypes));
     }
 
     @Override
     public int compare(Key key1, Key key2) {
-        int count = 0;
-        int diff;
-        for (PrimitiveType type : rowKeyTypes) {
-            Comparable key1Field = null;
-            Comparable key2Field = null;
-            if (type instanceof ByteArrayType) {
-                key1Field = null == key1.get(count) ? null : ByteArray.wrap((byte[]) key1.get(count));
-                key2Field = null == key2.get(count) ? null : ByteArray.wrap((byte[]) key2.get(count));
-            } else {
-                key1Field = (Comparable) key1.get(count);
-                key2Field = (Comparable) key2.get(count);
-            }
-            if (null == key1Field && null != key2Field) {
-                return 1;
-            }
-            if (null != key1Field && null == key2Field) {
-                return -1;
-            }
-            // If both null want to return 0, but don't return that now
-            // as there may be other types to compare.
-            if (null == key1Field && null == key2Field) {
-                continue;
-            }
-            diff = key1Field.compareTo(key2Field);
+        for (int i = 0; i < fieldComparators.length; i++) {
+            int diff = fieldComparators[i].compareNullable(key1.get(i), key2.get(i));
             if (0 != diff) {
                 return diff;
             }
-            count++;
         }
         return 0;
     }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.PrimitiveType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares values of a single row key or sort key field. One of these is resolved per field when a comparator is
+ * created for a schema, so that comparing values does not need to check the type of the field.
+ * <p>
+ * Byte arrays are compared lexicographically as unsigned bytes, without wrapping them. This matches the order used by
+ * Arrow when sorting records during ingest. Earlier versions compared byte arrays in Java as signed bytes, so tables
+ * with byte array keys created before this order was adopted are refused when their properties are validated. See the
+ * schema documentation.
+ * Null values are ordered after all other values, as null is used for the maximum of a partition.
+ */
+public enum KeyFieldComparator {
+    INT {
+        @Override
+        public int compare(Object value1, Object value2) {
+            return Integer.compare((int) value1, (int) value2);
+        }
+
+        @Override
+        int compareSet(IndexedRecord record1, IndexedRecord record2, int index) {
+            return Integer.compare(record1.getInt(index), record2.getInt(index));
+        }
+    },
+    LONG {
+        @Override
+        public int compare(Object value1, Object value2) {
+            return Long.compare((long) value1, (long) value2);
+        }
+
+        @Override
+        int compareSet(IndexedRecord record1, IndexedRecord record2, int index) {
+            return Long.compare(record1.getLong(index), record2.getLong(index));
+        }
+    },
+    STRING {
+        @Override
+        public int compare(Object value1, Object value2) {
+            return ((String) value1).compareTo((String) value2);
+        }
+    },
+    BYTE_ARRAY {
+        @Override
+        public int compare(Object value1, Object value2) {
+            return compareBytes((byte[]) value1, (byte[]) value2);
+        }
+    };
+
+    /**
+     * Compares two non-null values of this type.
+     *
+     * @param  value1 the first value
+     * @param  value2 the second value
+     * @return        a negative integer, zero, or a positive integer as the first value is less than, equal to, or
+     *                greater than the second
+     */
+    public abstract int compare(Object value1, Object value2);
+
+    /**
+     * Compares two values of this type, where either may be null. Null is ordered after all other values.
+     *
+     * @param  value1 the first value
+     * @param  value2 the second value
+     * @return        a negative integer, zero, or a positive integer as the first value is less than, equal to, or
+     *                greater than the second
+     */
+    public int compareNullable(Object value1, Object value2) {
+        if (value1 == null) {
+            return value2 == null ? 0 : 1;
+        } else if (value2 == null) {
+            return -1;
+        }
+        return compare(value1, value2);
+    }
+
+    /**
+     * Compares the values of a field in two indexed records, where either may be unset. Unset values are ordered
+     * after all other values, as with null.
+     *
+     * @param  record1 the first record
+     * @param  record2 the second record
+     * @param  index   the position of the field
+     * @return         a negative integer, zero, or a positive integer as the first value is less than, equal to, or
+     *                 greater than the second
+     */
+    public int compare(IndexedRecord record1, IndexedRecord record2, int index) {
+        boolean set1 = record1.isSet(index);
+        boolean set2 = record2.isSet(index);
+        if (!set1) {
+            return set2 ? 1 : 0;
+        } else if (!set2) {
+            return -1;
+        }
+        return compareSet(record1, record2, index);
+    }
+
+    int compareSet(IndexedRecord record1, IndexedRecord record2, int index) {
+        return compare(record1.getObject(index), record2.getObject(index));
+    }
+
+    /**
+     * Compares two byte arrays lexicographically as unsigned bytes.
+     *
+     * @param  bytes1 the first byte array
+     * @param  bytes2 the second byte array
+     * @return        a negative integer, zero, or a positive integer as the first array is less than, equal to, or
+     *                greater than the second
+     */
+    public static int compareBytes(byte[] bytes1, byte[] bytes2) {
+        return Arrays.compareUnsigned(bytes1, bytes2);
+    }
+
+    /**
+     * Finds the comparator for a field type.
+     *
+     * @param  type the type of the field
+     * @return      the comparator
+     */
+    public static KeyFieldComparator forType(PrimitiveType type) {
+        if (type instanceof IntType) {
+            return INT;
+        } else if (type instanceof LongType) {
+            return LONG;
+        } else if (type instanceof StringType) {
+            return STRING;
+        } else if (type instanceof ByteArrayType) {
+            return BYTE_ARRAY;
+        } else {
+            throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+    /**
+     * Finds the comparators for a list of field types.
+     *
+     * @param  types the types of the fields
+     * @return       the comparators, in the same order
+     */
+    public static KeyFieldComparator[] forTypes(List<PrimitiveType> types) {
+        return types.stream().map(KeyFieldComparator::forType).toArray(KeyFieldComparator[]::new);
+    }
+
+    /**
+     * Finds the comparators for the row keys followed by the sort keys of a schema. This gives the order of records in
+     * a Sleeper table.
+     *
+     * @param  schema the schema
+     * @return        the comparators, in the same order as the fields
+     */
+    public static KeyFieldComparator[] forRowAndSortKeys(Schema schema) {
+        return Stream.of(schema.getRowKeyTypes(), schema.getSortKeyTypes())
+                .flatMap(List::stream)
+                .map(KeyFieldComparator::forType)
+                .toArray(KeyFieldComparator[]::new);
+    }
+}
@@ -15,40 +15,36 @@
  */
 package sleeper.core.record;
 
-import sleeper.core.key.Key;
 import sleeper.core.schema.Schema;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
- * Compares records by row keys then sort keys.
+ * Compares records by row keys then sort keys. The fields to compare and the comparison for each field are resolved
+ * once from the schema.
  */
 public class RecordComparator implements Comparator<Record> {
-    private final List<String> rowKeyNames;
-    private final List<String> sortKeyNames;
-    private final KeyComparator rowKeyComparator;
-    private final KeyComparator sortKeyComparator;
+    private final String[] keyFieldNames;
+    private final KeyFieldComparator[] fieldComparators;
 
     public RecordComparator(Schema schema) {
-        this.rowKeyNames = schema.getRowKeyFieldNames();
-        this.sortKeyNames = schema.getSortKeyFieldNames();
-        this.rowKeyComparator = new KeyComparator(schema.getRowKeyTypes());
-        this.sortKeyComparator = new KeyComparator(schema.getSortKeyTypes());
+        this.keyFieldNames = Stream.of(schema.getRowKeyFieldNames(), schema.getSortKeyFieldNames())
+                .flatMap(List::stream)
+                .toArray(String[]::new);
+        this.fieldComparators = KeyFieldComparator.forRowAndSortKeys(schema);
     }
 
-    // TODO Optimise by avoiding creating lists of row keys and sort keys, and
-    // just do the comparison directly here?
     @Override
     public int compare(Record record1, Record record2) {
-        List<Object> record1Key = record1.getValues(rowKeyNames);
-        List<Object> record2Key = record2.getValues(rowKeyNames);
-        int keyComparison = rowKeyComparator.compare(Key.create(record1Key), Key.create(record2Key));
-        if (0 != keyComparison) {
-            return keyComparison;
+        for (int i = 0; i < keyFieldNames.length; i++) {
+            String fieldName = keyFieldNames[i];
+            int diff = fieldComparators[i].compareNullable(record1.get(fieldName), record2.get(fieldName));
+            if (0 != diff) {
+                return diff;
+            }
         }
-        List<Object> record1SortFields = record1.getValues(sortKeyNames);
-        List<Object> record2SortFields = record2.getValues(sortKeyNames);
-        return sortKeyComparator.compare(Key.create(record1SortFields), Key.create(record2SortFields));
+        return 0;
     }
 }
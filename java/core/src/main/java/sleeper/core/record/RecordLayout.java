@@ -0,0 +1,165 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.schema.type.Type;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The positions of the fields of a schema in an array-backed record. This is resolved once from
+ * {@link Schema#getAllFields()}, and shared by every {@link IndexedRecord} with that schema. Fields are held in the
+ * same order as in the schema, i.e. row keys, then sort keys, then values. This means the first
+ * {@link #getNumberOfKeys()} positions hold the fields that records are ordered by.
+ */
+public class RecordLayout {
+
+    /**
+     * The kind of storage used for a field in an {@link IndexedRecord}.
+     */
+    public enum FieldKind {
+        INT, LONG, STRING, BYTE_ARRAY, LIST, MAP;
+
+        /**
+         * Finds the kind of storage used for a field type.
+         *
+         * @param  type the field type
+         * @return      the kind of storage
+         */
+        public static FieldKind of(Type type) {
+            if (type instanceof IntType) {
+                return INT;
+            } else if (type instanceof LongType) {
+                return LONG;
+            } else if (type instanceof StringType) {
+                return STRING;
+            } else if (type instanceof ByteArrayType) {
+                return BYTE_ARRAY;
+            } else if (type instanceof ListType) {
+                return LIST;
+            } else if (type instanceof MapType) {
+                return MAP;
+            } else {
+                throw new IllegalArgumentException("Unknown type " + type);
+            }
+        }
+
+        public boolean isPrimitive() {
+            return this == INT || this == LONG;
+        }
+    }
+
+    private final Schema schema;
+    private final List<Field> fields;
+    private final String[] fieldNames;
+    private final FieldKind[] kinds;
+    private final Map<String, Integer> indexByFieldName;
+    private final int numRowKeys;
+    private final int numKeys;
+
+    public RecordLayout(Schema schema) {
+        this.schema = schema;
+        this.fields = schema.getAllFields();
+        this.fieldNames = new String[fields.size()];
+        this.kinds = new FieldKind[fields.size()];
+        this.indexByFieldName = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            fieldNames[i] = field.getName();
+            kinds[i] = FieldKind.of(field.getType());
+            indexByFieldName.put(field.getName(), i);
+        }
+        this.numRowKeys = schema.getRowKeyFields().size();
+        this.numKeys = numRowKeys + schema.getSortKeyFields().size();
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    public int getNumberOfFields() {
+        return fieldNames.length;
+    }
+
+    public String getFieldName(int index) {
+        return fieldNames[index];
+    }
+
+    public FieldKind getKind(int index) {
+        return kinds[index];
+    }
+
+    /**
+     * Finds the position of a field in the layout.
+     *
+     * @param  fieldName the name of the field
+     * @return           the position, or -1 if the field is not in the schema
+     */
+    public int getIndex(String fieldName) {
+        Integer index = indexByFieldName.get(fieldName);
+        return index == null ? -1 : index;
+    }
+
+    public int getNumberOfRowKeys() {
+        return numRowKeys;
+    }
+
+    /**
+     * Retrieves the number of fields that records are ordered by. These are the row keys followed by the sort keys,
+     * which are always held at the start of the layout.
+     *
+     * @return the number of row and sort key fields
+     */
+    public int getNumberOfKeys() {
+        return numKeys;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        RecordLayout other = (RecordLayout) obj;
+        return schema.equals(other.schema);
+    }
+
+    @Override
+    public int hashCode() {
+        return schema.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "RecordLayout{schema=" + schema + '}';
+    }
+}
@@ -21,58 +21,56 @@ import sleeper.core.record.Record;
 import sleeper.core.record.ResultsBatch;
 import sleeper.core.schema.Schema;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Serialises and deserialises a list of records to and from a Base64 encoded string.
+ * Serialises and deserialises a list of records to and from a Base64 encoded string. The records are written into a
+ * single buffer, sized before writing, and read back from the decoded buffer without copying each record.
  */
 public class Base64RecordListSerialiser implements ResultsBatchSerialiser {
-    private final RecordSerialiser recordSerialiser;
+    private final ByteBufferRecordSerialiser recordSerialiser;
     private final Schema schema;
 
     public Base64RecordListSerialiser(Schema schema) {
         this.schema = schema;
-        this.recordSerialiser = new RecordSerialiser(schema);
+        this.recordSerialiser = new ByteBufferRecordSerialiser(schema);
     }
 
     @Override
     public String serialise(ResultsBatch resultsBatch) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DataOutputStream dos = new DataOutputStream(baos);
-        dos.writeUTF(resultsBatch.getQueryId());
-        int numRecords = resultsBatch.getRecords().size();
-        dos.writeInt(numRecords);
-        for (Record record : resultsBatch.getRecords()) {
-            byte[] serialisedValue = recordSerialiser.serialise(record);
-            dos.writeInt(serialisedValue.length);
-            dos.write(serialisedValue);
+        List<Record> records = resultsBatch.getRecords();
+        int[] recordSizes = new int[records.size()];
+        int size = Short.BYTES + ByteBufferRecordSerialiser.getModifiedUtf8Length(resultsBatch.getQueryId())
+                + Integer.BYTES;
+        for (int i = 0; i < records.size(); i++) {
+            recordSizes[i] = recordSerialiser.getSerialisedSize(records.get(i));
+            size += Integer.BYTES + recordSizes[i];
         }
-        dos.close();
-        byte[] bytes = baos.toByteArray();
-        return Base64.encodeBase64String(bytes);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        ByteBufferRecordSerialiser.writeModifiedUtf8(buffer, resultsBatch.getQueryId());
+        buffer.putInt(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            buffer.putInt(recordSizes[i]);
+            recordSerialiser.write(records.get(i), buffer);
+        }
+        return Base64.encodeBase64String(buffer.array());
     }
 
     @Override
-    public ResultsBatch deserialise(String serialisedRecords) throws IOException {
-        byte[] bytes = Base64.decodeBase64(serialisedRecords);
-        ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-        DataInputStream dis = new DataInputStream(bais);
-        String queryId = dis.readUTF();
-        int numRecords = dis.readInt();
+    public ResultsBatch deserialise(String serialisedRecords) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.decodeBase64(serialisedRecords));
+        String queryId = ByteBufferRecordSerialiser.readModifiedUtf8(buffer);
+        int numRecords = buffer.getInt();
         List<Record> records = new ArrayList<>(numRecords);
         for (int i = 0; i < numRecords; i++) {
-            int length = dis.readInt();
-            byte[] serialisedRecord = new byte[length];
-            dis.readFully(serialisedRecord);
-            records.add(recordSerialiser.deserialise(serialisedRecord));
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            records.add(recordSerialiser.read(buffer));
+            buffer.position(end);
         }
-        dis.close();
         return new ResultsBatch(queryId, schema, records);
     }
 }
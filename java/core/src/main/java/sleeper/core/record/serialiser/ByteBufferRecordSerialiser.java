@@ -0,0 +1,396 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record.serialiser;
+
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
+import sleeper.core.record.RecordLayout.FieldKind;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.Type;
+
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serialises records to and from byte buffers supplied by the caller. This allows a buffer to be reused for many
+ * records, including a direct buffer. The fields and their types are resolved once per schema, rather than once per
+ * record.
+ * <p>
+ * The binary format is the same as {@link RecordSerialiser}. Each field is written in the order of the schema. Ints and
+ * longs are written big-endian, strings are written as modified UTF-8 with a 2 byte length, and byte arrays are written
+ * with a 4 byte length. Lists and maps are written as a 4 byte size followed by each element, or each key and value.
+ * Null values are not supported.
+ * <p>
+ * Records can be read eagerly into a {@link Record}, or lazily as a {@link SerialisedRecord}, which only decodes fields
+ * as they are accessed, and reads from the buffer without copying it.
+ */
+public class ByteBufferRecordSerialiser {
+    private static final int MAX_STRING_BYTES = 65535;
+
+    private final RecordLayout layout;
+    private final FieldKind[] kinds;
+    private final FieldKind[] elementKinds;
+    private final FieldKind[] mapValueKinds;
+
+    public ByteBufferRecordSerialiser(Schema schema) {
+        this(new RecordLayout(schema));
+    }
+
+    public ByteBufferRecordSerialiser(RecordLayout layout) {
+        this.layout = layout;
+        int numFields = layout.getNumberOfFields();
+        this.kinds = new FieldKind[numFields];
+        this.elementKinds = new FieldKind[numFields];
+        this.mapValueKinds = new FieldKind[numFields];
+        for (int i = 0; i < numFields; i++) {
+            Type type = layout.getFields().get(i).getType();
+            kinds[i] = layout.getKind(i);
+            if (type instanceof ListType) {
+                elementKinds[i] = FieldKind.of(((ListType) type).getElementType());
+            } else if (type instanceof MapType) {
+                elementKinds[i] = FieldKind.of(((MapType) type).getKeyType());
+                mapValueKinds[i] = FieldKind.of(((MapType) type).getValueType());
+            }
+        }
+    }
+
+    public RecordLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Computes the number of bytes needed to serialise a record. This can be used to size or grow a buffer before
+     * writing.
+     *
+     * @param  record the record
+     * @return        the number of bytes
+     */
+    public int getSerialisedSize(Record record) {
+        int size = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            Object value = record.get(layout.getFieldName(i));
+            switch (kinds[i]) {
+                case LIST:
+                    size += Integer.BYTES;
+                    for (Object element : (List<?>) value) {
+                        size += getSize(elementKinds[i], element);
+                    }
+                    break;
+                case MAP:
+                    size += Integer.BYTES;
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                        size += getSize(elementKinds[i], entry.getKey());
+                        size += getSize(mapValueKinds[i], entry.getValue());
+                    }
+                    break;
+                default:
+                    size += getSize(kinds[i], value);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes a record to a buffer, at its current position. The position is advanced to the end of the record.
+     *
+     * @param  record                          the record
+     * @param  buffer                          the buffer, which must be in big-endian byte order
+     * @throws java.nio.BufferOverflowException if there is not enough space remaining in the buffer
+     * @throws UTFDataFormatException           if a string is too long to be serialised
+     */
+    public void write(Record record, ByteBuffer buffer) throws UTFDataFormatException {
+        checkByteOrder(buffer);
+        for (int i = 0; i < kinds.length; i++) {
+            Object value = record.get(layout.getFieldName(i));
+            switch (kinds[i]) {
+                case LIST:
+                    List<?> list = (List<?>) value;
+                    buffer.putInt(list.size());
+                    for (Object element : list) {
+                        writeValue(buffer, elementKinds[i], element);
+                    }
+                    break;
+                case MAP:
+                    Map<?, ?> map = (Map<?, ?>) value;
+                    buffer.putInt(map.size());
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        writeValue(buffer, elementKinds[i], entry.getKey());
+                        writeValue(buffer, mapValueKinds[i], entry.getValue());
+                    }
+                    break;
+                default:
+                    writeValue(buffer, kinds[i], value);
+            }
+        }
+    }
+
+    /**
+     * Reads a record from a buffer, at its current position. The position is advanced to the end of the record.
+     *
+     * @param  buffer the buffer, which must be in big-endian byte order
+     * @return        the record
+     */
+    public Record read(ByteBuffer buffer) {
+        checkByteOrder(buffer);
+        Record record = new Record();
+        for (int i = 0; i < kinds.length; i++) {
+            record.put(layout.getFieldName(i), readField(buffer, i));
+        }
+        return record;
+    }
+
+    /**
+     * Reads a record from a buffer without decoding its fields, at the buffer's current position. The position is
+     * advanced to the end of the record. The record holds a view of the buffer, so the buffer must not be modified
+     * while the record is in use.
+     *
+     * @param  buffer the buffer, which must be in big-endian byte order
+     * @return        the record
+     */
+    public SerialisedRecord readLazily(ByteBuffer buffer) {
+        checkByteOrder(buffer);
+        ByteBuffer view = buffer.duplicate();
+        int start = buffer.position();
+        int[] offsets = new int[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            offsets[i] = buffer.position();
+            skipField(buffer, i);
+        }
+        return new SerialisedRecord(this, view, start, buffer.position(), offsets);
+    }
+
+    /**
+     * Reads the value of a field at an absolute position in a buffer. The buffer's position is not changed.
+     *
+     * @param  buffer   the buffer
+     * @param  position the position of the field
+     * @param  index    the index of the field in the schema
+     * @return          the value
+     */
+    Object readField(ByteBuffer buffer, int position, int index) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        return readField(view, index);
+    }
+
+    private Object readField(ByteBuffer buffer, int index) {
+        switch (kinds[index]) {
+            case LIST:
+                int numElements = buffer.getInt();
+                List<Object> list = new ArrayList<>(numElements);
+                for (int j = 0; j < numElements; j++) {
+                    list.add(readValue(buffer, elementKinds[index]));
+                }
+                return list;
+            case MAP:
+                int numEntries = buffer.getInt();
+                Map<Object, Object> map = new HashMap<>(numEntries);
+                for (int j = 0; j < numEntries; j++) {
+                    Object key = readValue(buffer, elementKinds[index]);
+                    map.put(key, readValue(buffer, mapValueKinds[index]));
+                }
+                return map;
+            default:
+                return readValue(buffer, kinds[index]);
+        }
+    }
+
+    private void skipField(ByteBuffer buffer, int index) {
+        switch (kinds[index]) {
+            case LIST:
+                int numElements = buffer.getInt();
+                for (int j = 0; j < numElements; j++) {
+                    skipValue(buffer, elementKinds[index]);
+                }
+                break;
+            case MAP:
+                int numEntries = buffer.getInt();
+                for (int j = 0; j < numEntries; j++) {
+                    skipValue(buffer, elementKinds[index]);
+                    skipValue(buffer, mapValueKinds[index]);
+                }
+                break;
+            default:
+                skipValue(buffer, kinds[index]);
+        }
+    }
+
+    FieldKind getKind(int index) {
+        return kinds[index];
+    }
+
+    private static int getSize(FieldKind kind, Object value) {
+        switch (kind) {
+            case INT:
+                return Integer.BYTES;
+            case LONG:
+                return Long.BYTES;
+            case STRING:
+                return Short.BYTES + getModifiedUtf8Length((String) value);
+            case BYTE_ARRAY:
+                return Integer.BYTES + ((byte[]) value).length;
+            default:
+                throw new IllegalArgumentException("Unexpected type " + kind);
+        }
+    }
+
+    private static void writeValue(ByteBuffer buffer, FieldKind kind, Object value) throws UTFDataFormatException {
+        switch (kind) {
+            case INT:
+                buffer.putInt((int) value);
+                break;
+            case LONG:
+                buffer.putLong((long) value);
+                break;
+            case STRING:
+                writeModifiedUtf8(buffer, (String) value);
+                break;
+            case BYTE_ARRAY:
+                byte[] bytes = (byte[]) value;
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected type " + kind);
+        }
+    }
+
+    private static Object readValue(ByteBuffer buffer, FieldKind kind) {
+        switch (kind) {
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case STRING:
+                return readModifiedUtf8(buffer);
+            case BYTE_ARRAY:
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                return bytes;
+            default:
+                throw new IllegalArgumentException("Unexpected type " + kind);
+        }
+    }
+
+    private static void skipValue(ByteBuffer buffer, FieldKind kind) {
+        switch (kind) {
+            case INT:
+                buffer.position(buffer.position() + Integer.BYTES);
+                break;
+            case LONG:
+                buffer.position(buffer.position() + Long.BYTES);
+                break;
+            case STRING:
+                int stringLength = Short.toUnsignedInt(buffer.getShort());
+                buffer.position(buffer.position() + stringLength);
+                break;
+            case BYTE_ARRAY:
+                int bytesLength = buffer.getInt();
+                buffer.position(buffer.position() + bytesLength);
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected type " + kind);
+        }
+    }
+
+    /**
+     * Computes the length of a string in modified UTF-8, as written by {@link java.io.DataOutput#writeUTF}.
+     *
+     * @param  value the string
+     * @return       the number of bytes, not including the 2 byte length
+     */
+    static int getModifiedUtf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length++;
+            } else if (c <= 0x07FF) {
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes a string in modified UTF-8, in the same format as {@link java.io.DataOutput#writeUTF}.
+     *
+     * @param  buffer                the buffer to write to
+     * @param  value                 the string
+     * @throws UTFDataFormatException if the string is too long to be serialised
+     */
+    static void writeModifiedUtf8(ByteBuffer buffer, String value) throws UTFDataFormatException {
+        int length = getModifiedUtf8Length(value);
+        if (length > MAX_STRING_BYTES) {
+            throw new UTFDataFormatException("String is too long to serialise, found " + length + " bytes");
+        }
+        buffer.putShort((short) length);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                buffer.put((byte) c);
+            } else if (c <= 0x07FF) {
+                buffer.put((byte) (0xC0 | ((c >> 6) & 0x1F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | ((c >> 12) & 0x0F)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Reads a string in modified UTF-8, in the same format as {@link java.io.DataInput#readUTF}.
+     *
+     * @param  buffer the buffer to read from
+     * @return        the string
+     */
+    static String readModifiedUtf8(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        char[] chars = new char[length];
+        int numChars = 0;
+        int end = buffer.position() + length;
+        while (buffer.position() < end) {
+            int b = buffer.get() & 0xFF;
+            if (b < 0x80) {
+                chars[numChars++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[numChars++] = (char) (((b & 0x1F) << 6) | (buffer.get() & 0x3F));
+            } else {
+                int b2 = buffer.get() & 0x3F;
+                int b3 = buffer.get() & 0x3F;
+                chars[numChars++] = (char) (((b & 0x0F) << 12) | (b2 << 6) | b3);
+            }
+        }
+        return new String(chars, 0, numChars);
+    }
+
+    private static void checkByteOrder(ByteBuffer buffer) {
+        if (buffer.order() != ByteOrder.BIG_ENDIAN) {
+            throw new IllegalArgumentException("Buffer must be in big-endian byte order");
+        }
+    }
+}
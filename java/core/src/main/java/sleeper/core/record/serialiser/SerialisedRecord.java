@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record.serialiser;
+
+import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
+import sleeper.core.record.RecordLayout.FieldKind;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A record held in serialised form in a byte buffer. Fields are only decoded when they are accessed. This is created by
+ * {@link ByteBufferRecordSerialiser#readLazily}.
+ * <p>
+ * This holds a view of the buffer it was read from, rather than a copy. The contents of the buffer must not be changed
+ * while this is in use.
+ */
+public class SerialisedRecord {
+    private final ByteBufferRecordSerialiser serialiser;
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+    private final int[] offsets;
+
+    SerialisedRecord(ByteBufferRecordSerialiser serialiser, ByteBuffer buffer, int start, int end, int[] offsets) {
+        this.serialiser = serialiser;
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Decodes the value of a field.
+     *
+     * @param  index the index of the field in the schema
+     * @return       the value
+     */
+    public Object get(int index) {
+        return serialiser.readField(buffer, offsets[index], index);
+    }
+
+    /**
+     * Decodes the value of a field by name.
+     *
+     * @param  fieldName the name of the field
+     * @return           the value, or null if the field is not in the schema
+     */
+    public Object get(String fieldName) {
+        int index = serialiser.getLayout().getIndex(fieldName);
+        if (index < 0) {
+            return null;
+        }
+        return get(index);
+    }
+
+    /**
+     * Retrieves the value of a byte array field as a read-only view of the buffer, without copying it.
+     *
+     * @param  index the index of the field in the schema
+     * @return       a buffer holding the value of the field, from its position to its limit
+     */
+    public ByteBuffer getByteArrayView(int index) {
+        if (serialiser.getKind(index) != FieldKind.BYTE_ARRAY) {
+            throw new IllegalArgumentException("Field is not a byte array: " + serialiser.getLayout().getFieldName(index));
+        }
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        int length = view.getInt(offsets[index]);
+        view.position(offsets[index] + Integer.BYTES);
+        view.limit(offsets[index] + Integer.BYTES + length);
+        return view.slice();
+    }
+
+    /**
+     * Retrieves the serialised form of the whole record as a read-only view of the buffer, without copying it. This
+     * can be used to pass on the record without serialising it again.
+     *
+     * @return a buffer holding the serialised record, from its position to its limit
+     */
+    public ByteBuffer getSerialisedView() {
+        ByteBuffer view = buffer.asReadOnlyBuffer();
+        view.position(start);
+        view.limit(end);
+        return view.slice();
+    }
+
+    public int getSerialisedLength() {
+        return end - start;
+    }
+
+    /**
+     * Decodes all fields into a map-based record.
+     *
+     * @return the record
+     */
+    public Record toRecord() {
+        RecordLayout layout = serialiser.getLayout();
+        Record record = new Record();
+        for (int i = 0; i < offsets.length; i++) {
+            record.put(layout.getFieldName(i), get(i));
+        }
+        return record;
+    }
+}
@@ -216,6 +216,13 @@ public class AllReferencesToAFile {
         public Builder internalReferences(Stream<FileReference> references) {
             Map<String, FileReference> map = new TreeMap<>();
             references.forEach(reference -> map.put(reference.getPartitionId(), reference));
+            // Most files are referenced in at most one partition, so avoid the overhead of a sorted map
+            if (map.isEmpty()) {
+                return internalReferenceByPartitionId(Map.of());
+            } else if (map.size() == 1) {
+                Map.Entry<String, FileReference> entry = map.entrySet().iterator().next();
+                return internalReferenceByPartitionId(Map.of(entry.getKey(), entry.getValue()));
+            }
             return internalReferenceByPartitionId(Collections.unmodifiableMap(map));
         }
 
@@ -56,6 +56,11 @@ public class DelegatingStateStore implements StateStore {
         fileReferenceStore.atomicallyReplaceFileReferencesWithNewOne(jobId, partitionId, filesProcessed, newReference);
     }
 
+    @Override
+    public void atomicallyReplaceFileReferencesWithNewOnes(String jobId, String partitionId, List<String> filesProcessed, List<FileReference> newReferences) throws StateStoreException {
+        fileReferenceStore.atomicallyReplaceFileReferencesWithNewOnes(jobId, partitionId, filesProcessed, newReferences);
+    }
+
     @Override
     public void assignJobIds(List<AssignJobIdRequest> requests) throws StateStoreException {
         fileReferenceStore.assignJobIds(requests);
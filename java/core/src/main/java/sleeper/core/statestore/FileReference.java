@@ -15,11 +15,15 @@
  */
 package sleeper.core.statestore;
 
+import sleeper.core.statestore.exception.FileAlreadyExistsException;
 import sleeper.core.statestore.exception.NewReferenceSameAsOldReferenceException;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Stores metadata about a reference to a physical file, such as its filename, which partition it is in,
@@ -58,6 +62,25 @@ public class FileReference {
         }
     }
 
+    /**
+     * Validates the output files of a job which writes more than one file. Each new reference must be to a different
+     * file, and none of them may be to one of the input files.
+     *
+     * @param  inputFiles                              the filenames of the input files
+     * @param  newReferences                           the references to the output files
+     * @throws NewReferenceSameAsOldReferenceException if an output file has the same filename as any of the inputs
+     * @throws FileAlreadyExistsException              if two new references are to the same file
+     */
+    public static void validateNewReferencesForJobOutput(Collection<String> inputFiles, List<FileReference> newReferences) throws StateStoreException {
+        Set<String> newFilenames = new HashSet<>();
+        for (FileReference newReference : newReferences) {
+            validateNewReferenceForJobOutput(inputFiles, newReference);
+            if (!newFilenames.add(newReference.getFilename())) {
+                throw new FileAlreadyExistsException(newReference.getFilename());
+            }
+        }
+    }
+
     public String getFilename() {
         return filename;
     }
@@ -129,8 +129,38 @@ public interface FileReferenceStore {
      * @throws FileAlreadyExistsException              if the output file already exists
      * @throws StateStoreException                     if the update fails for another reason
      */
-    void atomicallyReplaceFileReferencesWithNewOne(String jobId, String partitionId, List<String> inputFiles,
-            FileReference newReference) throws StateStoreException;
+    default void atomicallyReplaceFileReferencesWithNewOne(String jobId, String partitionId, List<String> inputFiles,
+            FileReference newReference) throws StateStoreException {
+        atomicallyReplaceFileReferencesWithNewOnes(jobId, partitionId, inputFiles, List.of(newReference));
+    }
+
+    /**
+     * Atomically applies the results of a job which writes more than one output file. Removes file references for a
+     * job's input files, and adds a reference to each output file. This will be used for compactions which split their
+     * output between the leaf partitions beneath the partition they operated on, so that records referenced in a
+     * non-leaf partition do not need to be read once for each child partition.
+     * <p>
+     * This will validate that the input files were assigned to the job. Each output file will have one reference, and
+     * the partitions of the new references must not overlap.
+     * <p>
+     * This will decrement the number of references for each of the input files. If no other references exist for those
+     * files, they will become available for garbage collection.
+     *
+     * @param  jobId                                   The ID of the job
+     * @param  partitionId                             The partition which the job operated on
+     * @param  inputFiles                              The filenames of the input files, whose references in this
+     *                                                 partition should be removed
+     * @param  newReferences                           The references to new files, including metadata in the output
+     *                                                 partitions
+     * @throws FileNotFoundException                   if any of the input files do not exist
+     * @throws FileReferenceNotFoundException          if any of the input files are not referenced in the partition
+     * @throws FileReferenceNotAssignedToJobException  if any of the input files are not assigned to the job
+     * @throws NewReferenceSameAsOldReferenceException if an output file has the same filename as any of the inputs
+     * @throws FileAlreadyExistsException              if an output file already exists
+     * @throws StateStoreException                     if the update fails for another reason
+     */
+    void atomicallyReplaceFileReferencesWithNewOnes(String jobId, String partitionId, List<String> inputFiles,
+            List<FileReference> newReferences) throws StateStoreException;
 
     /**
      * Atomically updates the job field of file references, as long as the job field is currently unset. This will be
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.statestore.transactionlog.transactions.BatchedFileReferencesTransaction;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * Commits file reference transactions to the transaction log in batches. Each batch is added to the log as a single
+ * transaction, so that many updates can be committed with one write, and without competing with each other to add
+ * the next transaction.
+ * <p>
+ * Each transaction in a batch is validated individually against the state after the transactions before it in the
+ * batch. Transactions that are not valid are left out of the batch, and the failure is reported to the caller that
+ * submitted it. Each batch is validated against an overlay of the state, which only holds the files the batch changes.
+ * <p>
+ * A transaction log state store makes all its file reference updates through one of these. Many threads can commit
+ * through the same state store, such as compaction jobs running in the same task, and whichever thread commits first
+ * will also commit the others that are waiting.
+ */
+public class BatchingFileReferenceCommitter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingFileReferenceCommitter.class);
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    private final TransactionLogHead<StateStoreFiles> head;
+    private final int maxBatchSize;
+    private final Supplier<Instant> timeSupplier;
+    private final Queue<PendingCommit> pendingCommits = new ConcurrentLinkedQueue<>();
+
+    BatchingFileReferenceCommitter(TransactionLogHead<StateStoreFiles> head, int maxBatchSize, Supplier<Instant> timeSupplier) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Maximum batch size must be at least 1, found " + maxBatchSize);
+        }
+        this.head = head;
+        this.maxBatchSize = maxBatchSize;
+        this.timeSupplier = timeSupplier;
+    }
+
+    /**
+     * Submits a transaction to be committed in the next batch. The transaction will not be committed until
+     * {@link #commitPending} is called.
+     *
+     * @param  transaction the transaction
+     * @return             a future which completes when the transaction is committed, or completes exceptionally
+     *                     if it is not valid or could not be committed
+     */
+    public CompletableFuture<Void> submit(FileReferenceTransaction transaction) {
+        PendingCommit commit = new PendingCommit(transaction);
+        pendingCommits.add(commit);
+        return commit.future;
+    }
+
+    /**
+     * Commits a transaction, and any other transactions that are waiting to be committed. If another thread is already
+     * committing a batch, this waits for that batch first, as the transaction may be committed in that batch.
+     *
+     * @param  transaction         the transaction
+     * @throws StateStoreException if the transaction is not valid or could not be committed
+     */
+    public void commit(FileReferenceTransaction transaction) throws StateStoreException {
+        CompletableFuture<Void> future = submit(transaction);
+        while (!future.isDone()) {
+            commitPending();
+        }
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof StateStoreException) {
+                throw (StateStoreException) e.getCause();
+            } else {
+                throw new StateStoreException("Failed committing transaction", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Commits the next batch of transactions that are waiting to be committed. The result of each transaction is
+     * reported through the future returned when it was submitted.
+     *
+     * @return the number of transactions that were taken from the queue, whether they were committed or not
+     */
+    public synchronized int commitPending() {
+        List<PendingCommit> batch = new ArrayList<>();
+        PendingCommit next;
+        while (batch.size() < maxBatchSize && (next = pendingCommits.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Instant updateTime = timeSupplier.get();
+        try {
+            head.addTransaction(updateTime, state -> validateBatch(batch, state, updateTime));
+        } catch (StateStoreException | RuntimeException e) {
+            LOGGER.error("Failed committing batch of {} transactions", batch.size(), e);
+            batch.forEach(commit -> commit.future.completeExceptionally(e));
+            return batch.size();
+        }
+        int numFailed = 0;
+        for (PendingCommit commit : batch) {
+            if (commit.validationFailure != null) {
+                commit.future.completeExceptionally(commit.validationFailure);
+                numFailed++;
+            } else {
+                commit.future.complete(null);
+            }
+        }
+        LOGGER.info("Committed {} transactions, {} were not valid", batch.size() - numFailed, numFailed);
+        return batch.size();
+    }
+
+    private static Optional<StateStoreTransaction<StateStoreFiles>> validateBatch(
+            List<PendingCommit> batch, StateStoreFiles state, Instant updateTime) {
+        // Validate against an overlay, so the state is only updated once the batch is added to the log
+        StateStoreFiles afterBatch = state.overlay();
+        for (PendingCommit commit : batch) {
+            try {
+                commit.transaction.validate(afterBatch);
+                commit.validationFailure = null;
+            } catch (StateStoreException e) {
+                commit.validationFailure = e;
+                continue;
+            }
+            commit.transaction.apply(afterBatch, updateTime);
+        }
+        List<FileReferenceTransaction> valid = batch.stream()
+                .filter(commit -> commit.validationFailure == null)
+                .map(commit -> commit.transaction)
+                .collect(toUnmodifiableList());
+        if (valid.isEmpty()) {
+            return Optional.empty();
+        } else if (valid.size() == 1) {
+            return Optional.of(valid.get(0));
+        } else {
+            return Optional.of(new BatchedFileReferencesTransaction(valid));
+        }
+    }
+
+    /**
+     * A transaction waiting to be committed.
+     */
+    private static class PendingCommit {
+        private final FileReferenceTransaction transaction;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private StateStoreException validationFailure;
+
+        PendingCommit(FileReferenceTransaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import sleeper.core.statestore.AllReferencesToAFile;
+import sleeper.core.statestore.FileReference;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Shares values between file references held in memory, to reduce the heap needed to hold the state of a large table.
+ * When a file is split over many partitions, or when references are read from a snapshot or a transaction, each
+ * reference has its own copy of the filename, partition ID, job ID and update time. This replaces those with a single
+ * shared instance of each value. Partition IDs and job IDs are interned in the JVM string table, so that they can be
+ * garbage collected when they are no longer used. Update times are shared when consecutive references have the same
+ * update time, as is the case for all references updated in the same transaction.
+ */
+class FileReferenceInterner {
+
+    private Instant lastUpdateTime;
+
+    /**
+     * Shares values between the references to a file and other files held in memory. If all the values are already
+     * shared, the file is returned as it is.
+     *
+     * @param  file the file
+     * @return      the file with its values shared
+     */
+    AllReferencesToAFile intern(AllReferencesToAFile file) {
+        String filename = file.getFilename();
+        Instant updateTime = intern(file.getLastStateStoreUpdateTime());
+        boolean changed = updateTime != file.getLastStateStoreUpdateTime();
+        List<FileReference> references = new ArrayList<>(file.getInternalReferences().size());
+        for (FileReference reference : file.getInternalReferences()) {
+            FileReference interned = intern(reference, filename);
+            changed |= interned != reference;
+            references.add(interned);
+        }
+        if (!changed) {
+            return file;
+        }
+        return file.toBuilder()
+                .lastStateStoreUpdateTime(updateTime)
+                .internalReferences(references)
+                .build();
+    }
+
+    @SuppressFBWarnings("ES_COMPARING_STRINGS_WITH_EQ") // Checks whether values are already the shared instances
+    private FileReference intern(FileReference reference, String filename) {
+        String partitionId = intern(reference.getPartitionId());
+        String jobId = intern(reference.getJobId());
+        Instant updateTime = intern(reference.getLastStateStoreUpdateTime());
+        if (filename == reference.getFilename()
+                && partitionId == reference.getPartitionId()
+                && jobId == reference.getJobId()
+                && updateTime == reference.getLastStateStoreUpdateTime()) {
+            return reference;
+        }
+        return reference.toBuilder()
+                .filename(filename)
+                .partitionId(partitionId)
+                .jobId(jobId)
+                .lastStateStoreUpdateTime(updateTime)
+                .build();
+    }
+
+    private Instant intern(Instant updateTime) {
+        if (Objects.equals(lastUpdateTime, updateTime)) {
+            return lastUpdateTime;
+        }
+        lastUpdateTime = updateTime;
+        return updateTime;
+    }
+
+    private static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.intern();
+    }
+}
@@ -19,30 +19,81 @@ import sleeper.core.statestore.AllReferencesToAFile;
 import sleeper.core.statestore.FileReference;
 
 import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toUnmodifiableList;
 
+/**
+ * The state of the files in a Sleeper table, held in memory. Files are held in order of filename, with indexes to find
+ * the files referenced in each partition, files with references not assigned to a job, and files that are unreferenced
+ * in order of when they became unreferenced. These serve queries, compaction job creation and garbage collection. The
+ * indexes are updated whenever a file is changed, so lookups only need to visit the files in the result. Values that
+ * are repeated between references are shared, to reduce the memory needed to hold a large table.
+ */
 public class StateStoreFiles {
+    private static final Comparator<AllReferencesToAFile> UNREFERENCED_ORDER = Comparator
+            .comparing(AllReferencesToAFile::getLastStateStoreUpdateTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(AllReferencesToAFile::getFilename);
+
     private final Map<String, AllReferencesToAFile> filesByFilename = new TreeMap<>();
+    private final Map<String, Set<String>> filenamesByPartitionId = new HashMap<>();
+    private final Set<String> filenamesWithReferenceWithNoJobId = new TreeSet<>();
+    private final NavigableSet<AllReferencesToAFile> unreferencedFiles = new TreeSet<>(UNREFERENCED_ORDER);
+    private final FileReferenceInterner interner = new FileReferenceInterner();
+    private Set<String> changedFilenames;
 
     public Stream<FileReference> references() {
         return filesByFilename.values().stream()
                 .flatMap(file -> file.getInternalReferences().stream());
     }
 
+    public Stream<FileReference> referencesWithNoJobId() {
+        return filenamesWithReferenceWithNoJobId.stream()
+                .map(filesByFilename::get)
+                .flatMap(file -> file.getInternalReferences().stream())
+                .filter(reference -> reference.getJobId() == null);
+    }
+
+    /**
+     * Finds the files with at least one reference that is not assigned to a job, in order of filename.
+     *
+     * @return the files
+     */
+    Stream<AllReferencesToAFile> filesWithReferenceWithNoJobId() {
+        return filenamesWithReferenceWithNoJobId.stream().map(filesByFilename::get);
+    }
+
+    /**
+     * Finds the files referenced in each partition.
+     *
+     * @return a map from partition ID to the filenames referenced in that partition
+     */
+    public Map<String, List<String>> partitionToReferencedFilenames() {
+        Map<String, List<String>> map = new HashMap<>();
+        filenamesByPartitionId.forEach((partitionId, filenames) -> map.put(partitionId, List.copyOf(filenames)));
+        return map;
+    }
+
     public Stream<AllReferencesToAFile> referencedAndUnreferenced() {
         return filesByFilename.values().stream();
     }
 
     public Stream<String> unreferencedBefore(Instant maxUpdateTime) {
-        return filesByFilename.values().stream()
-                .filter(file -> file.getTotalReferenceCount() == 0)
-                .filter(file -> file.getLastStateStoreUpdateTime().isBefore(maxUpdateTime))
+        return unreferencedFiles.stream()
+                .filter(file -> file.getLastStateStoreUpdateTime() != null)
+                .takeWhile(file -> file.getLastStateStoreUpdateTime().isBefore(maxUpdateTime))
                 .map(AllReferencesToAFile::getFilename)
                 .collect(toUnmodifiableList()).stream(); // Avoid concurrent modification during GC
     }
@@ -51,26 +102,234 @@ public class StateStoreFiles {
         return filesByFilename.isEmpty();
     }
 
+    int numberOfFiles() {
+        return filesByFilename.size();
+    }
+
     public void add(AllReferencesToAFile file) {
-        filesByFilename.put(file.getFilename(), file);
+        AllReferencesToAFile interned = interner.intern(file);
+        AllReferencesToAFile existing = filesByFilename.put(interned.getFilename(), interned);
+        unindex(existing);
+        index(interned);
+        recordChange(interned.getFilename());
     }
 
     public void remove(String filename) {
-        filesByFilename.remove(filename);
+        unindex(filesByFilename.remove(filename));
+        recordChange(filename);
     }
 
     public void clear() {
+        changedFilenames = null;
         filesByFilename.clear();
+        filenamesByPartitionId.clear();
+        filenamesWithReferenceWithNoJobId.clear();
+        unreferencedFiles.clear();
     }
 
     public Optional<AllReferencesToAFile> file(String filename) {
         return Optional.ofNullable(filesByFilename.get(filename));
     }
 
+    public StateStoreFiles copy() {
+        StateStoreFiles copy = new StateStoreFiles();
+        copy.filesByFilename.putAll(filesByFilename);
+        filenamesByPartitionId.forEach((partitionId, filenames) -> copy.filenamesByPartitionId.put(partitionId, new TreeSet<>(filenames)));
+        copy.filenamesWithReferenceWithNoJobId.addAll(filenamesWithReferenceWithNoJobId);
+        copy.unreferencedFiles.addAll(unreferencedFiles);
+        return copy;
+    }
+
+    /**
+     * Creates a view of this state which can be changed without changing this state. The view only holds the files
+     * that are changed through it, and looks up any other file in this state. This allows transactions to be validated
+     * against the state after other transactions, without copying every file. The view only supports looking up and
+     * changing files by filename, which is all that is needed to validate and apply a file reference transaction.
+     * This state must not be changed while the view is in use.
+     *
+     * @return the view
+     */
+    public StateStoreFiles overlay() {
+        return new Overlay(this);
+    }
+
     public void updateFile(String filename, UnaryOperator<AllReferencesToAFile> update) {
         AllReferencesToAFile existing = filesByFilename.get(filename);
-        AllReferencesToAFile updated = update.apply(existing);
+        AllReferencesToAFile updated = interner.intern(update.apply(existing));
         filesByFilename.put(filename, updated);
+        unindex(existing);
+        index(updated);
+        recordChange(filename);
+    }
+
+    /**
+     * Starts recording which files are changed, or resets the record if it was already started. This allows a copy of
+     * the state to be brought up to date by only looking at the files that changed.
+     */
+    void startTrackingChanges() {
+        changedFilenames = new HashSet<>();
+    }
+
+    /**
+     * Retrieves the files that were changed since changes were last tracked, and resets the record. If all files were
+     * cleared, the changes are not known and the record is stopped.
+     *
+     * @return the filenames of the changed files, or an empty optional if the changes are not known
+     */
+    Optional<Set<String>> takeChanges() {
+        Set<String> changes = changedFilenames;
+        if (changes == null) {
+            return Optional.empty();
+        }
+        changedFilenames = new HashSet<>();
+        return Optional.of(changes);
+    }
+
+    private void recordChange(String filename) {
+        if (changedFilenames != null) {
+            changedFilenames.add(filename);
+        }
+    }
+
+    private void index(AllReferencesToAFile file) {
+        String filename = file.getFilename();
+        if (file.getTotalReferenceCount() < 1) {
+            unreferencedFiles.add(file);
+        }
+        for (FileReference reference : file.getInternalReferences()) {
+            filenamesByPartitionId.computeIfAbsent(reference.getPartitionId(), id -> new TreeSet<>()).add(filename);
+            if (reference.getJobId() == null) {
+                filenamesWithReferenceWithNoJobId.add(filename);
+            }
+        }
+    }
+
+    private void unindex(AllReferencesToAFile file) {
+        if (file == null) {
+            return;
+        }
+        String filename = file.getFilename();
+        unreferencedFiles.remove(file);
+        filenamesWithReferenceWithNoJobId.remove(filename);
+        for (FileReference reference : file.getInternalReferences()) {
+            removeFromIndex(filenamesByPartitionId, reference.getPartitionId(), filename);
+        }
+    }
+
+    private static void removeFromIndex(Map<String, Set<String>> index, String key, String filename) {
+        Set<String> filenames = index.get(key);
+        if (filenames != null) {
+            filenames.remove(filename);
+            if (filenames.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(filesByFilename);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof StateStoreFiles)) {
+            return false;
+        }
+        StateStoreFiles other = (StateStoreFiles) obj;
+        return Objects.equals(filesByFilename, other.filesByFilename);
+    }
+
+    @Override
+    public String toString() {
+        return "StateStoreFiles{filesByFilename=" + filesByFilename + "}";
     }
 
+    /**
+     * A view of the files which holds changes separately from the state it was created from. A removed file is held as
+     * a null value, so that it is not looked up in the underlying state.
+     */
+    private static class Overlay extends StateStoreFiles {
+        private final StateStoreFiles base;
+        private final Map<String, AllReferencesToAFile> changedFiles = new HashMap<>();
+        private boolean cleared = false;
+
+        Overlay(StateStoreFiles base) {
+            this.base = base;
+        }
+
+        @Override
+        public Optional<AllReferencesToAFile> file(String filename) {
+            if (changedFiles.containsKey(filename)) {
+                return Optional.ofNullable(changedFiles.get(filename));
+            } else if (cleared) {
+                return Optional.empty();
+            } else {
+                return base.file(filename);
+            }
+        }
+
+        @Override
+        public void add(AllReferencesToAFile file) {
+            changedFiles.put(file.getFilename(), file);
+        }
+
+        @Override
+        public void remove(String filename) {
+            changedFiles.put(filename, null);
+        }
+
+        @Override
+        public void updateFile(String filename, UnaryOperator<AllReferencesToAFile> update) {
+            changedFiles.put(filename, update.apply(file(filename).orElse(null)));
+        }
+
+        @Override
+        public void clear() {
+            changedFiles.clear();
+            cleared = true;
+        }
+
+        @Override
+        public Stream<FileReference> references() {
+            throw unsupported();
+        }
+
+        @Override
+        public Stream<FileReference> referencesWithNoJobId() {
+            throw unsupported();
+        }
+
+        @Override
+        public Map<String, List<String>> partitionToReferencedFilenames() {
+            throw unsupported();
+        }
+
+        @Override
+        public Stream<AllReferencesToAFile> referencedAndUnreferenced() {
+            throw unsupported();
+        }
+
+        @Override
+        public Stream<String> unreferencedBefore(Instant maxUpdateTime) {
+            throw unsupported();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            throw unsupported();
+        }
+
+        @Override
+        public StateStoreFiles copy() {
+            throw unsupported();
+        }
+
+        private static UnsupportedOperationException unsupported() {
+            return new UnsupportedOperationException("An overlay only supports looking up and changing files by filename");
+        }
+    }
 }
@@ -20,6 +20,7 @@ import sleeper.core.partition.Partition;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 public class StateStorePartitions {
@@ -42,4 +43,31 @@ public class StateStorePartitions {
         return Optional.ofNullable(partitionById.get(id));
     }
 
+    public StateStorePartitions copy() {
+        StateStorePartitions copy = new StateStorePartitions();
+        copy.partitionById.putAll(partitionById);
+        return copy;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(partitionById);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof StateStorePartitions)) {
+            return false;
+        }
+        StateStorePartitions other = (StateStorePartitions) obj;
+        return Objects.equals(partitionById, other.partitionById);
+    }
+
+    @Override
+    public String toString() {
+        return "StateStorePartitions{partitionById=" + partitionById + "}";
+    }
 }
@@ -28,6 +28,7 @@ import sleeper.core.statestore.transactionlog.transactions.AssignJobIdsTransacti
 import sleeper.core.statestore.transactionlog.transactions.ClearFilesTransaction;
 import sleeper.core.statestore.transactionlog.transactions.DeleteFilesTransaction;
 import sleeper.core.statestore.transactionlog.transactions.ReplaceFileReferencesTransaction;
+import sleeper.core.statestore.transactionlog.transactions.ReplaceFileReferencesWithNewOnesTransaction;
 import sleeper.core.statestore.transactionlog.transactions.SplitFileReferencesTransaction;
 
 import java.time.Clock;
@@ -35,6 +36,7 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toUnmodifiableList;
@@ -42,36 +44,45 @@ import static java.util.stream.Collectors.toUnmodifiableList;
 class TransactionLogFileReferenceStore implements FileReferenceStore {
 
     private final TransactionLogHead<StateStoreFiles> head;
+    private final BatchingFileReferenceCommitter committer;
     private Clock clock = Clock.systemUTC();
 
     TransactionLogFileReferenceStore(TransactionLogHead<StateStoreFiles> state) {
         this.head = state;
+        this.committer = new BatchingFileReferenceCommitter(
+                state, BatchingFileReferenceCommitter.DEFAULT_MAX_BATCH_SIZE, () -> clock.instant());
     }
 
     @Override
     public void addFilesWithReferences(List<AllReferencesToAFile> files) throws StateStoreException {
-        head.addTransaction(clock.instant(), new AddFilesTransaction(files));
+        committer.commit(new AddFilesTransaction(files));
     }
 
     @Override
     public void assignJobIds(List<AssignJobIdRequest> requests) throws StateStoreException {
-        head.addTransaction(clock.instant(), new AssignJobIdsTransaction(requests));
+        committer.commit(new AssignJobIdsTransaction(requests));
     }
 
     @Override
     public void atomicallyReplaceFileReferencesWithNewOne(String jobId, String partitionId, List<String> inputFiles, FileReference newReference) throws StateStoreException {
-        head.addTransaction(clock.instant(), new ReplaceFileReferencesTransaction(
+        committer.commit(new ReplaceFileReferencesTransaction(
                 jobId, partitionId, inputFiles, newReference));
     }
 
+    @Override
+    public void atomicallyReplaceFileReferencesWithNewOnes(String jobId, String partitionId, List<String> inputFiles, List<FileReference> newReferences) throws StateStoreException {
+        committer.commit(new ReplaceFileReferencesWithNewOnesTransaction(
+                jobId, partitionId, inputFiles, newReferences));
+    }
+
     @Override
     public void clearFileData() throws StateStoreException {
-        head.addTransaction(clock.instant(), new ClearFilesTransaction());
+        committer.commit(new ClearFilesTransaction());
     }
 
     @Override
     public void deleteGarbageCollectedFileReferenceCounts(List<String> filenames) throws StateStoreException {
-        head.addTransaction(clock.instant(), new DeleteFilesTransaction(filenames));
+        committer.commit(new DeleteFilesTransaction(filenames));
     }
 
     @Override
@@ -81,10 +92,13 @@ class TransactionLogFileReferenceStore implements FileReferenceStore {
 
     @Override
     public AllReferencesToAllFiles getAllFilesWithMaxUnreferenced(int maxUnreferencedFiles) throws StateStoreException {
+        return head.updateAndRead(state -> allFilesWithMaxUnreferenced(state, maxUnreferencedFiles));
+    }
+
+    private static AllReferencesToAllFiles allFilesWithMaxUnreferenced(StateStoreFiles state, int maxUnreferencedFiles) {
         List<AllReferencesToAFile> files = new ArrayList<>();
         int foundUnreferenced = 0;
         boolean moreThanMax = false;
-        StateStoreFiles state = files();
         for (AllReferencesToAFile file : (Iterable<AllReferencesToAFile>) () -> state.referencedAndUnreferenced().iterator()) {
             if (file.getTotalReferenceCount() < 1) {
                 if (foundUnreferenced >= maxUnreferencedFiles) {
@@ -101,24 +115,28 @@ class TransactionLogFileReferenceStore implements FileReferenceStore {
 
     @Override
     public List<FileReference> getFileReferences() throws StateStoreException {
-        return files().references().collect(toUnmodifiableList());
+        return head.updateAndRead(files -> files.references().collect(toUnmodifiableList()));
     }
 
     @Override
     public List<FileReference> getFileReferencesWithNoJobId() throws StateStoreException {
-        return files().references()
-                .filter(file -> file.getJobId() == null)
-                .collect(toUnmodifiableList());
+        return head.updateAndRead(files -> files.referencesWithNoJobId()
+                .collect(toUnmodifiableList()));
+    }
+
+    @Override
+    public Map<String, List<String>> getPartitionToReferencedFilesMap() throws StateStoreException {
+        return head.updateAndRead(StateStoreFiles::partitionToReferencedFilenames);
     }
 
     @Override
     public Stream<String> getReadyForGCFilenamesBefore(Instant maxUpdateTime) throws StateStoreException {
-        return files().unreferencedBefore(maxUpdateTime);
+        return head.updateAndRead(files -> files.unreferencedBefore(maxUpdateTime));
     }
 
     @Override
     public boolean hasNoFiles() throws StateStoreException {
-        return files().isEmpty();
+        return head.updateAndRead(StateStoreFiles::isEmpty);
     }
 
     @Override
@@ -128,15 +146,10 @@ class TransactionLogFileReferenceStore implements FileReferenceStore {
     @Override
     public void splitFileReferences(List<SplitFileReferenceRequest> splitRequests) throws SplitRequestsFailedException {
         try {
-            head.addTransaction(clock.instant(), new SplitFileReferencesTransaction(splitRequests));
+            committer.commit(new SplitFileReferencesTransaction(splitRequests));
         } catch (StateStoreException e) {
             throw new SplitRequestsFailedException(List.of(), splitRequests, e);
         }
     }
 
-    private StateStoreFiles files() throws StateStoreException {
-        head.update();
-        return head.state();
-    }
-
 }
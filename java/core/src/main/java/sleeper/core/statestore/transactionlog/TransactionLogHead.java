@@ -24,7 +24,22 @@ import sleeper.core.util.ExponentialBackoffWithJitter;
 import sleeper.core.util.LoggedDuration;
 
 import java.time.Instant;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+/**
+ * Tracks the state at the head of a transaction log, and adds transactions to the log. This can be used by many
+ * threads at once. Only one thread at a time may update the head, add a transaction, or read from the state.
+ * <p>
+ * A snapshot is only looked for when the head is first updated, or when it finds a gap in the log because the
+ * transactions it needs were deleted. Transactions are only deleted from the log at or before the oldest retained
+ * snapshot, and the transactions after it are kept, so a head that has fallen behind a newer snapshot will always find
+ * a gap.
+ *
+ * @param <T> the type of the state
+ */
 class TransactionLogHead<T> {
     public static final Logger LOGGER = LoggerFactory.getLogger(TransactionLogHead.class);
 
@@ -33,8 +48,11 @@ class TransactionLogHead<T> {
     private final int maxAddTransactionAttempts;
     private final ExponentialBackoffWithJitter retryBackoff;
     private final Class<? extends StateStoreTransaction<T>> transactionType;
-    private final T state;
+    private final TransactionLogSnapshotLoader snapshotLoader;
+    private final long minTransactionsAheadToLoadSnapshot;
+    private T state;
     private long lastTransactionNumber;
+    private boolean updatedFromLog = false;
 
     private TransactionLogHead(Builder<T> builder) {
         this.sleeperTable = builder.sleeperTable;
@@ -42,6 +60,8 @@ class TransactionLogHead<T> {
         this.maxAddTransactionAttempts = builder.maxAddTransactionAttempts;
         this.retryBackoff = builder.retryBackoff;
         this.transactionType = builder.transactionType;
+        this.snapshotLoader = builder.snapshotLoader;
+        this.minTransactionsAheadToLoadSnapshot = builder.minTransactionsAheadToLoadSnapshot;
         this.state = builder.state;
         this.lastTransactionNumber = builder.lastTransactionNumber;
     }
@@ -51,9 +71,24 @@ class TransactionLogHead<T> {
     }
 
     void addTransaction(Instant updateTime, StateStoreTransaction<T> transaction) throws StateStoreException {
-        Instant startTime = Instant.now();
         LOGGER.info("Adding transaction of type {} to table {}",
                 transaction.getClass().getSimpleName(), sleeperTable);
+        addTransaction(updateTime, state -> {
+            transaction.validate(state);
+            return Optional.of(transaction);
+        });
+    }
+
+    /**
+     * Adds a transaction to the log, creating it from the state at the head of the log. If another process adds a
+     * transaction first, the head will be updated and the transaction will be created again from the new state.
+     *
+     * @param  updateTime          the time the transaction is applied
+     * @param  createTransaction   creates the transaction, or returns an empty optional if there is nothing to add
+     * @throws StateStoreException if the transaction could not be added
+     */
+    synchronized void addTransaction(Instant updateTime, TransactionCreator<T> createTransaction) throws StateStoreException {
+        Instant startTime = Instant.now();
         Exception failure = new IllegalArgumentException("No attempts made");
         for (int attempt = 0; attempt < maxAddTransactionAttempts; attempt++) {
             try {
@@ -63,7 +98,12 @@ class TransactionLogHead<T> {
                 throw new StateStoreException("Interrupted while waiting to retry", e);
             }
             update();
-            transaction.validate(state);
+            Optional<StateStoreTransaction<T>> transactionOpt = createTransaction.create(state);
+            if (!transactionOpt.isPresent()) {
+                LOGGER.info("Found no transaction to add to table {}", sleeperTable);
+                return;
+            }
+            StateStoreTransaction<T> transaction = transactionOpt.get();
             long transactionNumber = lastTransactionNumber + 1;
             try {
                 logStore.addTransaction(new TransactionLogEntry(transactionNumber, updateTime, transaction));
@@ -86,21 +126,80 @@ class TransactionLogHead<T> {
         }
     }
 
-    void update() throws StateStoreException {
+    synchronized void update() throws StateStoreException {
         try {
             Instant startTime = Instant.now();
+            long snapshotTransactionNumber = -1;
+            if (!updatedFromLog) {
+                // Only look for a snapshot when first loading the state, as listing snapshots is slow compared to
+                // reading new transactions
+                snapshotTransactionNumber = loadSnapshotIfAtMinimumTransaction(
+                        lastTransactionNumber + minTransactionsAheadToLoadSnapshot);
+            }
             long transactionNumberBefore = lastTransactionNumber;
-            logStore.readTransactionsAfter(lastTransactionNumber)
-                    .forEach(this::applyTransaction);
-            LOGGER.info("Updated {}, read {} transactions, took {}, last transaction number is {}",
-                    state.getClass().getSimpleName(), lastTransactionNumber - transactionNumberBefore,
+            if (!readTransactionsUntilGap()) {
+                // The transactions we need have been deleted, so we can only catch up from a snapshot
+                snapshotTransactionNumber = loadSnapshotIfAtMinimumTransaction(lastTransactionNumber + 1);
+                transactionNumberBefore = lastTransactionNumber;
+                if (snapshotTransactionNumber < 0 || !readTransactionsUntilGap()) {
+                    throw new StateStoreException("Found gap in transaction log after transaction " + lastTransactionNumber
+                            + " with no snapshot to load for table " + sleeperTable);
+                }
+            }
+            updatedFromLog = true;
+            LOGGER.info("Updated {}, {}, read {} transactions, took {}, last transaction number is {}",
+                    state.getClass().getSimpleName(),
+                    snapshotTransactionNumber < 0 ? "loaded no snapshot" : "loaded snapshot at " + snapshotTransactionNumber,
+                    lastTransactionNumber - transactionNumberBefore,
                     LoggedDuration.withShortOutput(startTime, Instant.now()), lastTransactionNumber);
         } catch (RuntimeException e) {
             throw new StateStoreException("Failed reading transactions", e);
         }
     }
 
+    /**
+     * Brings the head up to date with the log, then reads from the state. The state must not be referenced outside
+     * the read, as it may be changed by another thread once the read is finished.
+     *
+     * @param  <R>                 the type of the result
+     * @param  read                reads the result from the state
+     * @return                     the result
+     * @throws StateStoreException if the log could not be read
+     */
+    synchronized <R> R updateAndRead(Function<T, R> read) throws StateStoreException {
+        update();
+        return read.apply(state);
+    }
+
+    private long loadSnapshotIfAtMinimumTransaction(long transactionNumber) {
+        Optional<TransactionLogSnapshot> snapshotOpt = snapshotLoader.loadLatestSnapshotIfAtMinimumTransaction(transactionNumber);
+        if (!snapshotOpt.isPresent()) {
+            return -1;
+        }
+        TransactionLogSnapshot snapshot = snapshotOpt.get();
+        state = snapshot.getState();
+        lastTransactionNumber = snapshot.getTransactionNumber();
+        return lastTransactionNumber;
+    }
+
+    private boolean readTransactionsUntilGap() {
+        try (Stream<TransactionLogEntry> transactions = logStore.readTransactionsAfter(lastTransactionNumber)) {
+            Iterator<TransactionLogEntry> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                TransactionLogEntry entry = iterator.next();
+                if (entry.getTransactionNumber() != lastTransactionNumber + 1) {
+                    LOGGER.warn("Found transaction {} when expecting transaction {} for table {}",
+                            entry.getTransactionNumber(), lastTransactionNumber + 1, sleeperTable);
+                    return false;
+                }
+                applyTransaction(entry);
+            }
+            return true;
+        }
+    }
+
     private void applyTransaction(TransactionLogEntry entry) {
+        lastTransactionNumber = entry.getTransactionNumber();
         if (!transactionType.isInstance(entry.getTransaction())) {
             LOGGER.warn("Found unexpected transaction type. Expected {}, found {}",
                     transactionType.getClass().getName(), entry.getTransaction().getClass().getName());
@@ -108,7 +207,6 @@ class TransactionLogHead<T> {
         }
         transactionType.cast(entry.getTransaction())
                 .apply(state, entry.getUpdateTime());
-        lastTransactionNumber = entry.getTransactionNumber();
     }
 
     T state() {
@@ -119,12 +217,33 @@ class TransactionLogHead<T> {
         return lastTransactionNumber;
     }
 
+    /**
+     * Creates a transaction to add to the log, based on the state at the head of the log.
+     *
+     * @param <T> the type of the state
+     */
+    @FunctionalInterface
+    interface TransactionCreator<T> {
+
+        /**
+         * Creates a transaction to add to the log. This is called again if the transaction could not be added because
+         * another process added a transaction first.
+         *
+         * @param  state               the state at the head of the log
+         * @return                     the transaction, or an empty optional if there is nothing to add
+         * @throws StateStoreException if the transaction is not valid against the state
+         */
+        Optional<StateStoreTransaction<T>> create(T state) throws StateStoreException;
+    }
+
     static class Builder<T> {
         private TableStatus sleeperTable;
         private TransactionLogStore logStore;
         private int maxAddTransactionAttempts;
         private ExponentialBackoffWithJitter retryBackoff;
         private Class<? extends StateStoreTransaction<T>> transactionType;
+        private TransactionLogSnapshotLoader snapshotLoader = TransactionLogSnapshotLoader.neverLoad();
+        private long minTransactionsAheadToLoadSnapshot = 1;
         private T state;
         private long lastTransactionNumber = 0;
 
@@ -166,6 +285,16 @@ class TransactionLogHead<T> {
             return this;
         }
 
+        public Builder<T> snapshotLoader(TransactionLogSnapshotLoader snapshotLoader) {
+            this.snapshotLoader = snapshotLoader;
+            return this;
+        }
+
+        public Builder<T> minTransactionsAheadToLoadSnapshot(long minTransactionsAheadToLoadSnapshot) {
+            this.minTransactionsAheadToLoadSnapshot = minTransactionsAheadToLoadSnapshot;
+            return this;
+        }
+
         public Builder<StateStoreFiles> forFiles() {
             return transactionType(FileReferenceTransaction.class);
         }
@@ -28,7 +28,6 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toUnmodifiableList;
 
@@ -55,12 +54,14 @@ class TransactionLogPartitionStore implements PartitionStore {
 
     @Override
     public List<Partition> getAllPartitions() throws StateStoreException {
-        return partitions().collect(toUnmodifiableList());
+        return head.updateAndRead(partitions -> partitions.all().stream()
+                .collect(toUnmodifiableList()));
     }
 
     @Override
     public List<Partition> getLeafPartitions() throws StateStoreException {
-        return partitions().filter(Partition::isLeafPartition).collect(toUnmodifiableList());
+        return head.updateAndRead(partitions -> partitions.all().stream()
+                .filter(Partition::isLeafPartition).collect(toUnmodifiableList()));
     }
 
     @Override
@@ -78,9 +79,4 @@ class TransactionLogPartitionStore implements PartitionStore {
         clock = Clock.fixed(time, ZoneId.of("UTC"));
     }
 
-    private Stream<Partition> partitions() throws StateStoreException {
-        head.update();
-        return head.state().all().stream();
-    }
-
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import java.util.Objects;
+
+/**
+ * A snapshot of the state derived from a transaction log, at a certain transaction. This holds either the files or the
+ * partitions in a Sleeper table, as held in {@link StateStoreFiles} or {@link StateStorePartitions}.
+ */
+public class TransactionLogSnapshot {
+
+    private final Object state;
+    private final long transactionNumber;
+
+    public TransactionLogSnapshot(Object state, long transactionNumber) {
+        this.state = Objects.requireNonNull(state, "state must not be null");
+        this.transactionNumber = transactionNumber;
+    }
+
+    /**
+     * Creates a snapshot of the files in a Sleeper table before any transactions have been applied.
+     *
+     * @return the snapshot
+     */
+    public static TransactionLogSnapshot filesInitialState() {
+        return new TransactionLogSnapshot(new StateStoreFiles(), 0);
+    }
+
+    /**
+     * Creates a snapshot of the partitions in a Sleeper table before any transactions have been applied.
+     *
+     * @return the snapshot
+     */
+    public static TransactionLogSnapshot partitionsInitialState() {
+        return new TransactionLogSnapshot(new StateStorePartitions(), 0);
+    }
+
+    /**
+     * Retrieves the state held in the snapshot. The type of the state depends on the transaction log it was derived
+     * from.
+     *
+     * @param  <T> the type of the state
+     * @return     the state
+     */
+    public <T> T getState() {
+        return (T) state;
+    }
+
+    public long getTransactionNumber() {
+        return transactionNumber;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(state, transactionNumber);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TransactionLogSnapshot)) {
+            return false;
+        }
+        TransactionLogSnapshot other = (TransactionLogSnapshot) obj;
+        return transactionNumber == other.transactionNumber && Objects.equals(state, other.state);
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionLogSnapshot{state=" + state + ", transactionNumber=" + transactionNumber + "}";
+    }
+}
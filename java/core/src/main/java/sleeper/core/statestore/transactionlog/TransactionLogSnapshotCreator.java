@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.table.TableStatus;
+
+import java.util.Optional;
+
+/**
+ * Creates snapshots of the state derived from a transaction log. A new snapshot is derived from the previous one by
+ * applying the transactions that have been added to the log since.
+ */
+public class TransactionLogSnapshotCreator {
+
+    private TransactionLogSnapshotCreator() {
+    }
+
+    /**
+     * Creates a snapshot of the files in a Sleeper table, if any transactions have been added since the last snapshot.
+     * The state held in the last snapshot will be updated in place.
+     *
+     * @param  lastSnapshot        the last snapshot, or the initial state if there is no snapshot yet
+     * @param  logStore            the transaction log
+     * @param  sleeperTable        the Sleeper table
+     * @return                     the new snapshot, if any transactions were found
+     * @throws StateStoreException if the transaction log could not be read
+     */
+    public static Optional<TransactionLogSnapshot> updateFilesSnapshot(
+            TransactionLogSnapshot lastSnapshot, TransactionLogStore logStore, TableStatus sleeperTable) throws StateStoreException {
+        return updateSnapshot(TransactionLogHead.builder().forFiles(), lastSnapshot, logStore, sleeperTable);
+    }
+
+    /**
+     * Creates a snapshot of the partitions in a Sleeper table, if any transactions have been added since the last
+     * snapshot. The state held in the last snapshot will be updated in place.
+     *
+     * @param  lastSnapshot        the last snapshot, or the initial state if there is no snapshot yet
+     * @param  logStore            the transaction log
+     * @param  sleeperTable        the Sleeper table
+     * @return                     the new snapshot, if any transactions were found
+     * @throws StateStoreException if the transaction log could not be read
+     */
+    public static Optional<TransactionLogSnapshot> updatePartitionsSnapshot(
+            TransactionLogSnapshot lastSnapshot, TransactionLogStore logStore, TableStatus sleeperTable) throws StateStoreException {
+        return updateSnapshot(TransactionLogHead.builder().forPartitions(), lastSnapshot, logStore, sleeperTable);
+    }
+
+    private static <T> Optional<TransactionLogSnapshot> updateSnapshot(
+            TransactionLogHead.Builder<T> headBuilder, TransactionLogSnapshot lastSnapshot,
+            TransactionLogStore logStore, TableStatus sleeperTable) throws StateStoreException {
+        TransactionLogHead<T> head = headBuilder
+                .sleeperTable(sleeperTable)
+                .logStore(logStore)
+                .state(lastSnapshot.getState())
+                .lastTransactionNumber(lastSnapshot.getTransactionNumber())
+                .build();
+        head.update();
+        if (head.lastTransactionNumber() <= lastSnapshot.getTransactionNumber()) {
+            return Optional.empty();
+        }
+        return Optional.of(new TransactionLogSnapshot(head.state(), head.lastTransactionNumber()));
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import java.util.Optional;
+
+/**
+ * Loads the latest snapshot of the state derived from a transaction log. This is used to bring the state up to date
+ * without reading every transaction in the log.
+ */
+@FunctionalInterface
+public interface TransactionLogSnapshotLoader {
+
+    /**
+     * Loads the latest snapshot if it is at or after a given transaction. This avoids loading a snapshot when only a
+     * few transactions would need to be read from the log.
+     *
+     * @param  transactionNumber the minimum transaction number of a snapshot to load
+     * @return                   the latest snapshot, if there is one at or after the given transaction
+     */
+    Optional<TransactionLogSnapshot> loadLatestSnapshotIfAtMinimumTransaction(long transactionNumber);
+
+    /**
+     * Creates a loader for when no snapshots are available.
+     *
+     * @return the loader
+     */
+    static TransactionLogSnapshotLoader neverLoad() {
+        return transactionNumber -> Optional.empty();
+    }
+}
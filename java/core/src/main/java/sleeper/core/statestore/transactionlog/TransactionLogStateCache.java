@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.core.statestore.StateStoreException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caches the state of Sleeper tables held in transaction logs, for use by many threads in a long-lived process. The
+ * logs of each cached table can be followed in the background, so that reading the state does not need to wait to
+ * catch up with the log. Each read returns an immutable view of the state, and does not block other reads or updates.
+ * <p>
+ * The number of tables held at once is limited. When another table is added, the table that was least recently read
+ * is evicted.
+ */
+public class TransactionLogStateCache implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionLogStateCache.class);
+
+    public static final int DEFAULT_MAX_TABLES = 100;
+
+    private final Function<String, TransactionLogStateTailer> tailerFactory;
+    private final int maxTables;
+    private final Map<String, CachedTable> tableById = new ConcurrentHashMap<>();
+    private final AtomicLong accessCounter = new AtomicLong();
+    private final Supplier<Instant> timeSupplier;
+    private ScheduledExecutorService refreshExecutor;
+
+    /**
+     * Creates a cache. The tables will not be refreshed in the background unless {@link #startRefreshing} is called.
+     *
+     * @param tailerFactory creates an object to follow the transaction logs of a table, given the table ID
+     * @param maxTables     the maximum number of tables to hold at once
+     */
+    public TransactionLogStateCache(Function<String, TransactionLogStateTailer> tailerFactory, int maxTables) {
+        this(tailerFactory, maxTables, Instant::now);
+    }
+
+    TransactionLogStateCache(Function<String, TransactionLogStateTailer> tailerFactory, int maxTables, Supplier<Instant> timeSupplier) {
+        if (maxTables < 1) {
+            throw new IllegalArgumentException("Maximum number of tables must be at least 1, found " + maxTables);
+        }
+        this.tailerFactory = tailerFactory;
+        this.maxTables = maxTables;
+        this.timeSupplier = timeSupplier;
+    }
+
+    /**
+     * Retrieves the latest view of the state of a table. If the table is not yet cached, this waits for its state to
+     * be loaded. Otherwise, this returns the view from the last time the table was refreshed.
+     *
+     * @param  tableId             the Sleeper table ID
+     * @return                     the latest view of the state of the table
+     * @throws StateStoreException if the table was not cached, and its state could not be loaded
+     */
+    public TransactionLogStateView getView(String tableId) throws StateStoreException {
+        CachedTable table = getTable(tableId);
+        if (table.lastRefreshTime == null) {
+            return table.refresh(timeSupplier.get());
+        }
+        return table.tailer.getView();
+    }
+
+    /**
+     * Retrieves a view of the state of a table which was refreshed recently. If the table was last refreshed longer
+     * ago than the given age, this waits for it to be refreshed. This avoids using an old view when the table could not
+     * be refreshed in the background, e.g. because a lambda was frozen between invocations.
+     *
+     * @param  tableId             the Sleeper table ID
+     * @param  maxAge              the maximum time since the table was last refreshed
+     * @return                     a view of the state of the table
+     * @throws StateStoreException if the table needed to be refreshed, and its state could not be loaded
+     */
+    public TransactionLogStateView getView(String tableId, Duration maxAge) throws StateStoreException {
+        CachedTable table = getTable(tableId);
+        Instant now = timeSupplier.get();
+        Instant lastRefreshTime = table.lastRefreshTime;
+        if (lastRefreshTime == null || lastRefreshTime.plus(maxAge).isBefore(now)) {
+            return table.refresh(now);
+        }
+        return table.tailer.getView();
+    }
+
+    private CachedTable getTable(String tableId) {
+        CachedTable table = tableById.get(tableId);
+        if (table == null) {
+            table = tableById.computeIfAbsent(tableId,
+                    id -> new CachedTable(tailerFactory.apply(id), accessCounter.incrementAndGet()));
+            evictLeastRecentlyUsedOver(maxTables);
+        } else {
+            table.lastAccess = accessCounter.incrementAndGet();
+        }
+        return table;
+    }
+
+    /**
+     * Reads new transactions for every cached table. Failures are logged, and the last view of the table is kept.
+     */
+    public void refreshAll() {
+        tableById.forEach((tableId, table) -> {
+            try {
+                table.refresh(timeSupplier.get());
+            } catch (StateStoreException | RuntimeException e) {
+                LOGGER.warn("Failed refreshing state of table {}", tableId, e);
+            }
+        });
+    }
+
+    /**
+     * Starts refreshing every cached table in the background.
+     *
+     * @param period the time to wait after one refresh finishes before starting the next
+     */
+    public synchronized void startRefreshing(Duration period) {
+        if (refreshExecutor != null) {
+            throw new IllegalStateException("Already refreshing");
+        }
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-log-state-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshExecutor.scheduleWithFixedDelay(this::refreshAll, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops refreshing tables in the background.
+     */
+    @Override
+    public synchronized void close() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+            refreshExecutor = null;
+        }
+    }
+
+    private void evictLeastRecentlyUsedOver(int limit) {
+        while (tableById.size() > limit) {
+            tableById.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                    .ifPresent(entry -> {
+                        LOGGER.info("Evicting table {} from state cache", entry.getKey());
+                        tableById.remove(entry.getKey(), entry.getValue());
+                    });
+        }
+    }
+
+    /**
+     * A table held in the cache.
+     */
+    private static class CachedTable {
+        private final TransactionLogStateTailer tailer;
+        private volatile long lastAccess;
+        private volatile Instant lastRefreshTime;
+
+        CachedTable(TransactionLogStateTailer tailer, long lastAccess) {
+            this.tailer = tailer;
+            this.lastAccess = lastAccess;
+        }
+
+        TransactionLogStateView refresh(Instant startTime) throws StateStoreException {
+            TransactionLogStateView view = tailer.update();
+            lastRefreshTime = startTime;
+            return view;
+        }
+    }
+}
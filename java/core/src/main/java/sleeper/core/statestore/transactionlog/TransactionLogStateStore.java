@@ -25,26 +25,10 @@ public class TransactionLogStateStore extends DelegatingStateStore {
 
     public static final int MAX_ADD_TRANSACTION_ATTEMPTS = 10;
     public static final WaitRange RETRY_WAIT_RANGE = WaitRange.firstAndMaxWaitCeilingSecs(0.2, 30);
+    public static final long MIN_TRANSACTIONS_AHEAD_TO_LOAD_SNAPSHOT = 100;
 
     public TransactionLogStateStore(Builder builder) {
-        this(builder, TransactionLogHead.builder()
-                .sleeperTable(builder.sleeperTable)
-                .maxAddTransactionAttempts(builder.maxAddTransactionAttempts)
-                .retryBackoff(builder.retryBackoff));
-    }
-
-    private TransactionLogStateStore(Builder builder, TransactionLogHead.Builder<?> headBuilder) {
-        this(builder.schema,
-                headBuilder.forFiles()
-                        .state(builder.filesState)
-                        .logStore(builder.filesLogStore)
-                        .lastTransactionNumber(builder.filesTransactionNumber)
-                        .build(),
-                headBuilder.forPartitions()
-                        .state(builder.partitionsState)
-                        .logStore(builder.partitionsLogStore)
-                        .lastTransactionNumber(builder.partitionsTransactionNumber)
-                        .build());
+        this(builder.schema, builder.buildFilesHead(), builder.buildPartitionsHead());
     }
 
     private TransactionLogStateStore(Schema schema, TransactionLogHead<StateStoreFiles> filesHead, TransactionLogHead<StateStorePartitions> partitionsHead) {
@@ -61,6 +45,9 @@ public class TransactionLogStateStore extends DelegatingStateStore {
         private Schema schema;
         private TransactionLogStore filesLogStore;
         private TransactionLogStore partitionsLogStore;
+        private TransactionLogSnapshotLoader filesSnapshotLoader = TransactionLogSnapshotLoader.neverLoad();
+        private TransactionLogSnapshotLoader partitionsSnapshotLoader = TransactionLogSnapshotLoader.neverLoad();
+        private long minTransactionsAheadToLoadSnapshot = MIN_TRANSACTIONS_AHEAD_TO_LOAD_SNAPSHOT;
         private StateStoreFiles filesState = new StateStoreFiles();
         private StateStorePartitions partitionsState = new StateStorePartitions();
         private long partitionsTransactionNumber = 0;
@@ -91,6 +78,21 @@ public class TransactionLogStateStore extends DelegatingStateStore {
             return this;
         }
 
+        public Builder filesSnapshotLoader(TransactionLogSnapshotLoader filesSnapshotLoader) {
+            this.filesSnapshotLoader = filesSnapshotLoader;
+            return this;
+        }
+
+        public Builder partitionsSnapshotLoader(TransactionLogSnapshotLoader partitionsSnapshotLoader) {
+            this.partitionsSnapshotLoader = partitionsSnapshotLoader;
+            return this;
+        }
+
+        public Builder minTransactionsAheadToLoadSnapshot(long minTransactionsAheadToLoadSnapshot) {
+            this.minTransactionsAheadToLoadSnapshot = minTransactionsAheadToLoadSnapshot;
+            return this;
+        }
+
         public Builder filesState(StateStoreFiles filesState) {
             this.filesState = filesState;
             return this;
@@ -124,6 +126,42 @@ public class TransactionLogStateStore extends DelegatingStateStore {
         public TransactionLogStateStore build() {
             return new TransactionLogStateStore(this);
         }
+
+        /**
+         * Creates an object to follow the transaction log and create immutable views of the state. This does not
+         * create a state store.
+         *
+         * @return the tailer
+         */
+        public TransactionLogStateTailer buildTailer() {
+            return new TransactionLogStateTailer(sleeperTable, buildFilesHead(), buildPartitionsHead());
+        }
+
+        private TransactionLogHead<StateStoreFiles> buildFilesHead() {
+            return headBuilder().forFiles()
+                    .state(filesState)
+                    .logStore(filesLogStore)
+                    .snapshotLoader(filesSnapshotLoader)
+                    .lastTransactionNumber(filesTransactionNumber)
+                    .build();
+        }
+
+        private TransactionLogHead<StateStorePartitions> buildPartitionsHead() {
+            return headBuilder().forPartitions()
+                    .state(partitionsState)
+                    .logStore(partitionsLogStore)
+                    .snapshotLoader(partitionsSnapshotLoader)
+                    .lastTransactionNumber(partitionsTransactionNumber)
+                    .build();
+        }
+
+        private TransactionLogHead.Builder<?> headBuilder() {
+            return TransactionLogHead.builder()
+                    .sleeperTable(sleeperTable)
+                    .maxAddTransactionAttempts(maxAddTransactionAttempts)
+                    .retryBackoff(retryBackoff)
+                    .minTransactionsAheadToLoadSnapshot(minTransactionsAheadToLoadSnapshot);
+        }
     }
 
 }
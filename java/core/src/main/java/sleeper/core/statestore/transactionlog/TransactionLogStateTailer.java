@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.core.statestore.AllReferencesToAFile;
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.table.TableStatus;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Follows the transaction logs of a Sleeper table, and publishes immutable views of the state. Updates are made by
+ * one thread at a time, but the latest view can be read by any number of threads without waiting for an update.
+ * <p>
+ * A view holds a copy of the files taken at an earlier update, and the files that changed since then. A new view only
+ * needs to look up the files that changed since the last view. The files are only copied again once the changes have
+ * grown to a fraction of the size of the table, or if the changes are not known, e.g. because a snapshot was loaded.
+ * The partitions are only copied when they change.
+ */
+public class TransactionLogStateTailer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionLogStateTailer.class);
+    private static final int MAX_CHANGED_FILES_FRACTION_DIVISOR = 8;
+
+    private final TableStatus sleeperTable;
+    private final TransactionLogHead<StateStoreFiles> filesHead;
+    private final TransactionLogHead<StateStorePartitions> partitionsHead;
+    private StateStoreFiles trackedFiles;
+    private volatile TransactionLogStateView view;
+
+    TransactionLogStateTailer(TableStatus sleeperTable,
+            TransactionLogHead<StateStoreFiles> filesHead, TransactionLogHead<StateStorePartitions> partitionsHead) {
+        this.sleeperTable = sleeperTable;
+        this.filesHead = filesHead;
+        this.partitionsHead = partitionsHead;
+    }
+
+    /**
+     * Reads any new transactions from the logs. Publishes a new view if the state has changed.
+     *
+     * @return                     the latest view of the state
+     * @throws StateStoreException if the logs could not be read
+     */
+    public synchronized TransactionLogStateView update() throws StateStoreException {
+        filesHead.update();
+        partitionsHead.update();
+        TransactionLogStateView before = view;
+        long filesTransactionNumber = filesHead.lastTransactionNumber();
+        long partitionsTransactionNumber = partitionsHead.lastTransactionNumber();
+        if (before != null
+                && before.getFilesTransactionNumber() == filesTransactionNumber
+                && before.getPartitionsTransactionNumber() == partitionsTransactionNumber) {
+            return before;
+        }
+        TransactionLogStateView after;
+        if (before != null && before.getFilesTransactionNumber() == filesTransactionNumber) {
+            after = new TransactionLogStateView(
+                    before.getFilesBase(), before.getChangedFiles(), filesTransactionNumber,
+                    partitionsHead.state().copy(), partitionsTransactionNumber);
+        } else {
+            after = updateFiles(before, filesTransactionNumber, partitionsTransactionNumber);
+        }
+        LOGGER.debug("Published view of table {} at files transaction {}, partitions transaction {}",
+                sleeperTable, after.getFilesTransactionNumber(), after.getPartitionsTransactionNumber());
+        view = after;
+        return after;
+    }
+
+    /**
+     * Retrieves the latest view of the state. This will only read from the logs if no view has been published yet.
+     *
+     * @return                     the latest view of the state
+     * @throws StateStoreException if there was no view yet, and the logs could not be read
+     */
+    public TransactionLogStateView getView() throws StateStoreException {
+        TransactionLogStateView latest = view;
+        if (latest != null) {
+            return latest;
+        }
+        return update();
+    }
+
+    private TransactionLogStateView updateFiles(
+            TransactionLogStateView before, long filesTransactionNumber, long partitionsTransactionNumber) {
+        StateStorePartitions partitions;
+        if (before != null && before.getPartitionsTransactionNumber() == partitionsTransactionNumber) {
+            partitions = before.getPartitions();
+        } else {
+            partitions = partitionsHead.state().copy();
+        }
+        StateStoreFiles files = filesHead.state();
+        Optional<Set<String>> changes = files == trackedFiles ? files.takeChanges() : Optional.empty();
+        if (before == null || changes.isEmpty()
+                || before.getChangedFiles().size() + changes.get().size() > maxChangedFiles(before.getFilesBase())) {
+            // Copy the state so that the view is not affected by later updates
+            StateStoreFiles filesBase = files.copy();
+            trackedFiles = files;
+            files.startTrackingChanges();
+            return new TransactionLogStateView(
+                    filesBase, Collections.emptySortedMap(), filesTransactionNumber,
+                    partitions, partitionsTransactionNumber);
+        }
+        SortedMap<String, AllReferencesToAFile> changedFiles = new TreeMap<>(before.getChangedFiles());
+        for (String filename : changes.get()) {
+            changedFiles.put(filename, files.file(filename).orElse(null));
+        }
+        return new TransactionLogStateView(
+                before.getFilesBase(), Collections.unmodifiableSortedMap(changedFiles), filesTransactionNumber,
+                partitions, partitionsTransactionNumber);
+    }
+
+    private static int maxChangedFiles(StateStoreFiles filesBase) {
+        return filesBase.numberOfFiles() / MAX_CHANGED_FILES_FRACTION_DIVISOR;
+    }
+}
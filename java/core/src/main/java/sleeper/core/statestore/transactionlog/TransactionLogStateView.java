@@ -0,0 +1,164 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import sleeper.core.partition.Partition;
+import sleeper.core.statestore.AllReferencesToAFile;
+import sleeper.core.statestore.FileReference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * An immutable view of the state of a Sleeper table, at a certain point in its transaction logs. This can be read by
+ * many threads at once.
+ * <p>
+ * The files are held as a copy of the state at an earlier point in the log, which may be shared with earlier views,
+ * and the files that changed since then. This means a new view can be published without copying every file.
+ */
+public class TransactionLogStateView {
+
+    private final StateStoreFiles filesBase;
+    private final SortedMap<String, AllReferencesToAFile> changedFiles;
+    private final long filesTransactionNumber;
+    private final StateStorePartitions partitions;
+    private final long partitionsTransactionNumber;
+
+    /**
+     * Creates a view of the state. The state must not be changed after this, so this should be given copies of the
+     * state held by a transaction log head.
+     *
+     * @param filesBase                   the files in the table at an earlier point in the log
+     * @param changedFiles                the files that changed since the base, by filename, with null for a deleted
+     *                                    file
+     * @param filesTransactionNumber      the number of the last transaction applied to the files
+     * @param partitions                  the partitions in the table
+     * @param partitionsTransactionNumber the number of the last transaction applied to the partitions
+     */
+    TransactionLogStateView(
+            StateStoreFiles filesBase, SortedMap<String, AllReferencesToAFile> changedFiles, long filesTransactionNumber,
+            StateStorePartitions partitions, long partitionsTransactionNumber) {
+        this.filesBase = filesBase;
+        this.changedFiles = changedFiles;
+        this.filesTransactionNumber = filesTransactionNumber;
+        this.partitions = partitions;
+        this.partitionsTransactionNumber = partitionsTransactionNumber;
+    }
+
+    public long getFilesTransactionNumber() {
+        return filesTransactionNumber;
+    }
+
+    public long getPartitionsTransactionNumber() {
+        return partitionsTransactionNumber;
+    }
+
+    public List<FileReference> getFileReferences() {
+        return withChangedFiles(filesBase.referencedAndUnreferenced())
+                .flatMap(file -> file.getInternalReferences().stream())
+                .collect(toUnmodifiableList());
+    }
+
+    public List<FileReference> getFileReferencesWithNoJobId() {
+        return withChangedFiles(filesBase.filesWithReferenceWithNoJobId())
+                .flatMap(file -> file.getInternalReferences().stream())
+                .filter(reference -> reference.getJobId() == null)
+                .collect(toUnmodifiableList());
+    }
+
+    public Map<String, List<String>> getPartitionToReferencedFilesMap() {
+        Map<String, List<String>> map = new HashMap<>();
+        withChangedFiles(filesBase.referencedAndUnreferenced())
+                .flatMap(file -> file.getInternalReferences().stream())
+                .forEach(reference -> map.computeIfAbsent(reference.getPartitionId(), id -> new ArrayList<>())
+                        .add(reference.getFilename()));
+        return map;
+    }
+
+    public Optional<AllReferencesToAFile> getFile(String filename) {
+        if (changedFiles.containsKey(filename)) {
+            return Optional.ofNullable(changedFiles.get(filename));
+        }
+        return filesBase.file(filename);
+    }
+
+    public List<Partition> getAllPartitions() {
+        return List.copyOf(partitions.all());
+    }
+
+    public List<Partition> getLeafPartitions() {
+        return partitions.all().stream()
+                .filter(Partition::isLeafPartition)
+                .collect(toUnmodifiableList());
+    }
+
+    public Optional<Partition> getPartition(String partitionId) {
+        return partitions.byId(partitionId);
+    }
+
+    StateStoreFiles getFilesBase() {
+        return filesBase;
+    }
+
+    SortedMap<String, AllReferencesToAFile> getChangedFiles() {
+        return changedFiles;
+    }
+
+    StateStorePartitions getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Applies the changed files to files found in the base. Files in the base that have changed are replaced by their
+     * new versions, and all changed files that still exist are included, in order of filename.
+     *
+     * @param  baseFiles files from the base, in order of filename
+     * @return           the files as of this view, in order of filename
+     */
+    private Stream<AllReferencesToAFile> withChangedFiles(Stream<AllReferencesToAFile> baseFiles) {
+        if (changedFiles.isEmpty()) {
+            return baseFiles;
+        }
+        Iterator<AllReferencesToAFile> base = baseFiles
+                .filter(file -> !changedFiles.containsKey(file.getFilename()))
+                .iterator();
+        Iterator<AllReferencesToAFile> changed = changedFiles.values().stream()
+                .filter(Objects::nonNull)
+                .iterator();
+        List<AllReferencesToAFile> merged = new ArrayList<>();
+        AllReferencesToAFile nextBase = base.hasNext() ? base.next() : null;
+        AllReferencesToAFile nextChanged = changed.hasNext() ? changed.next() : null;
+        while (nextBase != null || nextChanged != null) {
+            if (nextChanged == null || (nextBase != null && nextBase.getFilename().compareTo(nextChanged.getFilename()) < 0)) {
+                merged.add(nextBase);
+                nextBase = base.hasNext() ? base.next() : null;
+            } else {
+                merged.add(nextChanged);
+                nextChanged = changed.hasNext() ? changed.next() : null;
+            }
+        }
+        return merged.stream();
+    }
+}
@@ -23,4 +23,12 @@ public interface TransactionLogStore {
 
     Stream<TransactionLogEntry> readTransactionsAfter(long lastTransactionNumber);
 
+    /**
+     * Deletes transactions from the log which are covered by a snapshot. Any process that needs a deleted transaction
+     * will find a gap in the log, and must load a snapshot at or after the given transaction number.
+     *
+     * @param transactionNumber the transaction number of the oldest snapshot that is retained
+     */
+    void deleteTransactionsAtOrBefore(long transactionNumber);
+
 }
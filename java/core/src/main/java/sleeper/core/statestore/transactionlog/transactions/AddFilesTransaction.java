@@ -35,6 +35,10 @@ public class AddFilesTransaction implements FileReferenceTransaction {
         this.files = files.stream().map(file -> file.withCreatedUpdateTime(null)).collect(toUnmodifiableList());
     }
 
+    List<AllReferencesToAFile> getFiles() {
+        return files;
+    }
+
     @Override
     public void validate(StateStoreFiles stateStoreFiles) throws StateStoreException {
         for (AllReferencesToAFile file : files) {
@@ -36,6 +36,10 @@ public class AssignJobIdsTransaction implements FileReferenceTransaction {
         this.requests = requests;
     }
 
+    List<AssignJobIdRequest> getRequests() {
+        return requests;
+    }
+
     @Override
     public void validate(StateStoreFiles stateStoreFiles) throws StateStoreException {
         for (AssignJobIdRequest request : requests) {
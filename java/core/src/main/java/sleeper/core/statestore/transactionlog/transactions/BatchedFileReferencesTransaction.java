@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog.transactions;
+
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.statestore.transactionlog.FileReferenceTransaction;
+import sleeper.core.statestore.transactionlog.StateStoreFiles;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A transaction made of multiple file reference transactions, which are applied in order. This allows many updates
+ * to be committed with a single entry in the transaction log.
+ */
+public class BatchedFileReferencesTransaction implements FileReferenceTransaction {
+
+    private final List<FileReferenceTransaction> transactions;
+
+    public BatchedFileReferencesTransaction(List<FileReferenceTransaction> transactions) {
+        this.transactions = transactions;
+    }
+
+    public List<FileReferenceTransaction> getTransactions() {
+        return transactions;
+    }
+
+    @Override
+    public void validate(StateStoreFiles stateStoreFiles) throws StateStoreException {
+        // Each transaction must be valid against the state after the ones before it are applied
+        StateStoreFiles afterBatch = stateStoreFiles.overlay();
+        for (FileReferenceTransaction transaction : transactions) {
+            transaction.validate(afterBatch);
+            transaction.apply(afterBatch, Instant.EPOCH);
+        }
+    }
+
+    @Override
+    public void apply(StateStoreFiles stateStoreFiles, Instant updateTime) {
+        for (FileReferenceTransaction transaction : transactions) {
+            transaction.apply(stateStoreFiles, updateTime);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(transactions);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BatchedFileReferencesTransaction)) {
+            return false;
+        }
+        BatchedFileReferencesTransaction other = (BatchedFileReferencesTransaction) obj;
+        return Objects.equals(transactions, other.transactions);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchedFileReferencesTransaction{transactions=" + transactions + "}";
+    }
+}
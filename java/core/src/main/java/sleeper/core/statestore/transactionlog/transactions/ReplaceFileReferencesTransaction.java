@@ -46,6 +46,22 @@ public class ReplaceFileReferencesTransaction implements FileReferenceTransactio
         FileReference.validateNewReferenceForJobOutput(inputFiles, newReference);
     }
 
+    String getJobId() {
+        return jobId;
+    }
+
+    String getPartitionId() {
+        return partitionId;
+    }
+
+    List<String> getInputFiles() {
+        return inputFiles;
+    }
+
+    FileReference getNewReference() {
+        return newReference;
+    }
+
     @Override
     public void validate(StateStoreFiles stateStoreFiles) throws StateStoreException {
         for (String filename : inputFiles) {
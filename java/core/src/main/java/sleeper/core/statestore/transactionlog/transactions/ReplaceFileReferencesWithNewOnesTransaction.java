@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog.transactions;
+
+import sleeper.core.statestore.AllReferencesToAFile;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.statestore.exception.FileAlreadyExistsException;
+import sleeper.core.statestore.exception.FileNotFoundException;
+import sleeper.core.statestore.exception.FileReferenceNotAssignedToJobException;
+import sleeper.core.statestore.exception.FileReferenceNotFoundException;
+import sleeper.core.statestore.transactionlog.FileReferenceTransaction;
+import sleeper.core.statestore.transactionlog.StateStoreFiles;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Replaces the references to the input files of a job with references to more than one new file. This is used for
+ * compactions which write one output file for each leaf partition beneath the partition they operated on.
+ */
+public class ReplaceFileReferencesWithNewOnesTransaction implements FileReferenceTransaction {
+
+    private final String jobId;
+    private final String partitionId;
+    private final List<String> inputFiles;
+    private final List<FileReference> newReferences;
+
+    public ReplaceFileReferencesWithNewOnesTransaction(
+            String jobId, String partitionId, List<String> inputFiles, List<FileReference> newReferences)
+            throws StateStoreException {
+        this.jobId = jobId;
+        this.partitionId = partitionId;
+        this.inputFiles = inputFiles;
+        this.newReferences = newReferences.stream()
+                .map(reference -> reference.toBuilder().lastStateStoreUpdateTime(null).build())
+                .collect(Collectors.toUnmodifiableList());
+        FileReference.validateNewReferencesForJobOutput(inputFiles, newReferences);
+    }
+
+    @Override
+    public void validate(StateStoreFiles stateStoreFiles) throws StateStoreException {
+        for (String filename : inputFiles) {
+            AllReferencesToAFile file = stateStoreFiles.file(filename)
+                    .orElseThrow(() -> new FileNotFoundException(filename));
+            FileReference reference = file.getReferenceForPartitionId(partitionId)
+                    .orElseThrow(() -> new FileReferenceNotFoundException(filename, partitionId));
+            if (!jobId.equals(reference.getJobId())) {
+                throw new FileReferenceNotAssignedToJobException(reference, jobId);
+            }
+        }
+        for (FileReference newReference : newReferences) {
+            if (stateStoreFiles.file(newReference.getFilename()).isPresent()) {
+                throw new FileAlreadyExistsException(newReference.getFilename());
+            }
+        }
+    }
+
+    @Override
+    public void apply(StateStoreFiles stateStoreFiles, Instant updateTime) {
+        for (String filename : inputFiles) {
+            stateStoreFiles.updateFile(filename, file -> file.removeReferenceForPartition(partitionId, updateTime));
+        }
+        for (FileReference newReference : newReferences) {
+            stateStoreFiles.add(AllReferencesToAFile.fileWithOneReference(newReference, updateTime));
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(jobId, partitionId, inputFiles, newReferences);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ReplaceFileReferencesWithNewOnesTransaction)) {
+            return false;
+        }
+        ReplaceFileReferencesWithNewOnesTransaction other = (ReplaceFileReferencesWithNewOnesTransaction) obj;
+        return Objects.equals(jobId, other.jobId) && Objects.equals(partitionId, other.partitionId) && Objects.equals(inputFiles, other.inputFiles) && Objects.equals(newReferences, other.newReferences);
+    }
+
+    @Override
+    public String toString() {
+        return "ReplaceFileReferencesWithNewOnesTransaction{jobId=" + jobId + ", partitionId=" + partitionId + ", inputFiles=" + inputFiles + ", newReferences=" + newReferences + "}";
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog.transactions;
+
+import sleeper.core.statestore.AllReferencesToAFile;
+import sleeper.core.statestore.AssignJobIdRequest;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.statestore.transactionlog.FileReferenceTransaction;
+import sleeper.core.statestore.transactionlog.StateStoreTransaction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodes state store transactions in a compact binary format. The first byte of the encoded body is the version of the
+ * format, and the rest is compressed with Deflate.
+ * <p>
+ * The transactions that are most often large, adding files, assigning jobs and replacing file references, are written
+ * field by field. Strings such as partition IDs and job IDs are dictionary encoded, so that each distinct value is
+ * only written once per transaction. Filenames are split into a directory which is dictionary encoded, and a name
+ * within that directory. A batch of transactions is written as each transaction in turn, sharing the same dictionary.
+ * Other transactions are written as JSON inside the compressed body.
+ */
+class TransactionBinaryFormat {
+
+    static final byte VERSION = 1;
+    private static final byte JSON_BODY = 0;
+    private static final byte FIELDS_BODY = 1;
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int COUNT_APPROXIMATE = 1;
+    private static final int ONLY_CONTAINS_DATA_FOR_THIS_PARTITION = 1 << 1;
+
+    private TransactionBinaryFormat() {
+    }
+
+    static byte[] write(StateStoreTransaction<?> transaction, Function<StateStoreTransaction<?>, String> toJson) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(VERSION);
+        Deflater deflater = new Deflater();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(bytes, deflater), BUFFER_SIZE))) {
+            new Writer(out).writeTransaction(transaction, toJson);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    static StateStoreTransaction<?> read(
+            TransactionType type, byte[] bytes, BiFunction<TransactionType, String, StateStoreTransaction<?>> fromJson) {
+        if (bytes.length == 0 || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unrecognised transaction format version: " + (bytes.length == 0 ? "empty" : bytes[0]));
+        }
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1), inflater), BUFFER_SIZE))) {
+            return new Reader(in).readTransaction(type, fromJson);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Writes the fields of a transaction, tracking the strings that have been written so far.
+     */
+    private static class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeTransaction(StateStoreTransaction<?> transaction, Function<StateStoreTransaction<?>, String> toJson) throws IOException {
+            if (transaction instanceof AddFilesTransaction) {
+                out.writeByte(FIELDS_BODY);
+                writeAddFiles((AddFilesTransaction) transaction);
+            } else if (transaction instanceof AssignJobIdsTransaction) {
+                out.writeByte(FIELDS_BODY);
+                writeAssignJobIds((AssignJobIdsTransaction) transaction);
+            } else if (transaction instanceof ReplaceFileReferencesTransaction) {
+                out.writeByte(FIELDS_BODY);
+                writeReplaceFileReferences((ReplaceFileReferencesTransaction) transaction);
+            } else if (transaction instanceof BatchedFileReferencesTransaction) {
+                out.writeByte(FIELDS_BODY);
+                writeBatch((BatchedFileReferencesTransaction) transaction, toJson);
+            } else {
+                out.writeByte(JSON_BODY);
+                writeUtf8(toJson.apply(transaction));
+            }
+        }
+
+        void writeAddFiles(AddFilesTransaction transaction) throws IOException {
+            List<AllReferencesToAFile> files = transaction.getFiles();
+            writeVarInt(files.size());
+            for (AllReferencesToAFile file : files) {
+                writeFilename(file.getFilename());
+                writeVarInt(file.getTotalReferenceCount());
+                writeVarInt(file.getInternalReferences().size());
+                for (FileReference reference : file.getInternalReferences()) {
+                    writeReferenceExceptFilename(reference);
+                }
+            }
+        }
+
+        void writeAssignJobIds(AssignJobIdsTransaction transaction) throws IOException {
+            List<AssignJobIdRequest> requests = transaction.getRequests();
+            writeVarInt(requests.size());
+            for (AssignJobIdRequest request : requests) {
+                writeString(request.getJobId());
+                writeString(request.getPartitionId());
+                writeFilenames(request.getFilenames());
+            }
+        }
+
+        void writeReplaceFileReferences(ReplaceFileReferencesTransaction transaction) throws IOException {
+            writeString(transaction.getJobId());
+            writeString(transaction.getPartitionId());
+            writeFilenames(transaction.getInputFiles());
+            writeFilename(transaction.getNewReference().getFilename());
+            writeReferenceExceptFilename(transaction.getNewReference());
+        }
+
+        void writeBatch(BatchedFileReferencesTransaction batch, Function<StateStoreTransaction<?>, String> toJson) throws IOException {
+            List<FileReferenceTransaction> transactions = batch.getTransactions();
+            writeVarInt(transactions.size());
+            for (FileReferenceTransaction transaction : transactions) {
+                writeString(TransactionType.getType(transaction).name());
+                writeTransaction(transaction, toJson);
+            }
+        }
+
+        void writeReferenceExceptFilename(FileReference reference) throws IOException {
+            writeString(reference.getPartitionId());
+            writeString(reference.getJobId());
+            int flags = 0;
+            if (reference.isCountApproximate()) {
+                flags |= COUNT_APPROXIMATE;
+            }
+            if (reference.onlyContainsDataForThisPartition()) {
+                flags |= ONLY_CONTAINS_DATA_FOR_THIS_PARTITION;
+            }
+            out.writeByte(flags);
+            writeVarLong(reference.getNumberOfRecords());
+        }
+
+        void writeFilenames(List<String> filenames) throws IOException {
+            writeVarInt(filenames.size());
+            for (String filename : filenames) {
+                writeFilename(filename);
+            }
+        }
+
+        void writeFilename(String filename) throws IOException {
+            int split = filename.lastIndexOf('/') + 1;
+            writeString(filename.substring(0, split));
+            writeString(filename.substring(split));
+        }
+
+        /**
+         * Writes a string as a reference into the dictionary. Zero is null, a number up to the size of the dictionary
+         * refers to a string already written, and the next number is followed by a new string.
+         */
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeVarInt(index + 1);
+                return;
+            }
+            index = dictionary.size();
+            dictionary.put(value, index);
+            writeVarInt(index + 1);
+            writeUtf8(value);
+        }
+
+        void writeUtf8(String value) throws IOException {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            writeVarLong(value);
+        }
+
+        void writeVarLong(long value) throws IOException {
+            if (value < 0) {
+                throw new IllegalArgumentException("Cannot write negative value: " + value);
+            }
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+    }
+
+    /**
+     * Reads the fields of a transaction, tracking the strings that have been read so far.
+     */
+    private static class Reader {
+        private final DataInputStream in;
+        private final List<String> dictionary = new ArrayList<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        StateStoreTransaction<?> readTransaction(
+                TransactionType type, BiFunction<TransactionType, String, StateStoreTransaction<?>> fromJson) throws IOException {
+            byte bodyType = in.readByte();
+            if (bodyType == JSON_BODY) {
+                return fromJson.apply(type, readUtf8());
+            } else if (bodyType != FIELDS_BODY) {
+                throw new IllegalArgumentException("Unrecognised transaction body type: " + bodyType);
+            }
+            switch (type) {
+                case ADD_FILES:
+                    return readAddFiles();
+                case ASSIGN_JOB_IDS:
+                    return readAssignJobIds();
+                case REPLACE_FILE_REFERENCES:
+                    return readReplaceFileReferences();
+                case BATCHED_FILE_REFERENCES:
+                    return readBatch(fromJson);
+                default:
+                    throw new IllegalArgumentException("Transaction type cannot be read from fields: " + type);
+            }
+        }
+
+        AddFilesTransaction readAddFiles() throws IOException {
+            int numFiles = readVarInt();
+            List<AllReferencesToAFile> files = new ArrayList<>(numFiles);
+            for (int i = 0; i < numFiles; i++) {
+                String filename = readFilename();
+                int totalReferenceCount = readVarInt();
+                int numReferences = readVarInt();
+                List<FileReference> references = new ArrayList<>(numReferences);
+                for (int j = 0; j < numReferences; j++) {
+                    references.add(readReferenceExceptFilename(filename));
+                }
+                files.add(AllReferencesToAFile.builder()
+                        .filename(filename)
+                        .totalReferenceCount(totalReferenceCount)
+                        .internalReferences(references)
+                        .build());
+            }
+            return new AddFilesTransaction(files);
+        }
+
+        AssignJobIdsTransaction readAssignJobIds() throws IOException {
+            int numRequests = readVarInt();
+            List<AssignJobIdRequest> requests = new ArrayList<>(numRequests);
+            for (int i = 0; i < numRequests; i++) {
+                String jobId = readString();
+                String partitionId = readString();
+                requests.add(AssignJobIdRequest.assignJobOnPartitionToFiles(jobId, partitionId, readFilenames()));
+            }
+            return new AssignJobIdsTransaction(requests);
+        }
+
+        ReplaceFileReferencesTransaction readReplaceFileReferences() throws IOException {
+            String jobId = readString();
+            String partitionId = readString();
+            List<String> inputFiles = readFilenames();
+            FileReference newReference = readReferenceExceptFilename(readFilename());
+            try {
+                return new ReplaceFileReferencesTransaction(jobId, partitionId, inputFiles, newReference);
+            } catch (StateStoreException e) {
+                throw new IllegalArgumentException("Found invalid transaction", e);
+            }
+        }
+
+        BatchedFileReferencesTransaction readBatch(
+                BiFunction<TransactionType, String, StateStoreTransaction<?>> fromJson) throws IOException {
+            int numTransactions = readVarInt();
+            List<FileReferenceTransaction> transactions = new ArrayList<>(numTransactions);
+            for (int i = 0; i < numTransactions; i++) {
+                TransactionType type = TransactionType.valueOf(readString());
+                StateStoreTransaction<?> transaction = readTransaction(type, fromJson);
+                if (!(transaction instanceof FileReferenceTransaction)) {
+                    throw new IllegalArgumentException("Found transaction of type " + type + " in a batch of file reference transactions");
+                }
+                transactions.add((FileReferenceTransaction) transaction);
+            }
+            return new BatchedFileReferencesTransaction(transactions);
+        }
+
+        FileReference readReferenceExceptFilename(String filename) throws IOException {
+            String partitionId = readString();
+            String jobId = readString();
+            int flags = in.readUnsignedByte();
+            long numberOfRecords = readVarLong();
+            return FileReference.builder()
+                    .filename(filename)
+                    .partitionId(partitionId)
+                    .jobId(jobId)
+                    .numberOfRecords(numberOfRecords)
+                    .countApproximate((flags & COUNT_APPROXIMATE) != 0)
+                    .onlyContainsDataForThisPartition((flags & ONLY_CONTAINS_DATA_FOR_THIS_PARTITION) != 0)
+                    .build();
+        }
+
+        List<String> readFilenames() throws IOException {
+            int numFiles = readVarInt();
+            List<String> filenames = new ArrayList<>(numFiles);
+            for (int i = 0; i < numFiles; i++) {
+                filenames.add(readFilename());
+            }
+            return filenames;
+        }
+
+        String readFilename() throws IOException {
+            String directory = readString();
+            return directory + readString();
+        }
+
+        String readString() throws IOException {
+            int code = readVarInt();
+            if (code == 0) {
+                return null;
+            } else if (code <= dictionary.size()) {
+                return dictionary.get(code - 1);
+            } else if (code == dictionary.size() + 1) {
+                String value = readUtf8();
+                dictionary.add(value);
+                return value;
+            } else {
+                throw new IllegalArgumentException("Invalid string reference " + code + " with dictionary of size " + dictionary.size());
+            }
+        }
+
+        String readUtf8() throws IOException {
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            return new String(bytes, UTF_8);
+        }
+
+        int readVarInt() throws IOException {
+            return Math.toIntExact(readVarLong());
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Variable length number is too long");
+        }
+    }
+}
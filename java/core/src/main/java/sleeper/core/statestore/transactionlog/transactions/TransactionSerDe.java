@@ -17,6 +17,14 @@ package sleeper.core.statestore.transactionlog.transactions;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
 
 import sleeper.core.partition.Partition;
 import sleeper.core.partition.PartitionSerDe.PartitionJsonSerDe;
@@ -24,9 +32,14 @@ import sleeper.core.schema.Schema;
 import sleeper.core.statestore.AllReferencesToAFile;
 import sleeper.core.statestore.AllReferencesToAFileSerDe;
 import sleeper.core.statestore.FileReferenceSerDe;
+import sleeper.core.statestore.transactionlog.FileReferenceTransaction;
 import sleeper.core.statestore.transactionlog.StateStoreTransaction;
 import sleeper.core.util.GsonConfig;
 
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
 public class TransactionSerDe {
     private final Gson gson;
     private final Gson gsonPrettyPrint;
@@ -35,6 +48,7 @@ public class TransactionSerDe {
         GsonBuilder builder = GsonConfig.standardBuilder()
                 .registerTypeAdapter(Partition.class, new PartitionJsonSerDe(schema))
                 .registerTypeAdapter(AllReferencesToAFile.class, AllReferencesToAFileSerDe.noUpdateTimes())
+                .registerTypeAdapter(BatchedFileReferencesTransaction.class, new BatchedTransactionJsonSerDe())
                 .addSerializationExclusionStrategy(FileReferenceSerDe.excludeUpdateTimes())
                 .serializeNulls();
         gson = builder.create();
@@ -52,4 +66,62 @@ public class TransactionSerDe {
     public StateStoreTransaction<?> toTransaction(TransactionType type, String json) {
         return gson.fromJson(json, type.getType());
     }
+
+    /**
+     * Writes a transaction in a compact, compressed binary format. This is smaller than the JSON format, particularly
+     * for transactions involving many files.
+     *
+     * @param  transaction the transaction
+     * @return             the binary body of the transaction
+     */
+    public byte[] toBinary(StateStoreTransaction<?> transaction) {
+        return TransactionBinaryFormat.write(transaction, this::toJson);
+    }
+
+    /**
+     * Reads a transaction from the compact binary format.
+     *
+     * @param  type  the type of the transaction
+     * @param  bytes the binary body of the transaction
+     * @return       the transaction
+     */
+    public StateStoreTransaction<?> toTransaction(TransactionType type, byte[] bytes) {
+        return TransactionBinaryFormat.read(type, bytes, this::toTransaction);
+    }
+
+    /**
+     * Serialises a batch of transactions as a list of transactions, each with its type.
+     */
+    private static class BatchedTransactionJsonSerDe
+            implements JsonSerializer<BatchedFileReferencesTransaction>, JsonDeserializer<BatchedFileReferencesTransaction> {
+
+        @Override
+        public JsonElement serialize(BatchedFileReferencesTransaction batch, Type typeOfSrc, JsonSerializationContext context) {
+            JsonArray transactions = new JsonArray();
+            for (FileReferenceTransaction transaction : batch.getTransactions()) {
+                JsonObject json = new JsonObject();
+                json.addProperty("type", TransactionType.getType(transaction).name());
+                json.add("transaction", context.serialize(transaction));
+                transactions.add(json);
+            }
+            JsonObject json = new JsonObject();
+            json.add("transactions", transactions);
+            return json;
+        }
+
+        @Override
+        public BatchedFileReferencesTransaction deserialize(JsonElement jsonElement, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            JsonArray transactionsJson = jsonElement.getAsJsonObject().getAsJsonArray("transactions");
+            List<FileReferenceTransaction> transactions = new ArrayList<>(transactionsJson.size());
+            for (JsonElement element : transactionsJson) {
+                JsonObject json = element.getAsJsonObject();
+                TransactionType type = TransactionType.valueOf(json.get("type").getAsString());
+                if (!FileReferenceTransaction.class.isAssignableFrom(type.getType())) {
+                    throw new JsonParseException("Found transaction of type " + type + " in a batch of file reference transactions");
+                }
+                transactions.add(context.deserialize(json.get("transaction"), type.getType()));
+            }
+            return new BatchedFileReferencesTransaction(transactions);
+        }
+    }
 }
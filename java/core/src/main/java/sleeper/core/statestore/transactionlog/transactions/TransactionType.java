@@ -21,10 +21,12 @@ public enum TransactionType {
 
     ADD_FILES(AddFilesTransaction.class),
     ASSIGN_JOB_IDS(AssignJobIdsTransaction.class),
+    BATCHED_FILE_REFERENCES(BatchedFileReferencesTransaction.class),
     CLEAR_FILES(ClearFilesTransaction.class),
     DELETE_FILES(DeleteFilesTransaction.class),
     INITIALISE_PARTITIONS(InitialisePartitionsTransaction.class),
     REPLACE_FILE_REFERENCES(ReplaceFileReferencesTransaction.class),
+    REPLACE_FILE_REFERENCES_WITH_NEW_ONES(ReplaceFileReferencesWithNewOnesTransaction.class),
     SPLIT_FILE_REFERENCES(SplitFileReferencesTransaction.class),
     SPLIT_PARTITION(SplitPartitionTransaction.class);
 
@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -339,4 +340,52 @@ public class MergingIteratorTest {
                 record1, record2, record3);
         assertThat(mergingIterator.getNumberOfRecordsRead()).isEqualTo(3L);
     }
+
+    @Test
+    public void shouldMergeManyIterablesWithRunsAndEqualKeys() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new IntType()))
+                .valueFields(new Field("value", new IntType()))
+                .build();
+        List<CloseableIterator<Record>> iterators = new ArrayList<>();
+        List<Record> expected = new ArrayList<>();
+        for (int input = 0; input < 5; input++) {
+            List<Record> list = new ArrayList<>();
+            for (int key = input * 10; key < input * 10 + 10; key++) {
+                list.add(new Record(Map.of("key", key, "value", input)));
+            }
+            list.add(new Record(Map.of("key", 100, "value", input)));
+            iterators.add(new WrappedIterator<>(list.iterator()));
+            expected.addAll(list.subList(0, 10));
+        }
+        for (int input = 0; input < 5; input++) {
+            expected.add(new Record(Map.of("key", 100, "value", input)));
+        }
+
+        // When
+        MergingIterator mergingIterator = new MergingIterator(schema, iterators);
+
+        // Then
+        assertThat(mergingIterator).toIterable().containsExactlyElementsOf(expected);
+        assertThat(mergingIterator.getNumberOfRecordsRead()).isEqualTo(55L);
+    }
+
+    @Test
+    public void shouldMergeSingleIterable() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new IntType()))
+                .build();
+        List<Record> list = List.of(
+                new Record(Map.of("key", 1)),
+                new Record(Map.of("key", 2)));
+
+        // When
+        MergingIterator mergingIterator = new MergingIterator(schema,
+                List.of(new WrappedIterator<>(list.iterator())));
+
+        // Then
+        assertThat(mergingIterator).toIterable().containsExactlyElementsOf(list);
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConcurrentMappingIteratorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldReturnResultsInOrderOfSource() throws Exception {
+        // Given
+        CountingIterator source = new CountingIterator(100);
+
+        // When
+        List<Integer> read = new ArrayList<>();
+        try (ConcurrentMappingIterator<Integer, Integer> iterator = new ConcurrentMappingIterator<>(
+                source, i -> {
+                    // Later elements finish first
+                    sleep(i % 4 == 0 ? 5 : 0);
+                    return i * 2;
+                }, executor, 4)) {
+            iterator.forEachRemaining(read::add);
+        }
+
+        // Then
+        assertThat(read).isEqualTo(IntStream.range(0, 100).map(i -> i * 2).boxed().collect(Collectors.toList()));
+        assertThat(source.closed).isTrue();
+    }
+
+    @Test
+    void shouldApplyFunctionConcurrently() throws Exception {
+        // Given
+        CountDownLatch allStarted = new CountDownLatch(3);
+        ConcurrentMappingIterator<Integer, Boolean> iterator = new ConcurrentMappingIterator<>(
+                new CountingIterator(3), i -> {
+                    allStarted.countDown();
+                    return await(allStarted);
+                }, executor, 3);
+
+        // When / Then
+        assertThat(iterator.next()).isTrue();
+        iterator.close();
+    }
+
+    @Test
+    void shouldLimitElementsInFlight() throws Exception {
+        // Given
+        CountingIterator source = new CountingIterator(100);
+        ConcurrentMappingIterator<Integer, Integer> iterator = new ConcurrentMappingIterator<>(
+                source, i -> i, executor, 3);
+
+        // When
+        int first = iterator.next();
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(source.numRead).isEqualTo(4);
+        iterator.close();
+    }
+
+    @Test
+    void shouldReadNothingFromEmptySource() throws Exception {
+        // Given
+        CountingIterator source = new CountingIterator(0);
+
+        // When / Then
+        try (ConcurrentMappingIterator<Integer, Integer> iterator = new ConcurrentMappingIterator<>(
+                source, i -> i, executor, 3)) {
+            assertThat(iterator.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    void shouldPropagateFailureApplyingFunction() throws Exception {
+        // Given
+        ConcurrentMappingIterator<Integer, Integer> iterator = new ConcurrentMappingIterator<>(
+                new CountingIterator(10), i -> {
+                    if (i == 1) {
+                        throw new IllegalStateException("Failed on element " + i);
+                    }
+                    return i;
+                }, executor, 3);
+
+        // When / Then
+        assertThat(iterator.next()).isZero();
+        assertThatThrownBy(iterator::next)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Failed on element 1");
+        iterator.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A source of consecutive integers which tracks how many have been read.
+     */
+    private static class CountingIterator implements CloseableIterator<Integer> {
+        private final int size;
+        private int numRead;
+        private boolean closed;
+
+        CountingIterator(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return numRead < size;
+        }
+
+        @Override
+        public Integer next() {
+            return numRead++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
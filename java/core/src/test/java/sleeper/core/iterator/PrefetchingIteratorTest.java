@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PrefetchingIteratorTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldReadAllElementsInOrder() throws Exception {
+        // Given
+        CountingIterator source = new CountingIterator(2500);
+
+        // When
+        List<Integer> read = new ArrayList<>();
+        try (PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(() -> source, executor, 100, 3)) {
+            iterator.forEachRemaining(read::add);
+        }
+
+        // Then
+        assertThat(read).isEqualTo(IntStream.range(0, 2500).boxed().collect(Collectors.toList()));
+        assertThat(source.closed).isTrue();
+    }
+
+    @Test
+    void shouldStopReadingAheadWhenQueueIsFull() throws Exception {
+        // Given
+        CountingIterator source = new CountingIterator(100);
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(() -> source, executor, 10, 2);
+
+        // When / Then
+        waitForBackgroundReads();
+        assertThat(source.numRead).isEqualTo(20);
+        assertThat(iterator.next()).isEqualTo(0);
+        waitForBackgroundReads();
+        assertThat(source.numRead).isEqualTo(30);
+        iterator.close();
+    }
+
+    @Test
+    void shouldReadNothingFromEmptySource() throws Exception {
+        // Given
+        CountingIterator source = new CountingIterator(0);
+
+        // When / Then
+        try (PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(() -> source, executor, 10, 2)) {
+            assertThat(iterator.hasNext()).isFalse();
+        }
+    }
+
+    @Test
+    void shouldPropagateFailureOpeningSource() {
+        // Given
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(() -> {
+            throw new IOException("Failed opening");
+        }, executor, 10, 2);
+
+        // When / Then
+        assertThatThrownBy(iterator::hasNext)
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("Failed opening");
+    }
+
+    @Test
+    void shouldSplitReadAheadLimitIntoBatches() throws Exception {
+        // Given
+        CountingIterator source = new CountingIterator(10_000);
+
+        // When
+        PrefetchingIterator<Integer> iterator = PrefetchingIterator.readAhead(() -> source, executor, 4000);
+        waitForBackgroundReads();
+
+        // Then
+        assertThat(source.numRead).isEqualTo(4000);
+        iterator.close();
+    }
+
+    private void waitForBackgroundReads() throws Exception {
+        // The executor has a single thread, so this waits for any read that was already submitted
+        executor.submit(() -> {
+        }).get();
+    }
+
+    /**
+     * A source of consecutive integers which tracks how many have been read.
+     */
+    private static class CountingIterator implements CloseableIterator<Integer> {
+        private final int size;
+        private int numRead;
+        private boolean closed;
+
+        CountingIterator(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return numRead < size;
+        }
+
+        @Override
+        public Integer next() {
+            return numRead++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
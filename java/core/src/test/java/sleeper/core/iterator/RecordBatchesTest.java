@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.iterator.impl.SecurityFilteringIterator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.StringType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecordBatchesTest {
+
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new StringType()))
+            .valueFields(new Field("label", new StringType()))
+            .build();
+
+    @Test
+    void shouldSplitRecordsIntoBatches() {
+        // Given
+        List<Record> records = List.of(
+                new Record(Map.of("key", "a")),
+                new Record(Map.of("key", "b")),
+                new Record(Map.of("key", "c")));
+
+        // When
+        List<List<Record>> batches = new ArrayList<>();
+        CloseableIterator<RecordBatch> iterator = RecordBatches.batch(new WrappedIterator<>(records.iterator()), 2);
+        while (iterator.hasNext()) {
+            batches.add(iterator.next().toList());
+        }
+
+        // Then
+        assertThat(batches).containsExactly(
+                List.of(records.get(0), records.get(1)),
+                List.of(records.get(2)));
+    }
+
+    @Test
+    void shouldChainBatchedIteratorWithRecordAtATimeIterator() {
+        // Given
+        List<Record> records = List.of(
+                new Record(Map.of("key", "a", "label", "public")),
+                new Record(Map.of("key", "b", "label", "secret")),
+                new Record(Map.of("key", "c", "label", "public")));
+        SortedRecordIterator filter = new SecurityFilteringIterator();
+        filter.init("label,public", schema);
+        SortedRecordIterator upperCase = new UpperCaseKeyIterator();
+
+        // When
+        Iterator<Record> output = RecordBatches.applyIterators(List.of(filter, upperCase),
+                new WrappedIterator<>(records.iterator()));
+
+        // Then
+        assertThat(output).toIterable().containsExactly(
+                new Record(Map.of("key", "A", "label", "public")),
+                new Record(Map.of("key", "C", "label", "public")));
+    }
+
+    @Test
+    void shouldApplyRecordAtATimeIteratorDirectlyWhenNoneAreBatched() {
+        // Given
+        List<Record> records = List.of(new Record(Map.of("key", "a", "label", "public")));
+        SortedRecordIterator upperCase = new UpperCaseKeyIterator();
+
+        // When
+        Iterator<Record> output = RecordBatches.applyIterator(upperCase, new WrappedIterator<>(records.iterator()));
+
+        // Then
+        assertThat(output).isInstanceOf(WrappedIterator.class);
+        assertThat(output).toIterable().containsExactly(
+                new Record(Map.of("key", "A", "label", "public")));
+    }
+
+    /**
+     * A test iterator which only supports applying one record at a time.
+     */
+    private static class UpperCaseKeyIterator implements SortedRecordIterator {
+
+        @Override
+        public void init(String configString, Schema schema) {
+        }
+
+        @Override
+        public List<String> getRequiredValueFields() {
+            return List.of();
+        }
+
+        @Override
+        public CloseableIterator<Record> apply(CloseableIterator<Record> input) {
+            List<Record> output = new ArrayList<>();
+            input.forEachRemaining(record -> {
+                Record copy = new Record(record);
+                copy.put("key", ((String) record.get("key")).toUpperCase());
+                output.add(copy);
+            });
+            return new WrappedIterator<>(output.iterator());
+        }
+    }
+}
@@ -17,6 +17,7 @@ package sleeper.core.iterator.impl;
 
 import org.junit.jupiter.api.Test;
 
+import sleeper.core.iterator.RecordBatches;
 import sleeper.core.iterator.WrappedIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Field;
@@ -83,6 +84,32 @@ public class AdditionIteratorTest {
                 expectedRecord1, expectedRecord2, expectedRecord3);
     }
 
+    @Test
+    public void shouldAddValuesAcrossBatches() {
+        // Given
+        List<Record> records = getData2();
+        AdditionIterator additionIterator = new AdditionIterator();
+        additionIterator.init("", getSchema2());
+
+        // When
+        Iterator<Record> filtered = RecordBatches.unbatch(additionIterator.applyBatched(
+                RecordBatches.batch(new WrappedIterator<>(records.iterator()), 2)));
+
+        // Then
+        Record expectedRecord1 = new Record();
+        expectedRecord1.put("id", new byte[]{1});
+        expectedRecord1.put("count", 6L);
+        Record expectedRecord2 = new Record();
+        expectedRecord2.put("id", new byte[]{2, 2});
+        expectedRecord2.put("count", 10L);
+        Record expectedRecord3 = new Record();
+        expectedRecord3.put("id", new byte[]{3, 1, 1});
+        expectedRecord3.put("count", 1100L);
+        assertThat(filtered).toIterable().containsExactly(
+                expectedRecord1, expectedRecord2, expectedRecord3);
+        assertThat(records.get(0).get("count")).isEqualTo(1L);
+    }
+
     private static Schema getSchema1() {
         return Schema.builder()
                 .rowKeyFields(new Field("id", new StringType()))
@@ -17,6 +17,7 @@ package sleeper.core.iterator.impl;
 
 import org.junit.jupiter.api.Test;
 
+import sleeper.core.iterator.RecordBatches;
 import sleeper.core.iterator.WrappedIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Field;
@@ -48,6 +49,22 @@ public class AgeOffIteratorTest {
                 .containsExactly(records.get(1), records.get(4));
     }
 
+    @Test
+    public void shouldAgeOffInBatches() {
+        // Given
+        List<Record> records = getData();
+        AgeOffIterator ageOffIterator = new AgeOffIterator();
+        ageOffIterator.init("timestamp,1000000", getSchema());
+
+        // When
+        Iterator<Record> filtered = RecordBatches.unbatch(ageOffIterator.applyBatched(
+                RecordBatches.batch(new WrappedIterator<>(records.iterator()), 2)));
+
+        // Then
+        assertThat(filtered).toIterable()
+                .containsExactly(records.get(1), records.get(4));
+    }
+
     private static Schema getSchema() {
         return Schema.builder()
                 .rowKeyFields(new Field("id", new StringType()))
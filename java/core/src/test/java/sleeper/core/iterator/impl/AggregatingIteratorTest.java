@@ -0,0 +1,236 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.iterator.impl;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.MergingIterator;
+import sleeper.core.iterator.RecordBatches;
+import sleeper.core.iterator.WrappedIterator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AggregatingIteratorTest {
+
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new StringType()))
+            .sortKeyFields(new Field("sort", new IntType()))
+            .valueFields(
+                    new Field("total", new LongType()),
+                    new Field("smallest", new IntType()),
+                    new Field("name", new StringType()),
+                    new Field("events", new LongType()))
+            .build();
+    private final String config = "total=sum,smallest=min,name=any,events=count";
+
+    @Test
+    void shouldAggregateRecordsWithSameKey() {
+        // Given
+        List<Record> records = List.of(
+                record("a", 1, 10L, 5, "x"),
+                record("a", 1, 20L, 3, "x"),
+                record("a", 2, 1L, 1, "y"),
+                record("b", 1, 2L, 7, "z"),
+                record("b", 1, 3L, 9, "z"));
+        AggregatingIterator iterator = new AggregatingIterator();
+        iterator.init(config, schema);
+
+        // When
+        Iterator<Record> output = iterator.apply(new WrappedIterator<>(records.iterator()));
+
+        // Then
+        assertThat(output).toIterable().containsExactly(
+                record("a", 1, 30L, 3, "x", 2L),
+                records.get(2),
+                record("b", 1, 5L, 7, "z", 2L));
+    }
+
+    @Test
+    void shouldAggregateGroupsSpanningBatches() {
+        // Given
+        List<Record> records = List.of(
+                record("a", 1, 1L, 1, "x"),
+                record("a", 1, 2L, 1, "x"),
+                record("a", 1, 3L, 1, "x"),
+                record("b", 1, 4L, 1, "x"),
+                record("b", 1, 5L, 1, "x"));
+        AggregatingIterator iterator = new AggregatingIterator();
+        iterator.init(config, schema);
+
+        // When
+        Iterator<Record> output = RecordBatches.unbatch(iterator.applyBatched(
+                RecordBatches.batch(new WrappedIterator<>(records.iterator()), 2)));
+
+        // Then
+        assertThat(output).toIterable().containsExactly(
+                record("a", 1, 6L, 1, "x", 3L),
+                record("b", 1, 9L, 1, "x", 2L));
+    }
+
+    @Test
+    void shouldCarryForwardCountsFromEarlierAggregation() {
+        // Given
+        List<Record> records = List.of(
+                record("a", 1, 1L, 1, "x", 3L),
+                record("a", 1, 1L, 1, "x", 4L),
+                record("a", 1, 1L, 1, "x"));
+        AggregatingIterator iterator = new AggregatingIterator();
+        iterator.init(config, schema);
+
+        // When
+        Iterator<Record> output = iterator.apply(new WrappedIterator<>(records.iterator()));
+
+        // Then
+        assertThat(output).toIterable().containsExactly(
+                record("a", 1, 3L, 1, "x", 8L));
+    }
+
+    @Test
+    void shouldNotModifyInputRecords() {
+        // Given
+        List<Record> records = List.of(
+                record("a", 1, 1L, 1, "x"),
+                record("a", 1, 2L, 1, "x"));
+        AggregatingIterator iterator = new AggregatingIterator();
+        iterator.init(config, schema);
+
+        // When
+        Iterator<Record> output = iterator.apply(new WrappedIterator<>(records.iterator()));
+
+        // Then
+        assertThat(output).toIterable().containsExactly(record("a", 1, 3L, 1, "x", 2L));
+        assertThat(records).containsExactly(
+                record("a", 1, 1L, 1, "x"),
+                record("a", 1, 2L, 1, "x"));
+    }
+
+    @Test
+    void shouldMergeMaps() {
+        // Given
+        Schema mapSchema = Schema.builder()
+                .rowKeyFields(new Field("key", new StringType()))
+                .valueFields(new Field("counts", new MapType(new StringType(), new LongType())))
+                .build();
+        List<Record> records = List.of(
+                new Record(Map.of("key", "a", "counts", Map.of("x", 1L, "y", 2L))),
+                new Record(Map.of("key", "a", "counts", Map.of("y", 3L, "z", 4L))));
+        AggregatingIterator iterator = new AggregatingIterator();
+        iterator.init("counts=map_merge", mapSchema);
+
+        // When
+        Iterator<Record> output = iterator.apply(new WrappedIterator<>(records.iterator()));
+
+        // Then
+        assertThat(output).toIterable().containsExactly(
+                new Record(Map.of("key", "a", "counts", Map.of("x", 1L, "y", 5L, "z", 4L))));
+    }
+
+    @Test
+    void shouldTakeValueFromAnyInputWhenMergingFiles() {
+        // Given
+        List<CloseableIterator<Record>> inputs = List.of(
+                new WrappedIterator<>(List.of(record("a", 1, 1L, 1, "from-first")).iterator()),
+                new WrappedIterator<>(List.of(record("a", 1, 1L, 1, "from-second")).iterator()));
+        AggregatingIterator iterator = new AggregatingIterator();
+        iterator.init(config, schema);
+
+        // When
+        Iterator<Record> output = iterator.apply(new MergingIterator(schema, inputs));
+
+        // Then
+        assertThat(output).toIterable()
+                .extracting(record -> record.get("name"))
+                .singleElement().isIn("from-first", "from-second");
+    }
+
+    @Test
+    void shouldFailWhenSumOverflowsIntField() {
+        // Given
+        Schema intSchema = Schema.builder()
+                .rowKeyFields(new Field("key", new StringType()))
+                .valueFields(new Field("total", new IntType()))
+                .build();
+        List<Record> records = List.of(
+                new Record(Map.of("key", "a", "total", Integer.MAX_VALUE)),
+                new Record(Map.of("key", "a", "total", 1)));
+        AggregatingIterator iterator = new AggregatingIterator();
+        iterator.init("total=sum", intSchema);
+
+        // When
+        Iterator<Record> output = iterator.apply(new WrappedIterator<>(records.iterator()));
+
+        // Then
+        assertThatThrownBy(output::next)
+                .isInstanceOf(ArithmeticException.class)
+                .hasMessage("Sum of int field total overflows an int: 2147483648");
+    }
+
+    @Test
+    void shouldRefuseConfigWithMissingValueField() {
+        AggregatingIterator iterator = new AggregatingIterator();
+
+        assertThatThrownBy(() -> iterator.init("total=sum,smallest=min,name=any", schema))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No aggregation operation set for value field events");
+    }
+
+    @Test
+    void shouldRefuseOperationForWrongFieldType() {
+        AggregatingIterator iterator = new AggregatingIterator();
+
+        assertThatThrownBy(() -> iterator.init("total=sum,smallest=min,name=sum,events=count", schema))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("name");
+    }
+
+    @Test
+    void shouldRefuseUnknownOperation() {
+        AggregatingIterator iterator = new AggregatingIterator();
+
+        assertThatThrownBy(() -> iterator.init("total=average,smallest=min,name=any,events=count", schema))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unrecognised aggregation operation: average");
+    }
+
+    private static Record record(String key, int sort, long total, int smallest, String name) {
+        Record record = new Record();
+        record.put("key", key);
+        record.put("sort", sort);
+        record.put("total", total);
+        record.put("smallest", smallest);
+        record.put("name", name);
+        return record;
+    }
+
+    private static Record record(String key, int sort, long total, int smallest, String name, long events) {
+        Record record = record(key, sort, total, smallest, name);
+        record.put("events", events);
+        return record;
+    }
+}
@@ -17,6 +17,7 @@ package sleeper.core.iterator.impl;
 
 import org.junit.jupiter.api.Test;
 
+import sleeper.core.iterator.RecordBatches;
 import sleeper.core.iterator.WrappedIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Field;
@@ -64,6 +65,22 @@ public class SecurityFilteringIteratorTest {
                 .containsExactly(records.get(2));
     }
 
+    @Test
+    public void shouldFilterInBatches() {
+        // Given
+        List<Record> records = getData();
+        SecurityFilteringIterator securityFilteringIterator = new SecurityFilteringIterator();
+        securityFilteringIterator.init("securityLabel,public", getSchema());
+
+        // When
+        Iterator<Record> filtered = RecordBatches.unbatch(securityFilteringIterator.applyBatched(
+                RecordBatches.batch(new WrappedIterator<>(records.iterator()), 1)));
+
+        // Then
+        assertThat(filtered).toIterable()
+                .containsExactly(records.get(0), records.get(2));
+    }
+
     private static Schema getSchema() {
         return Schema.builder()
                 .rowKeyFields(new Field("field1", new StringType()))
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.key;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.record.KeyComparator;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.PrimitiveType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class KeyEncoderTest {
+
+    private final List<PrimitiveType> types = List.of(new IntType(), new LongType(), new StringType(), new ByteArrayType());
+    private final KeyEncoder encoder = new KeyEncoder(types);
+
+    @Test
+    void shouldEncodeAndDecodeKey() {
+        // Given
+        Key key = Key.create(Arrays.asList(-1, Long.MAX_VALUE, "a\u0000b", new byte[]{0, 1, (byte) 0xFF}));
+
+        // When
+        byte[] encoded = encoder.encode(key);
+
+        // Then
+        assertThat(encoder.decode(encoded)).isEqualTo(key);
+    }
+
+    @Test
+    void shouldEncodeAndDecodeNullValues() {
+        // Given
+        Key key = Key.create(Arrays.asList(null, 1L, null, null));
+
+        // When
+        byte[] encoded = encoder.encode(key);
+
+        // Then
+        assertThat(encoder.decode(encoded)).isEqualTo(key);
+    }
+
+    @Test
+    void shouldEncodeAndDecodeValuesWithManyZeroBytes() {
+        for (int length = 0; length <= 80; length++) {
+            // Given
+            byte[] leadingZeroes = new byte[length];
+            Arrays.fill(leadingZeroes, (byte) 1);
+            Arrays.fill(leadingZeroes, 0, Math.min(3, length), (byte) 0);
+            byte[] allZeroes = new byte[length];
+            String nulChars = "\u0000".repeat(length);
+            Key key1 = Key.create(Arrays.asList(1, 2L, nulChars, leadingZeroes));
+            Key key2 = Key.create(Arrays.asList(1, 2L, "a" + nulChars, allZeroes));
+
+            // When
+            byte[] encoded1 = encoder.encode(key1);
+            byte[] encoded2 = encoder.encode(key2);
+
+            // Then
+            assertThat(encoder.decode(encoded1)).describedAs("length %s", length).isEqualTo(key1);
+            assertThat(encoder.decode(encoded2)).describedAs("length %s", length).isEqualTo(key2);
+        }
+    }
+
+    @Test
+    void shouldEncodeByteArrayWithLeadingZeroesNearBufferSize() {
+        // Given
+        KeyEncoder bytesEncoder = new KeyEncoder(List.of(new ByteArrayType()));
+        byte[] value = new byte[29];
+        Arrays.fill(value, 3, value.length, (byte) 1);
+        Key key = Key.create(value);
+
+        // When
+        byte[] encoded = bytesEncoder.encode(key);
+
+        // Then
+        assertThat(encoded).hasSize(1 + value.length + 3 + 2);
+        assertThat(bytesEncoder.decode(encoded)).isEqualTo(key);
+    }
+
+    @Test
+    void shouldOrderEncodedKeysInSameOrderAsKeyComparator() {
+        // Given
+        KeyComparator comparator = new KeyComparator(types);
+        Random random = new Random(0);
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(Key.create(Arrays.asList(
+                    random.nextInt(5) == 0 ? null : random.nextInt(5) - 2,
+                    random.nextInt(5) == 0 ? null : (long) random.nextInt(5) - 2,
+                    random.nextInt(5) == 0 ? null : randomString(random),
+                    random.nextInt(5) == 0 ? null : randomBytes(random))));
+        }
+
+        // When / Then
+        for (Key key1 : keys) {
+            for (Key key2 : keys.subList(0, 50)) {
+                assertThat(Integer.signum(KeyEncoder.compare(encoder.encode(key1), encoder.encode(key2))))
+                        .describedAs("compare %s to %s", key1, key2)
+                        .isEqualTo(Integer.signum(comparator.compare(key1, key2)));
+            }
+        }
+    }
+
+    @Test
+    void shouldOrderExtremeNumbers() {
+        KeyEncoder longEncoder = new KeyEncoder(List.of(new LongType()));
+
+        assertThat(KeyEncoder.compare(
+                longEncoder.encode(Key.create(Long.MIN_VALUE)),
+                longEncoder.encode(Key.create(-1L)))).isNegative();
+        assertThat(KeyEncoder.compare(
+                longEncoder.encode(Key.create(-1L)),
+                longEncoder.encode(Key.create(0L)))).isNegative();
+        assertThat(KeyEncoder.compare(
+                longEncoder.encode(Key.create(Long.MAX_VALUE)),
+                longEncoder.encode(Key.create(null)))).isNegative();
+    }
+
+    @Test
+    void shouldOrderPrefixOfStringBeforeLongerString() {
+        KeyEncoder stringEncoder = new KeyEncoder(List.of(new StringType(), new LongType()));
+
+        assertThat(KeyEncoder.compare(
+                stringEncoder.encode(Key.create(List.of("a", Long.MAX_VALUE))),
+                stringEncoder.encode(Key.create(List.of("a\u0000", Long.MIN_VALUE))))).isNegative();
+        assertThat(KeyEncoder.compare(
+                stringEncoder.encode(Key.create(List.of("a"))),
+                stringEncoder.encode(Key.create(List.of("a", Long.MIN_VALUE))))).isNegative();
+    }
+
+    @Test
+    void shouldEncodeRowAndSortKeysOfRecord() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new StringType()))
+                .sortKeyFields(new Field("sort", new LongType()))
+                .valueFields(new Field("value", new IntType()))
+                .build();
+        KeyEncoder recordEncoder = KeyEncoder.forRowAndSortKeys(schema);
+        Record record = new Record(Map.of("key", "a", "sort", 1L, "value", 2));
+
+        // When
+        byte[] encoded = recordEncoder.encode(record);
+
+        // Then
+        assertThat(recordEncoder.decode(encoded)).isEqualTo(Key.create(List.of("a", 1L)));
+    }
+
+    @Test
+    void shouldComparePrefixesInSameOrderAsKeys() {
+        KeyEncoder longEncoder = new KeyEncoder(List.of(new LongType()));
+        long prefix1 = KeyEncoder.prefix(longEncoder.encode(Key.create(-5L)));
+        long prefix2 = KeyEncoder.prefix(longEncoder.encode(Key.create(3L)));
+
+        assertThat(Long.compareUnsigned(prefix1, prefix2)).isNegative();
+    }
+
+    @Test
+    void shouldRefuseKeyWithTooManyValues() {
+        KeyEncoder longEncoder = new KeyEncoder(List.of(new LongType()));
+
+        assertThatThrownBy(() -> longEncoder.encode(Key.create(List.of(1L, 2L))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String randomString(Random random) {
+        char[] chars = new char[random.nextInt(4)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) random.nextInt(3);
+        }
+        return new String(chars);
+    }
+
+    private static byte[] randomBytes(Random random) {
+        byte[] bytes = new byte[random.nextInt(4)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (random.nextInt(3) - 1);
+        }
+        return bytes;
+    }
+}
@@ -23,6 +23,7 @@ import sleeper.core.range.Region;
 import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,6 +31,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class PartitionTreeTest {
     private static final String ROOT = "root";
@@ -454,4 +456,106 @@ public class PartitionTreeTest {
         assertThat(partition.isRowKeyInPartition(schema, Key.create(Long.MIN_VALUE))).isTrue();
         assertThat(partition).isEqualTo(l3LeftOfL2LoL1L);
     }
+
+    @Test
+    public void shouldFindLeafPartitionsForManyKeysWithIndex() {
+        // Given
+        Schema schema = Schema.builder().rowKeyFields(new Field("id", new LongType())).build();
+        List<Object> splitPoints = new ArrayList<>();
+        for (long i = -500; i < 500; i += 10) {
+            splitPoints.add(i);
+        }
+        PartitionTree partitionTree = PartitionsFromSplitPoints.treeFrom(schema, splitPoints);
+        List<Key> keys = new ArrayList<>();
+        for (long i = -600; i < 600; i += 3) {
+            keys.add(Key.create(i));
+        }
+
+        // When
+        Partition[] leafPartitions = new Partition[keys.size()];
+        partitionTree.getLeafPartitions(schema, keys, leafPartitions);
+
+        // Then
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get(i);
+            assertThat(leafPartitions[i].isLeafPartition()).isTrue();
+            assertThat(leafPartitions[i].isRowKeyInPartition(schema, key)).isTrue();
+            assertThat(partitionTree.getLeafPartition(schema, key)).isEqualTo(leafPartitions[i]);
+        }
+    }
+
+    @Test
+    public void shouldRefuseKeyWithWrongNumberOfRowKeysWhenFindingLeafPartitionsForManyKeys() {
+        // Given
+        Schema schema = Schema.builder().rowKeyFields(new Field("id", new LongType())).build();
+        PartitionTree partitionTree = new PartitionsBuilder(schema)
+                .rootFirst("root")
+                .splitToNewChildren("root", "L", "R", 10L)
+                .buildTree();
+        List<Key> keys = List.of(Key.create(1L), Key.create(List.of(11L, 2L)));
+        Partition[] leafPartitions = new Partition[keys.size()];
+
+        // When / Then
+        assertThatThrownBy(() -> partitionTree.getLeafPartitions(schema, keys, leafPartitions))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Key must match the row key fields from the schema");
+    }
+
+    @Test
+    public void shouldFindLeafPartitionInTreeSplitOnSecondDimension() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key1", new LongType()), new Field("key2", new StringType()))
+                .build();
+        PartitionTree partitionTree = new PartitionsBuilder(schema)
+                .rootFirst("root")
+                .splitToNewChildren("root", "L", "R", 10L)
+                .splitToNewChildrenOnDimension("L", "LL", "LR", 1, "m")
+                .buildTree();
+
+        // When / Then
+        assertThat(partitionTree.getLeafPartition(schema, Key.create(List.of(5L, "a"))).getId()).isEqualTo("LL");
+        assertThat(partitionTree.getLeafPartition(schema, Key.create(List.of(5L, "m"))).getId()).isEqualTo("LR");
+        assertThat(partitionTree.getLeafPartition(schema, Key.create(List.of(10L, "a"))).getId()).isEqualTo("R");
+    }
+
+    @Test
+    public void shouldFindLeafPartitionForKeyWithValuesAfterRowKeys() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("id", new LongType()))
+                .sortKeyFields(new Field("sort", new StringType()))
+                .build();
+        PartitionTree partitionTree = new PartitionsBuilder(schema)
+                .rootFirst("root")
+                .splitToNewChildren("root", "L", "R", 10L)
+                .buildTree();
+
+        // When / Then
+        assertThat(partitionTree.getLeafPartitionForKeyPrefix(schema, Key.create(List.of(11L, "a"))).getId()).isEqualTo("R");
+    }
+
+    @Test
+    public void shouldFindLeafPartitionsUnderPartition() {
+        // Given
+        Schema schema = Schema.builder().rowKeyFields(new Field("id", new LongType())).build();
+        PartitionTree partitionTree = new PartitionsBuilder(schema)
+                .rootFirst("root")
+                .splitToNewChildren("root", "L", "R", 10L)
+                .splitToNewChildren("L", "LL", "LR", 5L)
+                .splitToNewChildren("R", "RL", "RR", 20L)
+                .splitToNewChildren("RR", "RRL", "RRR", 30L)
+                .buildTree();
+
+        // When / Then
+        assertThat(partitionTree.getLeafPartitionsUnder("R"))
+                .extracting(Partition::getId)
+                .containsExactly("RL", "RRL", "RRR");
+        assertThat(partitionTree.getLeafPartitionsUnder("root"))
+                .extracting(Partition::getId)
+                .containsExactly("LL", "LR", "RL", "RRL", "RRR");
+        assertThat(partitionTree.getLeafPartitionsUnder("LL"))
+                .extracting(Partition::getId)
+                .containsExactly("LL");
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IndexedRecordTest {
+
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new LongType()))
+            .sortKeyFields(new Field("sort", new StringType()))
+            .valueFields(
+                    new Field("count", new IntType()),
+                    new Field("bytes", new ByteArrayType()),
+                    new Field("list", new ListType(new StringType())))
+            .build();
+    private final RecordLayout layout = new RecordLayout(schema);
+
+    @Test
+    void shouldConvertToAndFromRecord() {
+        // Given
+        Record record = new Record(Map.of(
+                "key", 1L,
+                "sort", "a",
+                "count", 2,
+                "bytes", new byte[]{1, 2},
+                "list", List.of("x", "y")));
+
+        // When
+        IndexedRecord indexed = IndexedRecord.from(layout, record);
+
+        // Then
+        assertThat(indexed.getLong(0)).isEqualTo(1L);
+        assertThat(indexed.getObject(1)).isEqualTo("a");
+        assertThat(indexed.getInt(2)).isEqualTo(2);
+        assertThat(indexed.get("bytes")).isEqualTo(new byte[]{1, 2});
+        assertThat(indexed.get("list")).isEqualTo(List.of("x", "y"));
+        assertThat(indexed.toRecord()).isEqualTo(record);
+    }
+
+    @Test
+    void shouldLeaveUnsetFieldsOutOfRecord() {
+        // Given
+        IndexedRecord indexed = new IndexedRecord(layout);
+        indexed.put("key", 1L);
+        indexed.put("count", 2);
+
+        // When / Then
+        assertThat(indexed.isSet(layout.getIndex("sort"))).isFalse();
+        assertThat(indexed.get("sort")).isNull();
+        assertThat(indexed.toRecord()).isEqualTo(new Record(Map.of("key", 1L, "count", 2)));
+    }
+
+    @Test
+    void shouldClearForReuse() {
+        // Given
+        IndexedRecord indexed = new IndexedRecord(layout);
+        indexed.setLong(0, 1L);
+        indexed.setObject(1, "a");
+
+        // When
+        indexed.clear();
+
+        // Then
+        assertThat(indexed.toRecord()).isEqualTo(new Record());
+    }
+
+    @Test
+    void shouldLoadOnlyKeysFromRecord() {
+        // Given
+        Record record = new Record(Map.of("key", 1L, "sort", "a", "count", 2));
+        IndexedRecord indexed = new IndexedRecord(layout);
+
+        // When
+        indexed.loadKeysFrom(record);
+
+        // Then
+        assertThat(indexed.toRecord()).isEqualTo(new Record(Map.of("key", 1L, "sort", "a")));
+    }
+
+    @Test
+    void shouldCopyFromRecordWithSameLayout() {
+        // Given
+        IndexedRecord original = IndexedRecord.from(layout, new Record(Map.of("key", 1L, "bytes", new byte[]{3})));
+        IndexedRecord copy = new IndexedRecord(new RecordLayout(schema));
+
+        // When
+        copy.copyFrom(original);
+
+        // Then
+        assertThat(copy).isEqualTo(original);
+        assertThat(copy).hasSameHashCodeAs(original);
+    }
+
+    @Test
+    void shouldRefuseFieldNotInSchema() {
+        IndexedRecord indexed = new IndexedRecord(layout);
+
+        assertThatThrownBy(() -> indexed.put("not-a-field", 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldOrderByRowKeyThenSortKey() {
+        // Given
+        IndexedRecordComparator comparator = new IndexedRecordComparator(layout);
+        IndexedRecord record1 = IndexedRecord.from(layout, new Record(Map.of("key", 1L, "sort", "b")));
+        IndexedRecord record2 = IndexedRecord.from(layout, new Record(Map.of("key", 2L, "sort", "a")));
+        IndexedRecord record3 = IndexedRecord.from(layout, new Record(Map.of("key", 1L, "sort", "a", "count", 5)));
+        IndexedRecord record4 = IndexedRecord.from(layout, new Record(Map.of("key", 1L, "sort", "b", "count", 5)));
+
+        // When / Then
+        assertThat(comparator.compare(record1, record2)).isNegative();
+        assertThat(comparator.compare(record1, record3)).isPositive();
+        assertThat(comparator.compare(record1, record4)).isZero();
+    }
+}
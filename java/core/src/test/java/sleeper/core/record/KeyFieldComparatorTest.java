@@ -0,0 +1,71 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeyFieldComparatorTest {
+
+    @Test
+    void shouldCompareByteArraysAsUnsigned() {
+        KeyFieldComparator comparator = KeyFieldComparator.forType(new ByteArrayType());
+
+        assertThat(comparator.compare(new byte[]{1}, new byte[]{(byte) 0xFF})).isNegative();
+        assertThat(comparator.compare(new byte[]{1, 2}, new byte[]{1})).isPositive();
+        assertThat(comparator.compare(new byte[]{}, new byte[]{0})).isNegative();
+        assertThat(comparator.compare(new byte[]{1, 2}, new byte[]{1, 2})).isZero();
+    }
+
+    @Test
+    void shouldOrderNullAfterOtherValues() {
+        KeyFieldComparator comparator = KeyFieldComparator.forType(new LongType());
+
+        assertThat(comparator.compareNullable(Long.MAX_VALUE, null)).isNegative();
+        assertThat(comparator.compareNullable(null, Long.MIN_VALUE)).isPositive();
+        assertThat(comparator.compareNullable(null, null)).isZero();
+    }
+
+    @Test
+    void shouldCompareIndexedRecordsWithPrimitiveValues() {
+        // Given
+        Schema schema = Schema.builder()
+                .rowKeyFields(new Field("key", new IntType()))
+                .sortKeyFields(new Field("sort", new StringType()))
+                .build();
+        RecordLayout layout = new RecordLayout(schema);
+        KeyFieldComparator[] comparators = KeyFieldComparator.forRowAndSortKeys(schema);
+        IndexedRecord record1 = IndexedRecord.from(layout, new Record(Map.of("key", -1, "sort", "b")));
+        IndexedRecord record2 = IndexedRecord.from(layout, new Record(Map.of("key", 1, "sort", "a")));
+        IndexedRecord unset = new IndexedRecord(layout);
+
+        // When / Then
+        assertThat(comparators).containsExactly(KeyFieldComparator.INT, KeyFieldComparator.STRING);
+        assertThat(comparators[0].compare(record1, record2, 0)).isNegative();
+        assertThat(comparators[1].compare(record1, record2, 1)).isPositive();
+        assertThat(comparators[0].compare(unset, record2, 0)).isPositive();
+    }
+}
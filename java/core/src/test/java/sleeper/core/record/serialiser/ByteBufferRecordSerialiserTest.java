@@ -0,0 +1,161 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.record.serialiser;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.ByteArrayType;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.MapType;
+import sleeper.core.schema.type.StringType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ByteBufferRecordSerialiserTest {
+
+    private final Schema schema = Schema.builder()
+            .rowKeyFields(new Field("key", new StringType()))
+            .sortKeyFields(new Field("sort", new LongType()))
+            .valueFields(
+                    new Field("count", new IntType()),
+                    new Field("bytes", new ByteArrayType()),
+                    new Field("list", new ListType(new StringType())),
+                    new Field("map", new MapType(new StringType(), new LongType())))
+            .build();
+    private final ByteBufferRecordSerialiser serialiser = new ByteBufferRecordSerialiser(schema);
+
+    @Test
+    void shouldWriteAndReadRecordsInReusedDirectBuffer() throws IOException {
+        // Given
+        Record record1 = record("a", 1L);
+        Record record2 = record("b\u0000\u00e9\u4e2d", 2L);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+
+        // When
+        serialiser.write(record1, buffer);
+        serialiser.write(record2, buffer);
+        buffer.flip();
+
+        // Then
+        assertThat(serialiser.read(buffer)).isEqualTo(record1);
+        assertThat(serialiser.read(buffer)).isEqualTo(record2);
+        assertThat(buffer.remaining()).isZero();
+    }
+
+    @Test
+    void shouldComputeSerialisedSize() {
+        // Given
+        Record record = record("b\u0000\u00e9\u4e2d", 2L);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        // When
+        serialiser.write(record, buffer);
+
+        // Then
+        assertThat(buffer.position()).isEqualTo(serialiser.getSerialisedSize(record));
+    }
+
+    @Test
+    void shouldReadFieldsLazily() throws IOException {
+        // Given
+        Record record = record("a", 1L);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        serialiser.write(record, buffer);
+        serialiser.write(record("b", 2L), buffer);
+        buffer.flip();
+
+        // When
+        SerialisedRecord serialised = serialiser.readLazily(buffer);
+
+        // Then
+        assertThat(serialised.get("sort")).isEqualTo(1L);
+        assertThat(serialised.get("map")).isEqualTo(Map.of("x", 10L));
+        assertThat(serialised.getByteArrayView(3)).isEqualTo(ByteBuffer.wrap(new byte[]{1, 2}));
+        assertThat(serialised.toRecord()).isEqualTo(record);
+        assertThat(serialised.getSerialisedLength()).isEqualTo(serialiser.getSerialisedSize(record));
+        assertThat(serialiser.read(buffer)).isEqualTo(record("b", 2L));
+    }
+
+    @Test
+    void shouldWriteSameFormatAsDataOutputStream() throws IOException {
+        // Given
+        Schema stringSchema = Schema.builder()
+                .rowKeyFields(new Field("key", new StringType()))
+                .valueFields(new Field("value", new IntType()))
+                .build();
+        String value = "a\u0000\u00e9\u4e2d\ud83d\ude00";
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(expected)) {
+            dos.writeUTF(value);
+            dos.writeInt(42);
+        }
+
+        // When
+        byte[] serialised = new RecordSerialiser(stringSchema).serialise(new Record(Map.of("key", value, "value", 42)));
+
+        // Then
+        assertThat(serialised).isEqualTo(expected.toByteArray());
+    }
+
+    @Test
+    void shouldFailToSerialiseStringThatIsTooLong() {
+        // Given
+        Schema stringSchema = Schema.builder()
+                .rowKeyFields(new Field("key", new StringType()))
+                .build();
+        RecordSerialiser recordSerialiser = new RecordSerialiser(stringSchema);
+        Record record = new Record(Map.of("key", "a".repeat(65536)));
+
+        // When / Then
+        assertThatThrownBy(() -> recordSerialiser.serialise(record))
+                .isInstanceOf(UTFDataFormatException.class);
+    }
+
+    @Test
+    void shouldRefuseLittleEndianBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        Record record = record("a", 1L);
+
+        assertThatThrownBy(() -> serialiser.write(record, buffer))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Record record(String key, long sort) {
+        Record record = new Record();
+        record.put("key", key);
+        record.put("sort", sort);
+        record.put("count", 3);
+        record.put("bytes", new byte[]{1, 2});
+        record.put("list", List.of("p", "q"));
+        record.put("map", Map.of("x", 10L));
+        return record;
+    }
+}
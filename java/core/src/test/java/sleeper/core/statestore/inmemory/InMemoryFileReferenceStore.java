@@ -30,7 +30,6 @@ import sleeper.core.statestore.exception.FileReferenceAlreadyExistsException;
 import sleeper.core.statestore.exception.FileReferenceAssignedToJobException;
 import sleeper.core.statestore.exception.FileReferenceNotAssignedToJobException;
 import sleeper.core.statestore.exception.FileReferenceNotFoundException;
-import sleeper.core.statestore.exception.NewReferenceSameAsOldReferenceException;
 
 import java.time.Clock;
 import java.time.Instant;
@@ -141,7 +140,7 @@ public class InMemoryFileReferenceStore implements FileReferenceStore {
     }
 
     @Override
-    public void atomicallyReplaceFileReferencesWithNewOne(String jobId, String partitionId, List<String> inputFiles, FileReference newReference) throws StateStoreException {
+    public void atomicallyReplaceFileReferencesWithNewOnes(String jobId, String partitionId, List<String> inputFiles, List<FileReference> newReferences) throws StateStoreException {
         for (String filename : inputFiles) {
             AllReferencesToAFile file = filesByFilename.get(filename);
             if (file == null) {
@@ -156,12 +155,12 @@ public class InMemoryFileReferenceStore implements FileReferenceStore {
             if (!jobId.equals(reference.getJobId())) {
                 throw new FileReferenceNotAssignedToJobException(reference, jobId);
             }
-            if (filename.equals(newReference.getFilename())) {
-                throw new NewReferenceSameAsOldReferenceException(filename);
-            }
         }
-        if (filesByFilename.containsKey(newReference.getFilename())) {
-            throw new FileAlreadyExistsException(newReference.getFilename());
+        FileReference.validateNewReferencesForJobOutput(inputFiles, newReferences);
+        for (FileReference newReference : newReferences) {
+            if (filesByFilename.containsKey(newReference.getFilename())) {
+                throw new FileAlreadyExistsException(newReference.getFilename());
+            }
         }
 
         Instant updateTime = clock.instant();
@@ -169,7 +168,9 @@ public class InMemoryFileReferenceStore implements FileReferenceStore {
             filesByFilename.put(filename, filesByFilename.get(filename)
                     .removeReferenceForPartition(partitionId, updateTime));
         }
-        filesByFilename.put(newReference.getFilename(), fileWithOneReference(newReference, updateTime));
+        for (FileReference newReference : newReferences) {
+            filesByFilename.put(newReference.getFilename(), fileWithOneReference(newReference, updateTime));
+        }
     }
 
     private Stream<FileReference> streamFileReferences() {
@@ -729,6 +729,43 @@ public class InMemoryFileReferenceStoreTest extends InMemoryStateStoreTestBase {
                     withJobId("job1", existingReference), newReference);
             assertThat(store.getReadyForGCFilenamesBefore(AFTER_DEFAULT_UPDATE_TIME)).isEmpty();
         }
+
+        @Test
+        void shouldReplaceFileReferencesWithOneNewFilePerChildPartition() throws Exception {
+            // Given
+            splitPartition("root", "L", "R", 5);
+            FileReference oldFile = factory.rootFile("oldFile", 100L);
+            FileReference leftFile = factory.partitionFile("L", "leftFile", 40L);
+            FileReference rightFile = factory.partitionFile("R", "rightFile", 60L);
+            store.addFile(oldFile);
+            store.assignJobIds(List.of(
+                    assignJobOnPartitionToFiles("job1", "root", List.of("oldFile"))));
+
+            // When
+            store.atomicallyReplaceFileReferencesWithNewOnes("job1", "root", List.of("oldFile"), List.of(leftFile, rightFile));
+
+            // Then
+            assertThat(store.getFileReferences()).containsExactlyInAnyOrder(leftFile, rightFile);
+            assertThat(store.getReadyForGCFilenamesBefore(AFTER_DEFAULT_UPDATE_TIME))
+                    .containsExactly("oldFile");
+        }
+
+        @Test
+        void shouldFailToReplaceFileReferencesWhenNewFilesHaveTheSameFilename() throws Exception {
+            // Given
+            splitPartition("root", "L", "R", 5);
+            FileReference oldFile = factory.rootFile("oldFile", 100L);
+            store.addFile(oldFile);
+            store.assignJobIds(List.of(
+                    assignJobOnPartitionToFiles("job1", "root", List.of("oldFile"))));
+
+            // When / Then
+            assertThatThrownBy(() -> store.atomicallyReplaceFileReferencesWithNewOnes("job1", "root", List.of("oldFile"),
+                    List.of(factory.partitionFile("L", "newFile", 40L), factory.partitionFile("R", "newFile", 60L))))
+                    .isInstanceOf(FileAlreadyExistsException.class);
+            assertThat(store.getFileReferences()).containsExactly(withJobId("job1", oldFile));
+            assertThat(store.getReadyForGCFilenamesBefore(AFTER_DEFAULT_UPDATE_TIME)).isEmpty();
+        }
     }
 
     @Nested
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.schema.Schema;
+import sleeper.core.statestore.AllReferencesToAFile;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceFactory;
+import sleeper.core.statestore.StateStore;
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.statestore.exception.FileAlreadyExistsException;
+import sleeper.core.statestore.transactionlog.transactions.AddFilesTransaction;
+import sleeper.core.statestore.transactionlog.transactions.AssignJobIdsTransaction;
+import sleeper.core.statestore.transactionlog.transactions.BatchedFileReferencesTransaction;
+import sleeper.core.table.TableStatus;
+import sleeper.core.util.ExponentialBackoffWithJitter;
+import sleeper.core.util.ExponentialBackoffWithJitter.WaitRange;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+import static sleeper.core.statestore.AssignJobIdRequest.assignJobOnPartitionToFiles;
+import static sleeper.core.statestore.FileReferenceTestData.DEFAULT_UPDATE_TIME;
+import static sleeper.core.statestore.FileReferenceTestData.withJobId;
+import static sleeper.core.table.TableStatusTestHelper.uniqueIdAndName;
+import static sleeper.core.util.ExponentialBackoffWithJitterTestHelper.fixJitterSeed;
+import static sleeper.core.util.ExponentialBackoffWithJitterTestHelper.recordWaits;
+
+public class BatchingFileReferenceCommitterTest {
+
+    private final Schema schema = schemaWithKey("key");
+    private final PartitionsBuilder partitions = new PartitionsBuilder(schema).singlePartition("root");
+    private final FileReferenceFactory fileFactory = FileReferenceFactory.fromUpdatedAt(partitions.buildTree(), DEFAULT_UPDATE_TIME);
+    private final TableStatus sleeperTable = uniqueIdAndName("test-table-id", "test-table");
+    private final InMemoryTransactionLogStore filesLogStore = new InMemoryTransactionLogStore();
+    private final List<Duration> retryWaits = new ArrayList<>();
+
+    @Test
+    void shouldCommitSubmittedTransactionsInOneLogEntry() throws Exception {
+        // Given
+        BatchingFileReferenceCommitter committer = committer(10);
+        FileReference file1 = fileFactory.rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory.rootFile("file2.parquet", 200);
+        CompletableFuture<Void> commit1 = committer.submit(addFile(file1));
+        CompletableFuture<Void> commit2 = committer.submit(addFile(file2));
+
+        // When
+        int committed = committer.commitPending();
+
+        // Then
+        assertThat(committed).isEqualTo(2);
+        assertThat(List.of(commit1, commit2)).allSatisfy(commit -> assertThat(commit).isCompleted());
+        assertThat(loggedTransactions())
+                .containsExactly(new BatchedFileReferencesTransaction(List.of(addFile(file1), addFile(file2))));
+        assertThat(otherProcess().getFileReferences()).containsExactly(file1, file2);
+    }
+
+    @Test
+    void shouldValidateTransactionAgainstEarlierTransactionsInBatch() throws Exception {
+        // Given
+        BatchingFileReferenceCommitter committer = committer(10);
+        FileReference file = fileFactory.rootFile("file.parquet", 100);
+        CompletableFuture<Void> addFile = committer.submit(addFile(file));
+        CompletableFuture<Void> assignJob = committer.submit(new AssignJobIdsTransaction(List.of(
+                assignJobOnPartitionToFiles("test-job", "root", List.of("file.parquet")))));
+
+        // When
+        committer.commitPending();
+
+        // Then
+        assertThat(List.of(addFile, assignJob)).allSatisfy(commit -> assertThat(commit).isCompleted());
+        assertThat(otherProcess().getFileReferences()).containsExactly(withJobId("test-job", file));
+    }
+
+    @Test
+    void shouldReportInvalidTransactionAndCommitOthers() throws Exception {
+        // Given
+        BatchingFileReferenceCommitter committer = committer(10);
+        FileReference file1 = fileFactory.rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory.rootFile("file2.parquet", 200);
+        CompletableFuture<Void> commit1 = committer.submit(addFile(file1));
+        CompletableFuture<Void> commit2 = committer.submit(addFile(file1));
+        CompletableFuture<Void> commit3 = committer.submit(addFile(file2));
+
+        // When
+        committer.commitPending();
+
+        // Then
+        assertThat(commit1).isCompleted();
+        assertThat(commit2).isCompletedExceptionally();
+        assertThatThrownBy(commit2::join).hasCauseInstanceOf(FileAlreadyExistsException.class);
+        assertThat(commit3).isCompleted();
+        assertThat(otherProcess().getFileReferences()).containsExactly(file1, file2);
+    }
+
+    @Test
+    void shouldNotAddLogEntryWhenNoTransactionsAreValid() throws Exception {
+        // Given
+        FileReference file = fileFactory.rootFile("file.parquet", 100);
+        otherProcess().addFile(file);
+        BatchingFileReferenceCommitter committer = committer(10);
+        CompletableFuture<Void> commit = committer.submit(addFile(file));
+
+        // When
+        committer.commitPending();
+
+        // Then
+        assertThatThrownBy(commit::join).hasCauseInstanceOf(FileAlreadyExistsException.class);
+        assertThat(filesLogStore.getLastTransactionNumber()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLimitNumberOfTransactionsInBatch() throws Exception {
+        // Given
+        BatchingFileReferenceCommitter committer = committer(2);
+        FileReference file1 = fileFactory.rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory.rootFile("file2.parquet", 200);
+        FileReference file3 = fileFactory.rootFile("file3.parquet", 300);
+        committer.submit(addFile(file1));
+        committer.submit(addFile(file2));
+        CompletableFuture<Void> commit3 = committer.submit(addFile(file3));
+
+        // When
+        int firstBatch = committer.commitPending();
+        boolean committedThirdInFirstBatch = commit3.isDone();
+        int secondBatch = committer.commitPending();
+
+        // Then
+        assertThat(List.of(firstBatch, secondBatch)).containsExactly(2, 1);
+        assertThat(committedThirdInFirstBatch).isFalse();
+        assertThat(loggedTransactions())
+                .containsExactly(
+                        new BatchedFileReferencesTransaction(List.of(addFile(file1), addFile(file2))),
+                        addFile(file3));
+    }
+
+    @Test
+    void shouldValidateBatchAgainWhenAnotherProcessAddedATransaction() throws Exception {
+        // Given
+        BatchingFileReferenceCommitter committer = committer(10);
+        FileReference file1 = fileFactory.rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory.rootFile("file2.parquet", 200);
+        CompletableFuture<Void> commit1 = committer.submit(addFile(file1));
+        CompletableFuture<Void> commit2 = committer.submit(addFile(file2));
+        filesLogStore.beforeNextAddTransaction(() -> {
+            otherProcess().addFile(file1);
+        });
+
+        // When
+        committer.commitPending();
+
+        // Then
+        assertThatThrownBy(commit1::join).hasCauseInstanceOf(FileAlreadyExistsException.class);
+        assertThat(commit2).isCompleted();
+        assertThat(otherProcess().getFileReferences()).containsExactly(file1, file2);
+        assertThat(retryWaits).hasSize(1);
+    }
+
+    @Test
+    void shouldFailAllTransactionsWhenBatchCouldNotBeAdded() throws Exception {
+        // Given
+        BatchingFileReferenceCommitter committer = committer(10, head -> head.maxAddTransactionAttempts(1));
+        CompletableFuture<Void> commit1 = committer.submit(addFile(fileFactory.rootFile("file1.parquet", 100)));
+        CompletableFuture<Void> commit2 = committer.submit(addFile(fileFactory.rootFile("file2.parquet", 200)));
+        RuntimeException failure = new RuntimeException("Unexpected failure");
+        filesLogStore.beforeNextAddTransaction(() -> {
+            throw failure;
+        });
+
+        // When
+        committer.commitPending();
+
+        // Then
+        assertThatThrownBy(commit1::join)
+                .cause().isInstanceOf(StateStoreException.class)
+                .cause().isSameAs(failure);
+        assertThatThrownBy(commit2::join)
+                .cause().isInstanceOf(StateStoreException.class)
+                .cause().isSameAs(failure);
+        assertThat(otherProcess().getFileReferences()).isEmpty();
+    }
+
+    @Test
+    void shouldCommitTransactionAndWaitForResult() throws Exception {
+        // Given
+        BatchingFileReferenceCommitter committer = committer(10);
+        FileReference file = fileFactory.rootFile("file.parquet", 100);
+
+        // When
+        committer.commit(addFile(file));
+
+        // Then
+        assertThat(otherProcess().getFileReferences()).containsExactly(file);
+        assertThatThrownBy(() -> committer.commit(addFile(file)))
+                .isInstanceOf(FileAlreadyExistsException.class);
+    }
+
+    @Test
+    void shouldCommitFromMultipleThreads() throws Exception {
+        // Given
+        BatchingFileReferenceCommitter committer = committer(10);
+        List<FileReference> files = IntStream.range(0, 100)
+                .mapToObj(i -> fileFactory.rootFile("file" + i + ".parquet", i))
+                .collect(toUnmodifiableList());
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (FileReference file : files) {
+                futures.add(executor.submit(() -> {
+                    committer.commit(addFile(file));
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Then
+        assertThat(otherProcess().getFileReferences()).containsExactlyInAnyOrderElementsOf(files);
+        assertThat(filesLogStore.getLastTransactionNumber()).isBetween(10L, 100L);
+    }
+
+    private List<StateStoreTransaction<?>> loggedTransactions() {
+        return filesLogStore.readTransactionsAfter(0)
+                .map(TransactionLogEntry::getTransaction)
+                .collect(toUnmodifiableList());
+    }
+
+    private static AddFilesTransaction addFile(FileReference file) {
+        return new AddFilesTransaction(List.of(AllReferencesToAFile.fileWithOneReference(file, DEFAULT_UPDATE_TIME)));
+    }
+
+    private BatchingFileReferenceCommitter committer(int maxBatchSize) {
+        return committer(maxBatchSize, head -> head);
+    }
+
+    private BatchingFileReferenceCommitter committer(int maxBatchSize,
+            UnaryOperator<TransactionLogHead.Builder<StateStoreFiles>> config) {
+        TransactionLogHead<StateStoreFiles> head = config.apply(TransactionLogHead.builder()
+                .sleeperTable(sleeperTable)
+                .logStore(filesLogStore)
+                .maxAddTransactionAttempts(10)
+                .retryBackoff(new ExponentialBackoffWithJitter(
+                        WaitRange.firstAndMaxWaitCeilingSecs(1, 30),
+                        fixJitterSeed(), recordWaits(retryWaits)))
+                .forFiles()
+                .state(new StateStoreFiles()))
+                .build();
+        return new BatchingFileReferenceCommitter(head, maxBatchSize, () -> DEFAULT_UPDATE_TIME);
+    }
+
+    private StateStore otherProcess() {
+        StateStore stateStore = TransactionLogStateStore.builder()
+                .sleeperTable(sleeperTable)
+                .schema(schema)
+                .filesLogStore(filesLogStore)
+                .partitionsLogStore(new InMemoryTransactionLogStore())
+                .build();
+        stateStore.fixFileUpdateTime(DEFAULT_UPDATE_TIME);
+        return stateStore;
+    }
+}
@@ -25,6 +25,7 @@ public class InMemoryTransactionLogStore implements TransactionLogStore {
     };
 
     private final List<TransactionLogEntry> transactions = new ArrayList<>();
+    private long lastTransactionNumber = 0;
     private Runnable beforeNextAdd = DO_NOTHING;
     private Runnable beforeNextRead = DO_NOTHING;
 
@@ -32,20 +33,26 @@ public class InMemoryTransactionLogStore implements TransactionLogStore {
     public void addTransaction(TransactionLogEntry entry) throws DuplicateTransactionNumberException {
         long transactionNumber = entry.getTransactionNumber();
         doBeforeNextAdd();
-        if (transactionNumber <= transactions.size()) {
+        if (transactionNumber <= lastTransactionNumber) {
             throw new DuplicateTransactionNumberException(transactionNumber);
         }
-        if (transactionNumber > transactions.size() + 1) {
-            throw new IllegalStateException("Attempted to add transaction " + transactionNumber + " when we only have " + transactions.size());
+        if (transactionNumber > lastTransactionNumber + 1) {
+            throw new IllegalStateException("Attempted to add transaction " + transactionNumber + " when we only have " + lastTransactionNumber);
         }
         transactions.add(entry);
+        lastTransactionNumber = transactionNumber;
     }
 
     @Override
     public Stream<TransactionLogEntry> readTransactionsAfter(long lastTransactionNumber) {
         doBeforeNextRead();
         return transactions.stream()
-                .skip(lastTransactionNumber);
+                .filter(entry -> entry.getTransactionNumber() > lastTransactionNumber);
+    }
+
+    @Override
+    public void deleteTransactionsAtOrBefore(long transactionNumber) {
+        transactions.removeIf(entry -> entry.getTransactionNumber() <= transactionNumber);
     }
 
     public void beforeNextAddTransaction(ThrowingRunnable action) {
@@ -57,7 +64,7 @@ public class InMemoryTransactionLogStore implements TransactionLogStore {
     }
 
     public long getLastTransactionNumber() {
-        return transactions.size();
+        return lastTransactionNumber;
     }
 
     private void doBeforeNextAdd() {
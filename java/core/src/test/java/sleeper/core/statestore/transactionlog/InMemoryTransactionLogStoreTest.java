@@ -122,4 +122,38 @@ public class InMemoryTransactionLogStoreTest {
         assertThatThrownBy(() -> store.readTransactionsAfter(0))
                 .isSameAs(failure);
     }
+
+    @Test
+    void shouldDeleteTransactionsAtOrBeforeNumber() throws Exception {
+        // Given
+        TransactionLogEntry entry1 = logEntry(1, new DeleteFilesTransaction(List.of("file1.parquet")));
+        TransactionLogEntry entry2 = logEntry(2, new DeleteFilesTransaction(List.of("file2.parquet")));
+        TransactionLogEntry entry3 = logEntry(3, new DeleteFilesTransaction(List.of("file3.parquet")));
+        store.addTransaction(entry1);
+        store.addTransaction(entry2);
+        store.addTransaction(entry3);
+
+        // When
+        store.deleteTransactionsAtOrBefore(2);
+
+        // Then
+        assertThat(store.readTransactionsAfter(0))
+                .containsExactly(entry3);
+        assertThat(store.getLastTransactionNumber()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldAddTransactionAfterDeletingAllTransactions() throws Exception {
+        // Given
+        store.addTransaction(logEntry(1, new ClearFilesTransaction()));
+        store.deleteTransactionsAtOrBefore(1);
+        TransactionLogEntry entry = logEntry(2, new ClearFilesTransaction());
+
+        // When
+        store.addTransaction(entry);
+
+        // Then
+        assertThat(store.readTransactionsAfter(0))
+                .containsExactly(entry);
+    }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.statestore.AllReferencesToAFile;
+import sleeper.core.statestore.FileReference;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.core.statestore.AllReferencesToAFileTestHelper.fileWithNoReferences;
+import static sleeper.core.statestore.FileReferenceTestData.defaultFileOnRootPartition;
+import static sleeper.core.statestore.FileReferenceTestData.splitFile;
+import static sleeper.core.statestore.FileReferenceTestData.withLastUpdate;
+
+public class StateStoreFilesTest {
+
+    private static final Instant UPDATE_TIME = Instant.parse("2024-05-02T09:00:00Z");
+    private final StateStoreFiles files = new StateStoreFiles();
+
+    @Test
+    void shouldFindReferencedFilesByPartition() {
+        // Given
+        FileReference rootFile = withLastUpdate(UPDATE_TIME, defaultFileOnRootPartition("file1"));
+        FileReference leftFile = withLastUpdate(UPDATE_TIME, splitFile(defaultFileOnRootPartition("file2"), "L"));
+        FileReference rightFile = withLastUpdate(UPDATE_TIME, splitFile(defaultFileOnRootPartition("file2"), "R"));
+        files.add(fileWithReferences(rootFile));
+        files.add(fileWithReferences(leftFile, rightFile));
+
+        // When / Then
+        assertThat(files.partitionToReferencedFilenames()).isEqualTo(Map.of(
+                "root", List.of("file1"),
+                "L", List.of("file2"),
+                "R", List.of("file2")));
+    }
+
+    @Test
+    void shouldUpdateNoJobIndexWhenJobIsAssigned() {
+        // Given
+        FileReference file1 = withLastUpdate(UPDATE_TIME, defaultFileOnRootPartition("file1"));
+        FileReference file2 = withLastUpdate(UPDATE_TIME, defaultFileOnRootPartition("file2"));
+        files.add(fileWithReferences(file1));
+        files.add(fileWithReferences(file2));
+
+        // When
+        files.updateFile("file1", file -> file.withJobIdForPartition("job1", "root", UPDATE_TIME));
+
+        // Then
+        assertThat(list(files.referencesWithNoJobId())).containsExactly(file2);
+    }
+
+    @Test
+    void shouldFindUnreferencedFilesInOrderOfUpdateTime() {
+        // Given
+        files.add(fileWithNoReferences("file1", Instant.parse("2024-05-02T10:02:00Z")));
+        files.add(fileWithNoReferences("file2", Instant.parse("2024-05-02T10:00:00Z")));
+        files.add(fileWithNoReferences("file3", Instant.parse("2024-05-02T10:05:00Z")));
+        files.add(fileWithReferences(defaultFileOnRootPartition("file4")));
+
+        // When / Then
+        assertThat(list(files.unreferencedBefore(Instant.parse("2024-05-02T10:03:00Z"))))
+                .containsExactly("file2", "file1");
+    }
+
+    @Test
+    void shouldRemoveFileFromIndexesWhenLastReferenceIsRemoved() {
+        // Given
+        Instant updateTime = Instant.parse("2024-05-02T10:00:00Z");
+        files.add(fileWithReferences(defaultFileOnRootPartition("file1")));
+
+        // When
+        files.updateFile("file1", file -> file.removeReferenceForPartition("root", updateTime));
+
+        // Then
+        assertThat(list(files.referencesWithNoJobId())).isEmpty();
+        assertThat(files.partitionToReferencedFilenames()).isEmpty();
+        assertThat(list(files.unreferencedBefore(updateTime.plusSeconds(1)))).containsExactly("file1");
+    }
+
+    @Test
+    void shouldKeepIndexesSeparateInCopy() {
+        // Given
+        FileReference reference = withLastUpdate(UPDATE_TIME, defaultFileOnRootPartition("file1"));
+        files.add(fileWithReferences(reference));
+        StateStoreFiles copy = files.copy();
+
+        // When
+        copy.remove("file1");
+
+        // Then
+        assertThat(files.partitionToReferencedFilenames()).isEqualTo(Map.of("root", List.of("file1")));
+        assertThat(list(files.referencesWithNoJobId())).containsExactly(reference);
+        assertThat(copy.partitionToReferencedFilenames()).isEmpty();
+        assertThat(list(copy.referencesWithNoJobId())).isEmpty();
+    }
+
+    @Test
+    void shouldLookUpChangedFilesInOverlayWithoutChangingState() {
+        // Given
+        AllReferencesToAFile file1 = fileWithReferences(defaultFileOnRootPartition("file1"));
+        AllReferencesToAFile file2 = fileWithReferences(defaultFileOnRootPartition("file2"));
+        AllReferencesToAFile file3 = fileWithReferences(defaultFileOnRootPartition("file3"));
+        files.add(file1);
+        files.add(file2);
+        StateStoreFiles overlay = files.overlay();
+
+        // When
+        overlay.remove("file1");
+        overlay.add(file3);
+
+        // Then
+        assertThat(overlay.file("file1")).isEmpty();
+        assertThat(overlay.file("file2")).contains(file2);
+        assertThat(overlay.file("file3")).contains(file3);
+        assertThat(list(files.referencedAndUnreferenced())).containsExactly(file1, file2);
+    }
+
+    @Test
+    void shouldNotLookUpStateInOverlayAfterClear() {
+        // Given
+        AllReferencesToAFile file1 = fileWithReferences(defaultFileOnRootPartition("file1"));
+        AllReferencesToAFile file2 = fileWithReferences(defaultFileOnRootPartition("file2"));
+        files.add(file1);
+        StateStoreFiles overlay = files.overlay();
+
+        // When
+        overlay.clear();
+        overlay.add(file2);
+
+        // Then
+        assertThat(overlay.file("file1")).isEmpty();
+        assertThat(overlay.file("file2")).contains(file2);
+        assertThat(list(files.referencedAndUnreferenced())).containsExactly(file1);
+    }
+
+    @Test
+    void shouldShareValuesBetweenReferences() {
+        // Given
+        FileReference leftFile = FileReference.builder()
+                .filename(new String("file")).partitionId(new String("L")).jobId(new String("job"))
+                .numberOfRecords(100L).lastStateStoreUpdateTime(Instant.parse("2024-05-02T09:00:00Z"))
+                .countApproximate(false).onlyContainsDataForThisPartition(false)
+                .build();
+        FileReference rightFile = leftFile.toBuilder()
+                .filename(new String("file")).partitionId(new String("R")).jobId(new String("job"))
+                .lastStateStoreUpdateTime(Instant.parse("2024-05-02T09:00:00Z"))
+                .build();
+
+        // When
+        files.add(AllReferencesToAFile.builder()
+                .filename(new String("file"))
+                .internalReferences(List.of(leftFile, rightFile))
+                .totalReferenceCount(2)
+                .lastStateStoreUpdateTime(Instant.parse("2024-05-02T09:00:00Z"))
+                .build());
+
+        // Then
+        List<FileReference> references = list(files.references());
+        assertThat(references).containsExactly(leftFile, rightFile);
+        assertThat(references.get(0).getFilename()).isSameAs(references.get(1).getFilename());
+        assertThat(references.get(0).getJobId()).isSameAs(references.get(1).getJobId());
+        assertThat(references.get(0).getLastStateStoreUpdateTime()).isSameAs(references.get(1).getLastStateStoreUpdateTime());
+        assertThat(references.get(0).getPartitionId()).isSameAs("L");
+    }
+
+    private static AllReferencesToAFile fileWithReferences(FileReference... references) {
+        return AllReferencesToAFile.newFilesWithReferences(Stream.of(references), UPDATE_TIME)
+                .findFirst().orElseThrow();
+    }
+
+    private static <T> List<T> list(Stream<T> stream) {
+        return stream.collect(Collectors.toList());
+    }
+}
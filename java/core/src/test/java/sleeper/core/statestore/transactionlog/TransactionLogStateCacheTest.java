@@ -0,0 +1,323 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.schema.Schema;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceFactory;
+import sleeper.core.statestore.StateStore;
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.util.PollWithRetries;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+import static sleeper.core.statestore.AssignJobIdRequest.assignJobOnPartitionToFiles;
+import static sleeper.core.statestore.FileReferenceTestData.DEFAULT_UPDATE_TIME;
+import static sleeper.core.statestore.FileReferenceTestData.withJobId;
+import static sleeper.core.table.TableStatusTestHelper.uniqueIdAndName;
+
+public class TransactionLogStateCacheTest {
+
+    private final Schema schema = schemaWithKey("key");
+    private final PartitionsBuilder partitions = new PartitionsBuilder(schema).singlePartition("root");
+    private final FileReferenceFactory fileFactory = FileReferenceFactory.fromUpdatedAt(partitions.buildTree(), DEFAULT_UPDATE_TIME);
+    private final Map<String, InMemoryTransactionLogStore> filesLogStoreByTableId = new HashMap<>();
+    private final Map<String, InMemoryTransactionLogStore> partitionsLogStoreByTableId = new HashMap<>();
+    private final List<String> tailersCreated = new ArrayList<>();
+    private Instant time = DEFAULT_UPDATE_TIME;
+    private TransactionLogStateCache cache = cache(10);
+
+    @AfterEach
+    void tearDown() {
+        cache.close();
+    }
+
+    @Test
+    void shouldLoadViewOfTableOnFirstRead() throws Exception {
+        // Given
+        StateStore store = createTable("test-table");
+        FileReference file = fileFactory.rootFile("file.parquet", 100);
+        store.addFile(file);
+
+        // When
+        TransactionLogStateView view = cache.getView("test-table");
+
+        // Then
+        assertThat(view.getFileReferences()).containsExactly(file);
+        assertThat(new PartitionTree(view.getAllPartitions())).isEqualTo(partitions.buildTree());
+        assertThat(view.getFilesTransactionNumber()).isEqualTo(1);
+        assertThat(view.getPartitionsTransactionNumber()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSeeNewTransactionsWhenRefreshed() throws Exception {
+        // Given
+        StateStore store = createTable("test-table");
+        FileReference file1 = fileFactory.rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory.rootFile("file2.parquet", 200);
+        store.addFile(file1);
+        TransactionLogStateView before = cache.getView("test-table");
+        store.addFile(file2);
+
+        // When
+        TransactionLogStateView notRefreshed = cache.getView("test-table");
+        cache.refreshAll();
+        TransactionLogStateView refreshed = cache.getView("test-table");
+
+        // Then
+        assertThat(notRefreshed).isSameAs(before);
+        assertThat(before.getFileReferences()).containsExactly(file1);
+        assertThat(refreshed.getFileReferences()).containsExactly(file1, file2);
+        assertThat(refreshed.getFilesTransactionNumber()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepViewWhenNoNewTransactionsAreFound() throws Exception {
+        // Given
+        createTable("test-table").addFile(fileFactory.rootFile("file.parquet", 100));
+        TransactionLogStateView before = cache.getView("test-table");
+
+        // When
+        cache.refreshAll();
+
+        // Then
+        assertThat(cache.getView("test-table")).isSameAs(before);
+    }
+
+    @Test
+    void shouldKeepViewWhenRefreshFails() throws Exception {
+        // Given
+        createTable("test-table").addFile(fileFactory.rootFile("file.parquet", 100));
+        TransactionLogStateView before = cache.getView("test-table");
+        filesLogStoreByTableId.get("test-table").beforeNextReadTransactions(() -> {
+            throw new RuntimeException("Unexpected failure");
+        });
+
+        // When
+        cache.refreshAll();
+
+        // Then
+        assertThat(cache.getView("test-table")).isSameAs(before);
+    }
+
+    @Test
+    void shouldApplyChangedFilesToEarlierCopyOfState() throws Exception {
+        // Given
+        StateStore store = createTable("test-table");
+        List<FileReference> files = rootFiles(20);
+        store.addFiles(files);
+        TransactionLogStateView before = cache.getView("test-table");
+        FileReference newFile = fileFactory.rootFile("file05a.parquet", 100);
+
+        // When
+        store.assignJobIds(List.of(assignJobOnPartitionToFiles("test-job", "root", List.of("file03.parquet"))));
+        store.addFile(newFile);
+        cache.refreshAll();
+        TransactionLogStateView refreshed = cache.getView("test-table");
+
+        // Then
+        List<FileReference> expected = new ArrayList<>(files);
+        expected.set(3, withJobId("test-job", files.get(3)));
+        expected.add(6, newFile);
+        assertThat(refreshed.getFilesBase()).isSameAs(before.getFilesBase());
+        assertThat(refreshed.getFileReferences()).containsExactlyElementsOf(expected);
+        assertThat(refreshed.getFileReferencesWithNoJobId())
+                .containsExactlyElementsOf(expected.stream()
+                        .filter(file -> file.getJobId() == null)
+                        .collect(toList()));
+        assertThat(before.getFileReferences()).containsExactlyElementsOf(files);
+    }
+
+    @Test
+    void shouldNotFindFileDeletedAfterEarlierCopyOfState() throws Exception {
+        // Given
+        StateStore store = createTable("test-table");
+        store.addFiles(rootFiles(20));
+        store.assignJobIds(List.of(assignJobOnPartitionToFiles("test-job", "root", List.of("file01.parquet"))));
+        TransactionLogStateView before = cache.getView("test-table");
+
+        // When
+        store.atomicallyReplaceFileReferencesWithNewOne("test-job", "root", List.of("file01.parquet"),
+                fileFactory.rootFile("output.parquet", 100));
+        store.deleteGarbageCollectedFileReferenceCounts(List.of("file01.parquet"));
+        cache.refreshAll();
+        TransactionLogStateView refreshed = cache.getView("test-table");
+
+        // Then
+        assertThat(refreshed.getFilesBase()).isSameAs(before.getFilesBase());
+        assertThat(refreshed.getFile("file01.parquet")).isEmpty();
+        assertThat(refreshed.getFile("output.parquet")).isPresent();
+        assertThat(refreshed.getFileReferences())
+                .extracting(FileReference::getFilename)
+                .doesNotContain("file01.parquet")
+                .contains("output.parquet")
+                .isSorted();
+        assertThat(before.getFile("file01.parquet")).isPresent();
+    }
+
+    @Test
+    void shouldCopyStateWhenManyFilesHaveChanged() throws Exception {
+        // Given
+        StateStore store = createTable("test-table");
+        List<FileReference> files = rootFiles(8);
+        store.addFiles(files);
+        TransactionLogStateView before = cache.getView("test-table");
+        FileReference file1 = fileFactory.rootFile("more1.parquet", 100);
+        FileReference file2 = fileFactory.rootFile("more2.parquet", 100);
+
+        // When
+        store.addFiles(List.of(file1, file2));
+        cache.refreshAll();
+        TransactionLogStateView refreshed = cache.getView("test-table");
+
+        // Then
+        List<FileReference> expected = new ArrayList<>(files);
+        expected.addAll(List.of(file1, file2));
+        assertThat(refreshed.getFilesBase()).isNotSameAs(before.getFilesBase());
+        assertThat(refreshed.getChangedFiles()).isEmpty();
+        assertThat(refreshed.getFileReferences()).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void shouldRefreshWhenViewIsOlderThanMaxAge() throws Exception {
+        // Given
+        StateStore store = createTable("test-table");
+        FileReference file1 = fileFactory.rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory.rootFile("file2.parquet", 200);
+        store.addFile(file1);
+        time = Instant.parse("2024-05-02T10:00:00Z");
+        cache.getView("test-table");
+        store.addFile(file2);
+
+        // When
+        time = Instant.parse("2024-05-02T10:00:10Z");
+        TransactionLogStateView withinMaxAge = cache.getView("test-table", Duration.ofSeconds(10));
+        time = Instant.parse("2024-05-02T10:00:11Z");
+        TransactionLogStateView afterMaxAge = cache.getView("test-table", Duration.ofSeconds(10));
+
+        // Then
+        assertThat(withinMaxAge.getFileReferences()).containsExactly(file1);
+        assertThat(afterMaxAge.getFileReferences()).containsExactly(file1, file2);
+    }
+
+    @Test
+    void shouldFindReferencedFilesByPartitionInView() throws Exception {
+        // Given
+        StateStore store = createTable("test-table");
+        store.addFiles(rootFiles(8));
+        cache.getView("test-table");
+        store.assignJobIds(List.of(assignJobOnPartitionToFiles("test-job", "root", List.of("file01.parquet"))));
+        store.atomicallyReplaceFileReferencesWithNewOne("test-job", "root", List.of("file01.parquet"),
+                fileFactory.rootFile("file08.parquet", 100));
+        cache.refreshAll();
+
+        // When
+        TransactionLogStateView view = cache.getView("test-table");
+
+        // Then
+        assertThat(view.getPartitionToReferencedFilesMap()).isEqualTo(Map.of("root", List.of(
+                "file00.parquet", "file02.parquet", "file03.parquet", "file04.parquet",
+                "file05.parquet", "file06.parquet", "file07.parquet", "file08.parquet")));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyReadTable() throws Exception {
+        // Given
+        cache = cache(2);
+        createTable("table-a");
+        createTable("table-b");
+        createTable("table-c");
+        cache.getView("table-a");
+        cache.getView("table-b");
+        cache.getView("table-a");
+
+        // When
+        cache.getView("table-c");
+        cache.getView("table-a");
+        cache.getView("table-b");
+
+        // Then
+        assertThat(tailersCreated).containsExactly("table-a", "table-b", "table-c", "table-b");
+    }
+
+    @Test
+    void shouldRefreshInBackground() throws Exception {
+        // Given
+        StateStore store = createTable("test-table");
+        cache.getView("test-table");
+        FileReference file = fileFactory.rootFile("file.parquet", 100);
+        store.addFile(file);
+
+        // When
+        cache.startRefreshing(Duration.ofMillis(10));
+
+        // Then
+        PollWithRetries.intervalAndPollingTimeout(Duration.ofMillis(10), Duration.ofSeconds(10))
+                .pollUntil("file is found in cached view", () -> getFileReferences("test-table").contains(file));
+    }
+
+    private List<FileReference> rootFiles(int numberOfFiles) {
+        return IntStream.range(0, numberOfFiles)
+                .mapToObj(i -> fileFactory.rootFile(String.format("file%02d.parquet", i), 100))
+                .collect(toList());
+    }
+
+    private List<FileReference> getFileReferences(String tableId) {
+        try {
+            return cache.getView(tableId).getFileReferences();
+        } catch (StateStoreException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private StateStore createTable(String tableId) throws Exception {
+        filesLogStoreByTableId.put(tableId, new InMemoryTransactionLogStore());
+        partitionsLogStoreByTableId.put(tableId, new InMemoryTransactionLogStore());
+        StateStore stateStore = stateStoreBuilder(tableId).build();
+        stateStore.fixFileUpdateTime(DEFAULT_UPDATE_TIME);
+        stateStore.initialise(partitions.buildList());
+        return stateStore;
+    }
+
+    private TransactionLogStateCache cache(int maxTables) {
+        return new TransactionLogStateCache(tableId -> {
+            tailersCreated.add(tableId);
+            return stateStoreBuilder(tableId).buildTailer();
+        }, maxTables, () -> time);
+    }
+
+    private TransactionLogStateStore.Builder stateStoreBuilder(String tableId) {
+        return TransactionLogStateStore.builder()
+                .sleeperTable(uniqueIdAndName(tableId, "table-name-" + tableId))
+                .schema(schema)
+                .filesLogStore(filesLogStoreByTableId.get(tableId))
+                .partitionsLogStore(partitionsLogStoreByTableId.get(tableId));
+    }
+}
@@ -26,12 +26,14 @@ import sleeper.core.statestore.FileReference;
 import sleeper.core.statestore.FileReferenceFactory;
 import sleeper.core.statestore.StateStore;
 import sleeper.core.statestore.StateStoreException;
+import sleeper.core.table.TableStatus;
 import sleeper.core.util.ExponentialBackoffWithJitter;
 import sleeper.core.util.ExponentialBackoffWithJitter.WaitRange;
 
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -46,6 +48,7 @@ public class TransactionLogStateStoreLogSpecificTest {
 
     private final Schema schema = schemaWithKey("key", new StringType());
     private final PartitionsBuilder partitions = new PartitionsBuilder(schema).singlePartition("root");
+    private final TableStatus sleeperTable = uniqueIdAndName("test-table-id", "test-table");
     private final InMemoryTransactionLogStore filesLogStore = new InMemoryTransactionLogStore();
     private final InMemoryTransactionLogStore partitionsLogStore = new InMemoryTransactionLogStore();
     private final List<Duration> retryWaits = new ArrayList<>();
@@ -224,6 +227,170 @@ public class TransactionLogStateStoreLogSpecificTest {
         assertThat(stateStoreSkippingTransaction.getFileReferences()).isEmpty();
     }
 
+    @Test
+    void shouldLoadLatestSnapshotWhenEnoughTransactionsAhead() throws Exception {
+        // Given
+        FileReference file1 = fileFactory().rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory().rootFile("file2.parquet", 200);
+        store.addFile(file1);
+        store.addFile(file2);
+        TransactionLogSnapshot snapshot = createFilesSnapshot();
+        filesLogStore.deleteTransactionsAtOrBefore(snapshot.getTransactionNumber());
+
+        // When
+        StateStore stateStore = stateStore(builder -> builder
+                .filesSnapshotLoader(loadSnapshot(snapshot))
+                .minTransactionsAheadToLoadSnapshot(2));
+
+        // Then
+        assertThat(stateStore.getFileReferences()).containsExactly(file1, file2);
+    }
+
+    @Test
+    void shouldReadTransactionsAfterSnapshot() throws Exception {
+        // Given
+        FileReference file1 = fileFactory().rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory().rootFile("file2.parquet", 200);
+        store.addFile(file1);
+        TransactionLogSnapshot snapshot = createFilesSnapshot();
+        filesLogStore.deleteTransactionsAtOrBefore(snapshot.getTransactionNumber());
+        store.addFile(file2);
+
+        // When
+        StateStore stateStore = stateStore(builder -> builder
+                .filesSnapshotLoader(loadSnapshot(snapshot))
+                .minTransactionsAheadToLoadSnapshot(1));
+
+        // Then
+        assertThat(stateStore.getFileReferences()).containsExactly(file1, file2);
+    }
+
+    @Test
+    void shouldNotLoadSnapshotWhenNotEnoughTransactionsAhead() throws Exception {
+        // Given
+        FileReference file = fileFactory().rootFile("file.parquet", 100);
+        store.addFile(file);
+        TransactionLogSnapshot snapshot = createFilesSnapshot();
+        List<Long> requestedTransactionNumbers = new ArrayList<>();
+
+        // When
+        StateStore stateStore = stateStore(builder -> builder
+                .filesSnapshotLoader(transactionNumber -> {
+                    requestedTransactionNumbers.add(transactionNumber);
+                    return loadSnapshot(snapshot).loadLatestSnapshotIfAtMinimumTransaction(transactionNumber);
+                })
+                .minTransactionsAheadToLoadSnapshot(2));
+
+        // Then
+        assertThat(stateStore.getFileReferences()).containsExactly(file);
+        assertThat(requestedTransactionNumbers).containsExactly(2L);
+    }
+
+    @Test
+    void shouldLoadSnapshotWhenTransactionsWereDeletedAfterLocalState() throws Exception {
+        // Given
+        FileReference file1 = fileFactory().rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory().rootFile("file2.parquet", 200);
+        FileReference file3 = fileFactory().rootFile("file3.parquet", 300);
+        List<TransactionLogSnapshot> snapshots = new ArrayList<>();
+        StateStore stateStore = stateStore(builder -> builder
+                .filesSnapshotLoader(loadLatestSnapshot(snapshots))
+                .minTransactionsAheadToLoadSnapshot(100));
+        stateStore.addFile(file1);
+        otherProcess().addFile(file2);
+        snapshots.add(createFilesSnapshot());
+        otherProcess().addFile(file3);
+        filesLogStore.deleteTransactionsAtOrBefore(2);
+
+        // When / Then
+        assertThat(stateStore.getFileReferences()).containsExactly(file1, file2, file3);
+    }
+
+    @Test
+    void shouldOnlyLookForSnapshotWhenFirstLoadingState() throws Exception {
+        // Given
+        store.addFile(fileFactory().rootFile("file1.parquet", 100));
+        List<Long> requestedTransactionNumbers = new ArrayList<>();
+        StateStore stateStore = stateStore(builder -> builder
+                .filesSnapshotLoader(transactionNumber -> {
+                    requestedTransactionNumbers.add(transactionNumber);
+                    return Optional.empty();
+                })
+                .minTransactionsAheadToLoadSnapshot(100));
+
+        // When
+        stateStore.getFileReferences();
+        otherProcess().addFile(fileFactory().rootFile("file2.parquet", 200));
+        stateStore.addFile(fileFactory().rootFile("file3.parquet", 300));
+        stateStore.getFileReferences();
+
+        // Then
+        assertThat(requestedTransactionNumbers).containsExactly(100L);
+    }
+
+    @Test
+    void shouldFailWhenTransactionsWereDeletedAfterLocalStateWithNoSnapshot() throws Exception {
+        // Given
+        FileReference file1 = fileFactory().rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory().rootFile("file2.parquet", 200);
+        FileReference file3 = fileFactory().rootFile("file3.parquet", 300);
+        store.addFile(file1);
+        otherProcess().addFile(file2);
+        otherProcess().addFile(file3);
+        filesLogStore.deleteTransactionsAtOrBefore(2);
+
+        // When / Then
+        assertThatThrownBy(() -> store.getFileReferences())
+                .isInstanceOf(StateStoreException.class)
+                .hasMessageStartingWith("Found gap in transaction log after transaction 1");
+    }
+
+    @Test
+    void shouldCreateNoSnapshotWhenNoTransactionsSinceLastSnapshot() throws Exception {
+        // Given
+        store.addFile(fileFactory().rootFile("file.parquet", 100));
+        TransactionLogSnapshot snapshot = createFilesSnapshot();
+
+        // When / Then
+        assertThat(TransactionLogSnapshotCreator.updateFilesSnapshot(snapshot, filesLogStore, sleeperTable))
+                .isEmpty();
+    }
+
+    @Test
+    void shouldCreatePartitionsSnapshot() throws Exception {
+        // Given
+        PartitionTree splitTree = partitions.splitToNewChildren("root", "L", "R", "l").buildTree();
+        store.atomicallyUpdatePartitionAndCreateNewOnes(
+                splitTree.getPartition("root"),
+                splitTree.getPartition("L"), splitTree.getPartition("R"));
+
+        // When
+        TransactionLogSnapshot snapshot = TransactionLogSnapshotCreator.updatePartitionsSnapshot(
+                TransactionLogSnapshot.partitionsInitialState(), partitionsLogStore, sleeperTable)
+                .orElseThrow();
+
+        // Then
+        StateStorePartitions state = snapshot.getState();
+        assertThat(state.all()).containsExactlyInAnyOrderElementsOf(splitTree.getAllPartitions());
+        assertThat(snapshot.getTransactionNumber()).isEqualTo(2);
+    }
+
+    private TransactionLogSnapshot createFilesSnapshot() throws StateStoreException {
+        return TransactionLogSnapshotCreator.updateFilesSnapshot(
+                TransactionLogSnapshot.filesInitialState(), filesLogStore, sleeperTable)
+                .orElseThrow();
+    }
+
+    private static TransactionLogSnapshotLoader loadSnapshot(TransactionLogSnapshot snapshot) {
+        return loadLatestSnapshot(List.of(snapshot));
+    }
+
+    private static TransactionLogSnapshotLoader loadLatestSnapshot(List<TransactionLogSnapshot> snapshots) {
+        return transactionNumber -> snapshots.stream()
+                .reduce((first, second) -> second)
+                .filter(snapshot -> snapshot.getTransactionNumber() >= transactionNumber);
+    }
+
     private StateStore otherProcess() {
         return stateStore();
     }
@@ -243,7 +410,7 @@ public class TransactionLogStateStoreLogSpecificTest {
 
     private TransactionLogStateStore.Builder stateStoreBuilder() {
         return TransactionLogStateStore.builder()
-                .sleeperTable(uniqueIdAndName("test-table-id", "test-table"))
+                .sleeperTable(sleeperTable)
                 .schema(schema)
                 .filesLogStore(filesLogStore)
                 .partitionsLogStore(partitionsLogStore)
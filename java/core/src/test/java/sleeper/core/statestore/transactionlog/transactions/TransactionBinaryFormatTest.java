@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.core.statestore.transactionlog.transactions;
+
+import org.junit.jupiter.api.Test;
+
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.statestore.AllReferencesToAFile;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceFactory;
+import sleeper.core.statestore.transactionlog.StateStoreTransaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+import static sleeper.core.statestore.AssignJobIdRequest.assignJobOnPartitionToFiles;
+import static sleeper.core.statestore.SplitFileReference.referenceForChildPartition;
+
+public class TransactionBinaryFormatTest {
+
+    private final Schema schema = schemaWithKey("key", new StringType());
+    private final PartitionTree partitions = new PartitionsBuilder(schema)
+            .rootFirst("root")
+            .splitToNewChildren("root", "L", "R", "p")
+            .buildTree();
+    private final Instant updateTime = Instant.parse("2024-06-10T09:43:01Z");
+    private final FileReferenceFactory fileFactory = FileReferenceFactory.fromUpdatedAt(partitions, updateTime);
+    private final TransactionSerDe serDe = new TransactionSerDe(schema);
+
+    @Test
+    void shouldSerDeAddFiles() {
+        // Given
+        FileReference file = fileFactory.rootFile("s3a://bucket/data/partition_root/file1.parquet", 100);
+        StateStoreTransaction<?> transaction = new AddFilesTransaction(
+                AllReferencesToAFile.newFilesWithReferences(Stream.of(
+                        fileFactory.rootFile("s3a://bucket/data/partition_root/file2.parquet", 200),
+                        referenceForChildPartition(file, "L"),
+                        referenceForChildPartition(file, "R")),
+                        updateTime)
+                        .collect(toUnmodifiableList()));
+
+        // When / Then
+        assertThat(serDeBinary(transaction)).isEqualTo(transaction);
+    }
+
+    @Test
+    void shouldSerDeAddFileWithJobIdAndApproximateCount() {
+        // Given
+        StateStoreTransaction<?> transaction = new AddFilesTransaction(List.of(
+                AllReferencesToAFile.fileWithOneReference(FileReference.builder()
+                        .filename("file.parquet")
+                        .partitionId("root")
+                        .jobId("test-job")
+                        .numberOfRecords(123L)
+                        .countApproximate(true)
+                        .onlyContainsDataForThisPartition(false)
+                        .build(), updateTime)));
+
+        // When / Then
+        assertThat(serDeBinary(transaction)).isEqualTo(transaction);
+    }
+
+    @Test
+    void shouldSerDeAssignJobIds() {
+        // Given
+        StateStoreTransaction<?> transaction = new AssignJobIdsTransaction(List.of(
+                assignJobOnPartitionToFiles("job1", "root",
+                        List.of("dir/file1.parquet", "dir/file2.parquet")),
+                assignJobOnPartitionToFiles("job2", "L",
+                        List.of("dir/file3.parquet", "file4.parquet"))));
+
+        // When / Then
+        assertThat(serDeBinary(transaction)).isEqualTo(transaction);
+    }
+
+    @Test
+    void shouldSerDeReplaceFileReferences() throws Exception {
+        // Given
+        StateStoreTransaction<?> transaction = new ReplaceFileReferencesTransaction(
+                "job", "root", List.of("dir/file1.parquet", "dir/file2.parquet"),
+                fileFactory.rootFile("dir/file3.parquet", 100));
+
+        // When / Then
+        assertThat(serDeBinary(transaction)).isEqualTo(transaction);
+    }
+
+    @Test
+    void shouldSerDeBatchOfTransactions() throws Exception {
+        // Given
+        StateStoreTransaction<?> transaction = new BatchedFileReferencesTransaction(List.of(
+                new AddFilesTransaction(List.of(AllReferencesToAFile.fileWithOneReference(
+                        fileFactory.rootFile("dir/file1.parquet", 100), updateTime))),
+                new ReplaceFileReferencesTransaction("job", "root", List.of("dir/file2.parquet"),
+                        fileFactory.rootFile("dir/file3.parquet", 200)),
+                new DeleteFilesTransaction(List.of("dir/file4.parquet"))));
+
+        // When / Then
+        assertThat(serDeBinary(transaction)).isEqualTo(transaction);
+    }
+
+    @Test
+    void shouldSerDeTransactionWithoutBinaryFieldsAsJson() {
+        // Given
+        StateStoreTransaction<?> transaction = new SplitPartitionTransaction(
+                partitions.getRootPartition(), List.of(partitions.getPartition("L"), partitions.getPartition("R")));
+
+        // When / Then
+        assertThat(serDeBinary(transaction)).isEqualTo(transaction);
+    }
+
+    @Test
+    void shouldWriteManyFilesSmallerThanJson() {
+        // Given
+        StateStoreTransaction<?> transaction = new AddFilesTransaction(
+                AllReferencesToAFile.newFilesWithReferences(IntStream.range(0, 1000)
+                        .mapToObj(i -> fileFactory.partitionFile("L",
+                                "s3a://bucket/table-id/data/partition_L/file-" + i + ".parquet", 1000L * i)),
+                        updateTime)
+                        .collect(toUnmodifiableList()));
+
+        // When
+        byte[] binary = serDe.toBinary(transaction);
+        byte[] json = serDe.toJson(transaction).getBytes(StandardCharsets.UTF_8);
+
+        // Then
+        assertThat(binary.length).isLessThan(json.length / 10);
+    }
+
+    @Test
+    void shouldRefuseUnrecognisedVersion() {
+        // Given
+        byte[] binary = serDe.toBinary(new ClearFilesTransaction());
+        binary[0] = TransactionBinaryFormat.VERSION + 1;
+
+        // When / Then
+        assertThatThrownBy(() -> serDe.toTransaction(TransactionType.CLEAR_FILES, binary))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unrecognised transaction format version: 2");
+    }
+
+    private StateStoreTransaction<?> serDeBinary(StateStoreTransaction<?> transaction) {
+        TransactionType type = TransactionType.getType(transaction);
+        return serDe.toTransaction(type, serDe.toBinary(transaction));
+    }
+}
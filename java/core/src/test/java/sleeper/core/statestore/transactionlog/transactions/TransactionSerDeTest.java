@@ -111,6 +111,24 @@ public class TransactionSerDeTest {
         whenSerDeThenMatchAndVerify(schemaWithKey("key"), transaction);
     }
 
+    @Test
+    void shouldSerDeBatchedFileReferences() throws Exception {
+        // Given
+        Schema schema = schemaWithKey("key");
+        PartitionTree partitions = new PartitionsBuilder(schema).singlePartition("root").buildTree();
+        Instant updateTime = Instant.parse("2024-06-12T10:05:01Z");
+        FileReferenceFactory fileFactory = FileReferenceFactory.fromUpdatedAt(partitions, updateTime);
+        FileReferenceTransaction transaction = new BatchedFileReferencesTransaction(List.of(
+                new AddFilesTransaction(List.of(
+                        AllReferencesToAFile.fileWithOneReference(fileFactory.rootFile("file1.parquet", 100), updateTime))),
+                new ReplaceFileReferencesTransaction(
+                        "job", "root", List.of("file2.parquet", "file3.parquet"),
+                        fileFactory.rootFile("file4.parquet", 200))));
+
+        // When / Then
+        whenSerDeThenMatchAndVerify(schema, transaction);
+    }
+
     @Test
     void shouldSerDeClearFiles() {
         // Given
@@ -211,6 +229,25 @@ public class TransactionSerDeTest {
         whenSerDeThenMatchAndVerify(schema, transaction);
     }
 
+    @Test
+    void shouldSerDeReplaceFileReferencesWithNewOnes() throws Exception {
+        // Given
+        Schema schema = schemaWithKey("key", new StringType());
+        PartitionTree partitions = new PartitionsBuilder(schema)
+                .rootFirst("root")
+                .splitToNewChildren("root", "L", "R", "p")
+                .buildTree();
+        Instant updateTime = Instant.parse("2023-03-26T10:05:01Z");
+        FileReferenceFactory fileFactory = FileReferenceFactory.fromUpdatedAt(partitions, updateTime);
+        FileReferenceTransaction transaction = new ReplaceFileReferencesWithNewOnesTransaction(
+                "job", "root", List.of("file1.parquet", "file2.parquet"),
+                List.of(fileFactory.partitionFile("L", "file3.parquet", 40),
+                        fileFactory.partitionFile("R", "file4.parquet", 60)));
+
+        // When / Then
+        whenSerDeThenMatchAndVerify(schema, transaction);
+    }
+
     @Test
     void shouldSerDeSplitFileReferences() {
         // Given
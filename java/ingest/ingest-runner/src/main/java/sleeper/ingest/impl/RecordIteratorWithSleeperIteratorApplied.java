@@ -22,6 +22,7 @@ import sleeper.configuration.jars.ObjectFactory;
 import sleeper.configuration.jars.ObjectFactoryException;
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.iterator.IteratorException;
+import sleeper.core.iterator.RecordBatches;
 import sleeper.core.iterator.SortedRecordIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Schema;
@@ -92,7 +93,7 @@ class RecordIteratorWithSleeperIteratorApplied implements CloseableIterator<Reco
             LOGGER.debug("Created iterator of class {}", sleeperIteratorClassName);
             iterator.init(sleeperIteratorConfig, sleeperSchema);
             LOGGER.debug("Initialised iterator with config {}", sleeperIteratorConfig);
-            return iterator.apply(sourceIterator);
+            return RecordBatches.applyIterator(iterator, sourceIterator);
         }
         return sourceIterator;
     }
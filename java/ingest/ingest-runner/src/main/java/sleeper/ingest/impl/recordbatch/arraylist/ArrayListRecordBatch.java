@@ -63,6 +63,7 @@ public class ArrayListRecordBatch<INCOMINGDATATYPE> implements RecordBatch<INCOM
     private static final DecimalFormat FORMATTER = new DecimalFormat("0.#");
     private final ParquetConfiguration parquetConfiguration;
     private final Schema sleeperSchema;
+    private final RecordComparator recordComparator;
     private final ArrayListRecordMapper<INCOMINGDATATYPE> recordMapper;
     private final String localWorkingDirectory;
     private final int maxNoOfRecordsInMemory;
@@ -94,6 +95,7 @@ public class ArrayListRecordBatch<INCOMINGDATATYPE> implements RecordBatch<INCOM
             long maxNoOfRecordsInLocalStore) {
         this.parquetConfiguration = requireNonNull(parquetConfiguration);
         this.sleeperSchema = parquetConfiguration.getTableProperties().getSchema();
+        this.recordComparator = new RecordComparator(sleeperSchema);
         this.recordMapper = recordMapper;
         this.localWorkingDirectory = requireNonNull(localWorkingDirectory);
         this.maxNoOfRecordsInMemory = maxNoOfRecordsInMemory;
@@ -138,7 +140,7 @@ public class ArrayListRecordBatch<INCOMINGDATATYPE> implements RecordBatch<INCOM
                     localWorkingDirectory,
                     uniqueIdentifier,
                     batchNo);
-            inMemoryBatch.sort(new RecordComparator(sleeperSchema));
+            inMemoryBatch.sort(recordComparator);
             Instant writeTime = Instant.now();
             // Write the records to a local Parquet file. The try-with-resources block ensures that the writer
             // is closed in both success and failure.
@@ -36,6 +36,7 @@ import sleeper.core.schema.type.Type;
 
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 class ArrowIngestSupport {
@@ -63,16 +64,18 @@ class ArrowIngestSupport {
     public static IntVector createSortOrderVector(BufferAllocator bufferAllocator,
             sleeper.core.schema.Schema sleeperSchema,
             VectorSchemaRoot vectorSchemaRoot) {
-        // Work out which field is to be used for the sort, where it is in the fields, and what type it is
+        // Work out which field is to be used for the sort, where it is in the fields, and what type it is.
+        // The row keys and sort keys are the first fields in the schema, so their position in the list of sort fields
+        // is also their position in the VectorSchemaRoot.
+        // The Arrow comparators order values in the same way as the KeyFieldComparator used elsewhere in Sleeper,
+        // including comparing byte arrays as unsigned bytes.
         int vectorSize = vectorSchemaRoot.getRowCount();
-        List<sleeper.core.schema.Field> allSleeperFields = sleeperSchema.getAllFields();
         List<sleeper.core.schema.Field> sleeperSortOrderFieldsInOrder = Stream.of(sleeperSchema.getRowKeyFields(), sleeperSchema.getSortKeyFields())
                 .flatMap(List::stream)
                 .collect(Collectors.toList());
-        List<VectorValueComparator<?>> vectorValueComparatorsInOrder = sleeperSortOrderFieldsInOrder.stream()
-                .map(field -> {
-                    Type fieldType = field.getType();
-                    int indexOfField = allSleeperFields.indexOf(field);
+        List<VectorValueComparator<?>> vectorValueComparatorsInOrder = IntStream.range(0, sleeperSortOrderFieldsInOrder.size())
+                .mapToObj(indexOfField -> {
+                    Type fieldType = sleeperSortOrderFieldsInOrder.get(indexOfField).getType();
                     if (fieldType instanceof IntType) {
                         VectorValueComparator<IntVector> vectorValueComparator = new DefaultVectorComparators.IntComparator();
                         vectorValueComparator.attachVector((IntVector) vectorSchemaRoot.getVector(indexOfField));
@@ -50,7 +50,8 @@ public class ParquetReaderIterator implements CloseableIterator<Record> {
         if (!hasNext()) {
             return null;
         }
-        Record copy = new Record(record);
+        // The reader creates a new record for each row, so this does not need to be copied
+        Record current = record;
         try {
             record = reader.read();
             if (null != record) {
@@ -59,7 +60,7 @@ public class ParquetReaderIterator implements CloseableIterator<Record> {
         } catch (IOException e) {
             throw new RuntimeException("IOException when reading from ParquetReader: ", e);
         }
-        return copy;
+        return current;
     }
 
     @Override
@@ -69,13 +69,28 @@ public class ParquetRecordWriterFactory {
     }
 
     public static Builder parquetRecordWriterBuilder(Path path, TableProperties tableProperties) {
-        return new Builder(path, tableProperties.getSchema())
-                .withCompressionCodec(tableProperties.get(COMPRESSION_CODEC))
+        return withTableProperties(new Builder(path, tableProperties.getSchema()), tableProperties);
+    }
+
+    /**
+     * Applies the Parquet settings from a Sleeper table to a Parquet writer builder. This allows writers which do not
+     * take Sleeper records to produce files with the same settings.
+     *
+     * @param  <T>             the type of object written by the writer
+     * @param  <B>             the type of the builder
+     * @param  builder         the builder
+     * @param  tableProperties the table properties
+     * @return                 the builder
+     */
+    public static <T, B extends ParquetWriter.Builder<T, B>> B withTableProperties(B builder, TableProperties tableProperties) {
+        Schema schema = tableProperties.getSchema();
+        setDictionaryEncoding(builder, schema.getRowKeyFieldNames(), tableProperties.getBoolean(DICTIONARY_ENCODING_FOR_ROW_KEY_FIELDS));
+        setDictionaryEncoding(builder, schema.getSortKeyFieldNames(), tableProperties.getBoolean(DICTIONARY_ENCODING_FOR_SORT_KEY_FIELDS));
+        setDictionaryEncoding(builder, schema.getValueFieldNames(), tableProperties.getBoolean(DICTIONARY_ENCODING_FOR_VALUE_FIELDS));
+        return builder
+                .withCompressionCodec(compressionCodec(tableProperties.get(COMPRESSION_CODEC)))
                 .withRowGroupSize(tableProperties.getLong(ROW_GROUP_SIZE))
                 .withPageSize(tableProperties.getInt(PAGE_SIZE))
-                .withDictionaryEncodingForRowKeyFields(tableProperties.getBoolean(DICTIONARY_ENCODING_FOR_ROW_KEY_FIELDS))
-                .withDictionaryEncodingForSortKeyFields(tableProperties.getBoolean(DICTIONARY_ENCODING_FOR_SORT_KEY_FIELDS))
-                .withDictionaryEncodingForValueFields(tableProperties.getBoolean(DICTIONARY_ENCODING_FOR_VALUE_FIELDS))
                 .withColumnIndexTruncateLength(tableProperties.getInt(COLUMN_INDEX_TRUNCATE_LENGTH))
                 .withStatisticsTruncateLength(tableProperties.getInt(STATISTICS_TRUNCATE_LENGTH))
                 .withWriterVersion(WriterVersion.fromString(tableProperties.get(PARQUET_WRITER_VERSION)));
@@ -102,7 +117,7 @@ public class ParquetRecordWriterFactory {
         }
 
         public Builder withCompressionCodec(String compressionCodec) {
-            return withCompressionCodec(CompressionCodecName.fromConf(compressionCodec.toUpperCase(Locale.ROOT)));
+            return withCompressionCodec(compressionCodec(compressionCodec));
         }
 
         public Builder withDictionaryEncodingForRowKeyFields(boolean dictionaryEncodingForRowKeyFields) {
@@ -121,9 +136,13 @@ public class ParquetRecordWriterFactory {
         }
     }
 
-    private static void setDictionaryEncoding(Builder builder, List<String> fieldNames, boolean dictionaryEncodingEnabled) {
+    private static CompressionCodecName compressionCodec(String compressionCodec) {
+        return CompressionCodecName.fromConf(compressionCodec.toUpperCase(Locale.ROOT));
+    }
+
+    private static void setDictionaryEncoding(ParquetWriter.Builder<?, ?> builder, List<String> fieldNames, boolean dictionaryEncodingEnabled) {
         for (String fieldName : fieldNames) {
-            builder = builder.withDictionaryEncoding(fieldName, dictionaryEncodingEnabled);
+            builder.withDictionaryEncoding(fieldName, dictionaryEncodingEnabled);
         }
     }
 }
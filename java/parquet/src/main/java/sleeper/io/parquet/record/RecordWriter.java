@@ -18,7 +18,9 @@ package sleeper.io.parquet.record;
 import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.io.api.RecordConsumer;
 
+import sleeper.core.record.IndexedRecord;
 import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
 import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.ByteArrayType;
@@ -38,41 +40,73 @@ import java.util.Map;
  */
 public class RecordWriter {
     private final RecordConsumer recordConsumer;
-    private final Schema schema;
+    private final RecordLayout layout;
+    private final Type[] types;
 
-    public RecordWriter(RecordConsumer recordConsumer, sleeper.core.schema.Schema schema) {
+    public RecordWriter(RecordConsumer recordConsumer, Schema schema) {
+        this(recordConsumer, new RecordLayout(schema));
+    }
+
+    public RecordWriter(RecordConsumer recordConsumer, RecordLayout layout) {
         this.recordConsumer = recordConsumer;
-        this.schema = schema;
+        this.layout = layout;
+        this.types = layout.getFields().stream().map(Field::getType).toArray(Type[]::new);
     }
 
     public void write(Record record) {
         recordConsumer.startMessage();
-        int count = 0;
-        for (Field entry : schema.getAllFields()) {
-            String name = entry.getName();
-            Type type = entry.getType();
-            recordConsumer.startField(name, count);
-            if (type instanceof IntType) {
-                recordConsumer.addInteger((int) record.get(name));
-            } else if (type instanceof LongType) {
-                recordConsumer.addLong((long) record.get(name));
-            } else if (type instanceof StringType) {
-                recordConsumer.addBinary(Binary.fromString((String) record.get(name)));
-            } else if (type instanceof ByteArrayType) {
-                recordConsumer.addBinary(Binary.fromConstantByteArray((byte[]) record.get(name)));
-            } else if (type instanceof MapType) {
-                addMap(recordConsumer, (MapType) type, (Map<?, ?>) record.get(name));
-            } else if (type instanceof ListType) {
-                addList(recordConsumer, (ListType) type, (List<?>) record.get(name));
-            } else {
-                throw new RuntimeException("Unknown type " + type);
+        for (int i = 0; i < types.length; i++) {
+            String name = layout.getFieldName(i);
+            recordConsumer.startField(name, i);
+            addValue(types[i], record.get(name));
+            recordConsumer.endField(name, i);
+        }
+        recordConsumer.endMessage();
+    }
+
+    /**
+     * Writes a record held by position. Int and long fields are written without boxing.
+     *
+     * @param record the record
+     */
+    public void write(IndexedRecord record) {
+        recordConsumer.startMessage();
+        for (int i = 0; i < types.length; i++) {
+            String name = layout.getFieldName(i);
+            recordConsumer.startField(name, i);
+            switch (layout.getKind(i)) {
+                case INT:
+                    recordConsumer.addInteger(record.getInt(i));
+                    break;
+                case LONG:
+                    recordConsumer.addLong(record.getLong(i));
+                    break;
+                default:
+                    addValue(types[i], record.getObject(i));
             }
-            recordConsumer.endField(name, count);
-            count++;
+            recordConsumer.endField(name, i);
         }
         recordConsumer.endMessage();
     }
 
+    private void addValue(Type type, Object value) {
+        if (type instanceof IntType) {
+            recordConsumer.addInteger((int) value);
+        } else if (type instanceof LongType) {
+            recordConsumer.addLong((long) value);
+        } else if (type instanceof StringType) {
+            recordConsumer.addBinary(Binary.fromString((String) value));
+        } else if (type instanceof ByteArrayType) {
+            recordConsumer.addBinary(Binary.fromConstantByteArray((byte[]) value));
+        } else if (type instanceof MapType) {
+            addMap(recordConsumer, (MapType) type, (Map<?, ?>) value);
+        } else if (type instanceof ListType) {
+            addList(recordConsumer, (ListType) type, (List<?>) value);
+        } else {
+            throw new RuntimeException("Unknown type " + type);
+        }
+    }
+
     private void addList(RecordConsumer recordConsumer, ListType listType, List<?> list) {
         PrimitiveType elementType = listType.getElementType();
         recordConsumer.startGroup();
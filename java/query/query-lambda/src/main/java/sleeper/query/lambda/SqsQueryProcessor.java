@@ -30,6 +30,8 @@ import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.core.statestore.StateStore;
 import sleeper.core.statestore.StateStoreException;
+import sleeper.core.statestore.transactionlog.TransactionLogStateCache;
+import sleeper.core.statestore.transactionlog.TransactionLogStateView;
 import sleeper.io.parquet.utils.HadoopConfigurationProvider;
 import sleeper.query.model.LeafPartitionQuery;
 import sleeper.query.model.Query;
@@ -41,7 +43,9 @@ import sleeper.query.runner.recordretrieval.QueryExecutor;
 import sleeper.query.runner.tracker.DynamoDBQueryTracker;
 import sleeper.query.runner.tracker.QueryStatusReportListeners;
 import sleeper.statestore.StateStoreProvider;
+import sleeper.statestore.transactionlog.DynamoDBTransactionLogStateStore;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.HashMap;
@@ -52,6 +56,9 @@ import java.util.concurrent.Executors;
 
 import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.LEAF_PARTITION_QUERY_QUEUE_URL;
 import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PROCESSOR_LAMBDA_RECORD_RETRIEVAL_THREADS;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PROCESSOR_STATE_CACHE_REFRESH_PERIOD_IN_SECONDS;
+import static sleeper.configuration.properties.table.TableProperty.STATESTORE_CLASSNAME;
+import static sleeper.configuration.properties.table.TableProperty.TABLE_ID;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
 
 public class SqsQueryProcessor {
@@ -67,11 +74,14 @@ public class SqsQueryProcessor {
     private final DynamoDBQueryTracker queryTracker;
     private final Map<String, QueryExecutor> queryExecutorCache = new HashMap<>();
     private final Map<String, Configuration> configurationCache = new HashMap<>();
+    private final TransactionLogStateCache stateCache;
+    private final Map<String, TransactionLogStateView> lastStateViewByTableId = new HashMap<>();
 
     private SqsQueryProcessor(Builder builder) throws ObjectFactoryException {
         sqsClient = builder.sqsClient;
         instanceProperties = builder.instanceProperties;
         tablePropertiesProvider = builder.tablePropertiesProvider;
+        stateCache = builder.stateCache;
         executorService = Executors.newFixedThreadPool(instanceProperties.getInt(EXECUTOR_POOL_THREADS));
         objectFactory = new ObjectFactory(instanceProperties, builder.s3Client, "/tmp");
         queryTracker = new DynamoDBQueryTracker(instanceProperties, builder.dynamoClient);
@@ -107,7 +117,7 @@ public class SqsQueryProcessor {
             return new QueryExecutor(objectFactory, tableProperties, stateStore, conf, executorService);
         });
 
-        queryExecutor.initIfNeeded(Instant.now());
+        initialiseState(queryExecutor, tableProperties);
         List<LeafPartitionQuery> subQueries = queryExecutor.splitIntoLeafPartitionQueries(query);
 
         if (subQueries.isEmpty()) {
@@ -129,6 +139,21 @@ public class SqsQueryProcessor {
         LOGGER.info("Submitted {} subqueries to queue", subQueries.size());
     }
 
+    private void initialiseState(QueryExecutor queryExecutor, TableProperties tableProperties) throws StateStoreException {
+        if (stateCache == null || !DynamoDBTransactionLogStateStore.class.getName().equals(tableProperties.get(STATESTORE_CLASSNAME))) {
+            queryExecutor.initIfNeeded(Instant.now());
+            return;
+        }
+        // The cache is refreshed in the background, but that may have been paused while the lambda was frozen
+        String tableId = tableProperties.get(TABLE_ID);
+        Duration maxAge = Duration.ofSeconds(2L * instanceProperties.getInt(QUERY_PROCESSOR_STATE_CACHE_REFRESH_PERIOD_IN_SECONDS));
+        TransactionLogStateView view = stateCache.getView(tableId, maxAge);
+        if (view != lastStateViewByTableId.get(tableId)) {
+            queryExecutor.init(view.getAllPartitions(), view.getPartitionToReferencedFilesMap(), Instant.now());
+            lastStateViewByTableId.put(tableId, view);
+        }
+    }
+
     private Configuration getConfiguration(TableProperties tableProperties) {
         String tableName = tableProperties.get(TABLE_NAME);
         if (!configurationCache.containsKey(tableName)) {
@@ -144,6 +169,7 @@ public class SqsQueryProcessor {
         private AmazonDynamoDB dynamoClient;
         private InstanceProperties instanceProperties;
         private TablePropertiesProvider tablePropertiesProvider;
+        private TransactionLogStateCache stateCache;
 
         private Builder() {
         }
@@ -173,6 +199,18 @@ public class SqsQueryProcessor {
             return this;
         }
 
+        /**
+         * Sets a cache of the state of tables using a transaction log state store. If this is set, the state of those
+         * tables is read from the cache rather than loaded from the state store.
+         *
+         * @param  stateCache the cache
+         * @return            this builder
+         */
+        public Builder stateCache(TransactionLogStateCache stateCache) {
+            this.stateCache = stateCache;
+            return this;
+        }
+
         public SqsQueryProcessor build() throws ObjectFactoryException {
             return new SqsQueryProcessor(this);
         }
@@ -30,15 +30,20 @@ import org.slf4j.LoggerFactory;
 import sleeper.configuration.jars.ObjectFactoryException;
 import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
+import sleeper.core.statestore.transactionlog.TransactionLogStateCache;
 import sleeper.core.util.LoggedDuration;
 import sleeper.query.runner.recordretrieval.QueryExecutor;
 import sleeper.query.runner.tracker.DynamoDBQueryTracker;
+import sleeper.statestore.transactionlog.DynamoDBTransactionLogStateStore;
 
+import java.time.Duration;
 import java.time.Instant;
 
 import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.CONFIG_BUCKET;
 import static sleeper.configuration.properties.instance.CommonProperty.FORCE_RELOAD_PROPERTIES;
 import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PROCESSING_LAMBDA_STATE_REFRESHING_PERIOD_IN_SECONDS;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PROCESSOR_STATE_CACHE_MAX_TABLES;
+import static sleeper.configuration.properties.instance.QueryProperty.QUERY_PROCESSOR_STATE_CACHE_REFRESH_PERIOD_IN_SECONDS;
 
 /**
  * A lambda that is triggered when a serialised query arrives on an SQS queue. A processor executes the request using a
@@ -57,6 +62,7 @@ public class SqsQueryProcessorLambda implements RequestHandler<SQSEvent, Void> {
     private final AmazonDynamoDB dynamoClient;
     private QueryMessageHandler messageHandler;
     private SqsQueryProcessor processor;
+    private TransactionLogStateCache stateCache;
 
     public SqsQueryProcessorLambda() throws ObjectFactoryException {
         this(AmazonS3ClientBuilder.defaultClient(), AmazonSQSClientBuilder.defaultClient(),
@@ -105,9 +111,17 @@ public class SqsQueryProcessorLambda implements RequestHandler<SQSEvent, Void> {
         instanceProperties = loadInstanceProperties(s3Client, configBucket);
         TablePropertiesProvider tablePropertiesProvider = new TablePropertiesProvider(instanceProperties, s3Client, dynamoClient);
         messageHandler = new QueryMessageHandler(tablePropertiesProvider, new DynamoDBQueryTracker(instanceProperties, dynamoClient));
+        if (stateCache == null) {
+            // The cache is kept when properties are reloaded, so that tables do not need to be read again from the start
+            // of their logs. It looks up table properties from the provider created here.
+            stateCache = DynamoDBTransactionLogStateStore.createStateCache(instanceProperties, tablePropertiesProvider,
+                    dynamoClient, s3Client, instanceProperties.getInt(QUERY_PROCESSOR_STATE_CACHE_MAX_TABLES));
+            stateCache.startRefreshing(Duration.ofSeconds(instanceProperties.getInt(QUERY_PROCESSOR_STATE_CACHE_REFRESH_PERIOD_IN_SECONDS)));
+        }
         processor = SqsQueryProcessor.builder()
                 .sqsClient(sqsClient).s3Client(s3Client).dynamoClient(dynamoClient)
                 .instanceProperties(instanceProperties).tablePropertiesProvider(tablePropertiesProvider)
+                .stateCache(stateCache)
                 .build();
         lastUpdateTime = Instant.now();
     }
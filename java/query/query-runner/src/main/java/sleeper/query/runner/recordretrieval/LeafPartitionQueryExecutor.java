@@ -25,6 +25,7 @@ import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TableProperty;
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.iterator.IteratorException;
+import sleeper.core.iterator.RecordBatches;
 import sleeper.core.iterator.SortedRecordIterator;
 import sleeper.core.record.Record;
 import sleeper.core.schema.Field;
@@ -32,6 +33,7 @@ import sleeper.core.schema.Schema;
 import sleeper.query.model.LeafPartitionQuery;
 import sleeper.query.model.QueryException;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -65,7 +67,8 @@ public class LeafPartitionQueryExecutor {
             ObjectFactory objectFactory,
             Configuration conf,
             TableProperties tableProperties) {
-        this(objectFactory, tableProperties, new LeafPartitionRecordRetrieverImpl(executorService, conf));
+        this(objectFactory, tableProperties,
+                new LeafPartitionRecordRetrieverImpl(executorService, conf, tableProperties.getInt(TableProperty.READ_AHEAD_RECORDS)));
     }
 
     public CloseableIterator<Record> getRecords(LeafPartitionQuery leafPartitionQuery) throws QueryException {
@@ -87,16 +90,15 @@ public class LeafPartitionQueryExecutor {
 
         try {
             CloseableIterator<Record> iterator = retriever.getRecords(leafPartitionQuery, dataReadSchema);
-            // Apply compaction time iterator
+            // Apply compaction time iterator, then query time iterator
+            List<SortedRecordIterator> iterators = new ArrayList<>();
             if (null != compactionIterator) {
-                iterator = compactionIterator.apply(iterator);
+                iterators.add(compactionIterator);
             }
-            // Apply query time iterator
             if (null != queryIterator) {
-                iterator = queryIterator.apply(iterator);
+                iterators.add(queryIterator);
             }
-
-            return iterator;
+            return RecordBatches.applyIterators(iterators, iterator);
         } catch (RecordRetrievalException e) {
             throw new QueryException("QueryException retrieving records for LeafPartitionQuery", e);
         }
@@ -26,10 +26,12 @@ import org.slf4j.LoggerFactory;
 
 import sleeper.core.iterator.CloseableIterator;
 import sleeper.core.iterator.MergingIterator;
+import sleeper.core.iterator.PrefetchingIterator;
 import sleeper.core.iterator.WrappedIterator;
 import sleeper.core.record.Record;
 import sleeper.core.record.RecordComparator;
 import sleeper.core.schema.Schema;
+import sleeper.io.parquet.record.ParquetReaderIterator;
 import sleeper.io.parquet.record.ParquetRecordReader;
 import sleeper.io.parquet.utils.RangeQueryUtils;
 import sleeper.query.model.LeafPartitionQuery;
@@ -53,16 +55,25 @@ public class LeafPartitionRecordRetrieverImpl implements LeafPartitionRecordRetr
 
     private final Configuration filesConfig;
     private final ExecutorService executorService;
+    private final int readAheadRecords;
 
     public LeafPartitionRecordRetrieverImpl(ExecutorService executorService, Configuration conf) {
+        this(executorService, conf, 0);
+    }
+
+    public LeafPartitionRecordRetrieverImpl(ExecutorService executorService, Configuration conf, int readAheadRecords) {
         this.executorService = executorService;
         this.filesConfig = conf;
+        this.readAheadRecords = readAheadRecords;
     }
 
     public CloseableIterator<Record> getRecords(List<String> files, Schema dataReadSchema, FilterPredicate filterPredicate) throws RecordRetrievalException {
         if (files.isEmpty()) {
             return new WrappedIterator<>(Collections.emptyIterator());
         }
+        if (readAheadRecords > 0) {
+            return getRecordsReadingAhead(files, dataReadSchema, filterPredicate);
+        }
 
         ArrayList<RetrieveTask> tasks = new ArrayList<>();
         Map<Integer, CloseableIterator<Record>> indexToReader = new HashMap<>();
@@ -117,6 +128,27 @@ public class LeafPartitionRecordRetrieverImpl implements LeafPartitionRecordRetr
         return new MergingIterator(dataReadSchema, iterators);
     }
 
+    private CloseableIterator<Record> getRecordsReadingAhead(List<String> files, Schema dataReadSchema, FilterPredicate filterPredicate) throws RecordRetrievalException {
+        int readAheadRecordsPerFile = readAheadRecords / files.size();
+        List<CloseableIterator<Record>> iterators = new ArrayList<>();
+        for (String file : files) {
+            ParquetReader<Record> reader;
+            try {
+                reader = createParquetReader(dataReadSchema, file, filterPredicate);
+            } catch (IOException e) {
+                throw new RecordRetrievalException("Failed to create a parquet reader", e);
+            }
+            // The file is opened by the first read in the background, so that all the files are opened in parallel
+            iterators.add(PrefetchingIterator.readAhead(() -> new ParquetReaderIterator(reader), executorService, readAheadRecordsPerFile));
+            LOGGER.debug("Created reader for file {}", file);
+        }
+        try {
+            return new MergingIterator(dataReadSchema, iterators);
+        } catch (RuntimeException e) {
+            throw new RecordRetrievalException("Failed to retrieve records due to an exception", e);
+        }
+    }
+
     @Override
     public CloseableIterator<Record> getRecords(LeafPartitionQuery leafPartitionQuery, Schema dataReadSchema) throws RecordRetrievalException {
         List<String> files = leafPartitionQuery.getFiles();
@@ -45,6 +45,7 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static sleeper.configuration.properties.table.TableProperty.QUERY_PROCESSOR_CACHE_TIMEOUT;
+import static sleeper.configuration.properties.table.TableProperty.READ_AHEAD_RECORDS;
 import static sleeper.configuration.properties.table.TableProperty.TABLE_ID;
 
 /**
@@ -67,7 +68,7 @@ public class QueryExecutor {
             ObjectFactory objectFactory, TableProperties tableProperties, StateStore stateStore,
             Configuration configuration, ExecutorService executorService) {
         this(objectFactory, stateStore, tableProperties,
-                new LeafPartitionRecordRetrieverImpl(executorService, configuration),
+                new LeafPartitionRecordRetrieverImpl(executorService, configuration, tableProperties.getInt(READ_AHEAD_RECORDS)),
                 Instant.now());
     }
 
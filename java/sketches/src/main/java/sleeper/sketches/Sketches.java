@@ -18,7 +18,9 @@ package sleeper.sketches;
 import com.facebook.collections.ByteArray;
 import org.apache.datasketches.quantiles.ItemsSketch;
 
+import sleeper.core.record.IndexedRecord;
 import sleeper.core.record.Record;
+import sleeper.core.record.RecordLayout;
 import sleeper.core.schema.Field;
 import sleeper.core.schema.Schema;
 import sleeper.core.schema.type.ByteArrayType;
@@ -62,4 +64,21 @@ public class Sketches {
             }
         }
     }
+
+    /**
+     * Updates the sketches with the row keys of a record held by position. Only the row keys need to be set in the
+     * record.
+     *
+     * @param record the record
+     */
+    public void update(IndexedRecord record) {
+        RecordLayout layout = record.getLayout();
+        for (int i = 0; i < layout.getNumberOfRowKeys(); i++) {
+            Object value = record.get(i);
+            if (value instanceof byte[]) {
+                value = ByteArray.wrap((byte[]) value);
+            }
+            getQuantilesSketch(layout.getFieldName(i)).update(value);
+        }
+    }
 }
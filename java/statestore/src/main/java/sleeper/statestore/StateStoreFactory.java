@@ -50,6 +50,7 @@ public class StateStoreFactory {
             return new S3StateStore(instanceProperties, tableProperties, dynamoDB, configuration);
         }
         if (stateStoreClassName.equals(DynamoDBTransactionLogStateStore.class.getName())) {
+            // Snapshots are not loaded until something creates them regularly, as looking for them lists the data bucket
             return new DynamoDBTransactionLogStateStore(instanceProperties, tableProperties, dynamoDB, s3);
         }
         throw new RuntimeException("Unknown StateStore class: " + stateStoreClassName);
@@ -24,15 +24,14 @@ import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TablePropertiesProvider;
 import sleeper.core.statestore.StateStore;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import static sleeper.configuration.properties.table.TableProperty.TABLE_NAME;
 
 /**
- * Caches Sleeper table state store objects. An instance of this class cannot be used concurrently in multiple threads,
- * as the cache is not thread-safe.
+ * Caches Sleeper table state store objects. An instance of this class can be used concurrently in multiple threads.
  */
 public class StateStoreProvider {
     private final Function<TableProperties, StateStore> stateStoreFactory;
@@ -45,7 +44,7 @@ public class StateStoreProvider {
 
     protected StateStoreProvider(Function<TableProperties, StateStore> stateStoreFactory) {
         this.stateStoreFactory = stateStoreFactory;
-        this.tableNameToStateStoreCache = new HashMap<>();
+        this.tableNameToStateStoreCache = new ConcurrentHashMap<>();
     }
 
     public StateStore getStateStore(String tableName, TablePropertiesProvider tablePropertiesProvider) {
@@ -54,11 +53,7 @@ public class StateStoreProvider {
     }
 
     public StateStore getStateStore(TableProperties tableProperties) {
-        String tableName = tableProperties.get(TABLE_NAME);
-        if (!tableNameToStateStoreCache.containsKey(tableName)) {
-            StateStore stateStore = stateStoreFactory.apply(tableProperties);
-            tableNameToStateStoreCache.put(tableName, stateStore);
-        }
-        return tableNameToStateStoreCache.get(tableName);
+        return tableNameToStateStoreCache.computeIfAbsent(tableProperties.get(TABLE_NAME),
+                tableName -> stateStoreFactory.apply(tableProperties));
     }
 }
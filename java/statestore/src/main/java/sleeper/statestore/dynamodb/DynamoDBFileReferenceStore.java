@@ -37,6 +37,8 @@ import org.slf4j.LoggerFactory;
 import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TableProperty;
+import sleeper.core.iterator.ConcurrentMappingIterator;
+import sleeper.core.iterator.WrappedIterator;
 import sleeper.core.statestore.AllReferencesToAFile;
 import sleeper.core.statestore.AllReferencesToAllFiles;
 import sleeper.core.statestore.AssignJobIdRequest;
@@ -53,14 +55,24 @@ import sleeper.core.statestore.exception.FileReferenceAssignedToJobException;
 import sleeper.core.statestore.exception.FileReferenceNotFoundException;
 import sleeper.dynamodb.tools.DynamoDBRecordBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -86,6 +98,13 @@ import static sleeper.statestore.dynamodb.DynamoDBFileReferenceFormat.TABLE_ID;
 class DynamoDBFileReferenceStore implements FileReferenceStore {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDBFileReferenceStore.class);
+    private static final int MAX_REQUESTS_IN_FLIGHT = 10;
+    private static final int MAX_ITEMS_PER_TRANSACTION = 100;
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "file-reference-store");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final AmazonDynamoDB dynamoDB;
     private final String activeTableName;
@@ -243,9 +262,9 @@ class DynamoDBFileReferenceStore implements FileReferenceStore {
     }
 
     @Override
-    public void atomicallyReplaceFileReferencesWithNewOne(
-            String jobId, String partitionId, List<String> inputFiles, FileReference newReference) throws StateStoreException {
-        FileReference.validateNewReferenceForJobOutput(inputFiles, newReference);
+    public void atomicallyReplaceFileReferencesWithNewOnes(
+            String jobId, String partitionId, List<String> inputFiles, List<FileReference> newReferences) throws StateStoreException {
+        FileReference.validateNewReferencesForJobOutput(inputFiles, newReferences);
         // Delete record for file for current status
         Instant updateTime = clock.instant();
         List<TransactWriteItem> writes = new ArrayList<>();
@@ -265,9 +284,9 @@ class DynamoDBFileReferenceStore implements FileReferenceStore {
             referenceCountUpdates.add(new TransactWriteItem().withUpdate(fileReferenceCountUpdate(filename, updateTime, -1)));
         });
         // Add record for file for new status
-        writes.add(new TransactWriteItem().withPut(putNewFileReference(newReference, updateTime)));
+        newReferences.forEach(newReference -> writes.add(new TransactWriteItem().withPut(putNewFileReference(newReference, updateTime))));
         writes.addAll(referenceCountUpdates);
-        writes.add(new TransactWriteItem().withPut(putNewFileReferenceCount(newReference.getFilename(), 1, updateTime)));
+        newReferences.forEach(newReference -> writes.add(new TransactWriteItem().withPut(putNewFileReferenceCount(newReference.getFilename(), 1, updateTime))));
         TransactWriteItemsRequest transactWriteItemsRequest = new TransactWriteItemsRequest()
                 .withTransactItems(writes)
                 .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
@@ -275,10 +294,10 @@ class DynamoDBFileReferenceStore implements FileReferenceStore {
             TransactWriteItemsResult transactWriteItemsResult = dynamoDB.transactWriteItems(transactWriteItemsRequest);
             List<ConsumedCapacity> consumedCapacity = transactWriteItemsResult.getConsumedCapacity();
             double totalConsumed = consumedCapacity.stream().mapToDouble(ConsumedCapacity::getCapacityUnits).sum();
-            LOGGER.debug("Removed {} file references and added 1 new file, capacity consumed = {}",
-                    inputFiles.size(), totalConsumed);
+            LOGGER.debug("Removed {} file references and added {} new files, capacity consumed = {}",
+                    inputFiles.size(), newReferences.size(), totalConsumed);
         } catch (TransactionCanceledException e) {
-            throw FailedDynamoDBReplaceReferences.from(e, jobId, partitionId, inputFiles, newReference)
+            throw FailedDynamoDBReplaceReferences.from(e, jobId, partitionId, inputFiles, newReferences)
                     .buildStateStoreException(fileReferenceFormat);
         } catch (AmazonDynamoDBException e) {
             throw new StateStoreException("Failed to mark files ready for GC and add new files", e);
@@ -288,11 +307,24 @@ class DynamoDBFileReferenceStore implements FileReferenceStore {
     @Override
     public void assignJobIds(List<AssignJobIdRequest> requests) throws StateStoreException {
         long updateTime = clock.millis();
-        for (AssignJobIdRequest request : requests) {
-            assignJobId(request, updateTime);
+        if (requestsShareFiles(requests)) {
+            // Requests for the same file are applied in order, so that the first request gets the file
+            for (AssignJobIdRequest request : requests) {
+                assignJobId(request, updateTime);
+            }
+        } else {
+            // Each request is applied in a separate transaction, so they can be sent concurrently
+            runConcurrently(requests, request -> assignJobId(request, updateTime));
         }
     }
 
+    private static boolean requestsShareFiles(List<AssignJobIdRequest> requests) {
+        Set<String> filenames = new HashSet<>();
+        return requests.stream()
+                .flatMap(request -> request.getFilenames().stream())
+                .anyMatch(filename -> !filenames.add(filename));
+    }
+
     private void assignJobId(AssignJobIdRequest request, long updateTime) throws StateStoreException {
         // Create Puts for each of the files, conditional on the compactionJob field being not present
         List<TransactWriteItem> writes = request.getFilenames().stream().map(file -> new TransactWriteItem().withUpdate(new Update()
@@ -346,35 +378,54 @@ class DynamoDBFileReferenceStore implements FileReferenceStore {
 
     @Override
     public void deleteGarbageCollectedFileReferenceCounts(List<String> filenames) throws StateStoreException {
-        int i = 0;
-        double totalCapacityConsumed = 0;
-        double batchCapacityConsumed = 0;
-        for (String filename : filenames) {
-            TransactWriteItem writeItem = new TransactWriteItem().withDelete(new Delete()
-                    .withTableName(fileReferenceCountTableName)
-                    .withKey(fileReferenceFormat.createReferenceCountKey(filename))
-                    .withConditionExpression("#References = :refs")
-                    .withExpressionAttributeNames(Map.of("#References", REFERENCES))
-                    .withExpressionAttributeValues(Map.of(":refs", createNumberAttribute(0)))
-                    .withReturnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD));
-            try {
-                TransactWriteItemsResult result = dynamoDB.transactWriteItems(new TransactWriteItemsRequest().withTransactItems(writeItem));
-                if (result.getConsumedCapacity() != null) {
-                    batchCapacityConsumed += result.getConsumedCapacity().get(0).getCapacityUnits();
-                }
-                if (i % 100 == 0) {
-                    LOGGER.debug("Deleted 100 unreferenced files, capacity consumed = {}", batchCapacityConsumed);
-                    totalCapacityConsumed += batchCapacityConsumed;
-                    batchCapacityConsumed = 0;
+        DoubleAdder totalCapacityConsumed = new DoubleAdder();
+        runConcurrently(partitionList(filenames, MAX_ITEMS_PER_TRANSACTION),
+                batch -> deleteUnreferencedFiles(batch, totalCapacityConsumed));
+        LOGGER.debug("Deleted a total of {} unreferenced files, total consumed capacity = {}", filenames.size(), totalCapacityConsumed.sum());
+    }
+
+    private void deleteUnreferencedFiles(List<String> filenames, DoubleAdder capacityConsumed) throws StateStoreException {
+        try {
+            TransactWriteItemsResult result = dynamoDB.transactWriteItems(new TransactWriteItemsRequest()
+                    .withTransactItems(filenames.stream()
+                            .map(this::deleteUnreferencedFile)
+                            .collect(Collectors.toUnmodifiableList()))
+                    .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL));
+            double consumed = result.getConsumedCapacity().stream().mapToDouble(ConsumedCapacity::getCapacityUnits).sum();
+            capacityConsumed.add(consumed);
+            LOGGER.debug("Deleted {} unreferenced files, capacity consumed = {}", filenames.size(), consumed);
+        } catch (TransactionCanceledException e) {
+            if (filenames.size() == 1) {
+                throw buildDeleteGCFileStateStoreException(e, filenames.get(0));
+            }
+            // Delete the files separately, so that files which are ready for GC are deleted even if others fail
+            LOGGER.debug("Failed deleting batch of {} unreferenced files, retrying individually", filenames.size());
+            StateStoreException failure = null;
+            for (String filename : filenames) {
+                try {
+                    deleteUnreferencedFiles(List.of(filename), capacityConsumed);
+                } catch (StateStoreException fileFailure) {
+                    if (failure == null) {
+                        failure = fileFailure;
+                    }
                 }
-            } catch (TransactionCanceledException e) {
-                throw buildDeleteGCFileStateStoreException(e, filename);
-            } catch (AmazonDynamoDBException e) {
-                throw new StateStoreException("Failed to delete unreferenced files", e);
             }
-            i++;
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (AmazonDynamoDBException e) {
+            throw new StateStoreException("Failed to delete unreferenced files", e);
         }
-        LOGGER.debug("Deleted a total of {} unreferenced files, total consumed capacity = {}", filenames.size(), totalCapacityConsumed);
+    }
+
+    private TransactWriteItem deleteUnreferencedFile(String filename) {
+        return new TransactWriteItem().withDelete(new Delete()
+                .withTableName(fileReferenceCountTableName)
+                .withKey(fileReferenceFormat.createReferenceCountKey(filename))
+                .withConditionExpression("#References = :refs")
+                .withExpressionAttributeNames(Map.of("#References", REFERENCES))
+                .withExpressionAttributeValues(Map.of(":refs", createNumberAttribute(0)))
+                .withReturnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD));
     }
 
     private StateStoreException buildDeleteGCFileStateStoreException(
@@ -413,29 +464,33 @@ class DynamoDBFileReferenceStore implements FileReferenceStore {
     @Override
     public List<FileReference> getFileReferences() throws StateStoreException {
         try {
-            QueryRequest queryRequest = new QueryRequest()
-                    .withTableName(activeTableName)
-                    .withConsistentRead(stronglyConsistentReads)
-                    .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
-                    .withKeyConditionExpression("#TableId = :table_id")
-                    .withExpressionAttributeNames(Map.of("#TableId", TABLE_ID))
-                    .withExpressionAttributeValues(new DynamoDBRecordBuilder()
-                            .string(":table_id", sleeperTableId)
-                            .build());
-
-            AtomicReference<Double> totalCapacity = new AtomicReference<>(0.0D);
-            List<Map<String, AttributeValue>> results = queryTrackingCapacity(queryRequest, totalCapacity);
-            LOGGER.debug("Scanned for all active files, capacity consumed = {}", totalCapacity.get());
-            List<FileReference> fileReferenceResults = new ArrayList<>();
-            for (Map<String, AttributeValue> map : results) {
-                fileReferenceResults.add(fileReferenceFormat.getFileReferenceFromAttributeValues(map));
-            }
-            return fileReferenceResults;
+            return loadFileReferences();
         } catch (AmazonDynamoDBException e) {
             throw new StateStoreException("Failed to load active files", e);
         }
     }
 
+    private List<FileReference> loadFileReferences() {
+        QueryRequest queryRequest = new QueryRequest()
+                .withTableName(activeTableName)
+                .withConsistentRead(stronglyConsistentReads)
+                .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .withKeyConditionExpression("#TableId = :table_id")
+                .withExpressionAttributeNames(Map.of("#TableId", TABLE_ID))
+                .withExpressionAttributeValues(new DynamoDBRecordBuilder()
+                        .string(":table_id", sleeperTableId)
+                        .build());
+
+        AtomicReference<Double> totalCapacity = new AtomicReference<>(0.0D);
+        List<Map<String, AttributeValue>> results = queryTrackingCapacity(queryRequest, totalCapacity);
+        LOGGER.debug("Scanned for all active files, capacity consumed = {}", totalCapacity.get());
+        List<FileReference> fileReferenceResults = new ArrayList<>();
+        for (Map<String, AttributeValue> map : results) {
+            fileReferenceResults.add(fileReferenceFormat.getFileReferenceFromAttributeValues(map));
+        }
+        return fileReferenceResults;
+    }
+
     @Override
     public Stream<String> getReadyForGCFilenamesBefore(Instant maxUpdateTime) {
         QueryRequest queryRequest = new QueryRequest()
@@ -546,33 +601,39 @@ class DynamoDBFileReferenceStore implements FileReferenceStore {
 
     @Override
     public AllReferencesToAllFiles getAllFilesWithMaxUnreferenced(int maxUnreferencedFiles) throws StateStoreException {
-        Map<String, List<FileReference>> referencesByFilename = getFileReferences().stream()
-                .collect(Collectors.groupingBy(FileReference::getFilename));
-        List<AllReferencesToAFile> filesWithNoReferences = new ArrayList<>();
+        // Query the file references and the referenced files concurrently with the unreferenced files
+        CompletableFuture<List<FileReference>> referencesFuture = CompletableFuture.supplyAsync(
+                this::loadFileReferences, EXECUTOR);
+        CompletableFuture<List<Map<String, AttributeValue>>> referencedFilesFuture = CompletableFuture.supplyAsync(
+                () -> streamReferenceCountItemsWithReferences().collect(Collectors.toUnmodifiableList()), EXECUTOR);
+        List<Map<String, AttributeValue>> unreferencedFiles = new ArrayList<>();
         int readyForGCFound = 0;
         boolean moreReadyForGC = false;
         try {
             for (QueryResult result : (Iterable<QueryResult>) () -> streamReferenceCountPagesWithNoReferences().iterator()) {
                 readyForGCFound += result.getItems().size();
-                Stream<AllReferencesToAFile> filesWithNoReferencesStream = result.getItems().stream()
-                        .map(item -> fileReferenceFormat.getReferencedFile(item, referencesByFilename));
                 if (readyForGCFound > maxUnreferencedFiles) {
                     moreReadyForGC = true;
-                    filesWithNoReferencesStream.limit(result.getItems().size() - (readyForGCFound - maxUnreferencedFiles))
-                            .forEach(filesWithNoReferences::add);
+                    result.getItems().stream()
+                            .limit(result.getItems().size() - (readyForGCFound - maxUnreferencedFiles))
+                            .forEach(unreferencedFiles::add);
                     break;
                 } else {
-                    filesWithNoReferencesStream.forEach(filesWithNoReferences::add);
+                    unreferencedFiles.addAll(result.getItems());
                 }
             }
         } catch (AmazonDynamoDBException e) {
+            referencesFuture.cancel(true);
+            referencedFilesFuture.cancel(true);
             throw new StateStoreException("Failed to load unreferenced files", e);
         }
+        Map<String, List<FileReference>> referencesByFilename = join(referencesFuture, "Failed to load active files").stream()
+                .collect(Collectors.groupingBy(FileReference::getFilename));
+        List<Map<String, AttributeValue>> referencedFiles = join(referencedFilesFuture, "Failed to load referenced files");
         return new AllReferencesToAllFiles(
-                Stream.concat(
-                        streamReferenceCountItemsWithReferences()
-                                .map(item -> fileReferenceFormat.getReferencedFile(item, referencesByFilename)),
-                        filesWithNoReferences.stream()).collect(Collectors.toUnmodifiableList()),
+                Stream.concat(referencedFiles.stream(), unreferencedFiles.stream())
+                        .map(item -> fileReferenceFormat.getReferencedFile(item, referencesByFilename))
+                        .collect(Collectors.toUnmodifiableList()),
                 moreReadyForGC);
     }
 
@@ -618,6 +679,74 @@ class DynamoDBFileReferenceStore implements FileReferenceStore {
                 });
     }
 
+    private static <T> T join(CompletableFuture<T> future, String failureMessage) throws StateStoreException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AmazonDynamoDBException) {
+                throw new StateStoreException(failureMessage, e.getCause());
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Applies a write for each item concurrently, with a bounded number of writes in flight. Waits for all writes to
+     * finish, then throws the failure for the first item that failed, if any.
+     *
+     * @param  <T>                 the type of the items
+     * @param  items               the items
+     * @param  write               the write to apply for each item
+     * @throws StateStoreException if any write failed
+     */
+    private static <T> void runConcurrently(List<T> items, ItemWrite<T> write) throws StateStoreException {
+        StateStoreException failure = null;
+        try (ConcurrentMappingIterator<T, Optional<StateStoreException>> results = new ConcurrentMappingIterator<>(
+                new WrappedIterator<>(items.iterator()), item -> tryWrite(write, item), EXECUTOR, MAX_REQUESTS_IN_FLIGHT)) {
+            while (results.hasNext()) {
+                Optional<StateStoreException> result = results.next();
+                if (failure == null && result.isPresent()) {
+                    failure = result.get();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static <T> Optional<StateStoreException> tryWrite(ItemWrite<T> write, T item) {
+        try {
+            write.write(item);
+            return Optional.empty();
+        } catch (StateStoreException e) {
+            return Optional.of(e);
+        }
+    }
+
+    private static <T> List<List<T>> partitionList(List<T> list, int maxSize) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += maxSize) {
+            batches.add(list.subList(i, Math.min(i + maxSize, list.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * A write to the state store for a single item.
+     *
+     * @param <T> the type of the item
+     */
+    @FunctionalInterface
+    interface ItemWrite<T> {
+        void write(T item) throws StateStoreException;
+    }
+
     /**
      * Used to set the current time. Should only be called during tests.
      *
@@ -41,42 +41,42 @@ class FailedDynamoDBReplaceReferences {
     private final String partitionId;
     private final Map<String, CancellationReason> deleteOldReferenceReasonByFilename;
     private final Map<String, CancellationReason> decrementOldReferenceCountReasonByFilename;
-    private final FileReference newReference;
-    private final CancellationReason addNewReferenceReason;
-    private final CancellationReason addNewReferenceCountReason;
+    private final List<FileReference> newReferences;
+    private final List<CancellationReason> addNewReferenceReasons;
+    private final List<CancellationReason> addNewReferenceCountReasons;
 
     FailedDynamoDBReplaceReferences(
             TransactionCanceledException e, String jobId, String partitionId,
             Map<String, CancellationReason> deleteOldReferenceReasonByFilename,
             Map<String, CancellationReason> decrementOldReferenceCountReasonByFilename,
-            FileReference newReference,
-            CancellationReason addNewReferenceReason, CancellationReason addNewReferenceCountReason) {
+            List<FileReference> newReferences,
+            List<CancellationReason> addNewReferenceReasons, List<CancellationReason> addNewReferenceCountReasons) {
         this.e = e;
         this.jobId = jobId;
         this.partitionId = partitionId;
         this.deleteOldReferenceReasonByFilename = deleteOldReferenceReasonByFilename;
         this.decrementOldReferenceCountReasonByFilename = decrementOldReferenceCountReasonByFilename;
-        this.newReference = newReference;
-        this.addNewReferenceReason = addNewReferenceReason;
-        this.addNewReferenceCountReason = addNewReferenceCountReason;
+        this.newReferences = newReferences;
+        this.addNewReferenceReasons = addNewReferenceReasons;
+        this.addNewReferenceCountReasons = addNewReferenceCountReasons;
     }
 
     static FailedDynamoDBReplaceReferences from(
-            TransactionCanceledException e, String jobId, String partitionId, List<String> inputFiles, FileReference newReference) {
+            TransactionCanceledException e, String jobId, String partitionId, List<String> inputFiles, List<FileReference> newReferences) {
         List<CancellationReason> reasons = e.getCancellationReasons();
         int reasonsOffset = 0;
         List<CancellationReason> deleteOldReferenceReasons = reasons.subList(0, inputFiles.size());
         reasonsOffset += inputFiles.size();
-        CancellationReason addNewReferenceReason = reasons.get(reasonsOffset);
-        reasonsOffset++;
+        List<CancellationReason> addNewReferenceReasons = reasons.subList(reasonsOffset, reasonsOffset + newReferences.size());
+        reasonsOffset += newReferences.size();
         List<CancellationReason> decrementOldReferenceCountReasons = reasons.subList(reasonsOffset, reasonsOffset + inputFiles.size());
         reasonsOffset += inputFiles.size();
-        CancellationReason addNewReferenceCountReason = reasons.get(reasonsOffset);
+        List<CancellationReason> addNewReferenceCountReasons = reasons.subList(reasonsOffset, reasonsOffset + newReferences.size());
 
         return new FailedDynamoDBReplaceReferences(e, jobId, partitionId,
                 inputFileReasonByFilename(inputFiles, deleteOldReferenceReasons),
                 inputFileReasonByFilename(inputFiles, decrementOldReferenceCountReasons),
-                newReference, addNewReferenceReason, addNewReferenceCountReason);
+                newReferences, addNewReferenceReasons, addNewReferenceCountReasons);
     }
 
     StateStoreException buildStateStoreException(DynamoDBFileReferenceFormat fileReferenceFormat) {
@@ -99,11 +99,14 @@ class FailedDynamoDBReplaceReferences {
                 }
             }
         }
-        if (isConditionCheckFailure(addNewReferenceCountReason)) {
-            return new FileAlreadyExistsException(newReference.getFilename(), e);
-        }
-        if (isConditionCheckFailure(addNewReferenceReason)) {
-            return new FileReferenceAlreadyExistsException(newReference, e);
+        for (int i = 0; i < newReferences.size(); i++) {
+            FileReference newReference = newReferences.get(i);
+            if (isConditionCheckFailure(addNewReferenceCountReasons.get(i))) {
+                return new FileAlreadyExistsException(newReference.getFilename(), e);
+            }
+            if (isConditionCheckFailure(addNewReferenceReasons.get(i))) {
+                return new FileReferenceAlreadyExistsException(newReference, e);
+            }
         }
         return new StateStoreException("Failed to mark files ready for GC and add new files", e);
     }
@@ -201,11 +201,11 @@ class S3FileReferenceStore implements FileReferenceStore {
     }
 
     @Override
-    public void atomicallyReplaceFileReferencesWithNewOne(
-            String jobId, String partitionId, List<String> inputFiles, FileReference newReference) throws StateStoreException {
+    public void atomicallyReplaceFileReferencesWithNewOnes(
+            String jobId, String partitionId, List<String> inputFiles, List<FileReference> newReferences) throws StateStoreException {
         Instant updateTime = clock.instant();
         Set<String> inputFilesSet = new HashSet<>(inputFiles);
-        FileReference.validateNewReferenceForJobOutput(inputFilesSet, newReference);
+        FileReference.validateNewReferencesForJobOutput(inputFilesSet, newReferences);
         FileReferencesConditionCheck condition = list -> {
             Map<String, AllReferencesToAFile> filesByName = list.stream()
                     .collect(Collectors.toMap(AllReferencesToAFile::getFilename, Function.identity()));
@@ -216,8 +216,10 @@ class S3FileReferenceStore implements FileReferenceStore {
                 }
             }
             StateStoreException exception = null;
-            if (filesByName.containsKey(newReference.getFilename())) {
-                exception = new FileAlreadyExistsException(newReference.getFilename());
+            for (FileReference newReference : newReferences) {
+                if (filesByName.containsKey(newReference.getFilename())) {
+                    exception = new FileAlreadyExistsException(newReference.getFilename());
+                }
             }
             for (String filename : inputFiles) {
                 if (!filesByName.containsKey(filename)) {
@@ -242,7 +244,7 @@ class S3FileReferenceStore implements FileReferenceStore {
                         return existingFile;
                     }
                 }),
-                Stream.of(fileWithOneReference(newReference, updateTime)))
+                newReferences.stream().map(newReference -> fileWithOneReference(newReference, updateTime)))
                 .collect(Collectors.toUnmodifiableList());
         updateS3Files(update, condition);
     }
@@ -290,7 +292,7 @@ class S3FileReferenceStore implements FileReferenceStore {
                     filteredFiles.add(file);
                 }
             }
-            return filteredFiles;
+            return Collections.unmodifiableList(filteredFiles);
         };
 
         updateS3Files(update, condition);
@@ -331,7 +333,7 @@ class S3FileReferenceStore implements FileReferenceStore {
         if (null == revisionId) {
             return Collections.emptyList();
         }
-        List<AllReferencesToAFile> files = readFilesFromParquet(getFilesPath(revisionId));
+        List<AllReferencesToAFile> files = s3StateStoreFile.loadData(revisionId);
         return files.stream()
                 .flatMap(file -> file.getInternalReferences().stream())
                 .collect(Collectors.toList());
@@ -339,7 +341,7 @@ class S3FileReferenceStore implements FileReferenceStore {
 
     @Override
     public Stream<String> getReadyForGCFilenamesBefore(Instant maxUpdateTime) throws StateStoreException {
-        List<AllReferencesToAFile> files = readFilesFromParquet(getFilesPath(getCurrentFilesRevisionId()));
+        List<AllReferencesToAFile> files = s3StateStoreFile.loadData(getCurrentFilesRevisionId());
         return files.stream()
                 .filter(file -> file.getTotalReferenceCount() == 0 && file.getLastStateStoreUpdateTime().isBefore(maxUpdateTime))
                 .map(AllReferencesToAFile::getFilename).distinct();
@@ -348,7 +350,7 @@ class S3FileReferenceStore implements FileReferenceStore {
     @Override
     public List<FileReference> getFileReferencesWithNoJobId() throws StateStoreException {
         // TODO Optimise the following by pushing the predicate down to the Parquet reader
-        List<AllReferencesToAFile> files = readFilesFromParquet(getFilesPath(getCurrentFilesRevisionId()));
+        List<AllReferencesToAFile> files = s3StateStoreFile.loadData(getCurrentFilesRevisionId());
         return files.stream()
                 .flatMap(file -> file.getInternalReferences().stream())
                 .filter(f -> f.getJobId() == null)
@@ -357,7 +359,7 @@ class S3FileReferenceStore implements FileReferenceStore {
 
     @Override
     public AllReferencesToAllFiles getAllFilesWithMaxUnreferenced(int maxUnreferencedFiles) throws StateStoreException {
-        List<AllReferencesToAFile> allFiles = readFilesFromParquet(getFilesPath(getCurrentFilesRevisionId()));
+        List<AllReferencesToAFile> allFiles = s3StateStoreFile.loadData(getCurrentFilesRevisionId());
         List<AllReferencesToAFile> filesWithNoReferences = allFiles.stream()
                 .filter(file -> file.getTotalReferenceCount() < 1)
                 .collect(toUnmodifiableList());
@@ -41,8 +41,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -88,10 +88,11 @@ class S3PartitionStore implements PartitionStore {
     public void atomicallyUpdatePartitionAndCreateNewOnes(Partition splitPartition, Partition newPartition1, Partition newPartition2) throws StateStoreException {
         s3StateStoreFile.updateWithAttempts(5,
                 partitionIdToPartition -> {
-                    partitionIdToPartition.put(splitPartition.getId(), splitPartition);
-                    partitionIdToPartition.put(newPartition1.getId(), newPartition1);
-                    partitionIdToPartition.put(newPartition2.getId(), newPartition2);
-                    return partitionIdToPartition;
+                    Map<String, Partition> updated = new LinkedHashMap<>(partitionIdToPartition);
+                    updated.put(splitPartition.getId(), splitPartition);
+                    updated.put(newPartition1.getId(), newPartition1);
+                    updated.put(newPartition2.getId(), newPartition2);
+                    return Collections.unmodifiableMap(updated);
                 },
                 conditionCheckFor(partitionIdToPartition -> validateSplitPartitionRequest(
                         partitionIdToPartition, splitPartition, newPartition1, newPartition2)));
@@ -103,8 +104,7 @@ class S3PartitionStore implements PartitionStore {
         if (null == revisionId) {
             return Collections.emptyList();
         }
-        String path = getPartitionsPath(revisionId);
-        return readPartitionsFromParquet(path);
+        return new ArrayList<>(s3StateStoreFile.loadData(revisionId).values());
     }
 
     @Override
@@ -214,7 +214,7 @@ class S3PartitionStore implements PartitionStore {
     }
 
     private Map<String, Partition> getMapFromPartitionIdToPartition(List<Partition> partitions) throws StateStoreException {
-        Map<String, Partition> partitionIdToPartition = new HashMap<>();
+        Map<String, Partition> partitionIdToPartition = new LinkedHashMap<>();
         for (Partition partition : partitions) {
             if (partitionIdToPartition.containsKey(partition.getId())) {
                 throw new StateStoreException("Error: found two partitions with the same id ("
@@ -222,7 +222,7 @@ class S3PartitionStore implements PartitionStore {
             }
             partitionIdToPartition.put(partition.getId(), partition);
         }
-        return partitionIdToPartition;
+        return Collections.unmodifiableMap(partitionIdToPartition);
     }
 
     private void writePartitionsToParquet(Collection<Partition> partitions, String path) throws StateStoreException {
@@ -49,6 +49,10 @@ import java.util.function.Function;
  * </ul>
  * Each file contains a different type of data. This is stored in Parquet files, but loading and writing that data may
  * be done differently for each file.
+ * <p>
+ * The data for the latest revision that was loaded or written by this object is held in memory. If the revision ID has
+ * not changed since then, the data is reused instead of loading the file again. The data must not be modified in
+ * place, as it may be shared between reads and updates.
  *
  * @param <T> The type of data held in the file
  */
@@ -67,6 +71,7 @@ class S3StateStoreDataFile<T> {
     private final WriteData<T> writeData;
     private final DeleteFile deleteFile;
     private final ExponentialBackoffWithJitter retryBackoff;
+    private volatile LoadedRevision<T> lastRevision;
 
     private S3StateStoreDataFile(Builder<T> builder) {
         description = Objects.requireNonNull(builder.description, "description must not be null");
@@ -114,7 +119,7 @@ class S3StateStoreDataFile<T> {
             try {
                 LOGGER.debug("Attempt number {}: reading {} (revisionId = {}, path = {})",
                         numberAttempts, description, revisionId, filePath);
-                data = loadData.load(filePath);
+                data = loadData(revisionId);
             } catch (StateStoreException e) {
                 LOGGER.error("Failed reading {}; retrying", description, e);
                 continue;
@@ -145,6 +150,7 @@ class S3StateStoreDataFile<T> {
             try {
                 updateRevisionId.conditionalUpdateOfRevisionId(revisionIdKey, revisionId, nextRevisionId);
                 LOGGER.debug("Updated {} to revision {}", description, nextRevisionId);
+                lastRevision = new LoadedRevision<>(nextRevisionId, updated);
                 success = true;
                 break;
             } catch (ConditionalCheckFailedException e) {
@@ -168,6 +174,40 @@ class S3StateStoreDataFile<T> {
         }
     }
 
+    /**
+     * Loads the data held at a given revision. If this is the last revision that was loaded or written by this object,
+     * the data held in memory will be returned without loading the file.
+     *
+     * @param  revisionId          the revision ID
+     * @return                     the data
+     * @throws StateStoreException if the data could not be loaded
+     */
+    T loadData(S3RevisionId revisionId) throws StateStoreException {
+        LoadedRevision<T> last = lastRevision;
+        if (last != null && last.revisionId.equals(revisionId)) {
+            LOGGER.debug("Reusing {} held in memory (revisionId = {})", description, revisionId);
+            return last.data;
+        }
+        T data = loadData.load(buildPathFromRevisionId.apply(revisionId));
+        lastRevision = new LoadedRevision<>(revisionId, data);
+        return data;
+    }
+
+    /**
+     * The data held at a revision of the file.
+     *
+     * @param <T> the type of data held in the file
+     */
+    private static class LoadedRevision<T> {
+        private final S3RevisionId revisionId;
+        private final T data;
+
+        LoadedRevision(S3RevisionId revisionId, T data) {
+            this.revisionId = revisionId;
+            this.data = data;
+        }
+    }
+
     static final class Builder<T> {
         private String description;
         private String revisionIdKey;
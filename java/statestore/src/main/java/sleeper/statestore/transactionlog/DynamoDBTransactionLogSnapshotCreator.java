@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.transactionlog;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.s3.AmazonS3;
+import org.apache.hadoop.conf.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.statestore.transactionlog.TransactionLogSnapshot;
+import sleeper.core.statestore.transactionlog.TransactionLogSnapshotCreator;
+import sleeper.core.statestore.transactionlog.TransactionLogStore;
+import sleeper.core.table.TableStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.FILE_TRANSACTION_LOG_TABLENAME;
+import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.PARTITION_TRANSACTION_LOG_TABLENAME;
+import static sleeper.configuration.properties.table.TableProperty.TRANSACTION_LOG_SNAPSHOTS_RETAINED;
+
+/**
+ * Creates snapshots of the state of a Sleeper table held in a DynamoDB transaction log, and deletes transactions that
+ * are no longer needed. This is intended to be run regularly, so that a state store can be loaded from a recent
+ * snapshot rather than replaying the whole transaction log.
+ * <p>
+ * Transactions are only deleted if they are at or before the oldest retained snapshot. A state store that has not
+ * seen a deleted transaction will find a gap in the log, and load the latest snapshot to catch up. At least 2 snapshots
+ * are always retained, and no transactions are deleted until there are 2 snapshots, so that the transactions after the
+ * oldest retained snapshot are still in the log for a state store to find that gap. A state store only looks for a
+ * snapshot when it is first loaded or when it finds a gap, so it relies on this.
+ */
+public class DynamoDBTransactionLogSnapshotCreator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DynamoDBTransactionLogSnapshotCreator.class);
+    private static final int MIN_SNAPSHOTS_RETAINED = 2;
+
+    private final TableStatus sleeperTable;
+    private final int snapshotsRetained;
+    private final TransactionLogStore filesLogStore;
+    private final TransactionLogStore partitionsLogStore;
+    private final TransactionLogSnapshotStore filesSnapshotStore;
+    private final TransactionLogSnapshotStore partitionsSnapshotStore;
+
+    public DynamoDBTransactionLogSnapshotCreator(
+            InstanceProperties instanceProperties, TableProperties tableProperties,
+            AmazonDynamoDB dynamoDB, AmazonS3 s3, Configuration conf) {
+        this.sleeperTable = tableProperties.getStatus();
+        this.snapshotsRetained = tableProperties.getInt(TRANSACTION_LOG_SNAPSHOTS_RETAINED);
+        if (snapshotsRetained < MIN_SNAPSHOTS_RETAINED) {
+            throw new IllegalArgumentException("Must retain at least " + MIN_SNAPSHOTS_RETAINED
+                    + " snapshots, found " + snapshotsRetained);
+        }
+        this.filesLogStore = new DynamoDBTransactionLogStore(
+                instanceProperties.get(FILE_TRANSACTION_LOG_TABLENAME), instanceProperties, tableProperties, dynamoDB, s3);
+        this.partitionsLogStore = new DynamoDBTransactionLogStore(
+                instanceProperties.get(PARTITION_TRANSACTION_LOG_TABLENAME), instanceProperties, tableProperties, dynamoDB, s3);
+        this.filesSnapshotStore = TransactionLogSnapshotStore.forFiles(instanceProperties, tableProperties, conf);
+        this.partitionsSnapshotStore = TransactionLogSnapshotStore.forPartitions(instanceProperties, tableProperties, conf);
+    }
+
+    /**
+     * Creates new snapshots of the files and partitions if there have been any transactions since the latest
+     * snapshots. Deletes any snapshots and transactions that are no longer needed.
+     *
+     * @throws StateStoreException if the transaction log could not be read
+     */
+    public void createSnapshot() throws StateStoreException {
+        LOGGER.info("Creating snapshots for table {}", sleeperTable);
+        updateSnapshot(filesLogStore, filesSnapshotStore,
+                TransactionLogSnapshot::filesInitialState, TransactionLogSnapshotCreator::updateFilesSnapshot);
+        updateSnapshot(partitionsLogStore, partitionsSnapshotStore,
+                TransactionLogSnapshot::partitionsInitialState, TransactionLogSnapshotCreator::updatePartitionsSnapshot);
+    }
+
+    private void updateSnapshot(
+            TransactionLogStore logStore, TransactionLogSnapshotStore snapshotStore,
+            Supplier<TransactionLogSnapshot> initialState, UpdateSnapshot updateSnapshot) throws StateStoreException {
+        TransactionLogSnapshot lastSnapshot = snapshotStore.loadLatestSnapshot().orElseGet(initialState);
+        Optional<TransactionLogSnapshot> newSnapshot = updateSnapshot.update(lastSnapshot, logStore, sleeperTable);
+        if (newSnapshot.isPresent()) {
+            snapshotStore.saveSnapshot(newSnapshot.get());
+        } else {
+            LOGGER.info("No transactions since snapshot at {} for table {}", lastSnapshot.getTransactionNumber(), sleeperTable);
+        }
+        deleteOldSnapshotsAndTransactions(logStore, snapshotStore);
+    }
+
+    private void deleteOldSnapshotsAndTransactions(TransactionLogStore logStore, TransactionLogSnapshotStore snapshotStore) {
+        List<Long> snapshotNumbers = snapshotStore.getSnapshotTransactionNumbers();
+        if (snapshotNumbers.size() < MIN_SNAPSHOTS_RETAINED) {
+            // Keep the transactions after the first snapshot, so that a state store behind it will find a gap
+            return;
+        }
+        long oldestRetained = snapshotNumbers.get(Math.max(0, snapshotNumbers.size() - snapshotsRetained));
+        snapshotStore.deleteSnapshotsBefore(oldestRetained);
+        logStore.deleteTransactionsAtOrBefore(oldestRetained);
+    }
+
+    /**
+     * Derives a new snapshot from the last one and the transaction log.
+     */
+    @FunctionalInterface
+    private interface UpdateSnapshot {
+        Optional<TransactionLogSnapshot> update(
+                TransactionLogSnapshot lastSnapshot, TransactionLogStore logStore, TableStatus sleeperTable) throws StateStoreException;
+    }
+}
@@ -17,13 +17,17 @@ package sleeper.statestore.transactionlog;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.s3.AmazonS3;
+import org.apache.hadoop.conf.Configuration;
 
 import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
+import sleeper.configuration.properties.table.TablePropertiesProvider;
+import sleeper.core.statestore.transactionlog.TransactionLogStateCache;
 import sleeper.core.statestore.transactionlog.TransactionLogStateStore;
 
 import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.FILE_TRANSACTION_LOG_TABLENAME;
 import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.PARTITION_TRANSACTION_LOG_TABLENAME;
+import static sleeper.configuration.properties.table.TableProperty.TRANSACTION_LOG_SNAPSHOT_MIN_TRANSACTIONS_AHEAD;
 
 public class DynamoDBTransactionLogStateStore extends TransactionLogStateStore {
     public static final String TABLE_ID = "TABLE_ID";
@@ -34,6 +38,12 @@ public class DynamoDBTransactionLogStateStore extends TransactionLogStateStore {
         super(builderFrom(instanceProperties, tableProperties, dynamoDB, s3));
     }
 
+    public DynamoDBTransactionLogStateStore(
+            InstanceProperties instanceProperties, TableProperties tableProperties, AmazonDynamoDB dynamoDB, AmazonS3 s3,
+            Configuration conf) {
+        super(builderFrom(instanceProperties, tableProperties, dynamoDB, s3, conf));
+    }
+
     public static TransactionLogStateStore.Builder builderFrom(
             InstanceProperties instanceProperties, TableProperties tableProperties, AmazonDynamoDB dynamoDB, AmazonS3 s3) {
         return builder()
@@ -43,4 +53,31 @@ public class DynamoDBTransactionLogStateStore extends TransactionLogStateStore {
                 .partitionsLogStore(new DynamoDBTransactionLogStore(instanceProperties.get(PARTITION_TRANSACTION_LOG_TABLENAME), instanceProperties, tableProperties, dynamoDB, s3));
     }
 
+    /**
+     * Creates a cache of the state of Sleeper tables in this instance. The logs of each table are followed separately,
+     * and snapshots are not loaded.
+     *
+     * @param  instanceProperties      the instance properties
+     * @param  tablePropertiesProvider the provider to find the properties of a table by its ID
+     * @param  dynamoDB                the DynamoDB client
+     * @param  s3                      the S3 client
+     * @param  maxTables               the maximum number of tables to hold at once
+     * @return                         the cache
+     */
+    public static TransactionLogStateCache createStateCache(
+            InstanceProperties instanceProperties, TablePropertiesProvider tablePropertiesProvider,
+            AmazonDynamoDB dynamoDB, AmazonS3 s3, int maxTables) {
+        return new TransactionLogStateCache(tableId -> builderFrom(
+                instanceProperties, tablePropertiesProvider.getById(tableId), dynamoDB, s3)
+                .buildTailer(), maxTables);
+    }
+
+    public static TransactionLogStateStore.Builder builderFrom(
+            InstanceProperties instanceProperties, TableProperties tableProperties, AmazonDynamoDB dynamoDB, AmazonS3 s3,
+            Configuration conf) {
+        return builderFrom(instanceProperties, tableProperties, dynamoDB, s3)
+                .filesSnapshotLoader(TransactionLogSnapshotStore.forFiles(instanceProperties, tableProperties, conf))
+                .partitionsSnapshotLoader(TransactionLogSnapshotStore.forPartitions(instanceProperties, tableProperties, conf))
+                .minTransactionsAheadToLoadSnapshot(tableProperties.getLong(TRANSACTION_LOG_SNAPSHOT_MIN_TRANSACTIONS_AHEAD));
+    }
 }
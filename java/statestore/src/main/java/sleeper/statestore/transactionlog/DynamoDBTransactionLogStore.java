@@ -18,16 +18,23 @@ package sleeper.statestore.transactionlog;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import sleeper.configuration.properties.instance.InstanceProperties;
 import sleeper.configuration.properties.table.TableProperties;
 import sleeper.configuration.properties.table.TableProperty;
+import sleeper.core.iterator.CloseableIterator;
+import sleeper.core.iterator.ConcurrentMappingIterator;
+import sleeper.core.iterator.PrefetchingIterator;
+import sleeper.core.iterator.WrappedIterator;
 import sleeper.core.statestore.transactionlog.DuplicateTransactionNumberException;
 import sleeper.core.statestore.transactionlog.StateStoreTransaction;
 import sleeper.core.statestore.transactionlog.TransactionLogEntry;
@@ -36,12 +43,23 @@ import sleeper.core.statestore.transactionlog.transactions.TransactionSerDe;
 import sleeper.core.statestore.transactionlog.transactions.TransactionType;
 import sleeper.dynamodb.tools.DynamoDBRecordBuilder;
 
-import java.nio.charset.StandardCharsets;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import static java.util.stream.Collectors.toUnmodifiableList;
 import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.DATA_BUCKET;
 import static sleeper.dynamodb.tools.DynamoDBAttributes.getInstantAttribute;
 import static sleeper.dynamodb.tools.DynamoDBAttributes.getLongAttribute;
@@ -57,7 +75,15 @@ class DynamoDBTransactionLogStore implements TransactionLogStore {
     private static final String UPDATE_TIME = "UPDATE_TIME";
     private static final String TYPE = "TYPE";
     private static final String BODY = "BODY";
+    private static final String BODY_BINARY = "BODY_BINARY";
     private static final String BODY_S3_KEY = "BODY_S3_KEY";
+    private static final int MAX_ITEMS_READ_AHEAD = 1000;
+    private static final int MAX_TRANSACTIONS_IN_FLIGHT = 10;
+    private static final ExecutorService READ_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-log-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final String logTableName;
     private final String dataBucket;
@@ -91,7 +117,7 @@ class DynamoDBTransactionLogStore implements TransactionLogStore {
                             .number(TRANSACTION_NUMBER, transactionNumber)
                             .number(UPDATE_TIME, entry.getUpdateTime().toEpochMilli())
                             .string(TYPE, TransactionType.getType(transaction).name())
-                            .apply(builder -> setBodyDirectlyOrInS3IfTooBig(builder, entry, serDe.toJson(transaction)))
+                            .apply(builder -> setBodyDirectlyOrInS3IfTooBig(builder, entry, serDe.toBinary(transaction)))
                             .build())
                     .withConditionExpression("attribute_not_exists(#Number)")
                     .withExpressionAttributeNames(Map.of("#Number", TRANSACTION_NUMBER)));
@@ -102,31 +128,78 @@ class DynamoDBTransactionLogStore implements TransactionLogStore {
 
     @Override
     public Stream<TransactionLogEntry> readTransactionsAfter(long lastTransactionNumber) {
-        return streamPagedItems(dynamo, new QueryRequest()
+        // Read pages from DynamoDB ahead of the transactions we are returning, and read the transactions concurrently,
+        // as large transactions are held in S3. The transactions are still returned in order.
+        CloseableIterator<Map<String, AttributeValue>> items = PrefetchingIterator.readAhead(
+                () -> new WrappedIterator<>(streamPagedItems(dynamo, new QueryRequest()
+                        .withTableName(logTableName)
+                        .withConsistentRead(true)
+                        .withKeyConditionExpression("#TableId = :table_id AND #Number > :number")
+                        .withExpressionAttributeNames(Map.of("#TableId", TABLE_ID, "#Number", TRANSACTION_NUMBER))
+                        .withExpressionAttributeValues(new DynamoDBRecordBuilder()
+                                .string(":table_id", sleeperTableId)
+                                .number(":number", lastTransactionNumber)
+                                .build())
+                        .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL)).iterator()),
+                READ_EXECUTOR, MAX_ITEMS_READ_AHEAD);
+        ConcurrentMappingIterator<Map<String, AttributeValue>, TransactionLogEntry> transactions = new ConcurrentMappingIterator<>(
+                items, this::readTransaction, READ_EXECUTOR, MAX_TRANSACTIONS_IN_FLIGHT);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(transactions, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        transactions.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void deleteTransactionsAtOrBefore(long transactionNumber) {
+        LOGGER.info("Deleting transactions at or before {} for table {} from log table {}",
+                transactionNumber, sleeperTableId, logTableName);
+        List<Map<String, AttributeValue>> items = streamPagedItems(dynamo, new QueryRequest()
                 .withTableName(logTableName)
                 .withConsistentRead(true)
-                .withKeyConditionExpression("#TableId = :table_id AND #Number > :number")
-                .withExpressionAttributeNames(Map.of("#TableId", TABLE_ID, "#Number", TRANSACTION_NUMBER))
+                .withKeyConditionExpression("#TableId = :table_id AND #Number <= :number")
+                .withExpressionAttributeNames(Map.of("#TableId", TABLE_ID, "#Number", TRANSACTION_NUMBER, "#BodyS3Key", BODY_S3_KEY))
                 .withExpressionAttributeValues(new DynamoDBRecordBuilder()
                         .string(":table_id", sleeperTableId)
-                        .number(":number", lastTransactionNumber)
+                        .number(":number", transactionNumber)
                         .build())
+                .withProjectionExpression("#Number, #BodyS3Key")
                 .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL))
-                .map(this::readTransaction);
+                .collect(toUnmodifiableList());
+        items.forEach(this::deleteTransaction);
+        LOGGER.info("Deleted {} transactions for table {}", items.size(), sleeperTableId);
+    }
+
+    private void deleteTransaction(Map<String, AttributeValue> item) {
+        // Delete the body first, so that it is not left behind if the item is deleted and this fails
+        String bodyS3Key = getStringAttribute(item, BODY_S3_KEY);
+        if (bodyS3Key != null) {
+            s3.deleteObject(dataBucket, bodyS3Key);
+        }
+        dynamo.deleteItem(new DeleteItemRequest()
+                .withTableName(logTableName)
+                .withKey(new DynamoDBRecordBuilder()
+                        .string(TABLE_ID, sleeperTableId)
+                        .number(TRANSACTION_NUMBER, getLongAttribute(item, TRANSACTION_NUMBER, -1))
+                        .build()));
     }
 
-    private void setBodyDirectlyOrInS3IfTooBig(DynamoDBRecordBuilder builder, TransactionLogEntry entry, String body) {
+    private void setBodyDirectlyOrInS3IfTooBig(DynamoDBRecordBuilder builder, TransactionLogEntry entry, byte[] body) {
         // Max DynamoDB item size is 400KB. Leave some space for the rest of the item.
-        // DynamoDB uses UTF-8 encoding for strings.
-        long lengthInBytes = body.getBytes(StandardCharsets.UTF_8).length;
-        if (lengthInBytes < 1024 * 350) {
-            builder.string(BODY, body);
+        if (body.length < 1024 * 350) {
+            builder.bytes(BODY_BINARY, body);
         } else {
             // Use a random UUID to avoid conflicting when another process is adding a transaction with the same number
-            String key = transactionsPrefix + entry.getTransactionNumber() + "-" + UUID.randomUUID().toString() + ".json";
+            String key = transactionsPrefix + entry.getTransactionNumber() + "-" + UUID.randomUUID().toString() + ".bin";
             LOGGER.info("Found large transaction, saving to data bucket instead of DynamoDB at {}", key);
             builder.string(BODY_S3_KEY, key);
-            s3.putObject(dataBucket, key, body);
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(body.length);
+            s3.putObject(dataBucket, key, new ByteArrayInputStream(body), metadata);
         }
     }
 
@@ -134,16 +207,36 @@ class DynamoDBTransactionLogStore implements TransactionLogStore {
         long number = getLongAttribute(item, TRANSACTION_NUMBER, -1);
         Instant updateTime = getInstantAttribute(item, UPDATE_TIME);
         TransactionType type = readType(item);
-        String body;
+        return new TransactionLogEntry(number, updateTime, readBody(item, type));
+    }
+
+    private StateStoreTransaction<?> readBody(Map<String, AttributeValue> item, TransactionType type) {
+        AttributeValue binaryBody = item.get(BODY_BINARY);
+        if (binaryBody != null) {
+            return serDe.toTransaction(type, toByteArray(binaryBody.getB()));
+        }
         String bodyS3Key = getStringAttribute(item, BODY_S3_KEY);
-        if (bodyS3Key != null) {
-            LOGGER.debug("Reading large transaction from data bucket at {}", bodyS3Key);
-            body = s3.getObjectAsString(dataBucket, bodyS3Key);
-        } else {
-            body = getStringAttribute(item, BODY);
+        if (bodyS3Key == null) {
+            // Transactions written before the binary format was introduced
+            return serDe.toTransaction(type, getStringAttribute(item, BODY));
         }
-        StateStoreTransaction<?> transaction = serDe.toTransaction(type, body);
-        return new TransactionLogEntry(number, updateTime, transaction);
+        LOGGER.debug("Reading large transaction from data bucket at {}", bodyS3Key);
+        if (bodyS3Key.endsWith(".json")) {
+            return serDe.toTransaction(type, s3.getObjectAsString(dataBucket, bodyS3Key));
+        }
+        try (S3Object object = s3.getObject(dataBucket, bodyS3Key);
+                InputStream content = object.getObjectContent()) {
+            return serDe.toTransaction(type, content.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] toByteArray(ByteBuffer buffer) {
+        ByteBuffer read = buffer.duplicate();
+        byte[] bytes = new byte[read.remaining()];
+        read.get(bytes);
+        return bytes;
     }
 
     private TransactionType readType(Map<String, AttributeValue> item) {
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.transactionlog;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+
+import sleeper.core.partition.Partition;
+import sleeper.core.range.RegionSerDe;
+import sleeper.core.record.Record;
+import sleeper.core.schema.Field;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.IntType;
+import sleeper.core.schema.type.ListType;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.schema.type.StringType;
+import sleeper.core.statestore.AllReferencesToAFile;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceSerDe;
+import sleeper.core.statestore.transactionlog.StateStoreFiles;
+import sleeper.core.statestore.transactionlog.StateStorePartitions;
+import sleeper.io.parquet.record.ParquetReaderIterator;
+import sleeper.io.parquet.record.ParquetRecordReader;
+import sleeper.io.parquet.record.ParquetRecordWriterFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Writes and reads snapshots of the state of a Sleeper table as Parquet files. This uses the same format as the S3
+ * state store.
+ */
+class TransactionLogSnapshotSerDe {
+    private static final Schema FILE_SCHEMA = Schema.builder()
+            .rowKeyFields(new Field("fileName", new StringType()))
+            .valueFields(
+                    new Field("referencesJson", new StringType()),
+                    new Field("externalReferences", new IntType()),
+                    new Field("lastStateStoreUpdateTime", new LongType()))
+            .build();
+    private static final Schema PARTITION_SCHEMA = Schema.builder()
+            .rowKeyFields(new Field("partitionId", new StringType()))
+            .valueFields(
+                    new Field("leafPartition", new StringType()),
+                    new Field("parentPartitionId", new StringType()),
+                    new Field("childPartitionIds", new ListType(new StringType())),
+                    new Field("region", new StringType()),
+                    new Field("dimension", new IntType()))
+            .build();
+
+    private final Configuration conf;
+    private final RegionSerDe regionSerDe;
+    private final FileReferenceSerDe fileReferenceSerDe = new FileReferenceSerDe();
+
+    TransactionLogSnapshotSerDe(Schema tableSchema, Configuration conf) {
+        this.conf = conf;
+        this.regionSerDe = new RegionSerDe(tableSchema);
+    }
+
+    void saveFiles(String path, StateStoreFiles state) throws IOException {
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(new Path(path), FILE_SCHEMA, conf)) {
+            Iterator<AllReferencesToAFile> files = state.referencedAndUnreferenced().iterator();
+            while (files.hasNext()) {
+                writer.write(getRecordFromFile(files.next()));
+            }
+        }
+    }
+
+    StateStoreFiles loadFiles(String path) throws IOException {
+        StateStoreFiles files = new StateStoreFiles();
+        try (ParquetReader<Record> reader = new ParquetRecordReader.Builder(new Path(path), FILE_SCHEMA)
+                .withConf(conf)
+                .build()) {
+            ParquetReaderIterator recordReader = new ParquetReaderIterator(reader);
+            while (recordReader.hasNext()) {
+                files.add(getFileFromRecord(recordReader.next()));
+            }
+        }
+        return files;
+    }
+
+    void savePartitions(String path, StateStorePartitions state) throws IOException {
+        try (ParquetWriter<Record> writer = ParquetRecordWriterFactory.createParquetRecordWriter(new Path(path), PARTITION_SCHEMA, conf)) {
+            for (Partition partition : state.all()) {
+                writer.write(getRecordFromPartition(partition));
+            }
+        }
+    }
+
+    StateStorePartitions loadPartitions(String path) throws IOException {
+        StateStorePartitions partitions = new StateStorePartitions();
+        try (ParquetReader<Record> reader = new ParquetRecordReader.Builder(new Path(path), PARTITION_SCHEMA)
+                .withConf(conf)
+                .build()) {
+            ParquetReaderIterator recordReader = new ParquetReaderIterator(reader);
+            while (recordReader.hasNext()) {
+                partitions.put(getPartitionFromRecord(recordReader.next()));
+            }
+        }
+        return partitions;
+    }
+
+    private Record getRecordFromFile(AllReferencesToAFile file) {
+        Record record = new Record();
+        record.put("fileName", file.getFilename());
+        record.put("referencesJson", fileReferenceSerDe.collectionToJson(file.getInternalReferences()));
+        record.put("externalReferences", file.getExternalReferenceCount());
+        record.put("lastStateStoreUpdateTime", file.getLastStateStoreUpdateTime().toEpochMilli());
+        return record;
+    }
+
+    private AllReferencesToAFile getFileFromRecord(Record record) {
+        List<FileReference> internalReferences = fileReferenceSerDe.listFromJson((String) record.get("referencesJson"));
+        return AllReferencesToAFile.builder()
+                .filename((String) record.get("fileName"))
+                .internalReferences(internalReferences)
+                .totalReferenceCount((int) record.get("externalReferences") + internalReferences.size())
+                .lastStateStoreUpdateTime(Instant.ofEpochMilli((long) record.get("lastStateStoreUpdateTime")))
+                .build();
+    }
+
+    private Record getRecordFromPartition(Partition partition) {
+        Record record = new Record();
+        record.put("partitionId", partition.getId());
+        record.put("leafPartition", "" + partition.isLeafPartition());
+        String parentPartitionId = partition.getParentPartitionId();
+        record.put("parentPartitionId", null == parentPartitionId ? "null" : parentPartitionId);
+        record.put("childPartitionIds", partition.getChildPartitionIds());
+        record.put("region", regionSerDe.toJson(partition.getRegion()));
+        record.put("dimension", partition.getDimension());
+        return record;
+    }
+
+    private Partition getPartitionFromRecord(Record record) {
+        Partition.Builder partitionBuilder = Partition.builder()
+                .id((String) record.get("partitionId"))
+                .leafPartition(record.get("leafPartition").equals("true"))
+                .childPartitionIds((List<String>) record.get("childPartitionIds"))
+                .region(regionSerDe.fromJson((String) record.get("region")))
+                .dimension((int) record.get("dimension"));
+        String parentPartitionId = (String) record.get("parentPartitionId");
+        if (!"null".equals(parentPartitionId)) {
+            partitionBuilder.parentPartitionId(parentPartitionId);
+        }
+        return partitionBuilder.build();
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.transactionlog;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sleeper.configuration.properties.instance.InstanceProperties;
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.configuration.properties.table.TableProperty;
+import sleeper.core.statestore.transactionlog.StateStoreFiles;
+import sleeper.core.statestore.transactionlog.StateStorePartitions;
+import sleeper.core.statestore.transactionlog.TransactionLogSnapshot;
+import sleeper.core.statestore.transactionlog.TransactionLogSnapshotLoader;
+import sleeper.core.util.LoggedDuration;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.DATA_BUCKET;
+import static sleeper.configuration.properties.instance.CommonProperty.FILE_SYSTEM;
+
+/**
+ * Stores snapshots of the state derived from a transaction log, in the data bucket. There is one of these for the
+ * files in a Sleeper table, and one for the partitions. Each snapshot is held in a Parquet file named after the
+ * transaction number it was taken at. The number is zero padded, so that the files are listed in order.
+ */
+public class TransactionLogSnapshotStore implements TransactionLogSnapshotLoader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionLogSnapshotStore.class);
+
+    private final String snapshotsPath;
+    private final String description;
+    private final Configuration conf;
+    private final SaveSnapshot saveSnapshot;
+    private final LoadSnapshot loadSnapshot;
+
+    private TransactionLogSnapshotStore(
+            String snapshotsPath, String description, Configuration conf,
+            SaveSnapshot saveSnapshot, LoadSnapshot loadSnapshot) {
+        this.snapshotsPath = snapshotsPath;
+        this.description = description;
+        this.conf = conf;
+        this.saveSnapshot = saveSnapshot;
+        this.loadSnapshot = loadSnapshot;
+    }
+
+    /**
+     * Creates a store for snapshots of the files in a Sleeper table.
+     *
+     * @param  instanceProperties the instance properties
+     * @param  tableProperties    the table properties
+     * @param  conf               the Hadoop configuration to access the data bucket
+     * @return                    the store
+     */
+    public static TransactionLogSnapshotStore forFiles(
+            InstanceProperties instanceProperties, TableProperties tableProperties, Configuration conf) {
+        TransactionLogSnapshotSerDe serDe = new TransactionLogSnapshotSerDe(tableProperties.getSchema(), conf);
+        return new TransactionLogSnapshotStore(
+                snapshotsPath(instanceProperties, tableProperties) + "/files", "files", conf,
+                (path, snapshot) -> serDe.saveFiles(path, snapshot.<StateStoreFiles>getState()),
+                serDe::loadFiles);
+    }
+
+    /**
+     * Creates a store for snapshots of the partitions in a Sleeper table.
+     *
+     * @param  instanceProperties the instance properties
+     * @param  tableProperties    the table properties
+     * @param  conf               the Hadoop configuration to access the data bucket
+     * @return                    the store
+     */
+    public static TransactionLogSnapshotStore forPartitions(
+            InstanceProperties instanceProperties, TableProperties tableProperties, Configuration conf) {
+        TransactionLogSnapshotSerDe serDe = new TransactionLogSnapshotSerDe(tableProperties.getSchema(), conf);
+        return new TransactionLogSnapshotStore(
+                snapshotsPath(instanceProperties, tableProperties) + "/partitions", "partitions", conf,
+                (path, snapshot) -> serDe.savePartitions(path, snapshot.<StateStorePartitions>getState()),
+                serDe::loadPartitions);
+    }
+
+    @Override
+    public Optional<TransactionLogSnapshot> loadLatestSnapshotIfAtMinimumTransaction(long transactionNumber) {
+        List<Long> transactionNumbers = getSnapshotTransactionNumbers();
+        if (transactionNumbers.isEmpty()) {
+            return Optional.empty();
+        }
+        long latestTransactionNumber = transactionNumbers.get(transactionNumbers.size() - 1);
+        if (latestTransactionNumber < transactionNumber) {
+            return Optional.empty();
+        }
+        return Optional.of(loadSnapshot(latestTransactionNumber));
+    }
+
+    /**
+     * Loads the latest snapshot, if there is one.
+     *
+     * @return the latest snapshot
+     */
+    public Optional<TransactionLogSnapshot> loadLatestSnapshot() {
+        return loadLatestSnapshotIfAtMinimumTransaction(0);
+    }
+
+    /**
+     * Saves a snapshot. If a snapshot already exists at the same transaction it is left as it is, as it will hold the
+     * same state.
+     *
+     * @param snapshot the snapshot
+     */
+    public void saveSnapshot(TransactionLogSnapshot snapshot) {
+        Instant startTime = Instant.now();
+        Path path = snapshotPath(snapshot.getTransactionNumber());
+        try {
+            if (path.getFileSystem(conf).exists(path)) {
+                LOGGER.info("Found existing {} snapshot at {}", description, path);
+                return;
+            }
+            saveSnapshot.save(path.toString(), snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed saving " + description + " snapshot to " + path, e);
+        }
+        LOGGER.info("Saved {} snapshot at transaction {} to {}, took {}",
+                description, snapshot.getTransactionNumber(), path,
+                LoggedDuration.withShortOutput(startTime, Instant.now()));
+    }
+
+    /**
+     * Lists the transaction numbers of the snapshots that are held.
+     *
+     * @return the transaction numbers, in ascending order
+     */
+    public List<Long> getSnapshotTransactionNumbers() {
+        Path path = new Path(snapshotsPath);
+        FileStatus[] statuses;
+        try {
+            statuses = path.getFileSystem(conf).listStatus(path);
+        } catch (FileNotFoundException e) {
+            return List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed listing " + description + " snapshots in " + path, e);
+        }
+        List<Long> transactionNumbers = new ArrayList<>(statuses.length);
+        for (FileStatus status : statuses) {
+            String filename = status.getPath().getName();
+            // Ignore checksum files written alongside snapshots on a local file system
+            if (filename.endsWith(".parquet") && !filename.startsWith(".")) {
+                transactionNumbers.add(transactionNumberFromFilename(filename));
+            }
+        }
+        Collections.sort(transactionNumbers);
+        return transactionNumbers;
+    }
+
+    /**
+     * Deletes all snapshots before a given transaction. This should only be used for snapshots which are no longer
+     * needed to load the state.
+     *
+     * @param transactionNumber the transaction number of the oldest snapshot to keep
+     */
+    public void deleteSnapshotsBefore(long transactionNumber) {
+        for (long snapshotNumber : getSnapshotTransactionNumbers()) {
+            if (snapshotNumber >= transactionNumber) {
+                break;
+            }
+            Path path = snapshotPath(snapshotNumber);
+            LOGGER.info("Deleting {} snapshot at {}", description, path);
+            try {
+                path.getFileSystem(conf).delete(path, false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed deleting " + description + " snapshot at " + path, e);
+            }
+        }
+    }
+
+    private TransactionLogSnapshot loadSnapshot(long transactionNumber) {
+        Instant startTime = Instant.now();
+        Path path = snapshotPath(transactionNumber);
+        Object state;
+        try {
+            state = loadSnapshot.load(path.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed loading " + description + " snapshot from " + path, e);
+        }
+        LOGGER.info("Loaded {} snapshot at transaction {} from {}, took {}",
+                description, transactionNumber, path, LoggedDuration.withShortOutput(startTime, Instant.now()));
+        return new TransactionLogSnapshot(state, transactionNumber);
+    }
+
+    private Path snapshotPath(long transactionNumber) {
+        return new Path(snapshotsPath + "/" + String.format("%020d", transactionNumber) + "-" + description + ".parquet");
+    }
+
+    private static long transactionNumberFromFilename(String filename) {
+        return Long.parseLong(filename.substring(0, filename.indexOf('-')));
+    }
+
+    private static String snapshotsPath(InstanceProperties instanceProperties, TableProperties tableProperties) {
+        return instanceProperties.get(FILE_SYSTEM)
+                + instanceProperties.get(DATA_BUCKET) + "/"
+                + tableProperties.get(TableProperty.TABLE_ID) + "/"
+                + "statestore/snapshots";
+    }
+
+    /**
+     * Writes a snapshot to a file.
+     */
+    @FunctionalInterface
+    private interface SaveSnapshot {
+        void save(String path, TransactionLogSnapshot snapshot) throws IOException;
+    }
+
+    /**
+     * Reads the state held in a snapshot file.
+     */
+    @FunctionalInterface
+    private interface LoadSnapshot {
+        Object load(String path) throws IOException;
+    }
+}
@@ -15,23 +15,31 @@
  */
 package sleeper.statestore.dynamodb;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import sleeper.core.schema.type.LongType;
+import sleeper.core.statestore.AllReferencesToAFile;
 import sleeper.core.statestore.AllReferencesToAFileTestHelper;
 import sleeper.core.statestore.FileReference;
 import sleeper.core.statestore.SplitFileReference;
 import sleeper.core.statestore.SplitFileReferenceRequest;
 import sleeper.core.statestore.SplitRequestsFailedException;
+import sleeper.core.statestore.StateStore;
+import sleeper.core.statestore.exception.FileHasReferencesException;
 import sleeper.core.statestore.exception.FileNotFoundException;
 import sleeper.core.statestore.exception.FileReferenceAssignedToJobException;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -42,7 +50,9 @@ import static java.util.stream.Collectors.toUnmodifiableList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+import static sleeper.core.statestore.AllReferencesToAFileTestHelper.fileWithReferences;
 import static sleeper.core.statestore.AssignJobIdRequest.assignJobOnPartitionToFiles;
+import static sleeper.core.statestore.FileReferenceTestData.AFTER_DEFAULT_UPDATE_TIME;
 import static sleeper.core.statestore.FileReferenceTestData.DEFAULT_UPDATE_TIME;
 import static sleeper.core.statestore.FileReferenceTestData.splitFile;
 import static sleeper.core.statestore.FileReferenceTestData.withJobId;
@@ -106,6 +116,56 @@ public class DynamoDBFileReferenceStoreDynamoSpecificIT extends DynamoDBStateSto
         }
     }
 
+    @Nested
+    @DisplayName("Delete garbage collected files in batches")
+    class GarbageCollectionBatches {
+        private final List<Integer> transactionSizes = Collections.synchronizedList(new ArrayList<>());
+
+        @Test
+        void shouldDeleteReadyForGCFilesInTransactionsOf100() throws Exception {
+            // Given
+            List<String> filenames = IntStream.range(0, 250)
+                    .mapToObj(i -> "gcFile" + i)
+                    .collect(toUnmodifiableList());
+            store.addFilesWithReferences(filenames.stream()
+                    .map(AllReferencesToAFileTestHelper::fileWithNoReferences)
+                    .collect(toUnmodifiableList()));
+
+            // When
+            storeRecordingTransactionSizes(transactionSizes).deleteGarbageCollectedFileReferenceCounts(filenames);
+
+            // Then
+            assertThat(transactionSizes).containsExactlyInAnyOrder(100, 100, 50);
+            assertThat(store.getReadyForGCFilenamesBefore(AFTER_DEFAULT_UPDATE_TIME)).isEmpty();
+        }
+
+        @Test
+        void shouldDeleteFilesIndividuallyWhenTransactionIsCancelled() throws Exception {
+            // Given
+            List<String> gcFilenames = IntStream.range(0, 150)
+                    .mapToObj(i -> "gcFile" + i)
+                    .collect(toUnmodifiableList());
+            FileReference activeFile = factory.rootFile("activeFile", 100L);
+            List<AllReferencesToAFile> files = new ArrayList<>();
+            gcFilenames.stream().map(AllReferencesToAFileTestHelper::fileWithNoReferences).forEach(files::add);
+            files.add(fileWithReferences(List.of(activeFile)));
+            store.addFilesWithReferences(files);
+            List<String> filenames = new ArrayList<>(gcFilenames);
+            filenames.add(120, "activeFile");
+            StateStore recordingStore = storeRecordingTransactionSizes(transactionSizes);
+
+            // When / Then
+            assertThatThrownBy(() -> recordingStore.deleteGarbageCollectedFileReferenceCounts(filenames))
+                    .isInstanceOf(FileHasReferencesException.class);
+            assertThat(transactionSizes)
+                    .containsExactlyInAnyOrderElementsOf(Stream.concat(
+                            Stream.of(100, 51), Collections.nCopies(51, 1).stream())
+                            .collect(toUnmodifiableList()));
+            assertThat(store.getFileReferences()).containsExactly(activeFile);
+            assertThat(store.getReadyForGCFilenamesBefore(AFTER_DEFAULT_UPDATE_TIME)).isEmpty();
+        }
+    }
+
     @Nested
     @DisplayName("Split file references transactionally")
     class SplitReferenceTransactions {
@@ -225,5 +285,63 @@ public class DynamoDBFileReferenceStoreDynamoSpecificIT extends DynamoDBStateSto
             assertThat(store.getFileReferencesWithNoJobId()).containsExactly(file2);
         }
 
+        @Test
+        void shouldAssignManyJobsConcurrently() throws Exception {
+            // Given
+            List<FileReference> files = IntStream.range(0, 50)
+                    .mapToObj(i -> factory.rootFile("file" + i, 100L))
+                    .collect(toUnmodifiableList());
+            store.addFiles(files);
+
+            // When
+            store.assignJobIds(IntStream.range(0, 50)
+                    .mapToObj(i -> assignJobOnPartitionToFiles("job" + i, "root", List.of("file" + i)))
+                    .collect(toUnmodifiableList()));
+
+            // Then
+            assertThat(store.getFileReferences()).containsExactlyInAnyOrderElementsOf(
+                    IntStream.range(0, 50)
+                            .mapToObj(i -> withJobId("job" + i, files.get(i)))
+                            .collect(toUnmodifiableList()));
+            assertThat(store.getFileReferencesWithNoJobId()).isEmpty();
+        }
+
+        @Test
+        void shouldAssignOtherJobsWhenOneFailsConcurrently() throws Exception {
+            // Given
+            List<FileReference> files = IntStream.range(0, 20)
+                    .mapToObj(i -> factory.rootFile("file" + i, 100L))
+                    .collect(toUnmodifiableList());
+            store.addFiles(files);
+            store.assignJobIds(List.of(assignJobOnPartitionToFiles("other-job", "root", List.of("file5"))));
+
+            // When / Then
+            assertThatThrownBy(() -> store.assignJobIds(IntStream.range(0, 20)
+                    .mapToObj(i -> assignJobOnPartitionToFiles("job" + i, "root", List.of("file" + i)))
+                    .collect(toUnmodifiableList())))
+                    .isInstanceOf(FileReferenceAssignedToJobException.class);
+            assertThat(store.getFileReferences()).containsExactlyInAnyOrderElementsOf(
+                    IntStream.range(0, 20)
+                            .mapToObj(i -> withJobId(i == 5 ? "other-job" : "job" + i, files.get(i)))
+                            .collect(toUnmodifiableList()));
+        }
+    }
+
+    private StateStore storeRecordingTransactionSizes(List<Integer> transactionSizes) {
+        AmazonDynamoDB recordingClient = (AmazonDynamoDB) Proxy.newProxyInstance(
+                AmazonDynamoDB.class.getClassLoader(), new Class<?>[]{AmazonDynamoDB.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("transactWriteItems")) {
+                        transactionSizes.add(((TransactWriteItemsRequest) args[0]).getTransactItems().size());
+                    }
+                    try {
+                        return method.invoke(dynamoDBClient, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        StateStore recordingStore = new DynamoDBStateStore(instanceProperties, tableProperties, recordingClient);
+        recordingStore.fixFileUpdateTime(DEFAULT_UPDATE_TIME);
+        return recordingStore;
     }
 }
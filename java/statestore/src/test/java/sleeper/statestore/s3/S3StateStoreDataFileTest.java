@@ -230,6 +230,30 @@ public class S3StateStoreDataFileTest {
         assertThat(foundWaits).isEmpty();
     }
 
+    @Test
+    void shouldReuseDataWrittenByUpdateWhenRevisionIsUnchanged() throws Exception {
+        // Given
+        S3StateStoreDataFile<Object> dataFile = dataFile(randomSeededJitterFraction(0));
+        dataFile.updateWithAttempts(1, existing -> "updated", conditionCheckFor(existing -> ""));
+        S3RevisionId revisionId = revisionStore.getCurrentRevisionId(REVISION_ID);
+        dataFiles.delete(buildPathFromRevisionId(revisionId));
+
+        // When / Then
+        assertThat(dataFile.loadData(revisionId)).isEqualTo("updated");
+    }
+
+    @Test
+    void shouldLoadDataWhenRevisionWasUpdatedElsewhere() throws Exception {
+        // Given
+        S3StateStoreDataFile<Object> dataFile = dataFile(randomSeededJitterFraction(0));
+        dataFile.loadData(revisionStore.getCurrentRevisionId(REVISION_ID));
+        updateWithAttempts(1, existing -> "updated elsewhere", existing -> "");
+
+        // When / Then
+        assertThat(dataFile.loadData(revisionStore.getCurrentRevisionId(REVISION_ID)))
+                .isEqualTo("updated elsewhere");
+    }
+
     private void updateWithAttempts(int attempts, Function<Object, Object> update, Function<Object, String> condition) throws Exception {
         updateWithFullJitterFractionAndAttempts(randomSeededJitterFraction(0), attempts, update, condition);
     }
@@ -237,7 +261,11 @@ public class S3StateStoreDataFileTest {
     private void updateWithFullJitterFractionAndAttempts(
             DoubleSupplier jitterFractionSupplier, int attempts,
             Function<Object, Object> update, Function<Object, String> condition) throws Exception {
-        S3StateStoreDataFile.builder()
+        dataFile(jitterFractionSupplier).updateWithAttempts(attempts, update, conditionCheckFor(condition));
+    }
+
+    private S3StateStoreDataFile<Object> dataFile(DoubleSupplier jitterFractionSupplier) {
+        return S3StateStoreDataFile.builder()
                 .description("object")
                 .revisionIdKey(REVISION_ID)
                 .loadRevisionId(revisionStore::getCurrentRevisionId)
@@ -247,7 +275,7 @@ public class S3StateStoreDataFileTest {
                 .deleteFile(dataFiles::delete)
                 .retryBackoff(new ExponentialBackoffWithJitter(
                         S3StateStoreDataFile.RETRY_WAIT_RANGE, jitterFractionSupplier, recordWaits(foundWaits)))
-                .build().updateWithAttempts(attempts, update, conditionCheckFor(condition));
+                .build();
     }
 
     private void setDataInContentionAfterQueries(List<Object> data) {
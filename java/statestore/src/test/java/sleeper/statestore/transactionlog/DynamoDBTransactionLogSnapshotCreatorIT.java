@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.transactionlog;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sleeper.configuration.properties.table.TableProperties;
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.schema.Schema;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceFactory;
+import sleeper.core.statestore.StateStore;
+import sleeper.core.statestore.transactionlog.TransactionLogEntry;
+import sleeper.core.statestore.transactionlog.TransactionLogStore;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static sleeper.configuration.properties.instance.CdkDefinedInstanceProperty.FILE_TRANSACTION_LOG_TABLENAME;
+import static sleeper.configuration.properties.instance.CommonProperty.FILE_SYSTEM;
+import static sleeper.configuration.properties.table.TablePropertiesTestHelper.createTestTableProperties;
+import static sleeper.configuration.properties.table.TableProperty.TRANSACTION_LOG_SNAPSHOTS_RETAINED;
+import static sleeper.configuration.properties.table.TableProperty.TRANSACTION_LOG_SNAPSHOT_MIN_TRANSACTIONS_AHEAD;
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+
+public class DynamoDBTransactionLogSnapshotCreatorIT extends TransactionLogStateStoreTestBase {
+    @TempDir
+    public Path tempDir;
+    private final Schema schema = schemaWithKey("key");
+    private final TableProperties tableProperties = createTestTableProperties(instanceProperties, schema);
+    private final Configuration configuration = new Configuration();
+    private final PartitionTree partitions = new PartitionsBuilder(schema).singlePartition("root").buildTree();
+    private final FileReferenceFactory fileFactory = FileReferenceFactory.from(partitions);
+
+    @BeforeEach
+    void setUp() {
+        instanceProperties.set(FILE_SYSTEM, "file://" + tempDir + "/");
+        tableProperties.setNumber(TRANSACTION_LOG_SNAPSHOT_MIN_TRANSACTIONS_AHEAD, 1);
+    }
+
+    @Test
+    void shouldLoadStateFromSnapshotAfterTransactionsAreDeleted() throws Exception {
+        // Given
+        tableProperties.setNumber(TRANSACTION_LOG_SNAPSHOTS_RETAINED, 2);
+        StateStore stateStore = createStateStore();
+        stateStore.initialise(partitions.getAllPartitions());
+        FileReference file1 = fileFactory.rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory.rootFile("file2.parquet", 200);
+        stateStore.addFile(file1);
+        snapshotCreator().createSnapshot();
+        stateStore.addFile(file2);
+
+        // When
+        snapshotCreator().createSnapshot();
+
+        // Then
+        assertThat(filesSnapshotStore().getSnapshotTransactionNumbers()).containsExactly(1L, 2L);
+        assertThat(fileLogStore().readTransactionsAfter(0))
+                .extracting(TransactionLogEntry::getTransactionNumber)
+                .containsExactly(2L);
+        StateStore freshStateStore = createStateStore();
+        assertThat(freshStateStore.getFileReferences()).containsExactly(file1, file2);
+        assertThat(freshStateStore.getAllPartitions()).containsExactlyElementsOf(partitions.getAllPartitions());
+    }
+
+    @Test
+    void shouldRetainConfiguredNumberOfSnapshots() throws Exception {
+        // Given
+        tableProperties.setNumber(TRANSACTION_LOG_SNAPSHOTS_RETAINED, 2);
+        StateStore stateStore = createStateStore();
+        stateStore.initialise(partitions.getAllPartitions());
+        stateStore.addFile(fileFactory.rootFile("file1.parquet", 100));
+        snapshotCreator().createSnapshot();
+        stateStore.addFile(fileFactory.rootFile("file2.parquet", 200));
+        snapshotCreator().createSnapshot();
+        stateStore.addFile(fileFactory.rootFile("file3.parquet", 300));
+
+        // When
+        snapshotCreator().createSnapshot();
+
+        // Then
+        assertThat(filesSnapshotStore().getSnapshotTransactionNumbers()).containsExactly(2L, 3L);
+        assertThat(fileLogStore().readTransactionsAfter(0))
+                .extracting(TransactionLogEntry::getTransactionNumber)
+                .containsExactly(3L);
+    }
+
+    @Test
+    void shouldNotDeleteTransactionsUntilThereAreTwoSnapshots() throws Exception {
+        // Given
+        StateStore stateStore = createStateStore();
+        stateStore.initialise(partitions.getAllPartitions());
+        stateStore.addFile(fileFactory.rootFile("file1.parquet", 100));
+        stateStore.addFile(fileFactory.rootFile("file2.parquet", 200));
+
+        // When
+        snapshotCreator().createSnapshot();
+
+        // Then
+        assertThat(filesSnapshotStore().getSnapshotTransactionNumbers()).containsExactly(2L);
+        assertThat(fileLogStore().readTransactionsAfter(0))
+                .extracting(TransactionLogEntry::getTransactionNumber)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldNotCreateSnapshotWhenNoTransactionsSinceLastSnapshot() throws Exception {
+        // Given
+        StateStore stateStore = createStateStore();
+        stateStore.initialise(partitions.getAllPartitions());
+        stateStore.addFile(fileFactory.rootFile("file.parquet", 100));
+        snapshotCreator().createSnapshot();
+
+        // When
+        snapshotCreator().createSnapshot();
+
+        // Then
+        assertThat(filesSnapshotStore().getSnapshotTransactionNumbers()).containsExactly(1L);
+    }
+
+    @Test
+    void shouldReadTransactionsAfterSnapshot() throws Exception {
+        // Given
+        StateStore stateStore = createStateStore();
+        stateStore.initialise(partitions.getAllPartitions());
+        FileReference file1 = fileFactory.rootFile("file1.parquet", 100);
+        FileReference file2 = fileFactory.rootFile("file2.parquet", 200);
+        stateStore.addFile(file1);
+        snapshotCreator().createSnapshot();
+
+        // When
+        stateStore.addFile(file2);
+
+        // Then
+        assertThat(createStateStore().getFileReferences()).containsExactly(file1, file2);
+    }
+
+    @Test
+    void shouldRefuseToRetainFewerThanTwoSnapshots() {
+        // Given
+        tableProperties.setNumber(TRANSACTION_LOG_SNAPSHOTS_RETAINED, 1);
+
+        // When / Then
+        assertThatThrownBy(this::snapshotCreator)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Must retain at least 2 snapshots, found 1");
+    }
+
+    private StateStore createStateStore() {
+        return new DynamoDBTransactionLogStateStore(instanceProperties, tableProperties, dynamoDBClient, s3Client, configuration);
+    }
+
+    private DynamoDBTransactionLogSnapshotCreator snapshotCreator() {
+        return new DynamoDBTransactionLogSnapshotCreator(instanceProperties, tableProperties, dynamoDBClient, s3Client, configuration);
+    }
+
+    private TransactionLogSnapshotStore filesSnapshotStore() {
+        return TransactionLogSnapshotStore.forFiles(instanceProperties, tableProperties, configuration);
+    }
+
+    private TransactionLogStore fileLogStore() {
+        return new DynamoDBTransactionLogStore(
+                instanceProperties.get(FILE_TRANSACTION_LOG_TABLENAME),
+                instanceProperties, tableProperties, dynamoDBClient, s3Client);
+    }
+}
@@ -119,6 +119,24 @@ public class DynamoDBTransactionLogStoreIT extends TransactionLogStateStoreTestB
                 .isInstanceOf(JsonSyntaxException.class);
     }
 
+    @Test
+    void shouldLoadTransactionWrittenAsJson() throws Exception {
+        // Given
+        dynamoDBClient.putItem(new PutItemRequest()
+                .withTableName(instanceProperties.get(FILE_TRANSACTION_LOG_TABLENAME))
+                .withItem(new DynamoDBRecordBuilder()
+                        .string(TABLE_ID, tableProperties.get(TableProperty.TABLE_ID))
+                        .number(TRANSACTION_NUMBER, 1)
+                        .number("UPDATE_TIME", DEFAULT_UPDATE_TIME.toEpochMilli())
+                        .string("TYPE", TransactionType.DELETE_FILES.name())
+                        .string("BODY", "{\"filenames\":[\"file.parquet\"]}")
+                        .build()));
+
+        // When / Then
+        assertThat(fileLogStore.readTransactionsAfter(0))
+                .containsExactly(logEntry(1, new DeleteFilesTransaction(List.of("file.parquet"))));
+    }
+
     @Test
     void shouldStoreFileUpdateTimeInLogEntry() throws Exception {
         // Given
@@ -155,6 +173,24 @@ public class DynamoDBTransactionLogStoreIT extends TransactionLogStateStoreTestB
                 .containsExactly(updateTime);
     }
 
+    @Test
+    void shouldDeleteTransactionsAtOrBeforeNumber() throws Exception {
+        // Given
+        TransactionLogEntry entry1 = logEntry(1, new DeleteFilesTransaction(List.of("file1.parquet")));
+        TransactionLogEntry entry2 = logEntry(2, new DeleteFilesTransaction(List.of("file2.parquet")));
+        TransactionLogEntry entry3 = logEntry(3, new DeleteFilesTransaction(List.of("file3.parquet")));
+        fileLogStore.addTransaction(entry1);
+        fileLogStore.addTransaction(entry2);
+        fileLogStore.addTransaction(entry3);
+
+        // When
+        fileLogStore.deleteTransactionsAtOrBefore(2);
+
+        // Then
+        assertThat(fileLogStore.readTransactionsAfter(0))
+                .containsExactly(entry3);
+    }
+
     private TransactionLogEntry logEntry(long number, StateStoreTransaction<?> transaction) {
         return new TransactionLogEntry(number, DEFAULT_UPDATE_TIME, transaction);
     }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.transactionlog;
+
+import sleeper.core.statestore.transactionlog.DuplicateTransactionNumberException;
+import sleeper.core.statestore.transactionlog.InMemoryTransactionLogStore;
+import sleeper.core.statestore.transactionlog.TransactionLogEntry;
+import sleeper.core.statestore.transactionlog.TransactionLogStore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory transaction log store which can be shared between threads, with a delay on each call to simulate the
+ * latency of DynamoDB and S3. Counts attempts to add transactions, and attempts that failed because another process
+ * added a transaction first.
+ */
+public class SimulatedTransactionLogStore implements TransactionLogStore {
+
+    private final InMemoryTransactionLogStore store = new InMemoryTransactionLogStore();
+    private final Duration latency;
+    private final AtomicLong addAttempts = new AtomicLong();
+    private final AtomicLong addConflicts = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+
+    public SimulatedTransactionLogStore(Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public void addTransaction(TransactionLogEntry entry) throws DuplicateTransactionNumberException {
+        simulateLatency();
+        addAttempts.incrementAndGet();
+        try {
+            synchronized (store) {
+                store.addTransaction(entry);
+            }
+        } catch (DuplicateTransactionNumberException e) {
+            addConflicts.incrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<TransactionLogEntry> readTransactionsAfter(long lastTransactionNumber) {
+        simulateLatency();
+        reads.incrementAndGet();
+        List<TransactionLogEntry> entries;
+        synchronized (store) {
+            entries = store.readTransactionsAfter(lastTransactionNumber).collect(Collectors.toUnmodifiableList());
+        }
+        return entries.stream();
+    }
+
+    @Override
+    public void deleteTransactionsAtOrBefore(long transactionNumber) {
+        simulateLatency();
+        synchronized (store) {
+            store.deleteTransactionsAtOrBefore(transactionNumber);
+        }
+    }
+
+    public long getAddAttempts() {
+        return addAttempts.get();
+    }
+
+    public long getAddConflicts() {
+        return addConflicts.get();
+    }
+
+    public long getReads() {
+        return reads.get();
+    }
+
+    private void simulateLatency() {
+        if (latency.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted simulating latency", e);
+        }
+    }
+}
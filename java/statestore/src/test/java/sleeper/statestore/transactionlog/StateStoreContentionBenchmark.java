@@ -0,0 +1,278 @@
+/*
+ * Copyright 2022-2024 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package sleeper.statestore.transactionlog;
+
+import sleeper.core.partition.PartitionTree;
+import sleeper.core.partition.PartitionsBuilder;
+import sleeper.core.schema.Schema;
+import sleeper.core.schema.type.LongType;
+import sleeper.core.statestore.FileReference;
+import sleeper.core.statestore.FileReferenceFactory;
+import sleeper.core.statestore.StateStore;
+import sleeper.core.statestore.StateStoreException;
+import sleeper.core.statestore.transactionlog.TransactionLogStateStore;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static sleeper.core.schema.SchemaTestHelper.schemaWithKey;
+import static sleeper.core.statestore.AssignJobIdRequest.assignJobOnPartitionToFiles;
+import static sleeper.core.table.TableStatusTestHelper.uniqueIdAndName;
+
+/**
+ * Measures how a transaction log state store behaves when many processes commit to it at once. Simulated ingest,
+ * compaction and garbage collection clients each run in their own thread with their own state store, sharing an
+ * in-memory transaction log with optional latency to model DynamoDB and S3. Reports the rate of commits, how often a
+ * commit had to be retried because another process got there first, and the latency of commits including retries.
+ * <p>
+ * This can be run with no arguments to use defaults, or with the arguments:
+ * {@code <ingest clients> <compaction clients> <GC clients> <duration seconds> <latency milliseconds>}
+ */
+public class StateStoreContentionBenchmark {
+
+    private static final Schema SCHEMA = schemaWithKey("key", new LongType());
+    private static final int FILES_PER_COMPACTION = 10;
+    private static final int MAX_FILES_PER_GC = 1000;
+    private static final Duration PAUSE_WHEN_IDLE = Duration.ofMillis(10);
+
+    private final SimulatedTransactionLogStore filesLogStore;
+    private final SimulatedTransactionLogStore partitionsLogStore;
+    private final PartitionTree partitions = new PartitionsBuilder(SCHEMA).singlePartition("root").buildTree();
+    private final FileReferenceFactory fileFactory = FileReferenceFactory.from(partitions);
+    private final Map<Operation, OperationStats> statsByOperation = new EnumMap<>(Operation.class);
+
+    public StateStoreContentionBenchmark(Duration latency) {
+        filesLogStore = new SimulatedTransactionLogStore(latency);
+        partitionsLogStore = new SimulatedTransactionLogStore(latency);
+        for (Operation operation : Operation.values()) {
+            statsByOperation.put(operation, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 0 && args.length != 5) {
+            throw new IllegalArgumentException("Usage: [<ingest clients> <compaction clients> <GC clients> <duration seconds> <latency milliseconds>]");
+        }
+        int ingestClients = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int compactionClients = args.length > 0 ? Integer.parseInt(args[1]) : 2;
+        int gcClients = args.length > 0 ? Integer.parseInt(args[2]) : 1;
+        Duration duration = Duration.ofSeconds(args.length > 0 ? Long.parseLong(args[3]) : 30);
+        Duration latency = Duration.ofMillis(args.length > 0 ? Long.parseLong(args[4]) : 10);
+
+        StateStoreContentionBenchmark benchmark = new StateStoreContentionBenchmark(latency);
+        benchmark.run(ingestClients, compactionClients, gcClients, duration);
+        System.out.printf("Ran %s ingest, %s compaction and %s GC clients for %s with %sms latency%n",
+                ingestClients, compactionClients, gcClients, duration, latency.toMillis());
+        benchmark.printResults(System.out, duration);
+    }
+
+    /**
+     * Runs the clients against the state store until the duration has passed.
+     *
+     * @param  ingestClients     the number of clients adding files
+     * @param  compactionClients the number of clients creating and committing compaction jobs
+     * @param  gcClients         the number of clients deleting files which are ready for garbage collection
+     * @param  duration          how long to run the clients for
+     * @throws Exception         if any client failed unexpectedly
+     */
+    public void run(int ingestClients, int compactionClients, int gcClients, Duration duration) throws Exception {
+        createStateStore().initialise(partitions.getAllPartitions());
+        Instant endTime = Instant.now().plus(duration);
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < ingestClients; i++) {
+            clients.add(this::ingest);
+        }
+        for (int i = 0; i < compactionClients; i++) {
+            clients.add(this::compact);
+        }
+        for (int i = 0; i < gcClients; i++) {
+            clients.add(this::garbageCollect);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(clients.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Client client : clients) {
+                StateStore stateStore = createStateStore();
+                futures.add(executor.submit(() -> {
+                    while (Instant.now().isBefore(endTime)) {
+                        client.runOnce(stateStore);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes a report of the commits made during the run.
+     *
+     * @param out      the stream to write to
+     * @param duration how long the clients were run for
+     */
+    public void printResults(PrintStream out, Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+        for (Operation operation : Operation.values()) {
+            OperationStats stats = statsByOperation.get(operation);
+            List<Long> latencies = stats.sortedLatencies();
+            out.printf("%s: %s commits (%.1f/s), %s failed, latency p50 %sms, p99 %sms%n",
+                    operation.description, latencies.size(), latencies.size() / seconds, stats.getFailures(),
+                    percentileMillis(latencies, 50), percentileMillis(latencies, 99));
+        }
+        out.printf("Files log: %s transactions attempted, %s retried after conflict, %s reads%n",
+                filesLogStore.getAddAttempts(), filesLogStore.getAddConflicts(), filesLogStore.getReads());
+    }
+
+    private void ingest(StateStore stateStore) {
+        FileReference file = fileFactory.rootFile(UUID.randomUUID() + ".parquet", 100);
+        commit(Operation.INGEST, () -> stateStore.addFile(file));
+    }
+
+    private void compact(StateStore stateStore) throws StateStoreException, InterruptedException {
+        List<FileReference> inputFiles = stateStore.getFileReferencesWithNoJobId().stream()
+                .limit(FILES_PER_COMPACTION)
+                .collect(Collectors.toUnmodifiableList());
+        if (inputFiles.size() < FILES_PER_COMPACTION) {
+            Thread.sleep(PAUSE_WHEN_IDLE.toMillis());
+            return;
+        }
+        String jobId = UUID.randomUUID().toString();
+        List<String> filenames = inputFiles.stream().map(FileReference::getFilename).collect(Collectors.toUnmodifiableList());
+        long records = inputFiles.stream().mapToLong(FileReference::getNumberOfRecords).sum();
+        FileReference outputFile = fileFactory.rootFile(jobId + ".parquet", records);
+        if (commit(Operation.ASSIGN_JOB, () -> stateStore.assignJobIds(List.of(
+                assignJobOnPartitionToFiles(jobId, "root", filenames))))) {
+            commit(Operation.COMPACTION, () -> stateStore.atomicallyReplaceFileReferencesWithNewOne(
+                    jobId, "root", filenames, outputFile));
+        }
+    }
+
+    private void garbageCollect(StateStore stateStore) throws StateStoreException, InterruptedException {
+        List<String> filenames = stateStore.getReadyForGCFilenamesBefore(Instant.now())
+                .limit(MAX_FILES_PER_GC)
+                .collect(Collectors.toUnmodifiableList());
+        if (filenames.isEmpty()) {
+            Thread.sleep(PAUSE_WHEN_IDLE.toMillis());
+            return;
+        }
+        commit(Operation.GC, () -> stateStore.deleteGarbageCollectedFileReferenceCounts(filenames));
+    }
+
+    private boolean commit(Operation operation, Commit commit) {
+        long startNanos = System.nanoTime();
+        try {
+            commit.run();
+            statsByOperation.get(operation).success(System.nanoTime() - startNanos);
+            return true;
+        } catch (StateStoreException e) {
+            statsByOperation.get(operation).failure();
+            return false;
+        }
+    }
+
+    private StateStore createStateStore() {
+        return TransactionLogStateStore.builder()
+                .sleeperTable(uniqueIdAndName("benchmark-table-id", "benchmark-table"))
+                .schema(SCHEMA)
+                .filesLogStore(filesLogStore)
+                .partitionsLogStore(partitionsLogStore)
+                .build();
+    }
+
+    private static String percentileMillis(List<Long> sortedNanos, int percentile) {
+        if (sortedNanos.isEmpty()) {
+            return "-";
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.size()) - 1;
+        return String.format("%.1f", sortedNanos.get(Math.max(index, 0)) / 1_000_000.0);
+    }
+
+    /**
+     * A type of commit made by the clients.
+     */
+    private enum Operation {
+        INGEST("Ingest"),
+        ASSIGN_JOB("Assign compaction job"),
+        COMPACTION("Compaction commit"),
+        GC("Garbage collection");
+
+        private final String description;
+
+        Operation(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * Records the outcome of commits of one type, across all clients.
+     */
+    private static class OperationStats {
+        private final List<Long> latencyNanos = Collections.synchronizedList(new ArrayList<>());
+        private long failures;
+
+        void success(long nanos) {
+            latencyNanos.add(nanos);
+        }
+
+        synchronized void failure() {
+            failures++;
+        }
+
+        synchronized long getFailures() {
+            return failures;
+        }
+
+        List<Long> sortedLatencies() {
+            List<Long> sorted;
+            synchronized (latencyNanos) {
+                sorted = new ArrayList<>(latencyNanos);
+            }
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * A simulated client which repeatedly makes commits to the state store.
+     */
+    @FunctionalInterface
+    private interface Client {
+        void runOnce(StateStore stateStore) throws StateStoreException, InterruptedException;
+    }
+
+    /**
+     * A commit to the state store.
+     */
+    @FunctionalInterface
+    private interface Commit {
+        void run() throws StateStoreException;
+    }
+}
@@ -0,0 +1,41 @@
+#!/bin/bash
+# Copyright 2022-2024 Crown Copyright
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+set -e
+unset CDPATH
+
+THIS_DIR=$(cd "$(dirname "$0")" && pwd)
+PROJECT_ROOT=$(dirname "$(dirname "${THIS_DIR}")")
+
+if [ "$#" -lt 1 ]; then
+  echo "Usage: $0 <output-directory> <optional JMH arguments>"
+  echo "Example: $0 benchmark-results MergingIteratorBenchmark -p numInputs=10"
+  exit 1
+fi
+
+OUTPUT_DIR=$(mkdir -p "$1" && cd "$1" && pwd)
+shift
+
+pushd "${PROJECT_ROOT}/java"
+echo "Building..."
+mvn package -Pquick -q -pl benchmarks -am
+VERSION=$(mvn -q -DforceStdout help:evaluate -Dexpression=project.version)
+COMMIT=$(git rev-parse --short HEAD)
+popd
+
+RESULTS_FILE="${OUTPUT_DIR}/benchmarks-${COMMIT}.json"
+echo "Running, writing results to ${RESULTS_FILE}"
+java -jar "${PROJECT_ROOT}/java/benchmarks/target/benchmarks-${VERSION}-utility.jar" \
+  -rf json -rff "${RESULTS_FILE}" "$@"